@@ -5,6 +5,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.telegram.telegrambots.longpolling.starter.TelegramBotStarterConfiguration;
 
 import io.swagger.v3.oas.annotations.OpenAPIDefinition;
@@ -13,6 +14,7 @@ import io.swagger.v3.oas.annotations.info.Info;
 @SpringBootApplication
 @OpenAPIDefinition(info = @Info(title = "Project API", version = "v1"))
 @Import({TelegramBotStarterConfiguration.class})
+@EnableScheduling
 public class MyTodoListApplication {
 
   private static final Logger logger = LoggerFactory.getLogger(MyTodoListApplication.class);
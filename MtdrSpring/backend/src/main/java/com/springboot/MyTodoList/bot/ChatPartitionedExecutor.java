@@ -0,0 +1,185 @@
+package com.springboot.MyTodoList.bot;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongConsumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs tasks on a fixed pool of worker threads, one at a time and in order for each chat.
+ *
+ * Tasks for different chats run in parallel. At most maxQueued tasks may be waiting
+ * or running in total; submit blocks while the limit is reached, which in turn stops
+ * the bot from fetching more updates. A single chat can't hold more than maxPerChat
+ * of those slots; updates beyond that are dropped so one chat can't starve the rest,
+ * and onFull is told about the chat the first time that happens until its queue
+ * empties.
+ */
+public class ChatPartitionedExecutor {
+  private final Logger logger = LoggerFactory.getLogger(ChatPartitionedExecutor.class);
+
+  // A worker runs this many tasks of a chat before letting other chats go first
+  private static final int BATCH = 8;
+
+  private final ExecutorService workers;
+  private final Semaphore capacity;
+  private final int maxPerChat;
+  private final LongConsumer onFull;
+  private final Map<Long, ChatQueue> chats = new HashMap<>();
+
+  private final class ChatQueue {
+    final long chatId;
+    final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+    // Submits that took a slot of the chat and are waiting for overall capacity
+    int reserved = 0;
+    boolean scheduled = false;
+    // Whether an update was dropped since the queue was last empty
+    boolean full = false;
+
+    ChatQueue(long chatId) {
+      this.chatId = chatId;
+    }
+  }
+
+  public ChatPartitionedExecutor(int threads, int maxQueued, int maxPerChat) {
+    this(threads, maxQueued, maxPerChat, chatId -> {});
+  }
+
+  /**
+   * @param onFull called with a chat whose update was dropped, once until the
+   *     chat's queue empties, e.g. to tell the user to wait
+   */
+  public ChatPartitionedExecutor(
+      int threads, int maxQueued, int maxPerChat, LongConsumer onFull) {
+    this.capacity = new Semaphore(maxQueued);
+    this.maxPerChat = maxPerChat;
+    this.onFull = onFull;
+    AtomicInteger count = new AtomicInteger();
+    ThreadFactory factory =
+        r -> {
+          Thread thread = new Thread(r, "bot-worker-" + count.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        };
+    // Chats are scheduled at most once each, so the pool's own queue never holds
+    // more than the number of active chats.
+    this.workers =
+        new ThreadPoolExecutor(
+            threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), factory);
+  }
+
+  /**
+   * Queues a task for a chat, blocking while the executor is full.
+   *
+   * @return false if the task was dropped because the chat has too many pending tasks
+   * @throws InterruptedException if interrupted while waiting for room
+   */
+  public boolean submit(long chatId, Runnable task) throws InterruptedException {
+    ChatQueue queue;
+    boolean accepted;
+    boolean notify = false;
+    synchronized (chats) {
+      // The chat's slot is taken here, so concurrent submits can't go over the limit
+      queue = chats.computeIfAbsent(chatId, ChatQueue::new);
+      accepted = queue.tasks.size() + queue.reserved < maxPerChat;
+      if (accepted) {
+        queue.reserved++;
+      } else {
+        notify = !queue.full;
+        queue.full = true;
+      }
+    }
+    if (!accepted) {
+      logger.warn("Too many pending updates for chat {}, dropping update.", chatId);
+      if (notify) {
+        onFull.accept(chatId);
+      }
+      return false;
+    }
+    try {
+      capacity.acquire();
+    } catch (InterruptedException e) {
+      synchronized (chats) {
+        queue.reserved--;
+        if (queue.tasks.isEmpty() && queue.reserved == 0 && !queue.scheduled) {
+          chats.remove(chatId);
+        }
+      }
+      throw e;
+    }
+    synchronized (chats) {
+      queue.reserved--;
+      queue.tasks.add(task);
+      if (!queue.scheduled) {
+        queue.scheduled = true;
+        workers.execute(() -> drain(queue));
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Tasks waiting or running, across all chats.
+   */
+  public int pending() {
+    synchronized (chats) {
+      return chats.values().stream().mapToInt(q -> q.tasks.size()).sum();
+    }
+  }
+
+  private void drain(ChatQueue queue) {
+    for (int i = 0; i < BATCH; i++) {
+      Runnable task;
+      synchronized (chats) {
+        task = queue.tasks.peek();
+      }
+      try {
+        task.run();
+      } catch (RuntimeException e) {
+        logger.error("Error processing update for chat {}", queue.chatId, e);
+      } finally {
+        capacity.release();
+      }
+      synchronized (chats) {
+        // Only removed once done, so pending() counts running tasks too
+        queue.tasks.poll();
+        if (queue.tasks.isEmpty()) {
+          queue.scheduled = false;
+          queue.full = false;
+          // A submit holding a slot will add to this queue, so it must stay mapped
+          if (queue.reserved == 0) {
+            chats.remove(queue.chatId);
+          }
+          return;
+        }
+      }
+    }
+    // More left: go to the back of the line
+    workers.execute(() -> drain(queue));
+  }
+
+  /**
+   * Stops accepting tasks and waits briefly for the running ones to finish.
+   */
+  public void shutdown() {
+    workers.shutdown();
+    try {
+      if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+        workers.shutdownNow();
+      }
+    } catch (InterruptedException e) {
+      workers.shutdownNow();
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,269 @@
+package com.springboot.MyTodoList.bot;
+
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.telegram.telegrambots.meta.api.methods.botapimethods.BotApiMethod;
+import org.telegram.telegrambots.meta.api.methods.send.SendChatAction;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+import org.telegram.telegrambots.meta.generics.TelegramClient;
+
+/**
+ * Sends calls to the Telegram API in the background, within Telegram's rate limits,
+ * so commands don't wait on the network.
+ *
+ * Calls to the same chat are sent one at a time and in order. Every chat has a
+ * token bucket (private chats and groups have different limits), and all calls
+ * share a global one. When Telegram answers 429, the chat waits as long as
+ * retry_after says and the call is retried. A chat action ("typing...") with a
+ * newer call queued behind it is dropped, since that call would end it anyway.
+ *
+ * All buckets are per instance. Telegram's limit is for the whole bot, so when
+ * several replicas run, each one must be given its share of it (see TelegramBot).
+ */
+public class OutboundDispatcher {
+  private final Logger logger = LoggerFactory.getLogger(OutboundDispatcher.class);
+
+  private static final int MAX_ATTEMPTS = 3;
+  private static final int CHAT_BURST = 3;
+  // Lane for calls that don't belong to a chat; no Telegram chat has id 0
+  private static final long NO_CHAT = 0L;
+
+  private final TelegramClient client;
+  private final TokenBucket global;
+  private final double chatPerSecond;
+  private final double groupPerSecond;
+  private final int maxQueued;
+  private final AtomicInteger queued = new AtomicInteger();
+  private final ScheduledExecutorService scheduler;
+
+  // Only touched from the scheduler thread
+  private final Map<Long, Lane> lanes = new LinkedHashMap<>();
+  private ScheduledFuture<?> wakeUp;
+
+  private static final class Call<T extends Serializable> {
+    final BotApiMethod<T> method;
+    final CompletableFuture<T> result = new CompletableFuture<>();
+    int attempts = 0;
+
+    Call(BotApiMethod<T> method) {
+      this.method = method;
+    }
+  }
+
+  private static final class Lane {
+    final long chatId;
+    final TokenBucket bucket;
+    final ArrayDeque<Call<?>> calls = new ArrayDeque<>();
+    boolean inFlight = false;
+    long blockedUntil;
+
+    Lane(long chatId, TokenBucket bucket, long now) {
+      this.chatId = chatId;
+      this.bucket = bucket;
+      this.blockedUntil = now;
+    }
+  }
+
+  /**
+   * @param globalPerSecond calls per second across all chats, from this instance
+   * @param chatPerSecond calls per second to a single private chat
+   * @param groupPerMinute calls per minute to a single group
+   * @param maxQueued calls that may be waiting before new ones are rejected
+   */
+  public OutboundDispatcher(
+      TelegramClient client,
+      double globalPerSecond,
+      double chatPerSecond,
+      double groupPerMinute,
+      int maxQueued) {
+    this.client = client;
+    this.global = new TokenBucket((int) Math.ceil(globalPerSecond), globalPerSecond, System::nanoTime);
+    this.chatPerSecond = chatPerSecond;
+    this.groupPerSecond = groupPerMinute / 60;
+    this.maxQueued = maxQueued;
+    this.scheduler =
+        Executors.newSingleThreadScheduledExecutor(
+            r -> {
+              Thread thread = new Thread(r, "bot-outbound");
+              thread.setDaemon(true);
+              return thread;
+            });
+  }
+
+  /**
+   * Queues a call to the Telegram API.
+   *
+   * @param chatId the chat the call is for, or null if it isn't for a chat
+   * @return the result of the call. Fails with the error from Telegram, or with
+   *     RejectedExecutionException if too many calls are waiting. Dropped chat
+   *     actions complete with false.
+   */
+  public <T extends Serializable> CompletableFuture<T> submit(Long chatId, BotApiMethod<T> method) {
+    Call<T> call = new Call<>(method);
+    if (queued.incrementAndGet() > maxQueued) {
+      queued.decrementAndGet();
+      logger.warn("Too many pending Telegram calls, dropping {}", method.getMethod());
+      call.result.completeExceptionally(
+          new RejectedExecutionException("Too many pending Telegram calls"));
+      return call.result;
+    }
+    scheduler.execute(
+        () -> {
+          long key = chatId != null ? chatId : NO_CHAT;
+          lanes.computeIfAbsent(key, this::newLane).calls.add(call);
+          pump();
+        });
+    return call.result;
+  }
+
+  /**
+   * Calls waiting or being sent.
+   */
+  public int pending() {
+    return queued.get();
+  }
+
+  private Lane newLane(long chatId) {
+    long now = System.nanoTime();
+    if (chatId == NO_CHAT) {
+      return new Lane(chatId, null, now);
+    }
+    // Group and channel ids are negative
+    double rate = chatId < 0 ? groupPerSecond : chatPerSecond;
+    return new Lane(chatId, new TokenBucket(CHAT_BURST, rate, System::nanoTime), now);
+  }
+
+  /**
+   * Sends whatever the limits allow and schedules itself for when more can be sent.
+   */
+  private void pump() {
+    long now = System.nanoTime();
+    long nextWake = Long.MAX_VALUE;
+    for (Lane lane : new ArrayList<>(lanes.values())) {
+      if (lane.inFlight) {
+        continue;
+      }
+      dropSupersededActions(lane);
+      if (lane.calls.isEmpty()) {
+        // Kept until its bucket refills, so a chat can't get a fresh burst by pausing
+        if (lane.bucket == null || lane.bucket.isFull()) {
+          lanes.remove(lane.chatId);
+        }
+        continue;
+      }
+      long wait =
+          Math.max(
+              lane.blockedUntil - now,
+              Math.max(
+                  global.nanosUntilAvailable(),
+                  lane.bucket != null ? lane.bucket.nanosUntilAvailable() : 0));
+      if (wait > 0) {
+        nextWake = Math.min(nextWake, wait);
+        continue;
+      }
+      global.tryTake();
+      if (lane.bucket != null) {
+        lane.bucket.tryTake();
+      }
+      // Back of the line, so busy chats take turns
+      lanes.remove(lane.chatId);
+      lanes.put(lane.chatId, lane);
+      send(lane, lane.calls.peek());
+    }
+
+    if (wakeUp != null) {
+      wakeUp.cancel(false);
+      wakeUp = null;
+    }
+    if (nextWake != Long.MAX_VALUE) {
+      wakeUp = scheduler.schedule(this::pump, nextWake, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private void dropSupersededActions(Lane lane) {
+    while (lane.calls.size() > 1 && lane.calls.peek().method instanceof SendChatAction) {
+      Call<Boolean> action = (Call<Boolean>) lane.calls.poll();
+      queued.decrementAndGet();
+      action.result.complete(false);
+    }
+  }
+
+  private <T extends Serializable> void send(Lane lane, Call<T> call) {
+    lane.inFlight = true;
+    call.attempts++;
+    CompletableFuture<T> response;
+    try {
+      response = client.executeAsync(call.method);
+    } catch (TelegramApiException e) {
+      response = CompletableFuture.failedFuture(e);
+    }
+    response.whenComplete(
+        (result, error) -> {
+          Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+          Integer retryAfter = retryAfter(cause);
+          boolean retry = retryAfter != null && call.attempts < MAX_ATTEMPTS;
+          // Completed here rather than on the scheduler thread, so that whatever
+          // the caller chains to the result doesn't hold up other chats
+          if (cause == null) {
+            call.result.complete(result);
+          } else if (!retry) {
+            logger.warn(
+                "Telegram call {} for chat {} failed: {}",
+                call.method.getMethod(),
+                lane.chatId,
+                cause.getMessage());
+            call.result.completeExceptionally(cause);
+          }
+          scheduler.execute(() -> onDone(lane, retry ? retryAfter : null));
+        });
+  }
+
+  private void onDone(Lane lane, Integer retryAfter) {
+    lane.inFlight = false;
+    if (retryAfter != null) {
+      logger.warn("Rate limited by Telegram on chat {}, retrying in {}s", lane.chatId, retryAfter);
+      lane.blockedUntil = System.nanoTime() + TimeUnit.SECONDS.toNanos(retryAfter);
+    } else {
+      lane.calls.poll();
+      queued.decrementAndGet();
+    }
+    pump();
+  }
+
+  private static Integer retryAfter(Throwable error) {
+    if (error instanceof TelegramApiRequestException) {
+      TelegramApiRequestException requestError = (TelegramApiRequestException) error;
+      if (Integer.valueOf(429).equals(requestError.getErrorCode())) {
+        Integer retryAfter =
+            requestError.getParameters() != null
+                ? requestError.getParameters().getRetryAfter()
+                : null;
+        return retryAfter != null ? retryAfter : 1;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Stops sending. Calls still queued are abandoned.
+   */
+  public void shutdown() {
+    scheduler.shutdownNow();
+  }
+}
@@ -1,21 +1,27 @@
 package com.springboot.MyTodoList.bot;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.net.URI;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import javax.annotation.PreDestroy;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.telegram.telegrambots.client.okhttp.OkHttpTelegramClient;
-import org.telegram.telegrambots.longpolling.BotSession;
 import org.telegram.telegrambots.longpolling.interfaces.LongPollingUpdateConsumer;
-import org.telegram.telegrambots.longpolling.starter.AfterBotRegistration;
-import org.telegram.telegrambots.longpolling.starter.SpringLongPollingBot;
-import org.telegram.telegrambots.longpolling.util.LongPollingSingleThreadUpdateConsumer;
+import org.telegram.telegrambots.meta.TelegramUrl;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.methods.updates.SetWebhook;
 import org.telegram.telegrambots.meta.api.objects.Update;
+import org.telegram.telegrambots.meta.api.objects.message.Message;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
 import org.telegram.telegrambots.meta.generics.TelegramClient;
 
 import com.springboot.MyTodoList.bot.command.core.CommandProcessor;
@@ -23,17 +29,26 @@ import com.springboot.MyTodoList.bot.command.core.CommandRegistry;
 import com.springboot.MyTodoList.bot.command.core.HelpCommand;
 import com.springboot.MyTodoList.bot.command.core.StartCommand;
 import com.springboot.MyTodoList.bot.command.core.WhoamiCommand;
+import com.springboot.MyTodoList.bot.command.misc.KpiCommand;
 import com.springboot.MyTodoList.bot.command.task.NewTaskCommand;
 import com.springboot.MyTodoList.bot.command.task.TaskCommand;
 import com.springboot.MyTodoList.bot.command.task.TaskListCommand;
 import com.springboot.MyTodoList.bot.command.task.DoneTaskCommand;
-import com.springboot.MyTodoList.model.User;
+import com.springboot.MyTodoList.bot.state.ConversationStateStore;
+import com.springboot.MyTodoList.service.KpiService;
 import com.springboot.MyTodoList.service.SprintService;
 import com.springboot.MyTodoList.service.TaskService;
 import com.springboot.MyTodoList.service.UserService;
 
+/**
+ * Processes the updates received from Telegram, whether they come from long
+ * polling (TelegramPollingBot) or from the webhook (TelegramWebhookController).
+ */
 @Component
-public class TelegramBot implements SpringLongPollingBot, LongPollingSingleThreadUpdateConsumer {
+public class TelegramBot implements LongPollingUpdateConsumer {
+  private static final String TOO_MANY_PENDING =
+      "You have too many pending requests. Please wait for the answers before sending more.";
+
   private final TelegramClient client;
   private final Logger logger = LoggerFactory.getLogger(TelegramBot.class);
   private final CommandRegistry registry;
@@ -42,27 +57,64 @@ public class TelegramBot implements SpringLongPollingBot, LongPollingSingleThrea
   private final TaskService taskService;
   private final SprintService sprintService;
   private final UserService userService;
+  private final KpiService kpiService;
   private final UserAuthenticator userAuthenticator;
-
-  private Map<Long, Optional<User>> allowedUsers = new HashMap<>();
+  private final ChatPartitionedExecutor executor;
+  private final OutboundDispatcher outbound;
+  private final ConversationStateStore conversationState;
+  private final Executor backgroundExecutor;
 
   @Autowired
   public TelegramBot(
       @Value("${telegram.bot.token}") String token,
+      @Value("${telegram.bot.api-url:https://api.telegram.org}") URI apiUrl,
+      @Value("${bot.workers:8}") int workers,
+      @Value("${bot.queue.capacity:500}") int queueCapacity,
+      @Value("${bot.queue.per-chat:20}") int perChatCapacity,
+      @Value("${bot.outbound.global-per-second:30}") double outboundPerSecond,
+      @Value("${bot.outbound.chat-per-second:1}") double outboundChatPerSecond,
+      @Value("${bot.outbound.group-per-minute:20}") double outboundGroupPerMinute,
+      @Value("${bot.outbound.max-queued:1000}") int outboundCapacity,
+      @Value("${bot.replicas.count:1}") int replicas,
       TaskService taskService,
       SprintService sprintService,
-      UserService userService) {
+      UserService userService,
+      KpiService kpiService,
+      UserAuthenticator userAuthenticator,
+      ConversationStateStore conversationState,
+      @Qualifier("applicationTaskExecutor") Executor backgroundExecutor) {
     this.token = token;
+    this.backgroundExecutor = backgroundExecutor;
+    this.executor =
+        new ChatPartitionedExecutor(
+            workers,
+            queueCapacity,
+            perChatCapacity,
+            chatId -> sendText(chatId, TOO_MANY_PENDING));
     this.taskService = taskService;
     this.userService = userService;
     this.sprintService = sprintService;
-    this.userAuthenticator = new UserAuthenticator(userService);
-    this.client = new OkHttpTelegramClient(getBotToken());
+    this.kpiService = kpiService;
+    this.conversationState = conversationState;
+    this.userAuthenticator = userAuthenticator;
+    this.client = new OkHttpTelegramClient(getBotToken(), telegramUrl(apiUrl));
+    // The global limit is Telegram's for the whole bot, shared by the replicas
+    // ChatRouter splits the chats between
+    this.outbound =
+        new OutboundDispatcher(
+            client,
+            outboundPerSecond / Math.max(1, replicas),
+            outboundChatPerSecond,
+            outboundGroupPerMinute,
+            outboundCapacity);
 
     this.registry = new CommandRegistry();
     registerCommands();
+    // Replies go out in the background, so workers never wait on Telegram
+    registry.getAll().forEach(command -> command.setDispatcher(outbound));
 
-    this.commandProcessor = new CommandProcessor(registry, client);
+    this.commandProcessor = new CommandProcessor(registry, client, conversationState);
+    commandProcessor.setDispatcher(outbound);
   }
 
   private void registerCommands() {
@@ -71,21 +123,88 @@ public class TelegramBot implements SpringLongPollingBot, LongPollingSingleThrea
     registry.registerCommand("/help", new HelpCommand(client));
     registry.registerCommand("/tasklist", new TaskListCommand(client, taskService, sprintService));
     registry.registerCommand("/taskdone", new DoneTaskCommand(client, taskService));
-    registry.registerCommand("/tasknew", new NewTaskCommand(client, taskService));
-    registry.registerCommand("task", new TaskCommand(client, taskService, sprintService));
+    registry.registerCommand(
+        "/tasknew", new NewTaskCommand(client, taskService, conversationState));
+    registry.registerCommand("/kpi", new KpiCommand(client, kpiService, backgroundExecutor));
+    registry.registerCommand(
+        "task", new TaskCommand(client, taskService, sprintService, conversationState));
+  }
+
+  // Lets the bot talk to something other than the real API, like a fake one in tests
+  private static TelegramUrl telegramUrl(URI apiUrl) {
+    int port = apiUrl.getPort();
+    if (port == -1) {
+      port = "http".equals(apiUrl.getScheme()) ? 80 : 443;
+    }
+    return new TelegramUrl(apiUrl.getScheme(), apiUrl.getHost(), port, false);
   }
 
-  @Override
   public String getBotToken() {
     return this.token;
   }
 
-  @Override
-  public LongPollingUpdateConsumer getUpdatesConsumer() {
-    return this;
+  /**
+   * The chat an update belongs to, for the update types the bot handles.
+   * Callbacks from buttons of inline messages have no message, nor a chat.
+   */
+  public static Optional<Long> chatIdOf(Update update) {
+    if (update.hasMessage()) {
+      return Optional.of(update.getMessage().getChatId());
+    } else if (update.hasCallbackQuery()) {
+      return Optional.ofNullable(update.getCallbackQuery().getMessage())
+          .map(message -> message.getChatId());
+    }
+    return Optional.empty();
   }
 
+  /**
+   * Hands each update to the worker pool. Updates of the same chat are processed
+   * one at a time in the order received, different chats in parallel.
+   */
   @Override
+  public void accept(List<Update> updates) {
+    for (Update update : updates) {
+      try {
+        dispatch(update);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+  }
+
+  /**
+   * Queues a single update for processing, blocking while the worker pool is full.
+   *
+   * @return false if the update was dropped, because it's of an unsupported type or
+   *     its chat has too many updates pending
+   */
+  public boolean dispatch(Update update) throws InterruptedException {
+    Optional<Long> chatId = chatIdOf(update);
+    if (chatId.isEmpty()) {
+      logger.error("Unsupported update type!");
+      return false;
+    }
+    return executor.submit(chatId.get(), () -> consume(update));
+  }
+
+  /**
+   * Sends a text to a chat through the same rate-limited queue as the replies.
+   *
+   * @return the message sent, or the error from Telegram
+   */
+  public CompletableFuture<Message> sendText(long chatId, String text) {
+    return outbound.submit(chatId, SendMessage.builder().chatId(chatId).text(text).build());
+  }
+
+  /**
+   * Asks Telegram to deliver updates to the given URL instead of holding them for
+   * long polling.
+   */
+  public void setWebhook(String url, String secretToken) throws TelegramApiException {
+    client.execute(SetWebhook.builder().url(url).secretToken(secretToken).build());
+  }
+
   public void consume(Update update) {
     Long senderId;
     if (update.hasMessage()) {
@@ -100,8 +219,9 @@ public class TelegramBot implements SpringLongPollingBot, LongPollingSingleThrea
     commandProcessor.processUpdate(update, userAuthenticator.authenticate(senderId));
   }
 
-  @AfterBotRegistration
-  public void afterRegistration(BotSession sesh) {
-    logger.info("Bot registered. running: " + sesh.isRunning());
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdown();
+    outbound.shutdown();
   }
 }
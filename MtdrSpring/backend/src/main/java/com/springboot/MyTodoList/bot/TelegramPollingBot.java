@@ -0,0 +1,40 @@
+package com.springboot.MyTodoList.bot;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.longpolling.BotSession;
+import org.telegram.telegrambots.longpolling.interfaces.LongPollingUpdateConsumer;
+import org.telegram.telegrambots.longpolling.starter.AfterBotRegistration;
+import org.telegram.telegrambots.longpolling.starter.SpringLongPollingBot;
+
+/**
+ * Fetches updates with long polling. Only one instance of the bot may poll at a
+ * time, so with several replicas use the webhook instead (bot.mode=webhook).
+ */
+@Component
+@ConditionalOnProperty(name = "bot.mode", havingValue = "polling", matchIfMissing = true)
+public class TelegramPollingBot implements SpringLongPollingBot {
+  private final Logger logger = LoggerFactory.getLogger(TelegramPollingBot.class);
+  private final TelegramBot bot;
+
+  public TelegramPollingBot(TelegramBot bot) {
+    this.bot = bot;
+  }
+
+  @Override
+  public String getBotToken() {
+    return bot.getBotToken();
+  }
+
+  @Override
+  public LongPollingUpdateConsumer getUpdatesConsumer() {
+    return bot;
+  }
+
+  @AfterBotRegistration
+  public void afterRegistration(BotSession sesh) {
+    logger.info("Bot registered. running: " + sesh.isRunning());
+  }
+}
@@ -0,0 +1,57 @@
+package com.springboot.MyTodoList.bot;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Allows bursts of up to capacity operations, refilled at a steady rate.
+ * Not thread-safe: OutboundDispatcher only uses it from its own thread.
+ */
+public class TokenBucket {
+  private final double capacity;
+  private final double tokensPerNano;
+  private final LongSupplier nanoTime;
+  private double tokens;
+  private long lastRefill;
+
+  /**
+   * @param nanoTime clock used for refilling, replaceable for tests
+   */
+  public TokenBucket(int capacity, double tokensPerSecond, LongSupplier nanoTime) {
+    this.capacity = capacity;
+    this.tokensPerNano = tokensPerSecond / 1e9;
+    this.nanoTime = nanoTime;
+    this.tokens = capacity;
+    this.lastRefill = nanoTime.getAsLong();
+  }
+
+  /**
+   * @return how long until a token is available, or 0 if there is one now
+   */
+  public long nanosUntilAvailable() {
+    refill();
+    return tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / tokensPerNano);
+  }
+
+  /**
+   * Takes a token if there is one.
+   */
+  public boolean tryTake() {
+    refill();
+    if (tokens < 1) {
+      return false;
+    }
+    tokens--;
+    return true;
+  }
+
+  public boolean isFull() {
+    refill();
+    return tokens >= capacity;
+  }
+
+  private void refill() {
+    long now = nanoTime.getAsLong();
+    tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+    lastRefill = now;
+  }
+}
@@ -1,33 +1,121 @@
 package com.springboot.MyTodoList.bot;
 
-import java.util.HashMap;
+import java.time.Duration;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 import com.springboot.MyTodoList.model.User;
-import com.springboot.MyTodoList.service.UserService;
+import com.springboot.MyTodoList.repository.UserRepository;
+import com.springboot.MyTodoList.service.UserChangedEvent;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Finds the User behind a Telegram sender, caching the result.
+ *
+ * Known users are cached for ttl, unknown senders for the (shorter) negativeTtl,
+ * so someone registered while the bot runs gets in without waiting long.
+ * Entries of the users changed through UserService are dropped once the change
+ * commits, which lets them in (or out) right away. Concurrent lookups of the
+ * same sender share one query.
+ *
+ * Only this replica hears about those changes: the others keep what they cached
+ * until it expires, so ttl is how long a deleted user can still use the bot there.
+ */
+@Component
 public class UserAuthenticator {
-  private final UserService userService;
+  private static final long SWEEP_INTERVAL_NANOS = Duration.ofMinutes(1).toNanos();
+
+  private final UserRepository userRepository;
   private final Logger logger = LoggerFactory.getLogger(UserAuthenticator.class);
-  private final Map<Long, Optional<User>> userCache = new HashMap<>();
+  private final Map<Long, Entry> userCache = new ConcurrentHashMap<>();
+  // Lookups running against the database, by sender
+  private final Map<Long, Load> loading = new ConcurrentHashMap<>();
+  private final long ttlNanos;
+  private final long negativeTtlNanos;
+  private final LongSupplier nanoTime;
+  private volatile long lastSweep;
+
+  private final Counter hits;
+  private final Counter misses;
+  private final Counter expirations;
+  private final Counter invalidations;
+
+  private static final class Entry {
+    final Optional<User> user;
+    final long expiresAt;
+
+    Entry(Optional<User> user, long expiresAt) {
+      this.user = user;
+      this.expiresAt = expiresAt;
+    }
+  }
 
-  private void initCache() {
-    this.userService.findAll().stream()
-        .forEach(
-            user -> {
-              // Some have no telegram ID yet
-              if (user.getID_Telegram() == null) return;
-              userCache.put(user.getID_Telegram(), Optional.of(user));
-            });
+  private static final class Load extends CompletableFuture<Entry> {
+    // Set if the sender is invalidated while the query runs, since the row it
+    // read may be the one just changed
+    volatile boolean invalidated;
   }
 
-  public UserAuthenticator(UserService userService) {
-    this.userService = userService;
-    initCache();
+  @Autowired
+  public UserAuthenticator(
+      UserRepository userRepository,
+      MeterRegistry meterRegistry,
+      @Value("${bot.auth.ttl:PT2M}") Duration ttl,
+      @Value("${bot.auth.negative-ttl:PT1M}") Duration negativeTtl) {
+    this(userRepository, meterRegistry, ttl, negativeTtl, System::nanoTime);
+  }
+
+  /**
+   * @param nanoTime clock used for expiry, replaceable for tests
+   */
+  public UserAuthenticator(
+      UserRepository userRepository,
+      MeterRegistry meterRegistry,
+      Duration ttl,
+      Duration negativeTtl,
+      LongSupplier nanoTime) {
+    this.userRepository = userRepository;
+    this.ttlNanos = ttl.toNanos();
+    this.negativeTtlNanos = negativeTtl.toNanos();
+    this.nanoTime = nanoTime;
+    this.lastSweep = nanoTime.getAsLong();
+
+    Gauge.builder("bot.auth.cache.size", userCache, Map::size)
+        .description("Telegram senders in the authentication cache")
+        .register(meterRegistry);
+    this.hits = lookups(meterRegistry, "hit");
+    this.misses = lookups(meterRegistry, "miss");
+    this.expirations = evictions(meterRegistry, "expired");
+    this.invalidations = evictions(meterRegistry, "invalidated");
+  }
+
+  private static Counter lookups(MeterRegistry meterRegistry, String result) {
+    return Counter.builder("bot.auth.cache.lookups")
+        .description("Authentications answered from the cache (hit) or the database (miss)")
+        .tag("result", result)
+        .register(meterRegistry);
+  }
+
+  private static Counter evictions(MeterRegistry meterRegistry, String cause) {
+    return Counter.builder("bot.auth.cache.evictions")
+        .description("Entries removed from the authentication cache")
+        .tag("cause", cause)
+        .register(meterRegistry);
   }
 
   /**
@@ -36,24 +124,99 @@ public class UserAuthenticator {
    * determines if the user is authenticated or not.
    */
   public Optional<User> authenticate(Long senderId) {
-    if (userCache.containsKey(senderId)) {
-      return userCache.get(senderId);
+    long now = nanoTime.getAsLong();
+    Entry cached = userCache.get(senderId);
+    if (cached != null && cached.expiresAt - now > 0) {
+      hits.increment();
+      return cached.user;
     }
 
+    // Whoever gets here first for a sender queries the database, the rest wait
+    // for its result instead of querying too. The query runs outside any map
+    // lock, so lookups of other senders aren't held up by it.
+    Load load = new Load();
+    Load running = loading.putIfAbsent(senderId, load);
+    if (running != null) {
+      return await(running).user;
+    }
+    try {
+      Entry entry = userCache.get(senderId);
+      if (entry == null || entry.expiresAt - nanoTime.getAsLong() <= 0) {
+        if (entry != null) {
+          expirations.increment();
+        }
+        entry = load(senderId, load);
+      }
+      load.complete(entry);
+      sweepIfDue(now);
+      return entry.user;
+    } catch (RuntimeException e) {
+      load.completeExceptionally(e);
+      throw e;
+    } finally {
+      loading.remove(senderId, load);
+    }
+  }
+
+  private Entry load(Long senderId, Load load) {
+    misses.increment();
     logger.info("Authenticating " + senderId + "...");
-    Optional<User> queryResult =
-      userService.findAll().stream()
-        .filter(user -> user.getID_Telegram() == senderId)
-        .findFirst();
-
-    // NOTE: If a user sends a message and is not found on the DB
-    // the cache will mark them as an unauthenticated user indefinitely.
-    // If the user is registered without restarting the bot, they will still
-    // be locked out of authenticated commands.
-    // TODO: implement a mechanism to force a DB query and "refresh" a user's
-    // status on the cache (also prevent abuse?)
-    userCache.put(senderId, queryResult);
-    return queryResult;
+    Optional<User> user = userRepository.findByIdTelegram(senderId);
+    long ttl = user.isPresent() ? ttlNanos : negativeTtlNanos;
+    Entry entry = new Entry(user, nanoTime.getAsLong() + ttl);
+    userCache.put(senderId, entry);
+    // Checked after the put: an invalidation either flagged this load already
+    // or removes the entry itself
+    if (load.invalidated) {
+      userCache.remove(senderId, entry);
+    }
+    return entry;
+  }
+
+  private static Entry await(CompletableFuture<Entry> load) {
+    try {
+      return load.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Forgets what's known about a sender, so the next message looks them up again.
+   * A lookup running meanwhile still answers its callers, but isn't cached.
+   */
+  public void invalidate(Long telegramId) {
+    if (telegramId == null) {
+      return;
+    }
+    Load running = loading.get(telegramId);
+    if (running != null) {
+      running.invalidated = true;
+    }
+    if (userCache.remove(telegramId) != null) {
+      invalidations.increment();
+    }
   }
-}
 
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void onUserChanged(UserChangedEvent event) {
+    event.getTelegramIds().forEach(this::invalidate);
+  }
+
+  private void sweepIfDue(long now) {
+    if (now - lastSweep <= SWEEP_INTERVAL_NANOS) {
+      return;
+    }
+    lastSweep = now;
+    // Unknown senders would otherwise pile up
+    userCache.forEach(
+        (id, entry) -> {
+          if (entry.expiresAt - now <= 0 && userCache.remove(id, entry)) {
+            expirations.increment();
+          }
+        });
+  }
+}
@@ -1,8 +1,6 @@
 package com.springboot.MyTodoList.bot.command.core;
 
-import java.util.HashMap;
 import java.util.Optional;
-import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -15,6 +13,9 @@ import org.telegram.telegrambots.meta.api.objects.name.BotName;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
 import org.telegram.telegrambots.meta.generics.TelegramClient;
 
+import com.springboot.MyTodoList.bot.OutboundDispatcher;
+import com.springboot.MyTodoList.bot.state.ConversationStateStore;
+import com.springboot.MyTodoList.bot.state.InMemoryConversationStateStore;
 import com.springboot.MyTodoList.model.User;
 
 /**
@@ -28,11 +29,20 @@ public class CommandProcessor {
 
   private final Logger logger = LoggerFactory.getLogger(CommandProcessor.class);
 
-  private Map<Long, String> currentCommand = new HashMap<>();
+  // The command a chat is in the middle of, if any
+  private static final String CURRENT_COMMAND = "command";
+  private final ConversationStateStore state;
+  private OutboundDispatcher dispatcher;
 
   public CommandProcessor(CommandRegistry registry, TelegramClient client) {
+    this(registry, client, new InMemoryConversationStateStore());
+  }
+
+  public CommandProcessor(
+      CommandRegistry registry, TelegramClient client, ConversationStateStore state) {
     this.registry = registry;
     this.client = client;
+    this.state = state;
     try {
       this.botName = client.execute(new GetMe()).getUserName();
     } catch (TelegramApiException e) {
@@ -40,6 +50,13 @@ public class CommandProcessor {
     }
   }
 
+  /**
+   * Sends the typing action through the dispatcher instead of waiting on it.
+   */
+  public void setDispatcher(OutboundDispatcher dispatcher) {
+    this.dispatcher = dispatcher;
+  }
+
   /**
    * Run a command, process its CommandResult and determine
    * the next steps.
@@ -67,27 +84,32 @@ public class CommandProcessor {
               .chatId(chatId)
               .action(ActionType.TYPING.toString())
               .build();
-      try {
-        client.execute(action);
-      } catch (TelegramApiException e) {
-        e.printStackTrace();
+      if (dispatcher != null) {
+        // Dropped if the command answers before it's sent
+        dispatcher.submit(chatId, action);
+      } else {
+        try {
+          client.execute(action);
+        } catch (TelegramApiException e) {
+          e.printStackTrace();
+        }
       }
     }
 
     CommandResult result = cmd.execute(context);
     switch (result.getState()) {
       case FINISH:
-        currentCommand.remove(chatId);
+        state.remove(CURRENT_COMMAND, chatId);
         break;
       case CONTINUE:
-        if (!currentCommand.containsKey(chatId)) {
-          currentCommand.put(chatId, commandName);
-        }
+        // Written on every step so the conversation doesn't expire while in use
+        String current = state.get(CURRENT_COMMAND, chatId, String.class).orElse(commandName);
+        state.put(CURRENT_COMMAND, chatId, current);
         break;
       case EXECUTE:
         String[] execArgs = result.getExecutedCommand().get();
         logger.info("command wants to execute: /" + execArgs[0]);
-        currentCommand.remove(chatId);
+        state.remove(CURRENT_COMMAND, chatId);
         processCommand(execArgs, update, user);
         break;
     }
@@ -105,14 +127,15 @@ public class CommandProcessor {
       return;
     }
     
-    if (currentCommand.containsKey(chatId)) {
+    Optional<String> current = state.get(CURRENT_COMMAND, chatId, String.class);
+    if (current.isPresent()) {
       TelegramCommand cmd =
           registry
-              .findCommand(currentCommand.get(chatId))
+              .findCommand(current.get())
               .orElseThrow(
                   () ->
                       new IllegalStateException(
-                          "current command in state " + currentCommand + " does not exist."));
+                          "current command " + current.get() + " does not exist."));
       runCommand(args, update, cmd, user);
     }
   } 
@@ -1,13 +1,17 @@
 package com.springboot.MyTodoList.bot.command.core;
 
+import java.io.Serializable;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
-import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.telegram.telegrambots.meta.api.methods.ActionType;
 import org.telegram.telegrambots.meta.api.methods.AnswerCallbackQuery;
+import org.telegram.telegrambots.meta.api.methods.botapimethods.BotApiMethod;
 import org.telegram.telegrambots.meta.api.methods.send.SendChatAction;
 import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
 import org.telegram.telegrambots.meta.api.methods.send.SendMessage.SendMessageBuilder;
@@ -16,8 +20,12 @@ import org.telegram.telegrambots.meta.api.objects.message.Message;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
 import org.telegram.telegrambots.meta.generics.TelegramClient;
 
+import com.springboot.MyTodoList.bot.OutboundDispatcher;
+
 public abstract class TelegramCommand {
+  private final Logger logger = LoggerFactory.getLogger(TelegramCommand.class);
   protected TelegramClient client;
+  private OutboundDispatcher dispatcher;
   private String name;
 
   private final String T_ME_URL = "https://t.me/";
@@ -91,20 +99,41 @@ public abstract class TelegramCommand {
     return this.name;
   }
 
-  public Optional<Message> sendMessage(Long chatId, ProcessMessage processor) {
-    var partial_msg = SendMessage.builder().chatId(chatId);
+  /**
+   * Makes the command send its calls through the dispatcher, in the background.
+   * Without one, calls are made directly and wait for Telegram's answer.
+   */
+  public void setDispatcher(OutboundDispatcher dispatcher) {
+    this.dispatcher = dispatcher;
+  }
 
-    SendMessage msg = processor.process(partial_msg);
+  /**
+   * Call a method of Telegram's API.
+   *
+   * @param chatId The chat the call is for, or null if it isn't for a chat.
+   * @returns A future with the result, failed if the call was not successful.
+   */
+  public <T extends Serializable> CompletableFuture<T> execute(
+      Long chatId, BotApiMethod<T> method) {
+    if (dispatcher != null) {
+      return dispatcher.submit(chatId, method);
+    }
     try {
-      return Optional.of(this.client.execute(msg));
+      return CompletableFuture.completedFuture(client.execute(method));
     } catch (TelegramApiException e) {
-      e.printStackTrace();
+      logger.warn("Telegram call {} failed: {}", method.getMethod(), e.getMessage());
+      return CompletableFuture.failedFuture(e);
     }
+  }
+
+  public CompletableFuture<Message> sendMessage(Long chatId, ProcessMessage processor) {
+    var partial_msg = SendMessage.builder().chatId(chatId);
 
-    return Optional.empty();
+    SendMessage msg = processor.process(partial_msg);
+    return execute(chatId, msg);
   }
 
-  public Optional<Message> sendMessage(Long chatId, String text) {
+  public CompletableFuture<Message> sendMessage(Long chatId, String text) {
     return sendMessage(chatId, msg -> msg.text(text).build());
   }
 
@@ -113,10 +142,10 @@ public abstract class TelegramCommand {
    *
    * @param context The context object provided by `execute` or `executeAuthenticated`.
    * @param processor A lambda that takes in a partially built message and returns a built message.
-   * @returns   An Optional<Message> that may be present or not depending on if the request was successful.
+   * @returns   A future with the sent message, failed if the request was not successful.
    *
    */
-  public Optional<Message> sendMessage(CommandContext context, ProcessMessage processor) {
+  public CompletableFuture<Message> sendMessage(CommandContext context, ProcessMessage processor) {
     return sendMessage(context.getChatId(), processor);
   }
 
@@ -125,10 +154,10 @@ public abstract class TelegramCommand {
    *
    * @param context The context object provided by `execute` or `executeAuthenticated`.
    * @param messageText The text of the message. Format will be plaintext.
-   * @returns   An Optional<Message> that may be present or not depending on if the request was successful.
+   * @returns   A future with the sent message, failed if the request was not successful.
    *
    */
-  public Optional<Message> sendMessage(CommandContext context, String messageText) {
+  public CompletableFuture<Message> sendMessage(CommandContext context, String messageText) {
     return this.sendMessage(context, msg -> msg.text(messageText).build());
   }
 
@@ -138,12 +167,7 @@ public abstract class TelegramCommand {
   public void sendAction(CommandContext context, ActionType actionType) {
     var action =
         SendChatAction.builder().chatId(context.getChatId()).action(actionType.toString()).build();
-
-    try {
-      this.client.execute(action);
-    } catch (TelegramApiException e) {
-      e.printStackTrace();
-    }
+    execute(context.getChatId(), action);
   }
 
   /**
@@ -151,23 +175,16 @@ public abstract class TelegramCommand {
    * with a simple text message.
    */
   public void answerCallbackQuery(CallbackQuery callback, String text) {
-    try {
-      client.execute(
-          AnswerCallbackQuery.builder().callbackQueryId(callback.getId()).text(text).build());
-    } catch (TelegramApiException e) {
-      e.printStackTrace();
-    }
+    Long chatId = callback.getMessage() != null ? callback.getMessage().getChatId() : null;
+    execute(
+        chatId, AnswerCallbackQuery.builder().callbackQueryId(callback.getId()).text(text).build());
   }
 
   /**
    * Answer a callback query with the provided object.
    */
   public void answerCallbackQuery(AnswerCallbackQuery answer) {
-    try {
-      client.execute(answer);
-    } catch (TelegramApiException e) {
-      e.printStackTrace();
-    }
+    execute(null, answer);
   }
 
   // The callbackQuery method has been removed.
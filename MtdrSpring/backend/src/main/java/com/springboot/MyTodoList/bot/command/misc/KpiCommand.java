@@ -1,25 +1,120 @@
 package com.springboot.MyTodoList.bot.command.misc;
 
+import java.util.concurrent.Executor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageText;
 import org.telegram.telegrambots.meta.generics.TelegramClient;
 
 import com.springboot.MyTodoList.bot.command.core.AuthenticatedTelegramCommand;
 import com.springboot.MyTodoList.bot.command.core.CommandContext;
 import com.springboot.MyTodoList.bot.command.core.CommandResult;
+import com.springboot.MyTodoList.service.KpiService;
 
+/**
+ * Sends the AI summary of the project KPIs. The summary is streamed: a placeholder
+ * message is sent right away and edited as the text arrives.
+ */
 public class KpiCommand extends AuthenticatedTelegramCommand {
+    private static final Logger logger = LoggerFactory.getLogger(KpiCommand.class);
+
+    // Telegram limits how often a message can be edited, so partial text is batched
+    private static final long MIN_EDIT_INTERVAL_NANOS = 1_500_000_000L;
+    private static final int MAX_MESSAGE_LENGTH = 4096;
+
+    private final KpiService kpiService;
+    private final Executor executor;
 
-    public KpiCommand(TelegramClient client) {
+    /**
+     * @param executor runs the summary once the placeholder is sent, instead of
+     *     Telegram's HTTP callback thread
+     */
+    public KpiCommand(TelegramClient client, KpiService kpiService, Executor executor) {
         super(client);
+        this.kpiService = kpiService;
+        this.executor = executor;
     }
 
     @Override
     public String getDescription() {
-        return "Show your key KPIs and stats for this sprint.";
+        return "Show an AI summary of the project KPIs.";
     }
 
     @Override
     public CommandResult executeAuthenticated(CommandContext context) {
+        Long chatId = context.getChatId();
+        sendMessage(context, "Generating KPI summary...")
+                .thenAcceptAsync(placeholder ->
+                        stream(new StreamedMessage(chatId, placeholder.getMessageId())), executor)
+                .exceptionally(error -> {
+                    logger.error("Error starting KPI summary for chat {}: {}",
+                            chatId, error.getMessage(), error);
+                    return null;
+                });
         return CommandResult.finish();
     }
-}
 
+    private void stream(StreamedMessage message) {
+        try {
+            kpiService.streamKpiSummary(message::append)
+                    .whenComplete((summary, error) -> {
+                        if (error == null) {
+                            message.finish(summary);
+                        } else {
+                            logger.error("Error generating KPI summary: {}", error.getMessage(), error);
+                            message.finish("Sorry, the KPI summary could not be generated right now.");
+                        }
+                    });
+        } catch (RuntimeException e) {
+            logger.error("Error generating KPI summary: {}", e.getMessage(), e);
+            message.finish("Sorry, the KPI summary could not be generated right now.");
+        }
+    }
+
+    /**
+     * A message that is edited as more text becomes available.
+     */
+    private class StreamedMessage {
+        private final Long chatId;
+        private final Integer messageId;
+        private final StringBuilder text = new StringBuilder();
+        private String shown = "";
+        private long lastEdit = System.nanoTime();
+
+        StreamedMessage(Long chatId, Integer messageId) {
+            this.chatId = chatId;
+            this.messageId = messageId;
+        }
+
+        synchronized void append(String chunk) {
+            text.append(chunk);
+            if (System.nanoTime() - lastEdit >= MIN_EDIT_INTERVAL_NANOS) {
+                show(text.toString());
+            }
+        }
+
+        synchronized void finish(String finalText) {
+            show(finalText);
+        }
+
+        private void show(String value) {
+            if (value.length() > MAX_MESSAGE_LENGTH) {
+                value = value.substring(0, MAX_MESSAGE_LENGTH - 3) + "...";
+            }
+            // Telegram rejects edits which don't change the text
+            if (value.isBlank() || value.equals(shown)) {
+                return;
+            }
+            execute(
+                    chatId,
+                    EditMessageText.builder()
+                            .chatId(chatId)
+                            .messageId(messageId)
+                            .text(value)
+                            .build());
+            shown = value;
+            lastEdit = System.nanoTime();
+        }
+    }
+}
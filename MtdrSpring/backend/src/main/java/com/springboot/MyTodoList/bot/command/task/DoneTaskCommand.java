@@ -40,7 +40,7 @@ public class DoneTaskCommand extends AuthenticatedTelegramCommand {
 
         // 2. Filter for completed tasks ("DONE" state)
         List<Task> completedTasks = allUserTasks.stream()
-                .filter(task -> "DONE".equals(task.getState())) // Use equals for string comparison, safer with literals first
+                .filter(task -> Task.isDone(task.getState()))
                 .collect(Collectors.toList());
         logger.info("Found {} completed tasks for user ID: {}", completedTasks.size(), userId);
 
@@ -2,24 +2,33 @@ package com.springboot.MyTodoList.bot.command.task;
 
 import java.time.DateTimeException;
 import java.time.OffsetDateTime;
-import java.util.HashMap;
-import java.util.Map;
 
 import org.telegram.telegrambots.meta.generics.TelegramClient;
 
 import com.springboot.MyTodoList.bot.command.core.AuthenticatedTelegramCommand;
 import com.springboot.MyTodoList.bot.command.core.CommandContext;
 import com.springboot.MyTodoList.bot.command.core.CommandResult;
+import com.springboot.MyTodoList.bot.state.ConversationStateStore;
+import com.springboot.MyTodoList.bot.state.InMemoryConversationStateStore;
 import com.springboot.MyTodoList.model.Task;
 import com.springboot.MyTodoList.service.TaskService;
 
 public class NewTaskCommand extends AuthenticatedTelegramCommand {
-  private Map<Long, Task> partialItems = new HashMap<>();
+  // The task being built in each chat
+  private static final String STATE = "tasknew";
+
+  private final ConversationStateStore state;
   private final TaskService taskService;
 
   public NewTaskCommand(TelegramClient client, TaskService taskService) {
+    this(client, taskService, new InMemoryConversationStateStore());
+  }
+
+  public NewTaskCommand(
+      TelegramClient client, TaskService taskService, ConversationStateStore state) {
     super(client);
     this.taskService = taskService;
+    this.state = state;
   }
 
   @Override
@@ -32,15 +41,15 @@ public class NewTaskCommand extends AuthenticatedTelegramCommand {
     // Check if user ran /cancel
     if (context.isCancelled()) {
       sendMessage(context, "Operation cancelled.");
-      partialItems.remove(context.getChatId());
+      state.remove(STATE, context.getChatId());
       return CommandResult.finish();
     }
 
-    Task item = partialItems.get(context.getChatId());
+    Task item = state.get(STATE, context.getChatId(), Task.class).orElse(null);
     if (item == null) {
       Task task = new Task();
       task.setAssignedTo(context.getAuthenticatedUser().getID_User());
-      partialItems.put(context.getChatId(), task);
+      state.put(STATE, context.getChatId(), task);
       sendMessage(context, "Give me a description for your new task!");
       return CommandResult.continu();
     }
@@ -52,6 +61,7 @@ public class NewTaskCommand extends AuthenticatedTelegramCommand {
         return CommandResult.continu();
       }
       item.setDescription(text);
+      state.put(STATE, context.getChatId(), item);
       sendMessage(context, "Now, a delivery date in the format YYYY-MM-DD...");
     } else if (item.getFinishesAt() == null) {
       // Validate supplied date time
@@ -66,6 +76,7 @@ public class NewTaskCommand extends AuthenticatedTelegramCommand {
 
       item.setCreatedAt(OffsetDateTime.now());
       item.setState("TODO");
+      state.put(STATE, context.getChatId(), item);
       sendMessage(
           context,
           "Finally, give me an estimation of how long you'll to complete this task in hours...");
@@ -79,6 +90,7 @@ public class NewTaskCommand extends AuthenticatedTelegramCommand {
           throw new NumberFormatException("Due to internal policy no task may exceed 4 hours.");
         }
         item.setHoursEstimated(estimate);
+        state.put(STATE, context.getChatId(), item);
         sendMessage(context, "Story Points (1-10):");
       } catch (NumberFormatException e) {
         e.printStackTrace();
@@ -104,7 +116,7 @@ public class NewTaskCommand extends AuthenticatedTelegramCommand {
 
       taskService.addTask(item);
       sendMessage(context, "Item added!");
-      partialItems.remove(context.getChatId());
+      state.remove(STATE, context.getChatId());
       return CommandResult.finish();
     }
 
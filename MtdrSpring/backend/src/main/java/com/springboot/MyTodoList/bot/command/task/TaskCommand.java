@@ -1,14 +1,14 @@
 package com.springboot.MyTodoList.bot.command.task;
 
 import java.time.format.DateTimeFormatter;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.telegram.telegrambots.meta.api.methods.ParseMode;
 import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
 import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageText;
@@ -17,14 +17,16 @@ import org.telegram.telegrambots.meta.api.objects.message.Message;
 import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
 import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardButton;
 import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardRow;
-import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
 import org.telegram.telegrambots.meta.generics.TelegramClient;
 
 import com.springboot.MyTodoList.bot.command.core.AuthenticatedTelegramCommand;
 import com.springboot.MyTodoList.bot.command.core.CommandContext;
 import com.springboot.MyTodoList.bot.command.core.CommandResult;
+import com.springboot.MyTodoList.bot.state.ConversationStateStore;
+import com.springboot.MyTodoList.bot.state.InMemoryConversationStateStore;
 import com.springboot.MyTodoList.model.Task;
 import com.springboot.MyTodoList.service.SprintService;
+import com.springboot.MyTodoList.service.TaskPatch;
 import com.springboot.MyTodoList.service.TaskService;
 
 /**
@@ -43,7 +45,8 @@ public class TaskCommand extends AuthenticatedTelegramCommand {
   
   // Tasks marked as done need the amount taken to complete
   // this requires an additional interaction that needs to be tracked
-  private final Map<Long, Integer> pendingFinishedTasks = new HashMap<>();
+  private static final String PENDING_FINISHED_TASK = "task_done_hours";
+  private final ConversationStateStore state;
 
   /**
    * Represents each button to manage a task on the task
@@ -91,9 +94,18 @@ public class TaskCommand extends AuthenticatedTelegramCommand {
   }
 
   public TaskCommand(TelegramClient client, TaskService taskService, SprintService sprintService) {
+    this(client, taskService, sprintService, new InMemoryConversationStateStore());
+  }
+
+  public TaskCommand(
+      TelegramClient client,
+      TaskService taskService,
+      SprintService sprintService,
+      ConversationStateStore state) {
     super(client);
     this.taskService = taskService;
     this.sprintService = sprintService;
+    this.state = state;
   }
 
   @Override
@@ -128,15 +140,8 @@ public class TaskCommand extends AuthenticatedTelegramCommand {
   /**
    * Send a message with the task ID for use on callback queries.
    */
-  private Optional<Message> sendIdMessage(Long chatId, int task) {
-    try {
-      Message result =
-          this.client.execute(SendMessage.builder().chatId(chatId).text("📂 id:" + task).build());
-      return Optional.of(result);
-    } catch (TelegramApiException e) {
-      e.printStackTrace();
-    }
-    return Optional.empty();
+  private CompletableFuture<Message> sendIdMessage(Long chatId, int task) {
+    return execute(chatId, SendMessage.builder().chatId(chatId).text("📂 id:" + task).build());
   }
 
   private String getTaskText(Task task) {
@@ -170,16 +175,17 @@ public class TaskCommand extends AuthenticatedTelegramCommand {
       return;
     }
 
-    Message idMsg = sendIdMessage(context.getChatId(), task.getID_Task()).get();
-
-    sendMessage(
-        context,
-        msg ->
-            msg.parseMode(ParseMode.MARKDOWNV2)
-                .text(getTaskText(task))
-                .replyMarkup(keyboardForTask(task))
-                .replyToMessageId(idMsg.getMessageId())
-                .build());
+    sendIdMessage(context.getChatId(), task.getID_Task())
+        .thenAccept(
+            idMsg ->
+                sendMessage(
+                    context,
+                    msg ->
+                        msg.parseMode(ParseMode.MARKDOWNV2)
+                            .text(getTaskText(task))
+                            .replyMarkup(keyboardForTask(task))
+                            .replyToMessageId(idMsg.getMessageId())
+                            .build()));
   }
 
   /**
@@ -189,24 +195,29 @@ public class TaskCommand extends AuthenticatedTelegramCommand {
   private CommandResult changeTaskState(
       CallbackQuery query, int taskId, Message taskMessage, TaskAction action) {
     Task task = taskService.findById(taskId).get();
+    String newState;
     switch (action) {
       case DO:
-        task.setState("DONE");
         sendMessage(taskMessage.getChatId(), "How many hours did it take?"); 
-        pendingFinishedTasks.put(taskMessage.getChatId(), taskId);
+        state.put(PENDING_FINISHED_TASK, taskMessage.getChatId(), taskId);
         return CommandResult.continu();
       case BLOCKED:
-        task.setState("BLOCKED");
+        newState = "BLOCKED";
         break;
       case START:
-        task.setState("IN_PROGRESS");
-        break;
       case UNDO:
-        task.setState("IN_PROGRESS");
+        newState = "IN_PROGRESS";
         break;
       default:
+        newState = task.getState();
+    }
+    try {
+      // Only the state column is written, and only if nobody changed the task since we read it
+      taskService.patchTask(task, TaskPatch.ofState(newState, null), null);
+    } catch (OptimisticLockingFailureException e) {
+      answerCallbackQuery(query, "The task was just changed by someone else. Try again.");
+      return CommandResult.finish();
     }
-    taskService.updateTask(taskId, task);
     
     EditMessageText editMsg =
         EditMessageText.builder()
@@ -217,12 +228,8 @@ public class TaskCommand extends AuthenticatedTelegramCommand {
             .replyMarkup(keyboardForTask(task))
             .build();
 
-    try {
-      client.execute(editMsg);
-      answerCallbackQuery(query, "Task updated!");
-    } catch (TelegramApiException e) {
-      e.printStackTrace();
-    }
+    execute(taskMessage.getChatId(), editMsg)
+        .thenRun(() -> answerCallbackQuery(query, "Task updated!"));
     return CommandResult.finish();
   }
 
@@ -275,10 +282,14 @@ public class TaskCommand extends AuthenticatedTelegramCommand {
         return CommandResult.continu();
       }
       Task task = taskService.findById(taskId).get();
-      task.setHoursReal(hours);
-      task.setState("DONE");
-      taskService.updateTask(taskId, task);
-      pendingFinishedTasks.remove(context.getChatId());
+      try {
+        taskService.patchTask(task, TaskPatch.ofState(Task.DONE, hours), null);
+      } catch (OptimisticLockingFailureException e) {
+        // Changed between the read and the update; the next attempt reads it again
+        sendMessage(context, "The task was just changed by someone else. Send the hours again.");
+        return CommandResult.continu();
+      }
+      state.remove(PENDING_FINISHED_TASK, context.getChatId());
       sendMessage(context, "Done! Task updated.");
     } catch (NumberFormatException e) {
       sendMessage(context, "You must input a number!");
@@ -294,8 +305,10 @@ public class TaskCommand extends AuthenticatedTelegramCommand {
     }
     
     // For regular message updates
-    if (pendingFinishedTasks.containsKey(context.getChatId())) {
-      return handleFinishedTask(context, pendingFinishedTasks.get(context.getChatId()));
+    Optional<Integer> pendingTask =
+        state.get(PENDING_FINISHED_TASK, context.getChatId(), Integer.class);
+    if (pendingTask.isPresent()) {
+      return handleFinishedTask(context, pendingTask.get());
     }
 
     if (!context.hasArguments()) {
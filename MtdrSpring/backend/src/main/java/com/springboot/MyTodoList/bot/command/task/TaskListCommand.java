@@ -1,12 +1,18 @@
 package com.springboot.MyTodoList.bot.command.task;
 
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.telegram.telegrambots.meta.api.methods.ParseMode;
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageText;
+import org.telegram.telegrambots.meta.api.objects.CallbackQuery;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardButton;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardRow;
 import org.telegram.telegrambots.meta.generics.TelegramClient;
 
 import com.springboot.MyTodoList.bot.command.core.AuthenticatedTelegramCommand;
@@ -16,11 +22,41 @@ import com.springboot.MyTodoList.model.Task;
 import com.springboot.MyTodoList.service.SprintService;
 import com.springboot.MyTodoList.service.TaskService;
 
+/**
+ * Lists the tasks assigned to the user, a page at a time.
+ *
+ * Pages are fetched by task id (keyset pagination): the buttons under the list
+ * carry the id the next or previous page starts from, e.g. "/tasklist_next_42"
+ * or "/tasklist_prev_17_all", and pressing them edits the list in place.
+ */
 public class TaskListCommand extends AuthenticatedTelegramCommand {
   private final TaskService taskService;
   private final SprintService sprintService;
   private final Logger logger = LoggerFactory.getLogger(TaskListCommand.class);
 
+  static final int PAGE_SIZE = 10;
+  // Keeps a page well under Telegram's 4096 character limit
+  private static final int MAX_DESCRIPTION_LENGTH = 200;
+
+  private static final String NEXT = "next";
+  private static final String PREV = "prev";
+  private static final String ALL = "all";
+
+  /**
+   * A page of tasks and whether there are more on either side.
+   */
+  static class TaskPage {
+    final List<Task> tasks;
+    final boolean hasPrev;
+    final boolean hasNext;
+
+    TaskPage(List<Task> tasks, boolean hasPrev, boolean hasNext) {
+      this.tasks = tasks;
+      this.hasPrev = hasPrev;
+      this.hasNext = hasNext;
+    }
+  }
+
   public TaskListCommand(
       TelegramClient client, TaskService toDoItemService, SprintService sprintService) {
     super(client);
@@ -30,18 +66,34 @@ public class TaskListCommand extends AuthenticatedTelegramCommand {
 
   @Override
   public String getDescription() {
-    return "List all tasks assigned to you in the current sprint.";
+    return "List the tasks assigned to you, " + PAGE_SIZE + " at a time. Add \"all\" to include"
+        + " finished ones.";
   }
 
-  public List<Task> getTasks(CommandContext context, boolean showAll) {
-    List<Task> allItems = taskService.findByAssignedTo(context.getAuthenticatedUser().getID_User());
-    return showAll
-        ? allItems
-        : allItems.stream()
-            .filter(item -> !item.getState().equals("DONE"))
-            .collect(Collectors.toList());
+  /**
+   * Fetches the page after (direction NEXT) or before (PREV) the given task id.
+   * One more row than a page is fetched, to know whether there's another page.
+   */
+  TaskPage getPage(int userId, boolean showAll, String direction, int cursor) {
+    if (PREV.equals(direction)) {
+      List<Task> tasks =
+          new ArrayList<>(
+              taskService.findAssignedBefore(userId, showAll, cursor, PAGE_SIZE + 1));
+      boolean hasPrev = tasks.size() > PAGE_SIZE;
+      if (hasPrev) {
+        tasks.remove(0);
+      }
+      // We came from the page after this one
+      return new TaskPage(tasks, hasPrev, true);
+    }
+    List<Task> tasks =
+        new ArrayList<>(taskService.findAssignedAfter(userId, showAll, cursor, PAGE_SIZE + 1));
+    boolean hasNext = tasks.size() > PAGE_SIZE;
+    if (hasNext) {
+      tasks.remove(PAGE_SIZE);
+    }
+    return new TaskPage(tasks, cursor > 0, hasNext);
   }
-  ;
 
   String formatTask(CommandContext context, Task task) {
     String commandLink = linkCommand(context, "task", Integer.toString(task.getID_Task()));
@@ -50,11 +102,15 @@ public class TaskListCommand extends AuthenticatedTelegramCommand {
         task.getFinishesAt() != null
             ? task.getFinishesAt().format(DateTimeFormatter.ISO_LOCAL_DATE)
             : "No due date";
+    String description = task.getDescription();
+    if (description != null && description.length() > MAX_DESCRIPTION_LENGTH) {
+      description = description.substring(0, MAX_DESCRIPTION_LENGTH - 1) + "…";
+    }
 
     String unescaped =
         String.format(
             taskTemplate,
-            escapeMarkdownV2(task.getDescription()),
+            escapeMarkdownV2(description),
             escapeMarkdownV2(dueDate),
             escapeMarkdownV2(task.getState()),
             task.getStoryPoints(),
@@ -62,19 +118,86 @@ public class TaskListCommand extends AuthenticatedTelegramCommand {
     return unescaped;
   }
 
+  private String pageText(CommandContext context, TaskPage page) {
+    return page.tasks.size() > 0
+        ? page.tasks.stream().map(t -> formatTask(context, t)).collect(Collectors.joining("\n"))
+        : "No items found. Good for you!";
+  }
+
+  private InlineKeyboardMarkup pageKeyboard(TaskPage page, boolean showAll) {
+    if (page.tasks.isEmpty() || (!page.hasPrev && !page.hasNext)) {
+      return null;
+    }
+    String suffix = showAll ? "_" + ALL : "";
+    InlineKeyboardRow row = new InlineKeyboardRow();
+    if (page.hasPrev) {
+      int first = page.tasks.get(0).getID_Task();
+      row.add(
+          InlineKeyboardButton.builder()
+              .text("⬅️ Previous")
+              .callbackData(getName() + "_" + PREV + "_" + first + suffix)
+              .build());
+    }
+    if (page.hasNext) {
+      int last = page.tasks.get(page.tasks.size() - 1).getID_Task();
+      row.add(
+          InlineKeyboardButton.builder()
+              .text("Next ➡️")
+              .callbackData(getName() + "_" + NEXT + "_" + last + suffix)
+              .build());
+    }
+    return InlineKeyboardMarkup.builder().keyboardRow(row).build();
+  }
+
+  /**
+   * Shows the requested page in the message whose button was pressed.
+   */
+  private CommandResult turnPage(CommandContext context, String[] args) {
+    CallbackQuery query = context.getCallbackQuery().get();
+    if (args.length < 3 || !(NEXT.equals(args[1]) || PREV.equals(args[1]))) {
+      answerCallbackQuery(query, "Sorry, I can't do that.");
+      return CommandResult.finish();
+    }
+    int cursor;
+    try {
+      cursor = Integer.parseInt(args[2]);
+    } catch (NumberFormatException e) {
+      answerCallbackQuery(query, "Sorry, I can't do that.");
+      return CommandResult.finish();
+    }
+    boolean showAll = args.length > 3 && args[3].equals(ALL);
+
+    TaskPage page =
+        getPage(context.getAuthenticatedUser().getID_User(), showAll, args[1], cursor);
+    execute(
+        context.getChatId(),
+        EditMessageText.builder()
+            .chatId(context.getChatId())
+            .messageId(query.getMessage().getMessageId())
+            .parseMode(ParseMode.MARKDOWNV2)
+            .text(pageText(context, page))
+            .replyMarkup(pageKeyboard(page, showAll))
+            .build());
+    answerCallbackQuery(query, "Page updated");
+    return CommandResult.finish();
+  }
+
   @Override
   public CommandResult executeAuthenticated(CommandContext context) {
     String[] args = context.getArguments();
+    if (context.hasCallbackQuery()) {
+      return turnPage(context, args);
+    }
 
-    boolean listAllItems = args.length > 1 && args[1].equals("all");
-    List<Task> tasks = getTasks(context, listAllItems);
-
-    String messageText =
-        tasks.size() > 0
-            ? tasks.stream().map(t -> formatTask(context, t)).collect(Collectors.joining("\n"))
-            : "No items found. Good for you!";
+    boolean listAllItems = args.length > 1 && args[1].equals(ALL);
+    TaskPage page =
+        getPage(context.getAuthenticatedUser().getID_User(), listAllItems, NEXT, 0);
 
-    sendMessage(context, msg -> msg.parseMode(ParseMode.MARKDOWNV2).text(messageText).build());
+    String messageText = pageText(context, page);
+    InlineKeyboardMarkup keyboard = pageKeyboard(page, listAllItems);
+    sendMessage(
+        context,
+        msg -> msg.parseMode(ParseMode.MARKDOWNV2).text(messageText).replyMarkup(keyboard).build());
     return CommandResult.finish();
   }
 }
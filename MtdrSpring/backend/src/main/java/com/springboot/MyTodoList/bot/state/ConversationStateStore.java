@@ -0,0 +1,20 @@
+package com.springboot.MyTodoList.bot.state;
+
+import java.util.Optional;
+
+/**
+ * Holds the state of multi-step conversations, per chat.
+ *
+ * Each command keeps its state under its own namespace. Entries expire after a
+ * while without being written, so abandoned conversations don't linger.
+ * Stores may keep a copy of the value rather than the value itself: after
+ * changing a value read from the store, put it back for the change to be kept.
+ */
+public interface ConversationStateStore {
+
+  <T> Optional<T> get(String namespace, long chatId, Class<T> type);
+
+  void put(String namespace, long chatId, Object value);
+
+  void remove(String namespace, long chatId);
+}
@@ -0,0 +1,147 @@
+package com.springboot.MyTodoList.bot.state;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Keeps conversation state in memory. State is lost on restart and is not shared
+ * between replicas; use the JDBC store for that (bot.state.store=jdbc).
+ *
+ * Expired entries are dropped when read, and all of them at most once a minute
+ * when writing.
+ */
+@Component
+@ConditionalOnProperty(name = "bot.state.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryConversationStateStore implements ConversationStateStore {
+  private static final long SWEEP_INTERVAL_NANOS = Duration.ofMinutes(1).toNanos();
+
+  private final long ttlNanos;
+  private final LongSupplier nanoTime;
+  private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+  private volatile long lastSweep;
+  private Counter evictions;
+
+  private static final class Key {
+    final String namespace;
+    final long chatId;
+
+    Key(String namespace, long chatId) {
+      this.namespace = namespace;
+      this.chatId = chatId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Key)) return false;
+      Key other = (Key) o;
+      return chatId == other.chatId && namespace.equals(other.namespace);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(namespace, chatId);
+    }
+  }
+
+  private static final class Entry {
+    final Object value;
+    final long expiresAt;
+
+    Entry(Object value, long expiresAt) {
+      this.value = value;
+      this.expiresAt = expiresAt;
+    }
+  }
+
+  @Autowired
+  public InMemoryConversationStateStore(
+      @Value("${bot.state.ttl:PT30M}") Duration ttl, MeterRegistry meterRegistry) {
+    this(ttl, System::nanoTime);
+    Gauge.builder("bot.state.size", entries, Map::size)
+        .description("Conversations with state")
+        .tag("store", "memory")
+        .register(meterRegistry);
+    this.evictions =
+        Counter.builder("bot.state.evictions")
+            .description("Conversation states dropped after expiring")
+            .tag("store", "memory")
+            .register(meterRegistry);
+  }
+
+  /**
+   * A store without metrics, for commands built outside of Spring.
+   *
+   * @param nanoTime clock used for expiry, replaceable for tests
+   */
+  public InMemoryConversationStateStore(Duration ttl, LongSupplier nanoTime) {
+    this.ttlNanos = ttl.toNanos();
+    this.nanoTime = nanoTime;
+    this.lastSweep = nanoTime.getAsLong();
+  }
+
+  public InMemoryConversationStateStore() {
+    this(Duration.ofMinutes(30), System::nanoTime);
+  }
+
+  @Override
+  public <T> Optional<T> get(String namespace, long chatId, Class<T> type) {
+    Key key = new Key(namespace, chatId);
+    Entry entry = entries.get(key);
+    if (entry == null) {
+      return Optional.empty();
+    }
+    if (entry.expiresAt - nanoTime.getAsLong() <= 0) {
+      evict(key, entry);
+      return Optional.empty();
+    }
+    return Optional.of(type.cast(entry.value));
+  }
+
+  @Override
+  public void put(String namespace, long chatId, Object value) {
+    long now = nanoTime.getAsLong();
+    entries.put(new Key(namespace, chatId), new Entry(value, now + ttlNanos));
+    if (now - lastSweep > SWEEP_INTERVAL_NANOS) {
+      lastSweep = now;
+      sweep(now);
+    }
+  }
+
+  @Override
+  public void remove(String namespace, long chatId) {
+    entries.remove(new Key(namespace, chatId));
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  private void sweep(long now) {
+    entries.forEach(
+        (key, entry) -> {
+          if (entry.expiresAt - now <= 0) {
+            evict(key, entry);
+          }
+        });
+  }
+
+  private void evict(Key key, Entry entry) {
+    // Only count it if no one replaced it in the meantime
+    if (entries.remove(key, entry) && evictions != null) {
+      evictions.increment();
+    }
+  }
+}
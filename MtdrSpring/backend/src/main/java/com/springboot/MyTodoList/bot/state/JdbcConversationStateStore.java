@@ -0,0 +1,132 @@
+package com.springboot.MyTodoList.bot.state;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Keeps conversation state in the BOT_CONVERSATION_STATE table, so it survives
+ * restarts and is shared by every replica of the bot. Values are stored as JSON.
+ *
+ * Expired rows are ignored when read and deleted at most once a minute when writing.
+ */
+@Component
+@ConditionalOnProperty(name = "bot.state.store", havingValue = "jdbc")
+public class JdbcConversationStateStore implements ConversationStateStore {
+  private final Logger logger = LoggerFactory.getLogger(JdbcConversationStateStore.class);
+  private static final Duration SWEEP_INTERVAL = Duration.ofMinutes(1);
+
+  private static final String SELECT =
+      "SELECT PAYLOAD FROM BOT_CONVERSATION_STATE"
+          + " WHERE CHAT_ID = ? AND NAMESPACE = ? AND EXPIRES_AT > ?";
+  private static final String UPSERT =
+      "MERGE INTO BOT_CONVERSATION_STATE s"
+          + " USING (SELECT ? AS CHAT_ID, ? AS NAMESPACE FROM DUAL) k"
+          + " ON (s.CHAT_ID = k.CHAT_ID AND s.NAMESPACE = k.NAMESPACE)"
+          + " WHEN MATCHED THEN UPDATE SET s.PAYLOAD = ?, s.EXPIRES_AT = ?"
+          + " WHEN NOT MATCHED THEN INSERT (CHAT_ID, NAMESPACE, PAYLOAD, EXPIRES_AT)"
+          + " VALUES (k.CHAT_ID, k.NAMESPACE, ?, ?)";
+  private static final String DELETE =
+      "DELETE FROM BOT_CONVERSATION_STATE WHERE CHAT_ID = ? AND NAMESPACE = ?";
+  private static final String DELETE_EXPIRED =
+      "DELETE FROM BOT_CONVERSATION_STATE WHERE EXPIRES_AT <= ?";
+  private static final String COUNT = "SELECT COUNT(*) FROM BOT_CONVERSATION_STATE";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final ObjectMapper objectMapper;
+  private final Duration ttl;
+  private final Counter evictions;
+  private final AtomicLong size = new AtomicLong();
+  private volatile Instant lastSweep = Instant.EPOCH;
+
+  public JdbcConversationStateStore(
+      JdbcTemplate jdbcTemplate,
+      ObjectMapper objectMapper,
+      @Value("${bot.state.ttl:PT30M}") Duration ttl,
+      MeterRegistry meterRegistry) {
+    this.jdbcTemplate = jdbcTemplate;
+    // Entities such as Task don't have matching getter and setter names for
+    // every field, so (de)serialize their fields directly.
+    this.objectMapper =
+        objectMapper
+            .copy()
+            .setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE)
+            .setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+    this.ttl = ttl;
+    // Refreshed on every sweep rather than queried on every scrape
+    Gauge.builder("bot.state.size", size, AtomicLong::get)
+        .description("Conversations with state")
+        .tag("store", "jdbc")
+        .register(meterRegistry);
+    this.evictions =
+        Counter.builder("bot.state.evictions")
+            .description("Conversation states dropped after expiring")
+            .tag("store", "jdbc")
+            .register(meterRegistry);
+  }
+
+  @Override
+  public <T> Optional<T> get(String namespace, long chatId, Class<T> type) {
+    List<String> payloads =
+        jdbcTemplate.queryForList(
+            SELECT, String.class, chatId, namespace, Timestamp.from(Instant.now()));
+    if (payloads.isEmpty()) {
+      return Optional.empty();
+    }
+    try {
+      return Optional.of(objectMapper.readValue(payloads.get(0), type));
+    } catch (JsonProcessingException e) {
+      logger.error("Discarding unreadable {} state for chat {}", namespace, chatId, e);
+      remove(namespace, chatId);
+      return Optional.empty();
+    }
+  }
+
+  @Override
+  public void put(String namespace, long chatId, Object value) {
+    String payload;
+    try {
+      payload = objectMapper.writeValueAsString(value);
+    } catch (JsonProcessingException e) {
+      throw new IllegalArgumentException("Conversation state can't be stored as JSON", e);
+    }
+    Instant now = Instant.now();
+    Timestamp expiresAt = Timestamp.from(now.plus(ttl));
+    jdbcTemplate.update(UPSERT, chatId, namespace, payload, expiresAt, payload, expiresAt);
+    if (now.isAfter(lastSweep.plus(SWEEP_INTERVAL))) {
+      lastSweep = now;
+      sweep(now);
+    }
+  }
+
+  @Override
+  public void remove(String namespace, long chatId) {
+    jdbcTemplate.update(DELETE, chatId, namespace);
+  }
+
+  private void sweep(Instant now) {
+    int deleted = jdbcTemplate.update(DELETE_EXPIRED, Timestamp.from(now));
+    evictions.increment(deleted);
+    Long count = jdbcTemplate.queryForObject(COUNT, Long.class);
+    size.set(count != null ? count : 0);
+  }
+}
@@ -0,0 +1,94 @@
+package com.springboot.MyTodoList.bot.webhook;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Assigns every chat to one of the replicas of the bot, so that the updates of a
+ * chat are always processed by the same replica, one at a time and in order.
+ *
+ * Telegram may deliver an update to any replica; if it isn't the owner of the
+ * chat, it passes the update on to the owner with forward. Replicas are
+ * reached through peerUrl, where "{index}" is replaced by the owner's index
+ * (e.g. http://backend-{index}.backend:8080/telegram/webhook with a StatefulSet).
+ */
+@Component
+@ConditionalOnProperty(name = "bot.mode", havingValue = "webhook")
+public class ChatRouter {
+  /** Sent by Telegram with the secret given when setting the webhook. */
+  public static final String SECRET_HEADER = "X-Telegram-Bot-Api-Secret-Token";
+
+  /** Set on updates passed on by another replica, so they aren't passed on again. */
+  public static final String FORWARDED_HEADER = "X-Bot-Forwarded";
+
+  private static final Duration FORWARD_TIMEOUT = Duration.ofSeconds(10);
+
+  private final int replicas;
+  private final int index;
+  private final String peerUrl;
+  private final HttpClient http;
+
+  @Autowired
+  public ChatRouter(
+      @Value("${bot.replicas.count:1}") int replicas,
+      @Value("${bot.replicas.index:0}") int index,
+      @Value("${bot.replicas.peer-url:}") String peerUrl) {
+    if (replicas < 1 || index < 0 || index >= replicas) {
+      throw new IllegalArgumentException(
+          "Replica index " + index + " is out of range for " + replicas + " replicas");
+    }
+    if (replicas > 1 && !peerUrl.contains("{index}")) {
+      throw new IllegalArgumentException(
+          "bot.replicas.peer-url must contain {index} when running several replicas");
+    }
+    this.replicas = replicas;
+    this.index = index;
+    this.peerUrl = peerUrl;
+    this.http = HttpClient.newBuilder().connectTimeout(FORWARD_TIMEOUT).build();
+  }
+
+  public int ownerOf(long chatId) {
+    // Chat ids aren't evenly spread (group ids are negative and close together),
+    // so mix the bits before picking a replica.
+    long mixed = chatId * 0x9E3779B97F4A7C15L;
+    return Math.floorMod(Long.hashCode(mixed ^ (mixed >>> 32)), replicas);
+  }
+
+  public boolean isLocal(long chatId) {
+    return ownerOf(chatId) == index;
+  }
+
+  /**
+   * Sends an update, as received from Telegram, to the replica that owns its chat.
+   *
+   * @throws IOException if the owner can't be reached or doesn't accept the update
+   */
+  public void forward(long chatId, String updateJson, String secretToken)
+      throws IOException, InterruptedException {
+    int owner = ownerOf(chatId);
+    HttpRequest.Builder request =
+        HttpRequest.newBuilder(URI.create(peerUrl.replace("{index}", String.valueOf(owner))))
+            .timeout(FORWARD_TIMEOUT)
+            .header("Content-Type", "application/json")
+            .header(FORWARDED_HEADER, String.valueOf(index))
+            .POST(HttpRequest.BodyPublishers.ofString(updateJson));
+    if (secretToken != null) {
+      request.header(SECRET_HEADER, secretToken);
+    }
+    HttpResponse<Void> response =
+        http.send(request.build(), HttpResponse.BodyHandlers.discarding());
+    if (response.statusCode() / 100 != 2) {
+      throw new IOException(
+          "Replica " + owner + " answered " + response.statusCode() + " to a forwarded update");
+    }
+  }
+}
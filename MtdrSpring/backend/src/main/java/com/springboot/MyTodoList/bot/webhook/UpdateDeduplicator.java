@@ -0,0 +1,44 @@
+package com.springboot.MyTodoList.bot.webhook;
+
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Remembers the most recent update ids, so updates Telegram delivers more than
+ * once (it retries when the webhook is slow or fails) are only processed once.
+ *
+ * Each chat is handled by a single replica, and its updates are always checked
+ * there, so it's enough for every replica to remember its own.
+ */
+@Component
+@ConditionalOnProperty(name = "bot.mode", havingValue = "webhook")
+public class UpdateDeduplicator {
+  private final int capacity;
+  private final Set<Integer> seen = new HashSet<>();
+  private final ArrayDeque<Integer> order = new ArrayDeque<>();
+
+  @Autowired
+  public UpdateDeduplicator(@Value("${bot.webhook.dedup-window:10000}") int capacity) {
+    this.capacity = capacity;
+  }
+
+  /**
+   * @return true the first time an update id is seen, false for repeats
+   */
+  public synchronized boolean firstSeen(int updateId) {
+    if (!seen.add(updateId)) {
+      return false;
+    }
+    order.add(updateId);
+    if (order.size() > capacity) {
+      seen.remove(order.poll());
+    }
+    return true;
+  }
+}
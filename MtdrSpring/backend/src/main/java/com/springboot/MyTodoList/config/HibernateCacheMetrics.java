@@ -0,0 +1,48 @@
+package com.springboot.MyTodoList.config;
+
+import java.util.function.ToDoubleFunction;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Hit ratios of the second-level and query caches, as
+ * hibernate.cache.hit.ratio{cache=second-level|query}. Spring Boot already
+ * exports the raw hibernate.* counters; these save dividing them.
+ *
+ * Needs hibernate.generate_statistics, otherwise the ratios read NaN.
+ */
+@Component
+public class HibernateCacheMetrics implements MeterBinder {
+  private final Statistics statistics;
+
+  public HibernateCacheMetrics(EntityManagerFactory entityManagerFactory) {
+    this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    ratio(registry, "second-level",
+        s -> hitRatio(s.getSecondLevelCacheHitCount(), s.getSecondLevelCacheMissCount()));
+    ratio(registry, "query",
+        s -> hitRatio(s.getQueryCacheHitCount(), s.getQueryCacheMissCount()));
+  }
+
+  private void ratio(MeterRegistry registry, String cache, ToDoubleFunction<Statistics> value) {
+    Gauge.builder("hibernate.cache.hit.ratio", statistics, value)
+        .description("Share of cache lookups answered from the cache")
+        .tag("cache", cache)
+        .register(registry);
+  }
+
+  private static double hitRatio(long hits, long misses) {
+    return hits + misses == 0 ? Double.NaN : (double) hits / (hits + misses);
+  }
+}
@@ -2,16 +2,16 @@ package com.springboot.MyTodoList.config;
 
 import java.sql.SQLException;
 
-import javax.sql.DataSource;
-
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.env.Environment;
 
-import oracle.jdbc.pool.OracleDataSource;
+import oracle.ucp.jdbc.PoolDataSourceFactory;
+import oracle.ucp.jdbc.PoolDataSourceImpl;
 
 /// *
 //    This class grabs the appropriate values for OracleDataSource,
@@ -27,24 +27,28 @@ public class OracleConfiguration {
   @Autowired private DbSettings dbSettings;
   @Autowired private Environment env;
 
+  /**
+   * A UCP connection pool over OracleDataSource. Only the connection details are
+   * set here; everything about the pool (factory class, sizes, validation,
+   * statement cache, timeouts) comes from the spring.datasource.oracleucp.*
+   * properties, bound onto it after it's built.
+   */
   @Bean
-  public DataSource dataSource() throws SQLException {
-    OracleDataSource ds = new OracleDataSource();
+  @ConfigurationProperties(prefix = "spring.datasource.oracleucp")
+  public PoolDataSourceImpl dataSource() throws SQLException {
+    PoolDataSourceImpl ds = (PoolDataSourceImpl) PoolDataSourceFactory.getPoolDataSource();
     if (env.getProperty("IS_CONTAINER") != null) {
       logger.info("Container detected, using environment variables");
-      ds.setDriverType(env.getProperty("driver_class_name"));
       ds.setURL(env.getProperty("db_url"));
       ds.setUser(env.getProperty("db_user"));
       ds.setPassword(env.getProperty("dbpassword"));
     } else {
       logger.info("Using oracle driver settings defined in application.properties");
-      ds.setDriverType(dbSettings.getDriver_class_name());
       ds.setURL(dbSettings.getUrl());
       ds.setUser(dbSettings.getUsername());
       ds.setPassword(dbSettings.getPassword());
     }
 
-    logger.info("Using Driver " + ds.getDriverType());
     logger.info("Using URL: " + ds.getURL());
     logger.info("Using Username " + ds.getUser());
 
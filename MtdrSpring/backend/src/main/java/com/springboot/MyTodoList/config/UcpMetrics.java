@@ -0,0 +1,81 @@
+package com.springboot.MyTodoList.config;
+
+import java.util.function.ToDoubleFunction;
+
+import org.springframework.stereotype.Component;
+
+import oracle.ucp.jdbc.JDBCConnectionPoolStatistics;
+import oracle.ucp.jdbc.PoolDataSource;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Exports the UCP pool statistics as ucp.* metrics (GET /actuator/metrics).
+ * The statistics are only there once the pool has started, until then the
+ * meters read NaN.
+ */
+@Component
+public class UcpMetrics implements MeterBinder {
+  private final PoolDataSource dataSource;
+
+  public UcpMetrics(PoolDataSource dataSource) {
+    this.dataSource = dataSource;
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Tags tags = Tags.of("pool", String.valueOf(dataSource.getConnectionPoolName()));
+
+    gauge(registry, tags, "ucp.connections.borrowed", "Connections in use",
+        JDBCConnectionPoolStatistics::getBorrowedConnectionsCount);
+    gauge(registry, tags, "ucp.connections.available", "Idle connections in the pool",
+        JDBCConnectionPoolStatistics::getAvailableConnectionsCount);
+    gauge(registry, tags, "ucp.connections.total", "Physical connections open",
+        JDBCConnectionPoolStatistics::getTotalConnectionsCount);
+    gauge(registry, tags, "ucp.connections.pending", "Requests waiting for a connection",
+        JDBCConnectionPoolStatistics::getPendingRequestsCount);
+    gauge(registry, tags, "ucp.connections.wait.peak", "Longest wait for a connection (ms)",
+        JDBCConnectionPoolStatistics::getPeakConnectionWaitTime);
+
+    counter(registry, tags, "ucp.connections.wait.time",
+        "Time spent waiting for connections (ms)",
+        JDBCConnectionPoolStatistics::getCumulativeConnectionWaitTime);
+    counter(registry, tags, "ucp.connections.borrows", "Connections handed out by the pool",
+        JDBCConnectionPoolStatistics::getCumulativeConnectionBorrowedCount);
+    counter(registry, tags, "ucp.connections.created", "Physical connections opened",
+        JDBCConnectionPoolStatistics::getConnectionsCreatedCount);
+  }
+
+  private void gauge(
+      MeterRegistry registry,
+      Tags tags,
+      String name,
+      String description,
+      ToDoubleFunction<JDBCConnectionPoolStatistics> value) {
+    Gauge.builder(name, this, m -> m.stat(value))
+        .description(description)
+        .tags(tags)
+        .register(registry);
+  }
+
+  private void counter(
+      MeterRegistry registry,
+      Tags tags,
+      String name,
+      String description,
+      ToDoubleFunction<JDBCConnectionPoolStatistics> value) {
+    FunctionCounter.builder(name, this, m -> m.stat(value))
+        .description(description)
+        .tags(tags)
+        .register(registry);
+  }
+
+  private double stat(ToDoubleFunction<JDBCConnectionPoolStatistics> value) {
+    JDBCConnectionPoolStatistics statistics = dataSource.getStatistics();
+    return statistics == null ? Double.NaN : value.applyAsDouble(statistics);
+  }
+}
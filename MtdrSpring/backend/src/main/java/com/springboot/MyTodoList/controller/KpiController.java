@@ -1,6 +1,9 @@
 package com.springboot.MyTodoList.controller;
 
 import com.springboot.MyTodoList.service.KpiService;
+import com.springboot.MyTodoList.service.kpi.KpiSummaryJobs;
+import com.springboot.MyTodoList.service.kpi.KpiSummaryJobs.Job;
+import com.springboot.MyTodoList.service.llm.LlmUnavailableException;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
@@ -9,10 +12,19 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Optional;
 
 /**
  * Controlador para manejar las operaciones relacionadas con los Indicadores Clave de Desempeño (KPI).
@@ -25,9 +37,15 @@ public class KpiController {
 
     private static final Logger logger = LoggerFactory.getLogger(KpiController.class);
 
+    // Un poco más que el timeout de la petición a Gemini
+    private static final long SSE_TIMEOUT_MS = 150_000;
+
     @Autowired
     private KpiService kpiService;
 
+    @Autowired
+    private KpiSummaryJobs kpiSummaryJobs;
+
     @GetMapping("/summary")
     @Operation(
         summary = "Generar resumen con IA",
@@ -52,10 +70,113 @@ public class KpiController {
             }
 
             return ResponseEntity.ok(summary);
+        } catch (LlmUnavailableException e) {
+            logger.warn("Servicio de IA no disponible: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header("Retry-After", "30")
+                    .body(e.getMessage());
         } catch (Exception e) {
             logger.error("Error al generar el resumen de KPIs con IA: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Error generando el resumen con IA: " + e.getMessage());
         }
     }
+
+    @PostMapping("/summary/jobs")
+    @Operation(
+        summary = "Solicitar resumen con IA de forma asíncrona",
+        description = "Inicia la generación del resumen y devuelve de inmediato el trabajo creado. "
+                + "Solicitudes idénticas en curso comparten la misma llamada a la IA."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "202", description = "Trabajo aceptado")
+    })
+    public ResponseEntity<Job> submitAiSummaryJob() {
+        Job job = kpiSummaryJobs.submit();
+        URI location = ServletUriComponentsBuilder.fromCurrentRequest()
+                .path("/{id}")
+                .buildAndExpand(job.getId())
+                .toUri();
+        return ResponseEntity.accepted()
+                .location(location)
+                .header("Access-Control-Expose-Headers", "Location")
+                .body(job);
+    }
+
+    @GetMapping("/summary/jobs/{id}")
+    @Operation(
+        summary = "Consultar un trabajo de resumen",
+        description = "Devuelve el estado del trabajo (PENDING, DONE o FAILED) y el resumen cuando está listo."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Estado del trabajo"),
+        @ApiResponse(responseCode = "404", description = "Trabajo no encontrado o expirado")
+    })
+    public ResponseEntity<Job> getAiSummaryJob(@PathVariable String id) {
+        Optional<Job> job = kpiSummaryJobs.find(id);
+        return job.map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build());
+    }
+
+    @GetMapping(path = "/summary/jobs/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(
+        summary = "Recibir el resultado de un trabajo por Server-Sent Events",
+        description = "Envía un único evento 'result' con el trabajo terminado y cierra el stream."
+    )
+    public ResponseEntity<SseEmitter> streamAiSummaryJob(@PathVariable String id) {
+        Optional<Job> job = kpiSummaryJobs.find(id);
+        if (job.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        SseEmitter emitter = new SseEmitter(SSE_TIMEOUT_MS);
+        job.get().whenFinished().thenAccept(finished -> {
+            try {
+                emitter.send(SseEmitter.event().name("result").data(finished, MediaType.APPLICATION_JSON));
+                emitter.complete();
+            } catch (IOException | IllegalStateException e) {
+                // El cliente ya cerró la conexión
+                logger.debug("No se pudo enviar el resultado del trabajo {}: {}", id, e.getMessage());
+                emitter.completeWithError(e);
+            }
+        });
+        return ResponseEntity.ok(emitter);
+    }
+
+    @GetMapping(path = "/summary/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(
+        summary = "Generar resumen con IA en streaming",
+        description = "Envía el resumen conforme la IA lo genera: eventos 'chunk' con texto parcial, "
+                + "un evento 'done' con el texto completo o un evento 'error' si falla."
+    )
+    public SseEmitter streamAiSummary() {
+        SseEmitter emitter = new SseEmitter(SSE_TIMEOUT_MS);
+        try {
+            kpiService.streamKpiSummary(chunk -> sendEvent(emitter, "chunk", chunk))
+                    .whenComplete((summary, error) -> {
+                        if (error == null) {
+                            sendEvent(emitter, "done", summary);
+                            emitter.complete();
+                        } else {
+                            Throwable cause = error.getCause() != null ? error.getCause() : error;
+                            logger.error("Error al generar el resumen de KPIs con IA: {}", cause.getMessage(), cause);
+                            sendEvent(emitter, "error", "Error generando el resumen con IA: " + cause.getMessage());
+                            emitter.complete();
+                        }
+                    });
+        } catch (RuntimeException e) {
+            logger.error("Error al generar el resumen de KPIs con IA: {}", e.getMessage(), e);
+            sendEvent(emitter, "error", "Error generando el resumen con IA: " + e.getMessage());
+            emitter.complete();
+        }
+        return emitter;
+    }
+
+    private void sendEvent(SseEmitter emitter, String name, String data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data, MediaType.TEXT_PLAIN));
+        } catch (IOException | IllegalStateException e) {
+            // El cliente ya cerró la conexión, el resto del texto se descarta
+            logger.debug("No se pudo enviar el evento '{}': {}", name, e.getMessage());
+        }
+    }
 }
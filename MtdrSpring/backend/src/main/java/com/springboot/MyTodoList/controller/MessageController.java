@@ -50,6 +50,25 @@ public class MessageController {
     return ResponseEntity.ok(messageService.addMessage(message));
   }
 
+  @PostMapping("/broadcast")
+  @Operation(
+      summary = "Enviar un mensaje a varios usuarios",
+      description =
+          "Guarda el mismo mensaje para cada usuario de la lista, o para todos si la lista está"
+              + " vacía, en un solo lote, y los envía por Telegram en segundo plano. Devuelve"
+              + " cuántos mensajes se guardaron. Responde 400 si el mensaje está vacío o algún"
+              + " usuario no existe.")
+  public ResponseEntity<Integer> broadcastMessage(
+      @Parameter(description = "Contenido del mensaje y usuarios destinatarios", required = true)
+          @RequestBody
+          MessageService.Broadcast broadcast) {
+    try {
+      return ResponseEntity.ok(messageService.broadcast(broadcast));
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.badRequest().build();
+    }
+  }
+
   @PutMapping("/{id}")
   @Operation(
       summary = "Actualizar un mensaje existente",
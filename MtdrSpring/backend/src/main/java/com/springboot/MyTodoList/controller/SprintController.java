@@ -1,6 +1,8 @@
 package com.springboot.MyTodoList.controller;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
@@ -9,7 +11,13 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import com.springboot.MyTodoList.model.Sprint;
+import com.springboot.MyTodoList.service.SprintForecastService;
+import com.springboot.MyTodoList.service.SprintPlanningService;
 import com.springboot.MyTodoList.service.SprintService;
+import com.springboot.MyTodoList.service.forecast.SprintForecast;
+import com.springboot.MyTodoList.service.graph.DependencyCycleException;
+import com.springboot.MyTodoList.service.graph.SprintSchedule;
+import com.springboot.MyTodoList.service.planning.SprintPlan;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -24,6 +32,8 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 public class SprintController {
 
   @Autowired private SprintService sprintService;
+  @Autowired private SprintPlanningService sprintPlanningService;
+  @Autowired private SprintForecastService sprintForecastService;
 
   @GetMapping
   @Operation(
@@ -47,6 +57,78 @@ public class SprintController {
     }
   }
 
+  @GetMapping("/{id}/critical-path")
+  @Operation(
+      summary = "Obtener la ruta crítica de un sprint",
+      description =
+          "Calcula el inicio más temprano y más tardío, la holgura y la ruta crítica de las"
+              + " tareas del sprint según sus dependencias, horas estimadas y fechas límite."
+              + " Los tiempos están en horas desde el inicio del sprint.")
+  public ResponseEntity<SprintSchedule> getCriticalPath(
+      @Parameter(description = "ID del sprint", required = true) @PathVariable int id) {
+    try {
+      return sprintService
+          .getCriticalPath(id)
+          .map(ResponseEntity::ok)
+          .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build());
+    } catch (DependencyCycleException e) {
+      return ResponseEntity.status(HttpStatus.CONFLICT).build();
+    }
+  }
+
+  @GetMapping("/{id}/plan")
+  @Operation(
+      summary = "Proponer la asignación de tareas de un sprint",
+      description =
+          "Propone a qué usuario asignar las tareas sin asignar del sprint y del backlog sin"
+              + " pasar de las horas disponibles de cada uno y respetando las dependencias."
+              + " No guarda nada. Si no se indica un tiempo límite se usa el configurado; uno"
+              + " mayor que el máximo configurado se reduce a ese máximo.")
+  public ResponseEntity<SprintPlan> getPlan(
+      @Parameter(description = "ID del sprint", required = true) @PathVariable int id,
+      @Parameter(description = "Tiempo máximo de búsqueda en milisegundos, mayor que cero")
+          @RequestParam(required = false)
+          Long budgetMs) {
+    Optional<SprintPlan> plan;
+    try {
+      plan =
+          budgetMs == null
+              ? sprintPlanningService.plan(id)
+              : sprintPlanningService.plan(id, Duration.ofMillis(budgetMs));
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.badRequest().build();
+    }
+    return plan.map(ResponseEntity::ok)
+        .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build());
+  }
+
+  @GetMapping("/{id}/forecast")
+  @Operation(
+      summary = "Pronosticar cuándo termina un sprint",
+      description =
+          "Simula muchas veces el trabajo pendiente del sprint usando la proporción entre horas"
+              + " reales y estimadas de las tareas terminadas de cada usuario. Devuelve la"
+              + " probabilidad de terminar antes del fin del sprint y las fechas en que termina"
+              + " el 50, 80, 90 y 95 % de las simulaciones. Con la misma semilla y los mismos"
+              + " datos el resultado es el mismo.")
+  public ResponseEntity<SprintForecast> getForecast(
+      @Parameter(description = "ID del sprint", required = true) @PathVariable int id,
+      @Parameter(description = "Número de simulaciones") @RequestParam(required = false)
+          Integer simulations,
+      @Parameter(description = "Semilla de los números aleatorios") @RequestParam(required = false)
+          Long seed) {
+    Optional<SprintForecast> forecast =
+        simulations == null && seed == null
+            ? sprintForecastService.forecast(id)
+            : sprintForecastService.forecast(
+                id,
+                simulations == null ? sprintForecastService.getDefaultSimulations() : simulations,
+                seed == null ? id : seed);
+    return forecast
+        .map(ResponseEntity::ok)
+        .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build());
+  }
+
   @PostMapping
   @Operation(
       summary = "Crear un nuevo sprint",
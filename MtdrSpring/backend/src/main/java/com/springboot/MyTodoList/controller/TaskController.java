@@ -1,55 +1,160 @@
 package com.springboot.MyTodoList.controller;
 
 import java.net.URI;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 
 import javax.validation.Valid;
 
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.springboot.MyTodoList.model.Task;
+import com.springboot.MyTodoList.repository.TaskCursor;
+import com.springboot.MyTodoList.repository.TaskSort;
+import com.springboot.MyTodoList.repository.TaskSpecifications;
+import com.springboot.MyTodoList.service.TaskExportService;
+import com.springboot.MyTodoList.service.TaskExportWriter;
+import com.springboot.MyTodoList.service.TaskPatch;
 import com.springboot.MyTodoList.service.TaskService;
+import com.springboot.MyTodoList.service.TaskService.BatchItemResult;
+import com.springboot.MyTodoList.service.TaskService.TaskSlice;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
-/**
- * TODO: Implementar Query Params para la busqueda de tareas.
- * Esto se utilizaría en la busqueda de tareas con una barra de busqueda
- * (funcionalidad 100% opcional)
- */
-
 @RestController
 @RequestMapping("/task")
 @Tag(name = "Tareas", description = "Operaciones CRUD para la entidad Tareas")
 public class TaskController {
     private final TaskService taskService;
+    private final TaskExportService taskExportService;
+
+    static final int DEFAULT_LIMIT = 50;
+    static final int MAX_LIMIT = 200;
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final int MAX_BATCH_SIZE = 5000;
+    static final String MERGE_PATCH_JSON = "application/merge-patch+json";
 
-    public TaskController(TaskService taskService) {
+    public TaskController(TaskService taskService, TaskExportService taskExportService) {
         this.taskService = taskService;
+        this.taskExportService = taskExportService;
     }
 
-    // Obtener todas las tareas
+    // Obtener todas las tareas, o buscarlas con filtros
     @GetMapping
     @Operation(
-            summary = "Obtener todas las tareas",
-            description = "Devuelve una lista de tareas, independiente de los filtros.")
+            summary = "Obtener o buscar tareas",
+            description = "Sin parámetros devuelve todas las tareas. Con filtros (sprint, assignee, "
+                    + "state, dueFrom, dueTo, q), orden (sort=clave[,asc|desc], con clave id, "
+                    + "dueDate, createdAt, updatedAt o storyPoints) o paginación (cursor, limit) "
+                    + "devuelve una página de hasta limit tareas; el cursor de la siguiente página "
+                    + "viene en el encabezado X-Next-Cursor.")
     public ResponseEntity<List<Task>> getAllTasks(
+            @RequestParam Optional<Integer> sprint,
+            @RequestParam Optional<Integer> assignee,
+            @RequestParam Optional<List<String>> state,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                    Optional<OffsetDateTime> dueFrom,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                    Optional<OffsetDateTime> dueTo,
+            @RequestParam Optional<String> q,
+            @RequestParam Optional<String> sort,
+            @RequestParam Optional<String> cursor,
+            @RequestParam Optional<Integer> limit
     ) {
-        List<Task> tasks = taskService.findAll();
-        return ResponseEntity.ok(tasks);
+        boolean search = sprint.isPresent() || assignee.isPresent() || state.isPresent()
+                || dueFrom.isPresent() || dueTo.isPresent() || q.isPresent()
+                || sort.isPresent() || cursor.isPresent() || limit.isPresent();
+        if (!search) {
+            // El frontend espera la lista completa
+            return ResponseEntity.ok(taskService.findAll());
+        }
+
+        Specification<Task> filter = Specification.where(null);
+        if (sprint.isPresent()) {
+            filter = filter.and(TaskSpecifications.inSprint(sprint.get()));
+        }
+        if (assignee.isPresent()) {
+            filter = filter.and(TaskSpecifications.assignedTo(assignee.get()));
+        }
+        if (state.isPresent() && !state.get().isEmpty()) {
+            filter = filter.and(TaskSpecifications.inStates(state.get()));
+        }
+        if (dueFrom.isPresent()) {
+            filter = filter.and(TaskSpecifications.dueFrom(dueFrom.get()));
+        }
+        if (dueTo.isPresent()) {
+            filter = filter.and(TaskSpecifications.dueBefore(dueTo.get()));
+        }
+        if (q.isPresent() && !q.get().isBlank()) {
+            filter = filter.and(TaskSpecifications.descriptionContains(q.get().trim()));
+        }
+
+        int pageSize = limit.orElse(DEFAULT_LIMIT);
+        if (pageSize < 1 || pageSize > MAX_LIMIT) {
+            return ResponseEntity.badRequest().build();
+        }
+        TaskSlice slice;
+        try {
+            TaskSort order = sort.map(TaskSort::parse).orElse(TaskSort.DEFAULT);
+            TaskCursor after = cursor.map(c -> TaskCursor.decode(c, order)).orElse(null);
+            slice = taskService.searchTasks(filter, order, after, pageSize);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        slice.getNextCursor().ifPresent(next -> {
+            headers.set(NEXT_CURSOR_HEADER, next);
+            headers.set("Access-Control-Expose-Headers", NEXT_CURSOR_HEADER);
+        });
+        return ResponseEntity.ok().headers(headers).body(slice.getTasks());
+    }
+
+    // Exportar todas las tareas
+    @GetMapping("/export")
+    @Operation(
+            summary = "Exportar todas las tareas",
+            description = "Devuelve todas las tareas como NDJSON (format=ndjson, por defecto) o CSV "
+                    + "(format=csv). Las tareas se escriben conforme se leen de la base de datos, "
+                    + "por lo que la memoria usada no depende de cuántas haya.")
+    public ResponseEntity<StreamingResponseBody> exportTasks(
+            @RequestParam(defaultValue = "ndjson") String format) {
+        TaskExportWriter.Format exportFormat;
+        try {
+            exportFormat = TaskExportWriter.Format.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getMediaType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"tasks." + exportFormat.getExtension() + "\"")
+                .body(out -> taskExportService.export(exportFormat, out));
     }
 
     // Obtener una tarea por ID
@@ -59,7 +164,7 @@ public class TaskController {
             description = "Devuelve una tarea específica según el ID proporcionado.")
     public ResponseEntity<Task> getTaskById(@PathVariable int id) {
         Optional<Task> task = taskService.findById(id);
-        return task.map(ResponseEntity::ok)
+        return task.map(t -> ResponseEntity.ok().eTag(String.valueOf(t.getVersion())).body(t))
                 .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build());
     }
 
@@ -89,11 +194,46 @@ public class TaskController {
             summary = "Actualizar una tarea existente",
             description = "Actualiza los datos de una tarea específica basado en su ID.")
     public ResponseEntity<Task> updateTask(@Valid @RequestBody Task taskToBeUpdated, @PathVariable int id) {
-        Optional<Task> task = taskService.updateTask(id, taskToBeUpdated);
+        Optional<Task> task;
+        try {
+            task = taskService.updateTask(id, taskToBeUpdated);
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
         return task.map(ResponseEntity::ok)
                 .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build());
     }
 
+    // Actualizar solo algunos campos de una tarea
+    @PatchMapping(value = "/{id}", consumes = {MERGE_PATCH_JSON, MediaType.APPLICATION_JSON_VALUE})
+    @Operation(
+            summary = "Actualizar campos de una tarea",
+            description = "Aplica un JSON Merge Patch (RFC 7396): solo cambian los campos enviados y null "
+                    + "borra un campo. Si se envía la versión de la tarea (encabezado If-Match o "
+                    + "campo version) y la tarea cambió desde entonces, responde 409.")
+    public ResponseEntity<Task> patchTask(
+            @PathVariable int id,
+            @RequestBody JsonNode patch,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        TaskPatch taskPatch;
+        Long expectedVersion = null;
+        try {
+            taskPatch = TaskPatch.parse(patch);
+            if (ifMatch != null) {
+                expectedVersion = Long.parseLong(ifMatch.replaceFirst("^W/", "").replace("\"", ""));
+            }
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return taskService.patchTask(id, taskPatch, expectedVersion)
+                    .map(task -> ResponseEntity.ok().eTag(task.getVersion().toString()).body(task))
+                    .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build());
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
     // Eliminar una tarea
     @DeleteMapping("/{id}")
     @Operation(
@@ -107,4 +247,58 @@ public class TaskController {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         }
     }
-}
+
+    // Crear varias tareas
+    @PostMapping("/batch")
+    @Operation(
+            summary = "Crear varias tareas",
+            description = "Crea las tareas de la lista en una sola transacción, insertándolas por lotes. "
+                    + "Devuelve el resultado de cada elemento, en el mismo orden.")
+    public ResponseEntity<List<BatchItemResult>> addTasks(@RequestBody List<Task> tasks) {
+        if (tasks.size() > MAX_BATCH_SIZE) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        }
+        return ResponseEntity.ok(taskService.addTasks(tasks));
+    }
+
+    // Actualizar varias tareas
+    @PatchMapping("/batch")
+    @Operation(
+            summary = "Actualizar varias tareas",
+            description = "Cada elemento lleva el id_Task de la tarea y solo los campos a cambiar. "
+                    + "Devuelve el resultado de cada elemento, en el mismo orden. Si otra escritura "
+                    + "cambió una tarea a la vez, no se aplica ningún cambio y responde 409 con "
+                    + "los elementos de esa tarea.")
+    public ResponseEntity<List<BatchItemResult>> updateTasks(@RequestBody List<JsonNode> patches) {
+        if (patches.size() > MAX_BATCH_SIZE) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        }
+        try {
+            return ResponseEntity.ok(taskService.updateTasks(patches));
+        } catch (ObjectOptimisticLockingFailureException e) {
+            // The whole batch was rolled back; report the items of the task that lost
+            List<BatchItemResult> conflicts = new ArrayList<>();
+            for (int i = 0; i < patches.size(); i++) {
+                JsonNode id = patches.get(i) != null ? patches.get(i).path("id_Task") : null;
+                if (id != null && id.canConvertToInt()
+                        && String.valueOf(id.asInt()).equals(String.valueOf(e.getIdentifier()))) {
+                    conflicts.add(BatchItemResult.conflict(i, id.asInt()));
+                }
+            }
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(conflicts);
+        }
+    }
+
+    // Eliminar varias tareas
+    @DeleteMapping("/batch")
+    @Operation(
+            summary = "Eliminar varias tareas",
+            description = "Elimina las tareas cuyos IDs vienen en el cuerpo de la solicitud. "
+                    + "Devuelve el resultado de cada elemento, en el mismo orden.")
+    public ResponseEntity<List<BatchItemResult>> deleteTasks(@RequestBody List<Integer> ids) {
+        if (ids.size() > MAX_BATCH_SIZE) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        }
+        return ResponseEntity.ok(taskService.deleteTasks(ids));
+    }
+}
\ No newline at end of file
@@ -2,6 +2,7 @@ package com.springboot.MyTodoList.controller;
 
 import com.springboot.MyTodoList.model.TaskDependency;
 import com.springboot.MyTodoList.service.TaskDependencyService;
+import com.springboot.MyTodoList.service.graph.DependencyCycleException;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -31,30 +32,73 @@ public class TaskDependencyController {
         return ResponseEntity.ok(dependencies);
     }
 
-    // Obtener una dependencia de tarea por ID
+    // Obtener las dependencias de una tarea padre
     @GetMapping("/{id}")
     @Operation(
-            summary = "Obtener una dependencia de tarea por ID",
-            description = "Devuelve una dependencia de tarea específica según el ID proporcionado."
+            summary = "Obtener las dependencias de una tarea",
+            description = "Devuelve las dependencias cuya tarea padre es la del ID proporcionado."
     )
-    public ResponseEntity<TaskDependency> getTaskDependencyById(@PathVariable int id) {
-        try {
-            ResponseEntity<TaskDependency> response = taskDependencyService.getItemById(id);
-            return ResponseEntity.ok(response.getBody());
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
-        }
+    public ResponseEntity<List<TaskDependency>> getTaskDependencyById(@PathVariable int id) {
+        return ResponseEntity.ok(taskDependencyService.findByParent(id));
+    }
+
+    // Tareas de las que depende una tarea
+    @GetMapping("/{taskId}/ancestors")
+    @Operation(
+            summary = "Obtener las tareas que bloquean una tarea",
+            description = "Devuelve los IDs de las tareas de las que depende la tarea, directa o indirectamente."
+    )
+    public ResponseEntity<int[]> getAncestors(@PathVariable int taskId) {
+        return ResponseEntity.ok(taskDependencyService.findAncestors(taskId));
+    }
+
+    // Tareas que dependen de una tarea
+    @GetMapping("/{taskId}/descendants")
+    @Operation(
+            summary = "Obtener las tareas bloqueadas por una tarea",
+            description = "Devuelve los IDs de las tareas que dependen de la tarea, directa o indirectamente."
+    )
+    public ResponseEntity<int[]> getDescendants(@PathVariable int taskId) {
+        return ResponseEntity.ok(taskDependencyService.findDescendants(taskId));
+    }
+
+    // Orden topológico de las tareas
+    @GetMapping("/topological-order")
+    @Operation(
+            summary = "Obtener el orden topológico de las tareas",
+            description = "Devuelve los IDs de las tareas con dependencias, cada una después de las tareas de las que depende."
+    )
+    public ResponseEntity<int[]> getTopologicalOrder() {
+        return ResponseEntity.ok(taskDependencyService.findTopologicalOrder());
+    }
+
+    // Tareas bloqueadas
+    @GetMapping("/blocked")
+    @Operation(
+            summary = "Obtener las tareas bloqueadas",
+            description = "Devuelve los IDs de las tareas sin terminar que dependen de alguna tarea sin terminar."
+    )
+    public ResponseEntity<int[]> getBlockedTasks() {
+        return ResponseEntity.ok(taskDependencyService.findBlocked());
     }
 
     // Crear una nueva dependencia de tarea
     @PostMapping
     @Operation(
             summary = "Crear una nueva dependencia de tarea",
-            description = "Crea una nueva dependencia de tarea y devuelve la entidad creada."
+            description = "Crea una nueva dependencia de tarea y devuelve la entidad creada. "
+                    + "Responde 409 si la dependencia formaría un ciclo."
     )
     public ResponseEntity<TaskDependency> addNewTaskDependency(
             @RequestBody TaskDependency newDependency) throws Exception {
-        TaskDependency createdDependency = taskDependencyService.addTaskDependency(newDependency);
+        TaskDependency createdDependency;
+        try {
+            createdDependency = taskDependencyService.addTaskDependency(newDependency);
+        } catch (DependencyCycleException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
 
         HttpHeaders headers = new HttpHeaders();
         headers.set("location", String.valueOf(createdDependency.getID_Task_Parent()));
@@ -64,26 +108,33 @@ public class TaskDependencyController {
     }
 
     // Actualizar una dependencia de tarea
-    @PutMapping("/{id}")
+    @PutMapping("/{parentId}/{childId}")
     @Operation(
             summary = "Actualizar una dependencia de tarea existente",
-            description = "Actualiza los datos de una dependencia de tarea específica basada en su ID."
+            description = "Reemplaza la dependencia entre las tareas padre e hija indicadas. "
+                    + "Responde 409 si la nueva dependencia formaría un ciclo."
     )
     public ResponseEntity<TaskDependency> updateTaskDependency(
-            @RequestBody TaskDependency updatedDependency, @PathVariable int id) {
+            @RequestBody TaskDependency updatedDependency,
+            @PathVariable int parentId,
+            @PathVariable int childId) {
         try {
-            TaskDependency updated = taskDependencyService.updateTaskDependency(id, updatedDependency);
-            return ResponseEntity.ok(updated);
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+            return taskDependencyService
+                    .updateTaskDependency(parentId, childId, updatedDependency)
+                    .map(ResponseEntity::ok)
+                    .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build());
+        } catch (DependencyCycleException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         }
     }
 
-    // Eliminar una dependencia de tarea
+    // Eliminar las dependencias de una tarea padre
     @DeleteMapping("/{id}")
     @Operation(
-            summary = "Eliminar una dependencia de tarea",
-            description = "Elimina una dependencia de tarea específica basada en su ID."
+            summary = "Eliminar las dependencias de una tarea",
+            description = "Elimina todas las dependencias cuya tarea padre es la del ID proporcionado."
     )
     public ResponseEntity<Void> deleteTaskDependency(@PathVariable int id) {
         try {
@@ -93,4 +144,17 @@ public class TaskDependencyController {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         }
     }
+
+    // Eliminar una dependencia de tarea
+    @DeleteMapping("/{parentId}/{childId}")
+    @Operation(
+            summary = "Eliminar una dependencia de tarea",
+            description = "Elimina la dependencia entre las tareas padre e hija indicadas."
+    )
+    public ResponseEntity<Void> deleteTaskDependency(
+            @PathVariable int parentId, @PathVariable int childId) {
+        return taskDependencyService.deleteTaskDependency(parentId, childId)
+                ? ResponseEntity.ok().build()
+                : ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+    }
 }
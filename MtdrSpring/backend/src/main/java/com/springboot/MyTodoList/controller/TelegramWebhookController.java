@@ -0,0 +1,123 @@
+package com.springboot.MyTodoList.controller;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import org.telegram.telegrambots.meta.api.objects.Update;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springboot.MyTodoList.bot.TelegramBot;
+import com.springboot.MyTodoList.bot.webhook.ChatRouter;
+import com.springboot.MyTodoList.bot.webhook.UpdateDeduplicator;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+/**
+ * Recibe las actualizaciones del bot de Telegram por webhook (bot.mode=webhook).
+ * A diferencia del long polling, varias réplicas del backend pueden recibirlas:
+ * cada chat pertenece a una réplica, y las demás le reenvían sus actualizaciones.
+ */
+@RestController
+@ConditionalOnProperty(name = "bot.mode", havingValue = "webhook")
+@Tag(name = "Telegram", description = "Webhook del bot de Telegram")
+public class TelegramWebhookController {
+
+  private static final Logger logger = LoggerFactory.getLogger(TelegramWebhookController.class);
+
+  @Autowired private TelegramBot telegramBot;
+
+  @Autowired private ChatRouter chatRouter;
+
+  @Autowired private UpdateDeduplicator deduplicator;
+
+  @Autowired private ObjectMapper objectMapper;
+
+  @Value("${telegram.webhook.url:}")
+  private String webhookUrl;
+
+  @Value("${telegram.webhook.secret}")
+  private String secret;
+
+  /**
+   * Registra el webhook en Telegram al arrancar, si se configuró la URL pública.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void registerWebhook() {
+    if (webhookUrl.isBlank()) {
+      return;
+    }
+    try {
+      telegramBot.setWebhook(webhookUrl, secret);
+      logger.info("Webhook registrado en {}", webhookUrl);
+    } catch (TelegramApiException e) {
+      logger.error("No se pudo registrar el webhook", e);
+    }
+  }
+
+  @PostMapping("/telegram/webhook")
+  @Operation(
+      summary = "Recibir una actualización de Telegram",
+      description =
+          "Procesa la actualización en esta réplica o la reenvía a la réplica dueña del chat."
+              + " Las actualizaciones repetidas se ignoran.")
+  public ResponseEntity<Void> receiveUpdate(
+      @RequestHeader(value = ChatRouter.SECRET_HEADER, required = false) String token,
+      @RequestHeader(value = ChatRouter.FORWARDED_HEADER, required = false) String forwardedBy,
+      @RequestBody String body) {
+    if (token == null
+        || !MessageDigest.isEqual(
+            token.getBytes(StandardCharsets.UTF_8), secret.getBytes(StandardCharsets.UTF_8))) {
+      return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+    }
+
+    Update update;
+    try {
+      update = objectMapper.readValue(body, Update.class);
+    } catch (JsonProcessingException e) {
+      return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+    }
+    Optional<Long> chatId = TelegramBot.chatIdOf(update);
+    if (chatId.isEmpty()) {
+      // Nada que hacer, pero Telegram no debe reintentarla
+      return new ResponseEntity<>(HttpStatus.OK);
+    }
+
+    try {
+      // Las reenviadas se procesan aquí aunque las réplicas no coincidan
+      // (p. ej. durante un despliegue), para no reenviarlas en círculo
+      if (forwardedBy == null && !chatRouter.isLocal(chatId.get())) {
+        chatRouter.forward(chatId.get(), body, token);
+        return new ResponseEntity<>(HttpStatus.OK);
+      }
+      if (deduplicator.firstSeen(update.getUpdateId())) {
+        telegramBot.dispatch(update);
+      }
+      return new ResponseEntity<>(HttpStatus.OK);
+    } catch (IOException e) {
+      // Telegram la reintentará más tarde
+      logger.error("No se pudo reenviar la actualización {}", update.getUpdateId(), e);
+      return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
+    }
+  }
+}
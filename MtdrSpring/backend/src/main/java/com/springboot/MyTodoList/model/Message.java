@@ -20,6 +20,11 @@ public class Message {
   @Column(name = "NOTIFICATE_TO")
   private int userId;
 
+  // Set by the NotificationDispatcher once the message reaches the user's
+  // Telegram chat; never written through JPA
+  @Column(name = "DELIVERED_AT", insertable = false, updatable = false)
+  private LocalDateTime deliveredAt;
+
   public Message() {}
 
   public Message(int ID_Message, String content, LocalDateTime timestamp, int userId) {
@@ -61,6 +66,10 @@ public class Message {
     this.userId = userId;
   }
 
+  public LocalDateTime getDeliveredAt() {
+    return deliveredAt;
+  }
+
   @Override
   public String toString() {
     return "Message{"
@@ -73,6 +82,8 @@ public class Message {
         + timestamp
         + ", userId="
         + userId
+        + ", deliveredAt="
+        + deliveredAt
         + '}';
   }
 }
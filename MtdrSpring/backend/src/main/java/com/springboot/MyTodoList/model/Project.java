@@ -2,8 +2,13 @@ package com.springboot.MyTodoList.model;
 
 import javax.persistence.*;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 @Entity
 @Table(name = "PROJECTS")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Project {
   @Id
   @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -4,8 +4,13 @@ import java.time.OffsetDateTime;
 
 import javax.persistence.*;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 @Entity
 @Table(name = "SPRINTS")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Sprint {
   @Id
   @GeneratedValue(strategy = GenerationType.IDENTITY)
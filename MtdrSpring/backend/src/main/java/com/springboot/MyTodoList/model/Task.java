@@ -7,13 +7,30 @@ import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
+import javax.persistence.Version;
 
 @Entity
 @Table(name = "TASKS")
 public class Task {
+  // The state of a finished task. Some rows and clients write it as "done", so
+  // it is always compared ignoring case: in Java through isDone, in JPQL
+  // through DONE_JPQL.
+  public static final String DONE = "DONE";
+
+  // JPQL condition that holds for finished tasks, over a Task aliased as t
+  public static final String DONE_JPQL = "UPPER(t.state) = 'DONE'";
+
+  public static boolean isDone(String state) {
+    return DONE.equalsIgnoreCase(state);
+  }
+
+  // Ids come from a sequence, 50 at a time, so Hibernate can batch inserts;
+  // IDENTITY needs a round-trip per row to read the generated id back.
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tasks_seq")
+  @SequenceGenerator(name = "tasks_seq", sequenceName = "TASKS_SEQ", allocationSize = 50)
   int ID_Task;
 
   @Column(name = "DESCRIPTION")
@@ -46,6 +63,11 @@ public class Task {
   @Column(name = "STORY_POINTS")
   int storyPoints; 
 
+  // Bumped on every update, so concurrent edits are detected instead of lost
+  @Version
+  @Column(name = "VERSION")
+  Long version;
+
   public Task() {
     this.hoursReal = 0; // Ensure default value is set in the default constructor
     this.storyPoints = 0; 
@@ -167,6 +189,14 @@ public class Task {
     return storyPoints;
   }
 
+  public Long getVersion() {
+    return version;
+  }
+
+  public void setVersion(Long version) {
+    this.version = version;
+  }
+
   @Override
   public String toString() {
     return String.format(
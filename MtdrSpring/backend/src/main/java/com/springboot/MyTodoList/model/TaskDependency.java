@@ -1,17 +1,53 @@
 package com.springboot.MyTodoList.model;
 
+import java.io.Serializable;
+import java.util.Objects;
+
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.Id;
+import javax.persistence.IdClass;
 import javax.persistence.Table;
 
+/**
+ * The child task can't be done before the parent task.
+ * A row is identified by both tasks.
+ */
 @Entity
 @Table(name = "TASK_DEPENDENCY")
+@IdClass(TaskDependency.Key.class)
 public class TaskDependency {
+  public static class Key implements Serializable {
+    private int ID_Task_Parent;
+    private int ID_Task_Children;
+
+    public Key() {}
+
+    public Key(int ID_Task_Parent, int ID_Task_Children) {
+      this.ID_Task_Parent = ID_Task_Parent;
+      this.ID_Task_Children = ID_Task_Children;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) o;
+      return ID_Task_Parent == other.ID_Task_Parent && ID_Task_Children == other.ID_Task_Children;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(ID_Task_Parent, ID_Task_Children);
+    }
+  }
+
   @Id
   @Column(name = "ID_TASK_PARENT")
   private int ID_Task_Parent;
 
+  @Id
   @Column(name = "ID_TASK_CHILDREN")
   private int ID_Task_Children;
 
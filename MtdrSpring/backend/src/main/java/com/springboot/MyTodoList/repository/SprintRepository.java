@@ -3,10 +3,12 @@ package com.springboot.MyTodoList.repository;
 import java.time.OffsetDateTime;
 import java.util.List;
 
+import javax.persistence.QueryHint;
 import javax.transaction.Transactional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
@@ -16,9 +18,21 @@ import com.springboot.MyTodoList.model.Sprint;
 @Transactional
 @EnableTransactionManagement
 public interface SprintRepository extends JpaRepository<Sprint, Integer> {
+  // The whole table in one round-trip instead of one per 10 rows (ojdbc's default),
+  // and then from the query cache until a sprint is written
+  @Override
+  @QueryHints({
+    @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "100"),
+    @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true")
+  })
+  List<Sprint> findAll();
+
+  // Cached per currentDate, so callers should pass a truncated time
+  @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"))
   @Query("SELECT s FROM Sprint s WHERE :currentDate BETWEEN s.startsAt AND s.endsAt")
   List<Sprint> findCurrentSprints(OffsetDateTime currentDate);
 
+  @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"))
   @Query(
       "SELECT s FROM Sprint s WHERE :currentDate BETWEEN s.startsAt AND s.endsAt AND s.ID_Project ="
           + " :projectId")
@@ -0,0 +1,79 @@
+package com.springboot.MyTodoList.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+import com.springboot.MyTodoList.model.Task;
+
+/**
+ * The position of a task in a TaskSort: its sort value and id. Sent to clients
+ * as an opaque string, which they pass back to get the tasks that follow it.
+ */
+public final class TaskCursor {
+  private final TaskSort.Key key;
+  private final Comparable<?> value;
+  private final int id;
+
+  private TaskCursor(TaskSort.Key key, Comparable<?> value, int id) {
+    this.key = key;
+    this.value = value;
+    this.id = id;
+  }
+
+  /**
+   * The position of the given task.
+   */
+  public static TaskCursor of(TaskSort sort, Task task) {
+    return new TaskCursor(sort.getKey(), sort.getKey().valueOf(task), task.getID_Task());
+  }
+
+  /**
+   * Reads a cursor created for the given sort.
+   *
+   * @throws IllegalArgumentException if the cursor is malformed or was created
+   *     for a different sort key
+   */
+  public static TaskCursor decode(String cursor, TaskSort sort) {
+    String raw;
+    try {
+      raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Malformed cursor", e);
+    }
+    // key:value:id, where the value may contain colons itself
+    int keyEnd = raw.indexOf(':');
+    int idStart = raw.lastIndexOf(':');
+    if (keyEnd < 0 || keyEnd == idStart) {
+      throw new IllegalArgumentException("Malformed cursor");
+    }
+    if (!raw.substring(0, keyEnd).equals(sort.getKey().getParam())) {
+      throw new IllegalArgumentException("The cursor doesn't belong to this sort order");
+    }
+    String value = raw.substring(keyEnd + 1, idStart);
+    try {
+      return new TaskCursor(
+          sort.getKey(),
+          value.isEmpty() ? null : sort.getKey().parse(value),
+          Integer.parseInt(raw.substring(idStart + 1)));
+    } catch (NumberFormatException | DateTimeParseException e) {
+      throw new IllegalArgumentException("Malformed cursor", e);
+    }
+  }
+
+  public String encode() {
+    String raw = key.getParam() + ":" + (value == null ? "" : value.toString()) + ":" + id;
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  @SuppressWarnings("unchecked")
+  Comparable<Object> getValue() {
+    return (Comparable<Object>) value;
+  }
+
+  int getId() {
+    return id;
+  }
+}
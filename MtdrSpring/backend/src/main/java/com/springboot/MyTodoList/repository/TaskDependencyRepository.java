@@ -1,14 +1,53 @@
 package com.springboot.MyTodoList.repository;
 
+import java.util.List;
+
+import javax.persistence.QueryHint;
 import javax.transaction.Transactional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
+import com.springboot.MyTodoList.model.Task;
 import com.springboot.MyTodoList.model.TaskDependency;
 
 @Repository
 @Transactional
 @EnableTransactionManagement
-public interface TaskDependencyRepository extends JpaRepository<TaskDependency, Integer> {}
+public interface TaskDependencyRepository
+    extends JpaRepository<TaskDependency, TaskDependency.Key> {
+  @Query("SELECT d FROM TaskDependency d WHERE d.ID_Task_Parent = :parentId")
+  List<TaskDependency> findByParent(int parentId);
+
+  @Modifying
+  @Query("DELETE FROM TaskDependency d WHERE d.ID_Task_Parent = :parentId")
+  int deleteByParent(int parentId);
+
+  // Every row as a {parent, child} pair of ids, without building entities,
+  // to load the dependency graph
+  @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "1000"))
+  @Query("SELECT d.ID_Task_Parent, d.ID_Task_Children FROM TaskDependency d")
+  List<Object[]> findAllPairs();
+
+  // How many committed paths lead from one task down to another, following the
+  // dependencies from parent to child. NOCYCLE, so a cycle already in the table
+  // can't make it loop.
+  @Query(
+      value =
+          "SELECT COUNT(*) FROM TASK_DEPENDENCY WHERE ID_TASK_CHILDREN = :toId"
+              + " START WITH ID_TASK_PARENT = :fromId"
+              + " CONNECT BY NOCYCLE PRIOR ID_TASK_CHILDREN = ID_TASK_PARENT",
+      nativeQuery = true)
+  long countPaths(int fromId, int toId);
+
+  @Query(
+      "SELECT t.ID_Task FROM Task t WHERE "
+          + Task.DONE_JPQL
+          + " AND (t.ID_Task IN (SELECT d.ID_Task_Parent FROM TaskDependency d)"
+          + " OR t.ID_Task IN (SELECT d.ID_Task_Children FROM TaskDependency d))")
+  List<Integer> findDoneTaskIds();
+}
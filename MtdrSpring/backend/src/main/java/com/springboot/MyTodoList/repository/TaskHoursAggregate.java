@@ -0,0 +1,17 @@
+package com.springboot.MyTodoList.repository;
+
+/**
+ * Projection of completed (DONE) tasks grouped by sprint and assignee.
+ * Hours are null when every task in the group has no value for them.
+ */
+public interface TaskHoursAggregate {
+  int getSprintId();
+
+  int getUserId();
+
+  long getCompletedTasks();
+
+  Long getRealHours();
+
+  Long getEstimatedHours();
+}
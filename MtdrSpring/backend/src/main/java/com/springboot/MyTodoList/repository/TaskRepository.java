@@ -1,10 +1,19 @@
 package com.springboot.MyTodoList.repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
 import javax.transaction.Transactional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
@@ -13,6 +22,67 @@ import com.springboot.MyTodoList.model.Task;
 @Repository
 @Transactional
 @EnableTransactionManagement
-public interface TaskRepository extends JpaRepository<Task, Integer> {
+public interface TaskRepository
+    extends JpaRepository<Task, Integer>,
+        JpaSpecificationExecutor<Task>,
+        TaskSearchRepository,
+        TaskUpdateRepository {
+  // Fewer, larger round-trips for the full task list (GET /task without filters)
+  @Override
+  @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"))
+  List<Task> findAll();
+
+  @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "100"))
   List<Task> findByAssignedTo(int assignedTo);
+
+  // SELECT ... FOR UPDATE: the rows stay locked until the transaction ends. In id
+  // order, so two transactions locking the same tasks can't deadlock.
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("SELECT t FROM Task t WHERE t.ID_Task IN :ids ORDER BY t.ID_Task")
+  List<Task> lockAll(Collection<Integer> ids);
+
+  // Keyset pagination over a user's tasks: the page starts after (or ends before)
+  // a task id, so Oracle only reads the rows of that page from the index.
+  @Query(
+      "SELECT t FROM Task t WHERE t.assignedTo = :userId AND t.ID_Task > :afterId"
+          + " AND (:includeDone = TRUE OR NOT ("
+          + Task.DONE_JPQL
+          + ")) ORDER BY t.ID_Task ASC")
+  List<Task> findAssignedAfter(int userId, boolean includeDone, int afterId, Pageable page);
+
+  @Query(
+      "SELECT t FROM Task t WHERE t.assignedTo = :userId AND t.ID_Task < :beforeId"
+          + " AND (:includeDone = TRUE OR NOT ("
+          + Task.DONE_JPQL
+          + ")) ORDER BY t.ID_Task DESC")
+  List<Task> findAssignedBefore(int userId, boolean includeDone, int beforeId, Pageable page);
+
+  @Query(
+      "SELECT t.ID_Sprint AS sprintId, t.assignedTo AS userId, COUNT(t) AS completedTasks,"
+          + " SUM(t.hoursReal) AS realHours, SUM(t.hoursEstimated) AS estimatedHours"
+          + " FROM Task t WHERE "
+          + Task.DONE_JPQL
+          + " GROUP BY t.ID_Sprint, t.assignedTo")
+  List<TaskHoursAggregate> sumCompletedHoursBySprintAndUser();
+
+  // Every finished task with both hours as an {assignedTo, estimated, real}
+  // row, without building entities, for the sprint forecasts. Ordered so the
+  // same seed draws the same samples.
+  @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "1000"))
+  @Query(
+      "SELECT t.assignedTo, t.hoursEstimated, t.hoursReal FROM Task t"
+          + " WHERE "
+          + Task.DONE_JPQL
+          + " AND t.hoursEstimated > 0 AND t.hoursReal > 0"
+          + " ORDER BY t.ID_Task")
+  List<Object[]> findCompletedHours();
+
+  // Every task, read from the cursor a batch of rows at a time instead of being
+  // loaded into a list. Must be consumed and closed inside a transaction.
+  @QueryHints({
+    @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"),
+    @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true")
+  })
+  @Query("SELECT t FROM Task t ORDER BY t.ID_Task")
+  Stream<Task> streamAll();
 }
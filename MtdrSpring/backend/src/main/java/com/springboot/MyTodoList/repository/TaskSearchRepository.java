@@ -0,0 +1,20 @@
+package com.springboot.MyTodoList.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.springboot.MyTodoList.model.Task;
+
+/**
+ * Keyset-paginated task search, added to TaskRepository as a fragment.
+ */
+public interface TaskSearchRepository {
+
+  /**
+   * Up to limit tasks matching the filter, in the given order, starting right
+   * after the cursor (or from the first one if it's null). Unlike
+   * findAll(Specification, Pageable) no count query is run.
+   */
+  List<Task> search(Specification<Task> filter, TaskSort sort, TaskCursor after, int limit);
+}
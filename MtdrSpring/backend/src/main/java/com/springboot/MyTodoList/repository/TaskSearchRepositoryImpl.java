@@ -0,0 +1,42 @@
+package com.springboot.MyTodoList.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.springboot.MyTodoList.model.Task;
+
+public class TaskSearchRepositoryImpl implements TaskSearchRepository {
+
+  @PersistenceContext private EntityManager entityManager;
+
+  @Override
+  public List<Task> search(
+      Specification<Task> filter, TaskSort sort, TaskCursor after, int limit) {
+    CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+    CriteriaQuery<Task> query = cb.createQuery(Task.class);
+    Root<Task> task = query.from(Task.class);
+
+    List<Predicate> where = new ArrayList<>();
+    if (filter != null) {
+      Predicate matches = filter.toPredicate(task, query, cb);
+      if (matches != null) {
+        where.add(matches);
+      }
+    }
+    if (after != null) {
+      where.add(sort.after(task, cb, after));
+    }
+    query.select(task).where(where.toArray(new Predicate[0])).orderBy(sort.orderBy(task, cb));
+
+    return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+  }
+}
@@ -0,0 +1,133 @@
+package com.springboot.MyTodoList.repository;
+
+import java.time.OffsetDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Order;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+
+import com.springboot.MyTodoList.model.Task;
+
+/**
+ * The order tasks are listed in: a key, ascending or descending, with the task id
+ * breaking ties so every task has a unique position for keyset pagination.
+ *
+ * Nulls are placed the way Oracle places them by default: last when ascending,
+ * first when descending.
+ */
+public final class TaskSort {
+
+  public enum Key {
+    ID("id", "ID_Task", Integer::parseInt, Task::getID_Task),
+    DUE_DATE("dueDate", "finishesAt", OffsetDateTime::parse, Task::getFinishesAt),
+    CREATED_AT("createdAt", "createdAt", OffsetDateTime::parse, Task::getCreatedAt),
+    UPDATED_AT("updatedAt", "updatedAt", OffsetDateTime::parse, Task::getUpdatedAt),
+    STORY_POINTS("storyPoints", "storyPoints", Integer::parseInt, Task::getStoryPoints);
+
+    private final String param;
+    private final String attribute;
+    private final Function<String, Comparable<?>> parser;
+    private final Function<Task, Comparable<?>> getter;
+
+    Key(
+        String param,
+        String attribute,
+        Function<String, Comparable<?>> parser,
+        Function<Task, Comparable<?>> getter) {
+      this.param = param;
+      this.attribute = attribute;
+      this.parser = parser;
+      this.getter = getter;
+    }
+
+    public String getParam() {
+      return param;
+    }
+
+    Comparable<?> parse(String value) {
+      return parser.apply(value);
+    }
+
+    Comparable<?> valueOf(Task task) {
+      return getter.apply(task);
+    }
+  }
+
+  public static final TaskSort DEFAULT = new TaskSort(Key.ID, false);
+
+  private final Key key;
+  private final boolean descending;
+
+  public TaskSort(Key key, boolean descending) {
+    this.key = key;
+    this.descending = descending;
+  }
+
+  /**
+   * Parses a sort parameter like "dueDate" or "dueDate,desc".
+   *
+   * @throws IllegalArgumentException if the key or direction is unknown
+   */
+  public static TaskSort parse(String value) {
+    String[] parts = value.split(",", 2);
+    Key key =
+        Arrays.stream(Key.values())
+            .filter(k -> k.param.equals(parts[0].trim()))
+            .findFirst()
+            .orElseThrow(() -> new IllegalArgumentException("Unknown sort key: " + parts[0]));
+    if (parts.length == 1 || parts[1].trim().equalsIgnoreCase("asc")) {
+      return new TaskSort(key, false);
+    }
+    if (parts[1].trim().equalsIgnoreCase("desc")) {
+      return new TaskSort(key, true);
+    }
+    throw new IllegalArgumentException("Unknown sort direction: " + parts[1]);
+  }
+
+  public Key getKey() {
+    return key;
+  }
+
+  public boolean isDescending() {
+    return descending;
+  }
+
+  List<Order> orderBy(Root<Task> task, CriteriaBuilder cb) {
+    Path<?> id = task.get(Key.ID.attribute);
+    if (key == Key.ID) {
+      return List.of(descending ? cb.desc(id) : cb.asc(id));
+    }
+    Path<?> value = task.get(key.attribute);
+    return descending
+        ? List.of(cb.desc(value), cb.desc(id))
+        : List.of(cb.asc(value), cb.asc(id));
+  }
+
+  /**
+   * Matches the tasks that come after the cursor in this order.
+   */
+  Predicate after(Root<Task> task, CriteriaBuilder cb, TaskCursor cursor) {
+    Path<Integer> id = task.get(Key.ID.attribute);
+    Predicate idAfter =
+        descending ? cb.lessThan(id, cursor.getId()) : cb.greaterThan(id, cursor.getId());
+    if (key == Key.ID) {
+      return idAfter;
+    }
+    Path<Comparable<Object>> value = task.get(key.attribute);
+    Comparable<Object> cursorValue = cursor.getValue();
+    if (cursorValue == null) {
+      // Among the nulls: last when ascending, first when descending
+      Predicate nullAfter = cb.and(cb.isNull(value), idAfter);
+      return descending ? cb.or(nullAfter, cb.isNotNull(value)) : nullAfter;
+    }
+    Predicate valueAfter =
+        descending ? cb.lessThan(value, cursorValue) : cb.greaterThan(value, cursorValue);
+    Predicate tie = cb.and(cb.equal(value, cursorValue), idAfter);
+    return descending ? cb.or(valueAfter, tie) : cb.or(valueAfter, tie, cb.isNull(value));
+  }
+}
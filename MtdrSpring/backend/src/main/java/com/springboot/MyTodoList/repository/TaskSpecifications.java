@@ -0,0 +1,57 @@
+package com.springboot.MyTodoList.repository;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.Locale;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.springboot.MyTodoList.model.Task;
+
+/**
+ * Filters for searching tasks, to be combined with Specification.and.
+ */
+public final class TaskSpecifications {
+
+  private TaskSpecifications() {}
+
+  public static Specification<Task> inSprint(int sprintId) {
+    return (task, query, cb) -> cb.equal(task.get("ID_Sprint"), sprintId);
+  }
+
+  public static Specification<Task> assignedTo(int userId) {
+    return (task, query, cb) -> cb.equal(task.get("assignedTo"), userId);
+  }
+
+  public static Specification<Task> inStates(Collection<String> states) {
+    return (task, query, cb) -> task.get("state").in(states);
+  }
+
+  /**
+   * Tasks due at or after the given time.
+   */
+  public static Specification<Task> dueFrom(OffsetDateTime from) {
+    return (task, query, cb) -> cb.greaterThanOrEqualTo(task.get("finishesAt"), from);
+  }
+
+  /**
+   * Tasks due before the given time.
+   */
+  public static Specification<Task> dueBefore(OffsetDateTime to) {
+    return (task, query, cb) -> cb.lessThan(task.get("finishesAt"), to);
+  }
+
+  /**
+   * Tasks whose description contains the text, ignoring case.
+   */
+  public static Specification<Task> descriptionContains(String text) {
+    String pattern =
+        "%"
+            + text.toLowerCase(Locale.ROOT)
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_")
+            + "%";
+    return (task, query, cb) -> cb.like(cb.lower(task.get("description")), pattern, '\\');
+  }
+}
@@ -0,0 +1,20 @@
+package com.springboot.MyTodoList.repository;
+
+import java.time.OffsetDateTime;
+import java.util.Map;
+
+/**
+ * Targeted task updates, added to TaskRepository as a fragment.
+ */
+public interface TaskUpdateRepository {
+
+  /**
+   * Sets only the given attributes (plus updatedAt and the version) of a task,
+   * in one UPDATE, if the task is still at the expected version.
+   *
+   * @return 1 if the task was updated, 0 if it doesn't exist or was changed
+   *     since that version
+   */
+  int updateAttributes(
+      int id, long expectedVersion, Map<String, Object> attributes, OffsetDateTime updatedAt);
+}
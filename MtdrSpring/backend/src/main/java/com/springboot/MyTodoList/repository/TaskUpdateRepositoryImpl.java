@@ -0,0 +1,46 @@
+package com.springboot.MyTodoList.repository;
+
+import java.time.OffsetDateTime;
+import java.util.Map;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaUpdate;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Root;
+
+import com.springboot.MyTodoList.model.Task;
+
+public class TaskUpdateRepositoryImpl implements TaskUpdateRepository {
+
+  @PersistenceContext private EntityManager entityManager;
+
+  @Override
+  public int updateAttributes(
+      int id, long expectedVersion, Map<String, Object> attributes, OffsetDateTime updatedAt) {
+    // The column list depends on the patch, so this can't be a @Modifying @Query
+    CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+    CriteriaUpdate<Task> update = cb.createCriteriaUpdate(Task.class);
+    Root<Task> task = update.from(Task.class);
+
+    attributes.forEach((name, value) -> set(update, cb, task.get(name), value));
+    Path<Long> version = task.get("version");
+    update
+        .set(task.<OffsetDateTime>get("updatedAt"), updatedAt)
+        .set(version, cb.sum(version, 1L))
+        .where(cb.equal(task.get("ID_Task"), id), cb.equal(version, expectedVersion));
+
+    return entityManager.createQuery(update).executeUpdate();
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <Y> void set(
+      CriteriaUpdate<Task> update, CriteriaBuilder cb, Path<Y> path, Object value) {
+    if (value == null) {
+      update.set(path, cb.nullLiteral(path.getJavaType()));
+    } else {
+      update.set(path, cb.literal((Y) value));
+    }
+  }
+}
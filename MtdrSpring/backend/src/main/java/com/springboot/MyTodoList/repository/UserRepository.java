@@ -1,8 +1,14 @@
 package com.springboot.MyTodoList.repository;
 
+import java.util.List;
+import java.util.Optional;
+
+import javax.persistence.QueryHint;
 import javax.transaction.Transactional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
@@ -11,4 +17,16 @@ import com.springboot.MyTodoList.model.User;
 @Repository
 @Transactional
 @EnableTransactionManagement
-public interface UserRepository extends JpaRepository<User, Integer> {}
+public interface UserRepository extends JpaRepository<User, Integer> {
+  // The whole team in one round-trip instead of one per 10 rows (ojdbc's default),
+  // and then from the query cache until a user is written
+  @Override
+  @QueryHints({
+    @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "100"),
+    @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true")
+  })
+  List<User> findAll();
+
+  @Query("SELECT u FROM User u WHERE u.id_Telegram = :idTelegram")
+  Optional<User> findByIdTelegram(Long idTelegram);
+}
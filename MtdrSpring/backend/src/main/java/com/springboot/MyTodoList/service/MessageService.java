@@ -1,8 +1,11 @@
 package com.springboot.MyTodoList.service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -11,6 +14,8 @@ import com.springboot.MyTodoList.model.Message;
 import com.springboot.MyTodoList.model.User;
 import com.springboot.MyTodoList.repository.MessageRepository;
 import com.springboot.MyTodoList.repository.UserRepository;
+import com.springboot.MyTodoList.service.notification.MessageOutbox;
+import com.springboot.MyTodoList.service.notification.NotificationDispatcher;
 
 @Service
 public class MessageService {
@@ -19,6 +24,35 @@ public class MessageService {
 
   @Autowired private UserRepository userRepository;
 
+  @Autowired private MessageOutbox messageOutbox;
+
+  @Autowired private NotificationDispatcher notificationDispatcher;
+
+  /**
+   * The same message for several users.
+   */
+  public static class Broadcast {
+    private String content;
+    // Every user when empty
+    private List<Integer> userIds = new ArrayList<>();
+
+    public String getContent() {
+      return content;
+    }
+
+    public void setContent(String content) {
+      this.content = content;
+    }
+
+    public List<Integer> getUserIds() {
+      return userIds;
+    }
+
+    public void setUserIds(List<Integer> userIds) {
+      this.userIds = userIds;
+    }
+  }
+
   public List<Message> findAll() {
     return messageRepository.findAll();
   }
@@ -40,7 +74,40 @@ public class MessageService {
 
     message.setTimestamp(LocalDateTime.now());
 
-    return messageRepository.save(message);
+    Message saved = messageRepository.save(message);
+    notificationDispatcher.wakeUp();
+    return saved;
+  }
+
+  /**
+   * Stores the message for every recipient in one batch and has them all
+   * delivered. Returns how many messages were stored.
+   *
+   * @throws IllegalArgumentException if the message has no content
+   */
+  public int broadcast(Broadcast broadcast) {
+    if (broadcast.getContent() == null || broadcast.getContent().isBlank()) {
+      throw new IllegalArgumentException("El mensaje no puede estar vacío.");
+    }
+    List<Integer> userIds = new ArrayList<>();
+    if (broadcast.getUserIds() == null || broadcast.getUserIds().isEmpty()) {
+      for (User user : userRepository.findAll()) {
+        userIds.add(user.getID_User());
+      }
+    } else {
+      Set<Integer> requested = new HashSet<>(broadcast.getUserIds());
+      for (User user : userRepository.findAllById(requested)) {
+        userIds.add(user.getID_User());
+        requested.remove(user.getID_User());
+      }
+      if (!requested.isEmpty()) {
+        throw new IllegalArgumentException(
+            "No existe un Usuario con ID " + requested.iterator().next());
+      }
+    }
+    messageOutbox.insert(broadcast.getContent(), userIds, LocalDateTime.now());
+    notificationDispatcher.wakeUp();
+    return userIds.size();
   }
 
   public Message updateMessage(int id, Message updated) {
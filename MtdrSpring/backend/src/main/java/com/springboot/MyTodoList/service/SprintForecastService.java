@@ -0,0 +1,236 @@
+package com.springboot.MyTodoList.service;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.springboot.MyTodoList.model.Sprint;
+import com.springboot.MyTodoList.model.Task;
+import com.springboot.MyTodoList.model.UserAvailability;
+import com.springboot.MyTodoList.repository.SprintRepository;
+import com.springboot.MyTodoList.repository.TaskRepository;
+import com.springboot.MyTodoList.repository.TaskSpecifications;
+import com.springboot.MyTodoList.repository.UserAvailabilityRepository;
+import com.springboot.MyTodoList.service.forecast.CompletionSimulator;
+import com.springboot.MyTodoList.service.forecast.SprintForecast;
+
+/**
+ * Forecasts when a sprint's unfinished tasks will be done, by simulating
+ * them many times with the real/estimated hours ratios of the finished tasks.
+ *
+ * A user's ratios are their own once they have forecast.min-samples finished
+ * tasks; before that, and for unassigned tasks, they are everyone's. Users
+ * work their weekly available hours, or forecast.default-weekly-hours if they
+ * have none. The simulations run on this service's own pool of
+ * forecast.workers threads, not the common fork-join pool.
+ */
+@Service
+public class SprintForecastService {
+  private static final int[] PERCENTS = {50, 80, 90, 95};
+  private static final double[] NO_HISTORY = {1.0};
+
+  private final SprintRepository sprintRepository;
+  private final TaskRepository taskRepository;
+  private final UserAvailabilityRepository userAvailabilityRepository;
+  private final int defaultSimulations;
+  private final int maxSimulations;
+  private final int minSamples;
+  private final double defaultWeeklyHours;
+  private final ExecutorService executor;
+
+  public SprintForecastService(
+      SprintRepository sprintRepository,
+      TaskRepository taskRepository,
+      UserAvailabilityRepository userAvailabilityRepository,
+      @Value("${forecast.simulations:20000}") int defaultSimulations,
+      @Value("${forecast.max-simulations:200000}") int maxSimulations,
+      @Value("${forecast.min-samples:5}") int minSamples,
+      @Value("${forecast.default-weekly-hours:40}") double defaultWeeklyHours,
+      @Value("${forecast.workers:0}") int workers) {
+    this.sprintRepository = sprintRepository;
+    this.taskRepository = taskRepository;
+    this.userAvailabilityRepository = userAvailabilityRepository;
+    this.defaultSimulations = defaultSimulations;
+    this.maxSimulations = maxSimulations;
+    this.minSamples = Math.max(1, minSamples);
+    this.defaultWeeklyHours = defaultWeeklyHours;
+    int threads =
+        workers > 0 ? workers : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    AtomicInteger count = new AtomicInteger();
+    // Chunks of concurrent forecasts wait for a thread rather than add more
+    this.executor =
+        new ThreadPoolExecutor(
+            threads,
+            threads,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(),
+            r -> {
+              Thread thread = new Thread(r, "forecast-" + count.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            });
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  public int getDefaultSimulations() {
+    return defaultSimulations;
+  }
+
+  /**
+   * Forecasts the sprint with the default number of simulations and a seed
+   * taken from the sprint id, so the same data gives the same forecast.
+   */
+  public Optional<SprintForecast> forecast(int sprintId) {
+    return forecast(sprintId, defaultSimulations, sprintId);
+  }
+
+  /**
+   * Forecasts the sprint, or returns empty if there's no such sprint. The
+   * simulations are clamped between 1 and forecast.max-simulations.
+   */
+  public Optional<SprintForecast> forecast(int sprintId, int simulations, long seed) {
+    Optional<Sprint> found = sprintRepository.findById(sprintId);
+    if (!found.isPresent()) {
+      return Optional.empty();
+    }
+    Sprint sprint = found.get();
+    simulations = Math.max(1, Math.min(simulations, maxSimulations));
+
+    List<Task> remaining = new ArrayList<>();
+    for (Task task : taskRepository.findAll(TaskSpecifications.inSprint(sprintId))) {
+      if (!Task.isDone(task.getState())) {
+        remaining.add(task);
+      }
+    }
+    // The draws follow the order of tasks and users, so it mustn't depend on
+    // the order the database returns rows in
+    remaining.sort(Comparator.comparingInt(Task::getID_Task));
+    List<UserAvailability> availabilities = new ArrayList<>(userAvailabilityRepository.findAll());
+    availabilities.sort(Comparator.comparingInt(UserAvailability::getID_USER));
+
+    Map<Integer, Integer> userIndex = new HashMap<>();
+    List<Double> weeklyHours = new ArrayList<>();
+    for (UserAvailability availability : availabilities) {
+      Integer hours = availability.getAVAILABLE_HOURS();
+      if (hours != null && hours > 0) {
+        userIndex.put(availability.getID_USER(), weeklyHours.size());
+        weeklyHours.add(hours.doubleValue());
+      }
+    }
+    int[] taskUsers = new int[remaining.size()];
+    double[] taskHours = new double[remaining.size()];
+    double[] taskSpent = new double[remaining.size()];
+    long estimated = 0;
+    for (int i = 0; i < taskUsers.length; i++) {
+      Task task = remaining.get(i);
+      taskUsers[i] = CompletionSimulator.UNASSIGNED;
+      if (task.getAssignedTo() > 0) {
+        Integer user = userIndex.get(task.getAssignedTo());
+        if (user == null) {
+          user = weeklyHours.size();
+          userIndex.put(task.getAssignedTo(), user);
+          weeklyHours.add(defaultWeeklyHours);
+        }
+        taskUsers[i] = user;
+      }
+      taskHours[i] = hoursOf(task.getHoursEstimated());
+      taskSpent[i] = hoursOf(task.getHoursReal());
+      estimated += (long) taskHours[i];
+    }
+    if (weeklyHours.isEmpty()) {
+      // Nobody has hours yet, so unassigned work goes to one default user
+      weeklyHours.add(defaultWeeklyHours);
+    }
+
+    double[] weekly = new double[weeklyHours.size()];
+    for (int user = 0; user < weekly.length; user++) {
+      weekly[user] = weeklyHours.get(user);
+    }
+
+    List<Object[]> history = taskRepository.findCompletedHours();
+    double[] teamRatios = new double[history.size()];
+    int[] historyUsers = new int[history.size()];
+    int[] samples = new int[weekly.length];
+    for (int i = 0; i < teamRatios.length; i++) {
+      Object[] row = history.get(i);
+      Integer user = userIndex.get(((Number) row[0]).intValue());
+      historyUsers[i] = user == null ? CompletionSimulator.UNASSIGNED : user;
+      teamRatios[i] = ((Number) row[2]).doubleValue() / ((Number) row[1]).doubleValue();
+      if (user != null) {
+        samples[user]++;
+      }
+    }
+    if (teamRatios.length == 0) {
+      teamRatios = NO_HISTORY;
+    }
+    double[][] userRatios = new double[weekly.length][];
+    for (int user = 0; user < weekly.length; user++) {
+      userRatios[user] = samples[user] >= minSamples ? new double[samples[user]] : teamRatios;
+      samples[user] = 0;
+    }
+    for (int i = 0; i < historyUsers.length; i++) {
+      int user = historyUsers[i];
+      if (user != CompletionSimulator.UNASSIGNED && userRatios[user] != teamRatios) {
+        userRatios[user][samples[user]++] = teamRatios[i];
+      }
+    }
+
+    double[] simulated =
+        new CompletionSimulator(weekly, userRatios, teamRatios, taskUsers, taskHours, taskSpent)
+            .simulate(executor, simulations, seed);
+
+    OffsetDateTime from = OffsetDateTime.now();
+    if (sprint.getStartsAt() != null && sprint.getStartsAt().isAfter(from)) {
+      from = sprint.getStartsAt();
+    }
+    List<SprintForecast.Percentile> percentiles = new ArrayList<>(PERCENTS.length);
+    for (int percent : PERCENTS) {
+      double hours = CompletionSimulator.percentile(simulated, percent / 100.0);
+      percentiles.add(new SprintForecast.Percentile(percent, plusHours(from, hours)));
+    }
+    double probabilityByEnd = 0;
+    if (sprint.getEndsAt() != null) {
+      double hoursLeft = Duration.between(from, sprint.getEndsAt()).toMinutes() / 60.0;
+      probabilityByEnd = CompletionSimulator.fractionWithin(simulated, hoursLeft);
+    }
+    return Optional.of(
+        new SprintForecast(
+            sprintId,
+            from,
+            sprint.getEndsAt(),
+            probabilityByEnd,
+            percentiles,
+            remaining.size(),
+            estimated,
+            simulations,
+            seed));
+  }
+
+  private static double hoursOf(Integer hours) {
+    return hours == null ? 0 : Math.max(0, hours);
+  }
+
+  private static OffsetDateTime plusHours(OffsetDateTime from, double hours) {
+    return from.plusSeconds(Math.round(hours * 3600));
+  }
+}
@@ -0,0 +1,238 @@
+package com.springboot.MyTodoList.service;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.springboot.MyTodoList.model.Sprint;
+import com.springboot.MyTodoList.model.Task;
+import com.springboot.MyTodoList.model.UserAvailability;
+import com.springboot.MyTodoList.repository.SprintRepository;
+import com.springboot.MyTodoList.repository.TaskRepository;
+import com.springboot.MyTodoList.repository.TaskSpecifications;
+import com.springboot.MyTodoList.repository.UserAvailabilityRepository;
+import com.springboot.MyTodoList.service.graph.TaskDependencyIndex;
+import com.springboot.MyTodoList.service.planning.CapacityPlanner;
+import com.springboot.MyTodoList.service.planning.SprintPlan;
+
+/**
+ * Proposes who should take the unassigned tasks of a sprint and of the
+ * backlog, given each user's available hours and what they already have.
+ * Available hours are per week, so a user can take that many hours for each
+ * week of the sprint (two weeks when the sprint has no dates).
+ *
+ * Candidates are the sprint's unassigned tasks that aren't done and the
+ * backlog's unassigned tasks that aren't done. A candidate can only be
+ * planned when every task it depends on is done, already in the sprint, or
+ * planned too. The search runs on its own pool of planning.workers threads,
+ * so it doesn't hold up other users of the common fork-join pool, until it
+ * stops improving or for at most planning.time-budget, or the budget of the
+ * request up to planning.max-time-budget.
+ */
+@Service
+public class SprintPlanningService {
+  private static final int BACKLOG = -1;
+  private static final double DEFAULT_WEEKS = 2;
+
+  private final SprintRepository sprintRepository;
+  private final TaskRepository taskRepository;
+  private final UserAvailabilityRepository userAvailabilityRepository;
+  private final TaskDependencyIndex taskDependencyIndex;
+  private final Duration defaultBudget;
+  private final Duration maxBudget;
+  private final int workers;
+  private final ExecutorService executor;
+
+  public SprintPlanningService(
+      SprintRepository sprintRepository,
+      TaskRepository taskRepository,
+      UserAvailabilityRepository userAvailabilityRepository,
+      TaskDependencyIndex taskDependencyIndex,
+      @Value("${planning.time-budget:PT2S}") Duration defaultBudget,
+      @Value("${planning.max-time-budget:PT10S}") Duration maxBudget,
+      @Value("${planning.workers:0}") int workers) {
+    this.sprintRepository = sprintRepository;
+    this.taskRepository = taskRepository;
+    this.userAvailabilityRepository = userAvailabilityRepository;
+    this.taskDependencyIndex = taskDependencyIndex;
+    this.defaultBudget = defaultBudget;
+    this.maxBudget = maxBudget;
+    this.workers =
+        workers > 0 ? workers : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    AtomicInteger count = new AtomicInteger();
+    // Searches of concurrent requests wait for a thread rather than add more
+    this.executor =
+        new ThreadPoolExecutor(
+            this.workers,
+            this.workers,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(),
+            r -> {
+              Thread thread = new Thread(r, "planner-" + count.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            });
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  /**
+   * Plans the sprint within the default time budget.
+   */
+  public Optional<SprintPlan> plan(int sprintId) {
+    return plan(sprintId, defaultBudget);
+  }
+
+  /**
+   * Plans the sprint, or returns empty if there's no such sprint. Nothing is
+   * saved; the tasks have to be updated to follow the plan.
+   *
+   * @param budget how long to search at most; longer than
+   *     planning.max-time-budget is cut down to it
+   * @throws IllegalArgumentException if the budget isn't positive
+   */
+  public Optional<SprintPlan> plan(int sprintId, Duration budget) {
+    if (budget.isNegative() || budget.isZero()) {
+      throw new IllegalArgumentException("The time budget must be positive");
+    }
+    Optional<Sprint> sprint = sprintRepository.findById(sprintId);
+    if (!sprint.isPresent()) {
+      return Optional.empty();
+    }
+    long started = System.nanoTime();
+    if (budget.compareTo(maxBudget) > 0) {
+      budget = maxBudget;
+    }
+
+    List<UserAvailability> availabilities = new ArrayList<>();
+    for (UserAvailability availability : userAvailabilityRepository.findAll()) {
+      Integer available = availability.getAVAILABLE_HOURS();
+      if (available != null && available > 0) {
+        availabilities.add(availability);
+      }
+    }
+    Map<Integer, Integer> userIndex = new HashMap<>();
+    long[] capacity = new long[availabilities.size()];
+    long[] assigned = new long[availabilities.size()];
+    double weeks = weeks(sprint.get().getStartsAt(), sprint.get().getEndsAt());
+    for (int i = 0; i < capacity.length; i++) {
+      userIndex.put(availabilities.get(i).getID_USER(), i);
+      capacity[i] = Math.max(1, Math.round(availabilities.get(i).getAVAILABLE_HOURS() * weeks));
+    }
+
+    Set<Integer> inSprint = new HashSet<>();
+    List<Task> candidates = new ArrayList<>();
+    for (Task task : taskRepository.findAll(TaskSpecifications.inSprint(sprintId))) {
+      inSprint.add(task.getID_Task());
+      if (Task.isDone(task.getState())) {
+        continue;
+      }
+      if (task.getAssignedTo() > 0) {
+        Integer user = userIndex.get(task.getAssignedTo());
+        if (user != null) {
+          assigned[user] += hoursOf(task);
+        }
+      } else {
+        candidates.add(task);
+      }
+    }
+    int fromSprint = candidates.size();
+    for (Task task : taskRepository.findAll(TaskSpecifications.inSprint(BACKLOG))) {
+      if (task.getAssignedTo() <= 0 && !Task.isDone(task.getState())) {
+        candidates.add(task);
+      }
+    }
+
+    int[] taskIds = new int[candidates.size()];
+    int[] hours = new int[taskIds.length];
+    Map<Integer, Integer> taskIndex = new HashMap<>();
+    for (int i = 0; i < taskIds.length; i++) {
+      taskIds[i] = candidates.get(i).getID_Task();
+      hours[i] = hoursOf(candidates.get(i));
+      taskIndex.put(taskIds[i], i);
+    }
+    int[][] parentIds = taskDependencyIndex.parentsOf(taskIds);
+    int[][] parents = new int[taskIds.length][];
+    boolean[] eligible = new boolean[taskIds.length];
+    for (int i = 0; i < taskIds.length; i++) {
+      eligible[i] = true;
+      int[] candidateParents = new int[parentIds[i].length];
+      int count = 0;
+      for (int parentId : parentIds[i]) {
+        Integer parent = taskIndex.get(parentId);
+        if (parent != null) {
+          candidateParents[count++] = parent;
+        } else if (!inSprint.contains(parentId) && !taskDependencyIndex.isDone(parentId)) {
+          // It waits for a task that stays in the backlog or in another sprint
+          eligible[i] = false;
+        }
+      }
+      parents[i] = Arrays.copyOf(candidateParents, count);
+    }
+
+    CapacityPlanner.Plan plan =
+        new CapacityPlanner(capacity, assigned, hours, parents, eligible)
+            .solve(executor, workers, budget, started);
+
+    List<SprintPlan.UserLoad> users = new ArrayList<>(capacity.length);
+    for (int i = 0; i < capacity.length; i++) {
+      users.add(
+          new SprintPlan.UserLoad(
+              availabilities.get(i).getID_USER(), capacity[i], assigned[i], plan.getLoad(i)));
+    }
+    List<SprintPlan.Assignment> assignments = new ArrayList<>();
+    List<Integer> unplanned = new ArrayList<>();
+    for (int i = 0; i < taskIds.length; i++) {
+      int user = plan.getUser(i);
+      if (user == CapacityPlanner.UNASSIGNED) {
+        unplanned.add(taskIds[i]);
+      } else {
+        assignments.add(
+            new SprintPlan.Assignment(
+                taskIds[i], availabilities.get(user).getID_USER(), i >= fromSprint));
+      }
+    }
+    return Optional.of(
+        new SprintPlan(
+            sprintId,
+            users,
+            assignments,
+            unplanned,
+            plan.getPlannedHours(),
+            plan.getAttempts(),
+            Duration.ofNanos(System.nanoTime() - started).toMillis()));
+  }
+
+  private static double weeks(OffsetDateTime startsAt, OffsetDateTime endsAt) {
+    if (startsAt == null || endsAt == null || !endsAt.isAfter(startsAt)) {
+      return DEFAULT_WEEKS;
+    }
+    return Duration.between(startsAt, endsAt).toHours() / (7.0 * 24);
+  }
+
+  private static int hoursOf(Task task) {
+    Integer hours = task.getHoursEstimated();
+    return hours == null ? 0 : Math.max(0, hours);
+  }
+}
@@ -1,6 +1,7 @@
 package com.springboot.MyTodoList.service;
 
 import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Optional;
 
@@ -11,10 +12,13 @@ import org.springframework.stereotype.Service;
 
 import com.springboot.MyTodoList.model.Sprint;
 import com.springboot.MyTodoList.repository.SprintRepository;
+import com.springboot.MyTodoList.service.graph.SprintSchedule;
+import com.springboot.MyTodoList.service.graph.SprintSchedules;
 
 @Service
 public class SprintService {
   @Autowired private SprintRepository sprintRepository;
+  @Autowired private SprintSchedules sprintSchedules;
 
   public List<Sprint> findAll() {
     return sprintRepository.findAll();
@@ -27,8 +31,14 @@ public class SprintService {
         .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
   }
 
+  // The current sprint queries are cached by their parameters, so the time is
+  // truncated to the minute for calls within a minute to share a cache entry.
+  private static OffsetDateTime now() {
+    return OffsetDateTime.now().truncatedTo(ChronoUnit.MINUTES);
+  }
+
   public List<Sprint> findCurrentSprints() {
-    return sprintRepository.findCurrentSprints(OffsetDateTime.now());
+    return sprintRepository.findCurrentSprints(now());
   }
 
   public Optional<Sprint> findCurrentSprint() {
@@ -37,7 +47,7 @@ public class SprintService {
   }
 
   public List<Sprint> findCurrentSprintsByProject(int projectId) {
-    return sprintRepository.findCurrentSprintsByProject(OffsetDateTime.now(), projectId);
+    return sprintRepository.findCurrentSprintsByProject(now(), projectId);
   }
 
   public Optional<Sprint> findCurrentSprintByProject(int projectId) {
@@ -45,6 +55,16 @@ public class SprintService {
     return currentSprints.isEmpty() ? Optional.empty() : Optional.of(currentSprints.get(0));
   }
 
+  /**
+   * The sprint's critical path, or empty if there's no such sprint.
+   *
+   * @throws com.springboot.MyTodoList.service.graph.DependencyCycleException if
+   *     the sprint's tasks depend on each other in a cycle
+   */
+  public Optional<SprintSchedule> getCriticalPath(int id) {
+    return sprintRepository.findById(id).map(sprintSchedules::forSprint);
+  }
+
   public Sprint addSprint(Sprint sprint) {
     return sprintRepository.save(sprint);
   }
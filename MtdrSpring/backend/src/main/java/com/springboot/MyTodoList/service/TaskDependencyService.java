@@ -4,48 +4,157 @@ import java.util.List;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.springboot.MyTodoList.model.Task;
 import com.springboot.MyTodoList.model.TaskDependency;
 import com.springboot.MyTodoList.repository.TaskDependencyRepository;
+import com.springboot.MyTodoList.repository.TaskRepository;
+import com.springboot.MyTodoList.service.graph.DependencyCycleException;
+import com.springboot.MyTodoList.service.graph.SprintSchedules;
+import com.springboot.MyTodoList.service.graph.TaskDependencyIndex;
+import com.springboot.MyTodoList.util.AfterCommit;
 
 @Service
 public class TaskDependencyService {
   @Autowired private TaskDependencyRepository taskDependencyRepository;
+  @Autowired private TaskRepository taskRepository;
+  @Autowired private TaskDependencyIndex taskDependencyIndex;
+  @Autowired private SprintSchedules sprintSchedules;
 
   public List<TaskDependency> findAll() {
     return taskDependencyRepository.findAll();
   }
 
-  public ResponseEntity<TaskDependency> getItemById(int id) {
-    Optional<TaskDependency> taskDependencyItems = taskDependencyRepository.findById(id);
-    return taskDependencyItems
-        .map(taskDependency -> new ResponseEntity<>(taskDependency, HttpStatus.OK))
-        .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
+  /**
+   * The dependencies whose parent is the given task.
+   */
+  public List<TaskDependency> findByParent(int parentId) {
+    return taskDependencyRepository.findByParent(parentId);
   }
 
+  /**
+   * Saves a dependency once the graph and the database have accepted it.
+   *
+   * Both tasks are locked first, so concurrent additions involving either of
+   * them, from this or another replica, wait for this one to end. The graph
+   * turns most cycles away without a query, and changes right away so
+   * concurrent additions on this replica are checked against each other; it's
+   * read again if the transaction doesn't commit. It can miss dependencies
+   * other replicas added since it was loaded, so the committed rows decide.
+   *
+   * @throws IllegalArgumentException if either task doesn't exist
+   * @throws DependencyCycleException if the child already blocks the parent
+   */
+  @Transactional
   public TaskDependency addTaskDependency(TaskDependency taskDependency) {
-    return taskDependencyRepository.save(taskDependency);
+    int parentId = taskDependency.getID_Task_Parent();
+    int childId = taskDependency.getID_Task_Children();
+    List<Task> locked = taskRepository.lockAll(List.of(parentId, childId));
+    Task parent = findTask(locked, parentId);
+    Task child = findTask(locked, childId);
+    taskDependencyIndex.add(
+        parentId, childId, Task.isDone(parent.getState()), Task.isDone(child.getState()));
+    AfterCommit.run(
+        () -> sprintSchedules.dependencyAdded(parentId, childId), this::invalidateGraph);
+    if (taskDependencyRepository.countPaths(childId, parentId) > 0) {
+      throw new DependencyCycleException("Task " + childId + " already blocks task " + parentId);
+    }
+    // Flushed here so a duplicate fails this call, not the commit
+    return taskDependencyRepository.saveAndFlush(taskDependency);
+  }
+
+  private static Task findTask(List<Task> tasks, int id) {
+    return tasks.stream()
+        .filter(task -> task.getID_Task() == id)
+        .findFirst()
+        .orElseThrow(() -> new IllegalArgumentException("Task " + id + " doesn't exist"));
+  }
+
+  /**
+   * Deletes every dependency of the given parent task.
+   */
+  @Transactional
+  public void deleteTaskDependency(int parentId) {
+    List<TaskDependency> dependencies = taskDependencyRepository.findByParent(parentId);
+    taskDependencyRepository.deleteByParent(parentId);
+    for (TaskDependency d : dependencies) {
+      taskDependencyIndex.remove(d.getID_Task_Parent(), d.getID_Task_Children());
+    }
+    AfterCommit.run(
+        () -> {
+          for (TaskDependency d : dependencies) {
+            sprintSchedules.dependencyRemoved(d.getID_Task_Parent(), d.getID_Task_Children());
+          }
+        },
+        this::invalidateGraph);
   }
 
-  public void deleteTaskDependency(int id) {
-    try {
-      taskDependencyRepository.deleteById(id);
-    } catch (Exception ignored) {
+  /**
+   * @return false if there was no such dependency
+   */
+  @Transactional
+  public boolean deleteTaskDependency(int parentId, int childId) {
+    TaskDependency.Key key = new TaskDependency.Key(parentId, childId);
+    if (!taskDependencyRepository.existsById(key)) {
+      return false;
     }
+    taskDependencyRepository.deleteById(key);
+    taskDependencyIndex.remove(parentId, childId);
+    AfterCommit.run(
+        () -> sprintSchedules.dependencyRemoved(parentId, childId), this::invalidateGraph);
+    return true;
+  }
+
+  // A rolled back change may already be in the graph, so it's read again
+  private void invalidateGraph() {
+    taskDependencyIndex.invalidate();
+    sprintSchedules.invalidate();
   }
 
-  public TaskDependency updateTaskDependency(int id, TaskDependency newTaskDependency) {
-    Optional<TaskDependency> taskDependencyData = taskDependencyRepository.findById(id);
-    if (taskDependencyData.isPresent()) {
-      TaskDependency taskDependency_to_be_updated = taskDependencyData.get();
-      taskDependency_to_be_updated.setID_Task_Children(newTaskDependency.getID_Task_Children());
-      taskDependency_to_be_updated.setID_Task_Parent(newTaskDependency.getID_Task_Parent());
-      return taskDependencyRepository.save(taskDependency_to_be_updated);
-    } else {
-      return null;
+  /**
+   * Replaces a dependency with another one. Both tasks are part of the key,
+   * so the row is deleted and the new one inserted.
+   *
+   * @throws IllegalArgumentException if a task of the new dependency doesn't exist
+   * @throws DependencyCycleException if the new dependency would close a cycle
+   */
+  @Transactional
+  public Optional<TaskDependency> updateTaskDependency(
+      int parentId, int childId, TaskDependency newTaskDependency) {
+    if (!deleteTaskDependency(parentId, childId)) {
+      return Optional.empty();
     }
+    // If the new one is rejected the delete is rolled back too, and the graph read again
+    return Optional.of(addTaskDependency(newTaskDependency));
+  }
+
+  /**
+   * The tasks the given one waits for, directly or through other tasks.
+   */
+  public int[] findAncestors(int taskId) {
+    return taskDependencyIndex.ancestors(taskId);
+  }
+
+  /**
+   * The tasks waiting for the given one, directly or through other tasks.
+   */
+  public int[] findDescendants(int taskId) {
+    return taskDependencyIndex.descendants(taskId);
+  }
+
+  /**
+   * Every task with dependencies, each one after the tasks it waits for.
+   */
+  public int[] findTopologicalOrder() {
+    return taskDependencyIndex.topologicalOrder();
+  }
+
+  /**
+   * The unfinished tasks that wait for an unfinished task.
+   */
+  public int[] findBlocked() {
+    return taskDependencyIndex.blocked();
   }
 }
@@ -0,0 +1,63 @@
+package com.springboot.MyTodoList.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springboot.MyTodoList.model.Task;
+import com.springboot.MyTodoList.repository.TaskRepository;
+import com.springboot.MyTodoList.service.TaskExportWriter.Format;
+
+/**
+ * Exports every task without holding them all in memory: rows are read from a
+ * database cursor and written out as they arrive.
+ */
+@Service
+public class TaskExportService {
+  private final TaskRepository taskRepository;
+  private final EntityManager entityManager;
+  private final TransactionTemplate transactionTemplate;
+  private final TaskExportWriter writer;
+
+  public TaskExportService(
+      TaskRepository taskRepository,
+      EntityManager entityManager,
+      PlatformTransactionManager transactionManager,
+      ObjectMapper objectMapper) {
+    this.taskRepository = taskRepository;
+    this.entityManager = entityManager;
+    // The export runs on the servlet's async thread, outside the request's
+    // transaction, and the stream needs one open while it's read.
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.transactionTemplate.setReadOnly(true);
+    this.writer = new TaskExportWriter(objectMapper);
+  }
+
+  /**
+   * Writes all tasks to out in the given format and returns how many there were.
+   */
+  public long export(Format format, OutputStream out) throws IOException {
+    try {
+      return transactionTemplate.execute(
+          status -> {
+            try (Stream<Task> tasks = taskRepository.streamAll()) {
+              // Tasks are dropped from the persistence context as they're read,
+              // or it would end up holding every one of them
+              return writer.write(format, tasks.peek(entityManager::detach), out);
+            } catch (IOException e) {
+              throw new UncheckedIOException(e);
+            }
+          });
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+}
@@ -0,0 +1,127 @@
+package com.springboot.MyTodoList.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.springboot.MyTodoList.model.Task;
+
+/**
+ * Writes tasks one at a time as they come out of a stream, so memory use
+ * doesn't depend on how many there are.
+ */
+public class TaskExportWriter {
+
+  public enum Format {
+    /** One JSON object per line, shaped like the tasks GET /task returns. */
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv");
+
+    private final String mediaType;
+    private final String extension;
+
+    Format(String mediaType, String extension) {
+      this.mediaType = mediaType;
+      this.extension = extension;
+    }
+
+    public String getMediaType() {
+      return mediaType;
+    }
+
+    public String getExtension() {
+      return extension;
+    }
+  }
+
+  static final String CSV_HEADER =
+      "id,description,state,hoursEstimated,hoursReal,sprintId,assignedTo,"
+          + "createdAt,finishesAt,updatedAt,storyPoints";
+
+  private final ObjectWriter taskWriter;
+
+  public TaskExportWriter(ObjectMapper objectMapper) {
+    this.taskWriter =
+        objectMapper.writerFor(Task.class).without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+  }
+
+  /**
+   * Writes every task of the stream to out and returns how many there were.
+   * Output is flushed but out is left open.
+   */
+  public long write(Format format, Stream<Task> tasks, OutputStream out) throws IOException {
+    Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    long count = 0;
+    if (format == Format.CSV) {
+      writer.write(CSV_HEADER);
+      writer.write("\r\n");
+    }
+    Iterator<Task> iterator = tasks.iterator();
+    while (iterator.hasNext()) {
+      Task task = iterator.next();
+      if (format == Format.CSV) {
+        writeCsvRow(writer, task);
+      } else {
+        taskWriter.writeValue(writer, task);
+        writer.write('\n');
+      }
+      count++;
+    }
+    writer.flush();
+    return count;
+  }
+
+  private static void writeCsvRow(Writer writer, Task task) throws IOException {
+    writer.write(Integer.toString(task.getID_Task()));
+    writer.write(',');
+    writer.write(csvField(task.getDescription()));
+    writer.write(',');
+    writer.write(csvField(task.getState()));
+    writer.write(',');
+    writer.write(task.getHoursEstimated() == null ? "" : task.getHoursEstimated().toString());
+    writer.write(',');
+    writer.write(task.getHoursReal() == null ? "" : task.getHoursReal().toString());
+    writer.write(',');
+    writer.write(Integer.toString(task.getID_Sprint()));
+    writer.write(',');
+    writer.write(Integer.toString(task.getAssignedTo()));
+    writer.write(',');
+    writer.write(dateField(task.getCreatedAt()));
+    writer.write(',');
+    writer.write(dateField(task.getFinishesAt()));
+    writer.write(',');
+    writer.write(dateField(task.getUpdatedAt()));
+    writer.write(',');
+    writer.write(Integer.toString(task.getStoryPoints()));
+    writer.write("\r\n");
+  }
+
+  private static String dateField(OffsetDateTime date) {
+    return date == null ? "" : date.toString();
+  }
+
+  /**
+   * Quotes a field if it has a separator, quote or line break in it (RFC 4180).
+   */
+  static String csvField(String value) {
+    if (value == null) {
+      return "";
+    }
+    if (value.indexOf(',') < 0
+        && value.indexOf('"') < 0
+        && value.indexOf('\n') < 0
+        && value.indexOf('\r') < 0) {
+      return value;
+    }
+    return '"' + value.replace("\"", "\"\"") + '"';
+  }
+}
@@ -0,0 +1,206 @@
+package com.springboot.MyTodoList.service;
+
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.springboot.MyTodoList.model.Task;
+
+/**
+ * The columns a JSON Merge Patch (RFC 7396) of a task changes: only the
+ * fields present in the patch, with null clearing a field. The task's version
+ * may be included to say which version the patch was made against.
+ */
+public final class TaskPatch {
+
+  private enum Field {
+    DESCRIPTION(
+        "description", "description", false, TaskPatch::toText,
+        Task::getDescription, (t, v) -> t.setDescription((String) v)),
+    STATE(
+        "state", "state", false, TaskPatch::toText,
+        Task::getState, (t, v) -> t.setState((String) v)),
+    HOURS_ESTIMATED(
+        "hoursEstimated", "hoursEstimated", false, TaskPatch::toInt,
+        Task::getHoursEstimated, (t, v) -> t.setHoursEstimated((Integer) v)),
+    HOURS_REAL(
+        "hoursReal", "hoursReal", false, TaskPatch::toInt,
+        Task::getHoursReal, (t, v) -> t.setHoursReal((Integer) v)),
+    SPRINT(
+        "id_Sprint", "ID_Sprint", true, TaskPatch::toInt,
+        Task::getID_Sprint, (t, v) -> t.setID_Sprint((Integer) v)),
+    ASSIGNED_TO(
+        "assignedTo", "assignedTo", true, TaskPatch::toInt,
+        Task::getAssignedTo, (t, v) -> t.setAssignedTo((Integer) v)),
+    FINISHES_AT(
+        "finishesAt", "finishesAt", false, TaskPatch::toDate,
+        Task::getFinishesAt, (t, v) -> t.setFinishesAt((OffsetDateTime) v)),
+    STORY_POINTS(
+        "storyPoints", "storyPoints", true, TaskPatch::toInt,
+        Task::getStoryPoints, (t, v) -> t.setStoryPoint((Integer) v));
+
+    final String json;
+    final String attribute;
+    final boolean required;
+    final Function<JsonNode, Object> reader;
+    final Function<Task, Object> getter;
+    final BiConsumer<Task, Object> setter;
+
+    Field(
+        String json,
+        String attribute,
+        boolean required,
+        Function<JsonNode, Object> reader,
+        Function<Task, Object> getter,
+        BiConsumer<Task, Object> setter) {
+      this.json = json;
+      this.attribute = attribute;
+      this.required = required;
+      this.reader = reader;
+      this.getter = getter;
+      this.setter = setter;
+    }
+  }
+
+  // Fields that are in the task's JSON but can't be patched
+  private static final String ID = "id_Task";
+  private static final String VERSION = "version";
+  private static final String CREATED_AT = "createdAt";
+  private static final String UPDATED_AT = "updatedAt";
+
+  private final Map<Field, Object> values;
+  private final Long version;
+
+  private TaskPatch(Map<Field, Object> values, Long version) {
+    this.values = values;
+    this.version = version;
+  }
+
+  /**
+   * Reads a merge patch.
+   *
+   * @throws IllegalArgumentException if the patch isn't an object, has unknown
+   *     fields, values of the wrong type, or clears a required field
+   */
+  public static TaskPatch parse(JsonNode patch) {
+    if (patch == null || !patch.isObject()) {
+      throw new IllegalArgumentException("A task patch must be a JSON object");
+    }
+    Map<Field, Object> values = new LinkedHashMap<>();
+    Long version = null;
+    Iterator<Map.Entry<String, JsonNode>> fields = patch.fields();
+    while (fields.hasNext()) {
+      Map.Entry<String, JsonNode> entry = fields.next();
+      String name = entry.getKey();
+      JsonNode value = entry.getValue();
+      if (name.equals(VERSION)) {
+        if (!value.canConvertToLong()) {
+          throw new IllegalArgumentException("version must be a number");
+        }
+        version = value.asLong();
+        continue;
+      }
+      if (name.equals(ID) || name.equals(CREATED_AT) || name.equals(UPDATED_AT)) {
+        // Sent back unchanged when a client patches with the whole task
+        continue;
+      }
+      Field field = fieldNamed(name);
+      if (value.isNull()) {
+        if (field.required) {
+          throw new IllegalArgumentException(name + " can't be null");
+        }
+        values.put(field, null);
+      } else {
+        values.put(field, field.reader.apply(value));
+      }
+    }
+    return new TaskPatch(values, version);
+  }
+
+  /**
+   * A patch that sets the state, and the real hours if they're not null.
+   */
+  public static TaskPatch ofState(String state, Integer hoursReal) {
+    Map<Field, Object> values = new LinkedHashMap<>();
+    values.put(Field.STATE, state);
+    if (hoursReal != null) {
+      values.put(Field.HOURS_REAL, hoursReal);
+    }
+    return new TaskPatch(values, null);
+  }
+
+  private static Field fieldNamed(String name) {
+    for (Field field : Field.values()) {
+      if (field.json.equals(name)) {
+        return field;
+      }
+    }
+    throw new IllegalArgumentException("Unknown or read-only field: " + name);
+  }
+
+  private static Object toText(JsonNode value) {
+    if (!value.isTextual()) {
+      throw new IllegalArgumentException("Expected a string, got " + value);
+    }
+    return value.asText();
+  }
+
+  private static Object toInt(JsonNode value) {
+    if (!value.canConvertToInt() || !value.isIntegralNumber()) {
+      throw new IllegalArgumentException("Expected an integer, got " + value);
+    }
+    return value.asInt();
+  }
+
+  private static Object toDate(JsonNode value) {
+    try {
+      return OffsetDateTime.parse(value.asText());
+    } catch (DateTimeParseException e) {
+      throw new IllegalArgumentException("Expected an ISO-8601 date-time, got " + value, e);
+    }
+  }
+
+  /**
+   * The version the patch was made against, if it says.
+   */
+  public Optional<Long> getVersion() {
+    return Optional.ofNullable(version);
+  }
+
+  public boolean isEmpty() {
+    return values.isEmpty();
+  }
+
+  /**
+   * Whether applying the patch would change any of the task's fields.
+   */
+  public boolean changes(Task task) {
+    for (Map.Entry<Field, Object> entry : values.entrySet()) {
+      if (!Objects.equals(entry.getKey().getter.apply(task), entry.getValue())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * The new values by entity attribute name.
+   */
+  public Map<String, Object> getAttributes() {
+    Map<String, Object> attributes = new LinkedHashMap<>();
+    values.forEach((field, value) -> attributes.put(field.attribute, value));
+    return Collections.unmodifiableMap(attributes);
+  }
+
+  public void applyTo(Task task) {
+    values.forEach((field, value) -> field.setter.accept(task, value));
+  }
+}
@@ -1,22 +1,129 @@
 package com.springboot.MyTodoList.service;
 
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.springboot.MyTodoList.model.Task;
+import com.springboot.MyTodoList.repository.TaskCursor;
 import com.springboot.MyTodoList.repository.TaskRepository;
+import com.springboot.MyTodoList.repository.TaskSort;
+import com.springboot.MyTodoList.service.graph.SprintSchedules;
+import com.springboot.MyTodoList.service.graph.TaskDependencyIndex;
+import com.springboot.MyTodoList.service.kpi.KpiSnapshotCache;
+import com.springboot.MyTodoList.service.kpi.KpiSnapshotCache.TaskContribution;
+import com.springboot.MyTodoList.util.AfterCommit;
 
 @Service
 public class TaskService {
   @Autowired
   private TaskRepository taskRepository;
 
+  /**
+   * A page of search results and the cursor of the next page, if there's one.
+   */
+  public static class TaskSlice {
+    private final List<Task> tasks;
+    private final String nextCursor;
+
+    TaskSlice(List<Task> tasks, String nextCursor) {
+      this.tasks = tasks;
+      this.nextCursor = nextCursor;
+    }
+
+    public List<Task> getTasks() {
+      return tasks;
+    }
+
+    public Optional<String> getNextCursor() {
+      return Optional.ofNullable(nextCursor);
+    }
+  }
+
+  @Autowired
+  private KpiSnapshotCache kpiSnapshotCache;
+
+  @Autowired
+  private TaskDependencyIndex taskDependencyIndex;
+
+  @Autowired
+  private SprintSchedules sprintSchedules;
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  // Oracle allows at most 1000 expressions in an IN list
+  private static final int IN_LIST_LIMIT = 1000;
+
+  /**
+   * What happened to one item of a batch request.
+   */
+  public static class BatchItemResult {
+    public enum Status {
+      CREATED,
+      UPDATED,
+      DELETED,
+      NOT_FOUND,
+      /** The task was changed since the version given in the patch. */
+      CONFLICT,
+      INVALID
+    }
+
+    private final int index;
+    private final Integer id;
+    private final Status status;
+    private final String error;
+
+    BatchItemResult(int index, Integer id, Status status, String error) {
+      this.index = index;
+      this.id = id;
+      this.status = status;
+      this.error = error;
+    }
+
+    /** The item couldn't be applied because the task changed concurrently. */
+    public static BatchItemResult conflict(int index, int id) {
+      return new BatchItemResult(index, id, Status.CONFLICT, null);
+    }
+
+    /** Position of the item in the request. */
+    public int getIndex() {
+      return index;
+    }
+
+    public Integer getId() {
+      return id;
+    }
+
+    public Status getStatus() {
+      return status;
+    }
+
+    public String getError() {
+      return error;
+    }
+  }
+
   public List<Task> findAll() {
     return taskRepository.findAll();
   }
@@ -36,6 +143,40 @@ public class TaskService {
     return taskRepository.findByAssignedTo(userId);
   }
 
+  /**
+   * Up to limit tasks of a user with an id greater than afterId, in id order.
+   */
+  public List<Task> findAssignedAfter(int userId, boolean includeDone, int afterId, int limit) {
+    return taskRepository.findAssignedAfter(
+        userId, includeDone, afterId, PageRequest.of(0, limit));
+  }
+
+  /**
+   * Up to limit tasks of a user with an id less than beforeId, in id order.
+   */
+  public List<Task> findAssignedBefore(int userId, boolean includeDone, int beforeId, int limit) {
+    List<Task> tasks =
+        new ArrayList<>(
+            taskRepository.findAssignedBefore(
+                userId, includeDone, beforeId, PageRequest.of(0, limit)));
+    Collections.reverse(tasks);
+    return tasks;
+  }
+
+  /**
+   * Up to limit tasks matching the filter in the given order, starting after the
+   * cursor. One more row is fetched to know whether there's a next page.
+   */
+  public TaskSlice searchTasks(
+      Specification<Task> filter, TaskSort sort, TaskCursor after, int limit) {
+    List<Task> tasks = new ArrayList<>(taskRepository.search(filter, sort, after, limit + 1));
+    if (tasks.size() <= limit) {
+      return new TaskSlice(tasks, null);
+    }
+    tasks.remove(limit);
+    return new TaskSlice(tasks, TaskCursor.of(sort, tasks.get(limit - 1)).encode());
+  }
+
   public List<Task> findBySprintAndUser(int sprintId, int userId) {
     return findByAssignedTo(userId).stream()
         .filter(task -> task.getID_Sprint() == sprintId)
@@ -43,20 +184,194 @@ public class TaskService {
   }
 
   public Task addTask(Task task) {
-    return taskRepository.save(task);
+    // Ids are always assigned by the sequence; updates go through PUT or PATCH
+    task.setID_Task(0);
+    task.setVersion(null);
+    Task saved = taskRepository.save(task);
+    reportCreated(List.of(saved));
+    return saved;
+  }
+
+  /**
+   * Creates the tasks in a single transaction. Inserts are sent to the
+   * database in JDBC batches (see hibernate.jdbc.batch_size); null items are
+   * reported as invalid and skipped.
+   */
+  @Transactional
+  public List<BatchItemResult> addTasks(List<Task> tasks) {
+    List<BatchItemResult> results = new ArrayList<>(tasks.size());
+    List<Task> toSave = new ArrayList<>(tasks.size());
+    for (Task task : tasks) {
+      if (task != null) {
+        // Ids are always assigned by the sequence
+        task.setID_Task(0);
+        task.setVersion(null);
+        toSave.add(task);
+      }
+    }
+    taskRepository.saveAll(toSave);
+    taskRepository.flush();
+    reportCreated(toSave);
+
+    for (int i = 0; i < tasks.size(); i++) {
+      Task task = tasks.get(i);
+      if (task == null) {
+        results.add(new BatchItemResult(i, null, BatchItemResult.Status.INVALID, "Missing task"));
+        continue;
+      }
+      results.add(new BatchItemResult(i, task.getID_Task(), BatchItemResult.Status.CREATED, null));
+    }
+    return results;
+  }
+
+  /**
+   * Applies partial updates to tasks. Each patch is a merge patch (see
+   * TaskPatch) with the task's id_Task. All tasks are loaded with a few IN
+   * queries and the changes flushed as JDBC batches.
+   *
+   * The tasks are locked as they're loaded, so no one else can change them
+   * before the flush and the versions checked here are the ones the flush
+   * will find: a stale version is reported for its item instead of failing
+   * the whole batch.
+   */
+  @Transactional
+  public List<BatchItemResult> updateTasks(List<JsonNode> patches) {
+    List<Integer> ids = new ArrayList<>();
+    for (JsonNode patch : patches) {
+      if (patch != null && patch.path("id_Task").canConvertToInt()) {
+        ids.add(patch.get("id_Task").asInt());
+      }
+    }
+    Map<Integer, Task> tasks = lockAllById(ids);
+
+    List<BatchItemResult> results = new ArrayList<>(patches.size());
+    List<TaskContribution[]> changes = new ArrayList<>();
+    List<Task> updated = new ArrayList<>();
+    for (int i = 0; i < patches.size(); i++) {
+      JsonNode patch = patches.get(i);
+      if (patch == null || !patch.isObject() || !patch.path("id_Task").canConvertToInt()) {
+        results.add(
+            new BatchItemResult(i, null, BatchItemResult.Status.INVALID, "Missing id_Task"));
+        continue;
+      }
+      int id = patch.get("id_Task").asInt();
+      Task task = tasks.get(id);
+      if (task == null) {
+        results.add(new BatchItemResult(i, id, BatchItemResult.Status.NOT_FOUND, null));
+        continue;
+      }
+      TaskPatch taskPatch;
+      try {
+        taskPatch = TaskPatch.parse(patch);
+      } catch (IllegalArgumentException e) {
+        results.add(
+            new BatchItemResult(i, id, BatchItemResult.Status.INVALID, e.getMessage()));
+        continue;
+      }
+      if (taskPatch.getVersion().isPresent()
+          && !taskPatch.getVersion().get().equals(task.getVersion())) {
+        results.add(BatchItemResult.conflict(i, id));
+        continue;
+      }
+      if (!taskPatch.changes(task)) {
+        results.add(new BatchItemResult(i, id, BatchItemResult.Status.UPDATED, null));
+        continue;
+      }
+      TaskContribution before = TaskContribution.of(task);
+      taskPatch.applyTo(task);
+      task.setUpdatedAt(OffsetDateTime.now());
+      changes.add(new TaskContribution[] {before, TaskContribution.of(task)});
+      updated.add(task);
+      results.add(new BatchItemResult(i, id, BatchItemResult.Status.UPDATED, null));
+    }
+    taskRepository.flush();
+    AfterCommit.run(
+        () -> {
+          changes.forEach(change -> kpiSnapshotCache.apply(change[0], change[1]));
+          updated.forEach(this::reportChange);
+        });
+    return results;
+  }
+
+  /**
+   * Deletes the tasks with one DELETE statement per thousand ids.
+   */
+  @Transactional
+  public List<BatchItemResult> deleteTasks(List<Integer> ids) {
+    Map<Integer, Task> tasks = findAllById(ids);
+    List<BatchItemResult> results = new ArrayList<>(ids.size());
+    for (int i = 0; i < ids.size(); i++) {
+      Integer id = ids.get(i);
+      if (id == null) {
+        results.add(new BatchItemResult(i, null, BatchItemResult.Status.INVALID, "Missing id"));
+      } else if (tasks.containsKey(id)) {
+        results.add(new BatchItemResult(i, id, BatchItemResult.Status.DELETED, null));
+      } else {
+        results.add(new BatchItemResult(i, id, BatchItemResult.Status.NOT_FOUND, null));
+      }
+    }
+    List<Integer> found = new ArrayList<>(tasks.keySet());
+    for (int from = 0; from < found.size(); from += IN_LIST_LIMIT) {
+      taskRepository.deleteAllByIdInBatch(
+          found.subList(from, Math.min(from + IN_LIST_LIMIT, found.size())));
+    }
+    reportDeleted(tasks.values());
+    return results;
+  }
+
+  private Map<Integer, Task> findAllById(Collection<Integer> ids) {
+    List<Integer> distinct =
+        ids.stream().filter(id -> id != null).distinct().collect(Collectors.toList());
+    Map<Integer, Task> tasks = new HashMap<>();
+    for (int from = 0; from < distinct.size(); from += IN_LIST_LIMIT) {
+      taskRepository
+          .findAllById(distinct.subList(from, Math.min(from + IN_LIST_LIMIT, distinct.size())))
+          .forEach(task -> tasks.put(task.getID_Task(), task));
+    }
+    return tasks;
+  }
+
+  // In id order across the IN lists too, so concurrent batches can't deadlock
+  private Map<Integer, Task> lockAllById(Collection<Integer> ids) {
+    List<Integer> distinct =
+        ids.stream().filter(id -> id != null).distinct().sorted().collect(Collectors.toList());
+    Map<Integer, Task> tasks = new HashMap<>();
+    for (int from = 0; from < distinct.size(); from += IN_LIST_LIMIT) {
+      taskRepository
+          .lockAll(distinct.subList(from, Math.min(from + IN_LIST_LIMIT, distinct.size())))
+          .forEach(task -> tasks.put(task.getID_Task(), task));
+    }
+    return tasks;
   }
 
   public void deleteTask(int id) {
     try {
-      taskRepository.deleteById(id);
+      taskRepository
+          .findById(id)
+          .ifPresent(
+              task -> {
+                taskRepository.delete(task);
+                reportDeleted(List.of(task));
+              });
     } catch (Exception ignored) {
     }
   }
 
+  /**
+   * Replaces every field of a task.
+   *
+   * @throws OptimisticLockingFailureException if newTask has a version and the
+   *     task was changed since then
+   */
   public Optional<Task> updateTask(int id, Task newTask) {
     Optional<Task> taskData = taskRepository.findById(id);
     if (taskData.isPresent()) {
       Task task_to_be_updated = taskData.get();
+      if (newTask.getVersion() != null
+          && !newTask.getVersion().equals(task_to_be_updated.getVersion())) {
+        throw new OptimisticLockingFailureException("Task " + id + " was changed meanwhile");
+      }
+      TaskContribution before = TaskContribution.of(task_to_be_updated);
       task_to_be_updated.setID_Task(id);
       task_to_be_updated.setDescription(newTask.getDescription());
       task_to_be_updated.setState(newTask.getState());
@@ -69,7 +384,112 @@ public class TaskService {
       task_to_be_updated.setUpdatedAt(newTask.getUpdatedAt());
       task_to_be_updated.setStoryPoint(newTask.getStoryPoints());
       taskRepository.save(task_to_be_updated);
+      reportUpdated(before, task_to_be_updated);
     }
     return taskData;
   }
+
+  /**
+   * Applies a merge patch to a task with a single UPDATE of the patched
+   * columns.
+   *
+   * @param expectedVersion the version the patch was made against, or null to
+   *     use the version in the patch, if any
+   * @throws OptimisticLockingFailureException if the task was changed since
+   *     the expected version
+   */
+  @Transactional
+  public Optional<Task> patchTask(int id, TaskPatch patch, Long expectedVersion) {
+    Optional<Task> task = taskRepository.findById(id);
+    if (task.isEmpty()) {
+      return task;
+    }
+    Long version = expectedVersion != null ? expectedVersion : patch.getVersion().orElse(null);
+    return Optional.of(patchTask(task.get(), patch, version));
+  }
+
+  /**
+   * Applies a merge patch to a task that's already been read, without reading
+   * it again. The task object is updated to match the row.
+   *
+   * @param expectedVersion the version the patch was made against, or null to
+   *     use the task's
+   * @throws OptimisticLockingFailureException if the task was changed since
+   *     that version
+   */
+  @Transactional
+  public Task patchTask(Task task, TaskPatch patch, Long expectedVersion) {
+    // A task object built without a version is at the column default, 0
+    Long current = task.getVersion() != null ? task.getVersion() : 0L;
+    Long version = expectedVersion != null ? expectedVersion : current;
+    if (!Objects.equals(current, version)) {
+      throw new OptimisticLockingFailureException(
+          "Task " + task.getID_Task() + " was changed meanwhile");
+    }
+    // A patch that sets what the task already has isn't written, so it doesn't
+    // bump the version other clients hold
+    if (!patch.changes(task)) {
+      return task;
+    }
+    // The row is updated directly, so the entity must not be flushed too
+    if (entityManager.contains(task)) {
+      entityManager.detach(task);
+    }
+    OffsetDateTime now = OffsetDateTime.now();
+    int updated =
+        taskRepository.updateAttributes(task.getID_Task(), version, patch.getAttributes(), now);
+    if (updated == 0) {
+      throw new OptimisticLockingFailureException(
+          "Task " + task.getID_Task() + " was changed meanwhile");
+    }
+
+    TaskContribution before = TaskContribution.of(task);
+    patch.applyTo(task);
+    task.setUpdatedAt(now);
+    task.setVersion(version + 1);
+    reportUpdated(before, task);
+    return task;
+  }
+
+  // The KPI snapshot, dependency index and sprint schedules only see a write
+  // once it has committed. Finished tasks stop blocking the tasks that depend
+  // on them, and new estimates or due dates move the sprint's schedule.
+  private void reportCreated(List<Task> created) {
+    AfterCommit.run(
+        () ->
+            created.forEach(
+                task -> {
+                  kpiSnapshotCache.apply(null, TaskContribution.of(task));
+                  reportChange(task);
+                }));
+  }
+
+  private void reportUpdated(TaskContribution before, Task task) {
+    TaskContribution after = TaskContribution.of(task);
+    AfterCommit.run(
+        () -> {
+          kpiSnapshotCache.apply(before, after);
+          reportChange(task);
+        });
+  }
+
+  private void reportDeleted(Collection<Task> deleted) {
+    List<TaskContribution> contributions =
+        deleted.stream().map(TaskContribution::of).collect(Collectors.toList());
+    List<Integer> ids = deleted.stream().map(Task::getID_Task).collect(Collectors.toList());
+    AfterCommit.run(
+        () -> {
+          contributions.forEach(contribution -> kpiSnapshotCache.apply(contribution, null));
+          ids.forEach(
+              id -> {
+                taskDependencyIndex.setDone(id, true);
+                sprintSchedules.taskDeleted(id);
+              });
+        });
+  }
+
+  private void reportChange(Task task) {
+    taskDependencyIndex.setDone(task.getID_Task(), Task.isDone(task.getState()));
+    sprintSchedules.taskChanged(task);
+  }
 }
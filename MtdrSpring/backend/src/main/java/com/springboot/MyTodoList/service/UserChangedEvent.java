@@ -0,0 +1,33 @@
+package com.springboot.MyTodoList.service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * A user was added, updated or deleted. Published by UserService so whatever
+ * caches users can drop them once the change commits.
+ */
+public class UserChangedEvent {
+  private final int userId;
+  private final List<Long> telegramIds;
+
+  /**
+   * @param telegramIds the user's Telegram ids before and after the change;
+   *     nulls are left out
+   */
+  public UserChangedEvent(int userId, Long... telegramIds) {
+    this.userId = userId;
+    this.telegramIds =
+        Arrays.stream(telegramIds).filter(Objects::nonNull).distinct().collect(Collectors.toList());
+  }
+
+  public int getUserId() {
+    return userId;
+  }
+
+  public List<Long> getTelegramIds() {
+    return telegramIds;
+  }
+}
@@ -3,8 +3,10 @@ package com.springboot.MyTodoList.service;
 import com.springboot.MyTodoList.model.User;
 import com.springboot.MyTodoList.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -13,6 +15,11 @@ public class UserService {
     @Autowired
     private UserRepository userRepository;
 
+    // Changes are announced with a UserChangedEvent, so the caches of users
+    // (bot authentications, notification recipients) drop them after the commit
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     public List<User> findAll() {
         return userRepository.findAll();
     }
@@ -24,14 +31,25 @@ public class UserService {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    @Transactional
     public User addUser(User user) {
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(saved.getID_User(), saved.getID_Telegram()));
+        return saved;
     }
 
     // TODO: Implement Exception Handling
+    @Transactional
     public void deleteUser(int id) {
         try {
-            userRepository.deleteById(id);
+            userRepository
+                    .findById(id)
+                    .ifPresent(
+                            user -> {
+                                userRepository.delete(user);
+                                eventPublisher.publishEvent(
+                                        new UserChangedEvent(id, user.getID_Telegram()));
+                            });
         } catch (Exception ignored) {
         }
     }
@@ -41,16 +59,22 @@ public class UserService {
      * @param newUser: User
      * @return user updated
      */
+    @Transactional
     public User updateUser(int id, User newUser) {
         return userRepository
                 .findById(id)
                 .map(
                         user -> {
+                            Long previousTelegramId = user.getID_Telegram();
                             user.setID_User(id);
                             user.setID_Telegram(newUser.getID_Telegram());
                             user.setName(newUser.getName());
                             user.setPosition(newUser.getPosition());
-                            return userRepository.save(user);
+                            User saved = userRepository.save(user);
+                            eventPublisher.publishEvent(
+                                    new UserChangedEvent(
+                                            id, previousTelegramId, saved.getID_Telegram()));
+                            return saved;
                         })
                 .orElse(null);
     }
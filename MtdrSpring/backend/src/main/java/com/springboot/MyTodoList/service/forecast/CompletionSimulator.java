@@ -0,0 +1,160 @@
+package com.springboot.MyTodoList.service.forecast;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Simulates how long the remaining work of a sprint takes.
+ *
+ * Each simulation draws, for every remaining task, a real/estimated ratio
+ * from the history of whoever the task is assigned to, and scales its
+ * estimate by it. Users work through their own tasks at their weekly hours,
+ * and the team shares the unassigned ones: the work is done when every user
+ * is done with theirs and the team is done with all of it.
+ *
+ * Simulations run in chunks on the executor the caller gives. Each chunk has
+ * its own random stream split from the seed before anything runs, so the
+ * results only depend on the seed, not on how the chunks were scheduled.
+ */
+public final class CompletionSimulator {
+  public static final int UNASSIGNED = -1;
+
+  static final int CHUNK = 1024;
+  private static final double HOURS_PER_WEEK = 7 * 24;
+
+  private final double[] weeklyHours;
+  private final double[][] ratios;
+  private final double[] teamRatios;
+  private final int[] taskUsers;
+  private final double[] taskHours;
+  private final double[] taskSpent;
+  private final double teamWeeklyHours;
+
+  /**
+   * @param weeklyHours the hours each user works per week, more than zero
+   * @param ratios for each user, the real/estimated ratios to draw from
+   * @param teamRatios the ratios to draw from for unassigned tasks
+   * @param taskUsers the user index of each task, or UNASSIGNED
+   * @param taskHours the estimated hours of each task
+   * @param taskSpent the real hours already spent on each task
+   */
+  public CompletionSimulator(
+      double[] weeklyHours,
+      double[][] ratios,
+      double[] teamRatios,
+      int[] taskUsers,
+      double[] taskHours,
+      double[] taskSpent) {
+    if (weeklyHours.length != ratios.length
+        || taskUsers.length != taskHours.length
+        || taskUsers.length != taskSpent.length) {
+      throw new IllegalArgumentException("Every user and task needs all its values");
+    }
+    double team = 0;
+    for (int user = 0; user < weeklyHours.length; user++) {
+      if (!(weeklyHours[user] > 0) || ratios[user].length == 0) {
+        throw new IllegalArgumentException("User " + user + " needs hours and ratios");
+      }
+      team += weeklyHours[user];
+    }
+    for (int user : taskUsers) {
+      if (user >= weeklyHours.length || (user < 0 && user != UNASSIGNED)) {
+        throw new IllegalArgumentException("Unknown user " + user);
+      }
+    }
+    if (teamRatios.length == 0 || (weeklyHours.length == 0 && taskUsers.length > 0)) {
+      throw new IllegalArgumentException("Unassigned tasks need ratios and someone to work");
+    }
+    this.weeklyHours = weeklyHours.clone();
+    this.ratios = ratios.clone();
+    this.teamRatios = teamRatios.clone();
+    this.taskUsers = taskUsers.clone();
+    this.taskHours = taskHours.clone();
+    this.taskSpent = taskSpent.clone();
+    this.teamWeeklyHours = team;
+  }
+
+  /**
+   * Runs the simulations, a chunk per task on the executor, and waits for
+   * them.
+   *
+   * @return how many hours from now each simulation took to finish, sorted
+   */
+  public double[] simulate(Executor executor, int simulations, long seed) {
+    double[] hours = new double[simulations];
+    int chunks = (simulations + CHUNK - 1) / CHUNK;
+    SplittableRandom root = new SplittableRandom(seed);
+    SplittableRandom[] randoms = new SplittableRandom[chunks];
+    for (int chunk = 0; chunk < chunks; chunk++) {
+      randoms[chunk] = root.split();
+    }
+    List<CompletableFuture<Void>> runs = new ArrayList<>(chunks);
+    for (int chunk = 0; chunk < chunks; chunk++) {
+      SplittableRandom random = randoms[chunk];
+      int start = chunk * CHUNK;
+      int end = Math.min(simulations, start + CHUNK);
+      runs.add(
+          CompletableFuture.runAsync(
+              () -> {
+                double[] work = new double[weeklyHours.length];
+                for (int i = start; i < end; i++) {
+                  hours[i] = simulateOnce(random, work);
+                }
+              },
+              executor));
+    }
+    CompletableFuture.allOf(runs.toArray(new CompletableFuture<?>[0])).join();
+    // A few milliseconds even at forecast.max-simulations, so not worth a pool
+    Arrays.sort(hours);
+    return hours;
+  }
+
+  private double simulateOnce(SplittableRandom random, double[] work) {
+    Arrays.fill(work, 0);
+    double total = 0;
+    for (int task = 0; task < taskUsers.length; task++) {
+      int user = taskUsers[task];
+      double[] drawFrom = user == UNASSIGNED ? teamRatios : ratios[user];
+      double ratio = drawFrom[random.nextInt(drawFrom.length)];
+      double left = Math.max(0, taskHours[task] * ratio - taskSpent[task]);
+      total += left;
+      if (user != UNASSIGNED) {
+        work[user] += left;
+      }
+    }
+    double weeks = total == 0 ? 0 : total / teamWeeklyHours;
+    for (int user = 0; user < work.length; user++) {
+      weeks = Math.max(weeks, work[user] / weeklyHours[user]);
+    }
+    return weeks * HOURS_PER_WEEK;
+  }
+
+  /**
+   * The value below which the given fraction of the sorted results fall.
+   */
+  public static double percentile(double[] sorted, double fraction) {
+    int rank = (int) Math.ceil(fraction * sorted.length);
+    return sorted[Math.min(sorted.length - 1, Math.max(0, rank - 1))];
+  }
+
+  /**
+   * The fraction of the sorted results that are at most the given value.
+   */
+  public static double fractionWithin(double[] sorted, double value) {
+    int low = 0;
+    int high = sorted.length;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (sorted[mid] <= value) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return sorted.length == 0 ? 0 : (double) low / sorted.length;
+  }
+}
@@ -0,0 +1,107 @@
+package com.springboot.MyTodoList.service.forecast;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * When the remaining work of a sprint is likely to be done.
+ */
+public final class SprintForecast {
+  private final int sprintId;
+  private final OffsetDateTime from;
+  private final OffsetDateTime endsAt;
+  private final double probabilityByEnd;
+  private final List<Percentile> percentiles;
+  private final int remainingTasks;
+  private final long remainingEstimatedHours;
+  private final int simulations;
+  private final long seed;
+
+  /**
+   * The date by which the given percentage of the simulations were done.
+   */
+  public static final class Percentile {
+    private final int percent;
+    private final OffsetDateTime completesAt;
+
+    public Percentile(int percent, OffsetDateTime completesAt) {
+      this.percent = percent;
+      this.completesAt = completesAt;
+    }
+
+    public int getPercent() {
+      return percent;
+    }
+
+    public OffsetDateTime getCompletesAt() {
+      return completesAt;
+    }
+  }
+
+  public SprintForecast(
+      int sprintId,
+      OffsetDateTime from,
+      OffsetDateTime endsAt,
+      double probabilityByEnd,
+      List<Percentile> percentiles,
+      int remainingTasks,
+      long remainingEstimatedHours,
+      int simulations,
+      long seed) {
+    this.sprintId = sprintId;
+    this.from = from;
+    this.endsAt = endsAt;
+    this.probabilityByEnd = probabilityByEnd;
+    this.percentiles = percentiles;
+    this.remainingTasks = remainingTasks;
+    this.remainingEstimatedHours = remainingEstimatedHours;
+    this.simulations = simulations;
+    this.seed = seed;
+  }
+
+  public int getSprintId() {
+    return sprintId;
+  }
+
+  /**
+   * When the simulated work starts: now, or the sprint's start if it's later.
+   */
+  public OffsetDateTime getFrom() {
+    return from;
+  }
+
+  public OffsetDateTime getEndsAt() {
+    return endsAt;
+  }
+
+  /**
+   * The fraction of simulations done by the end of the sprint, or null if the
+   * sprint has no end.
+   */
+  public Double getProbabilityByEnd() {
+    return endsAt == null ? null : probabilityByEnd;
+  }
+
+  public List<Percentile> getPercentiles() {
+    return percentiles;
+  }
+
+  public int getRemainingTasks() {
+    return remainingTasks;
+  }
+
+  public long getRemainingEstimatedHours() {
+    return remainingEstimatedHours;
+  }
+
+  public int getSimulations() {
+    return simulations;
+  }
+
+  /**
+   * The seed to pass again to get the same forecast for the same data.
+   */
+  public long getSeed() {
+    return seed;
+  }
+}
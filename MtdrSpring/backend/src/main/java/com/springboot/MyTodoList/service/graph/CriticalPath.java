@@ -0,0 +1,494 @@
+package com.springboot.MyTodoList.service.graph;
+
+import java.util.Arrays;
+
+import com.springboot.MyTodoList.util.IntIntHashMap;
+
+/**
+ * The schedule of a set of tasks (a sprint, usually) under their dependencies:
+ * the earliest and latest hour each task can start, its slack, and the chain
+ * of tasks with no slack that decides when the whole set is done.
+ *
+ * Times are hours since the start of the schedule. Each task takes its
+ * estimate, and may have a deadline it has to finish by. A task whose slack is
+ * negative can't meet its own deadline or one of the tasks after it.
+ *
+ * Everything is computed with one forward and one backward pass in
+ * topological order. When a single task or dependency changes, only the tasks
+ * after it (forward) and before it (backward) are computed again, unless the
+ * end of the schedule moves. It is not thread-safe.
+ */
+public final class CriticalPath {
+  public static final long NO_DEADLINE = Long.MAX_VALUE;
+
+  private final IntIntHashMap indexOf;
+  private final int[] ids;
+  private final long[] hours;
+  private final long[] deadlines;
+  private final int size;
+
+  private final int[][] children;
+  private final int[] childCount;
+  private final int[][] parents;
+  private final int[] parentCount;
+
+  // order[rank[node]] == node
+  private int[] order;
+  private final int[] rank;
+
+  private final long[] earliestStart;
+  private final long[] latestFinish;
+  private long end;
+  // How many tasks finish at the end, to know when it can move earlier
+  private int finishingAtEnd;
+
+  // Scratch space for the incremental passes: a heap of ranks to visit, and
+  // whether each node is in it
+  private final int[] heap;
+  private int heapSize;
+  private final boolean[] queued;
+
+  private CriticalPath(int[] taskIds, long[] hours, long[] deadlines) {
+    size = taskIds.length;
+    ids = taskIds.clone();
+    this.hours = hours.clone();
+    this.deadlines = deadlines.clone();
+    indexOf = new IntIntHashMap(Math.max(16, size));
+    for (int node = 0; node < size; node++) {
+      if (!indexOf.putIfAbsent(ids[node], node)) {
+        throw new IllegalArgumentException("Task " + ids[node] + " is listed twice");
+      }
+    }
+    children = new int[size][];
+    childCount = new int[size];
+    parents = new int[size][];
+    parentCount = new int[size];
+    rank = new int[size];
+    earliestStart = new long[size];
+    latestFinish = new long[size];
+    heap = new int[size];
+    queued = new boolean[size];
+  }
+
+  /**
+   * Schedules the given tasks. Dependencies with a task outside the set are
+   * ignored.
+   *
+   * @param deadlines the hour each task must be finished by, or NO_DEADLINE
+   * @throws DependencyCycleException if the dependencies between the tasks
+   *     form a cycle
+   */
+  public static CriticalPath of(
+      int[] taskIds, long[] hours, long[] deadlines, int[] parentIds, int[] childIds) {
+    if (taskIds.length != hours.length || taskIds.length != deadlines.length) {
+      throw new IllegalArgumentException("Every task needs its hours and deadline");
+    }
+    CriticalPath schedule = new CriticalPath(taskIds, hours, deadlines);
+    for (int i = 0; i < parentIds.length; i++) {
+      int parent = schedule.indexOf.get(parentIds[i], -1);
+      int child = schedule.indexOf.get(childIds[i], -1);
+      if (parent >= 0 && child >= 0 && parent != child && !schedule.hasChild(parent, child)) {
+        schedule.link(parent, child);
+      }
+    }
+    schedule.sort();
+    schedule.computeAll();
+    return schedule;
+  }
+
+  private boolean hasChild(int parent, int child) {
+    for (int i = 0; i < childCount[parent]; i++) {
+      if (children[parent][i] == child) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void link(int parent, int child) {
+    children[parent] = append(children[parent], childCount[parent]++, child);
+    parents[child] = append(parents[child], parentCount[child]++, parent);
+  }
+
+  private void unlink(int parent, int child) {
+    removeFrom(children[parent], childCount[parent]--, child);
+    removeFrom(parents[child], parentCount[child]--, parent);
+  }
+
+  private static int[] append(int[] list, int count, int value) {
+    if (list == null) {
+      list = new int[2];
+    } else if (count == list.length) {
+      list = Arrays.copyOf(list, count * 2);
+    }
+    list[count] = value;
+    return list;
+  }
+
+  private static void removeFrom(int[] list, int count, int value) {
+    for (int i = 0; i < count; i++) {
+      if (list[i] == value) {
+        list[i] = list[count - 1];
+        return;
+      }
+    }
+  }
+
+  /**
+   * Orders the tasks so each one comes after its parents (Kahn's algorithm).
+   */
+  private void sort() {
+    int[] waiting = Arrays.copyOf(parentCount, size);
+    int[] sorted = new int[size];
+    int tail = 0;
+    for (int node = 0; node < size; node++) {
+      if (waiting[node] == 0) {
+        sorted[tail++] = node;
+      }
+    }
+    for (int head = 0; head < tail; head++) {
+      int node = sorted[head];
+      for (int i = 0; i < childCount[node]; i++) {
+        int child = children[node][i];
+        if (--waiting[child] == 0) {
+          sorted[tail++] = child;
+        }
+      }
+    }
+    if (tail < size) {
+      throw new DependencyCycleException(
+          (size - tail) + " tasks are in or behind a dependency cycle");
+    }
+    order = sorted;
+    for (int r = 0; r < size; r++) {
+      rank[order[r]] = r;
+    }
+  }
+
+  private void computeAll() {
+    for (int r = 0; r < size; r++) {
+      computeEarliestStart(order[r]);
+    }
+    computeEnd();
+    for (int r = size - 1; r >= 0; r--) {
+      computeLatestFinish(order[r]);
+    }
+  }
+
+  private boolean computeEarliestStart(int node) {
+    long start = 0;
+    for (int i = 0; i < parentCount[node]; i++) {
+      int parent = parents[node][i];
+      start = Math.max(start, earliestStart[parent] + hours[parent]);
+    }
+    long before = earliestStart[node];
+    earliestStart[node] = start;
+    finishMoved(before + hours[node], start + hours[node]);
+    return start != before;
+  }
+
+  private void computeEnd() {
+    end = 0;
+    finishingAtEnd = 0;
+    for (int node = 0; node < size; node++) {
+      finishMoved(-1, earliestStart[node] + hours[node]);
+    }
+  }
+
+  /**
+   * Keeps the end up to date as a task's earliest finish moves. When the last
+   * task finishing at the end moves earlier, finishingAtEnd drops to zero and
+   * the end must be computed again.
+   */
+  private void finishMoved(long before, long after) {
+    if (before == after) {
+      return;
+    }
+    if (before == end) {
+      finishingAtEnd--;
+    }
+    if (after > end) {
+      end = after;
+      finishingAtEnd = 1;
+    } else if (after == end) {
+      finishingAtEnd++;
+    }
+  }
+
+  private boolean computeLatestFinish(int node) {
+    long finish = Math.min(end, deadlines[node]);
+    for (int i = 0; i < childCount[node]; i++) {
+      int child = children[node][i];
+      finish = Math.min(finish, latestFinish[child] - hours[child]);
+    }
+    boolean changed = finish != latestFinish[node];
+    latestFinish[node] = finish;
+    return changed;
+  }
+
+  private void push(int key) {
+    int i = heapSize++;
+    while (i > 0 && heap[(i - 1) / 2] > key) {
+      heap[i] = heap[(i - 1) / 2];
+      i = (i - 1) / 2;
+    }
+    heap[i] = key;
+  }
+
+  private int pop() {
+    int top = heap[0];
+    int last = heap[--heapSize];
+    int i = 0;
+    while (2 * i + 1 < heapSize) {
+      int child = 2 * i + 1;
+      if (child + 1 < heapSize && heap[child + 1] < heap[child]) {
+        child++;
+      }
+      if (heap[child] >= last) {
+        break;
+      }
+      heap[i] = heap[child];
+      i = child;
+    }
+    heap[i] = last;
+    return top;
+  }
+
+  /**
+   * Recomputes the earliest starts of a node and the tasks after it, in
+   * topological order, only following the tasks that moved.
+   */
+  private void propagateForward(int from, boolean fromChanged) {
+    queued[from] = true;
+    push(rank[from]);
+    while (heapSize > 0) {
+      int node = order[pop()];
+      queued[node] = false;
+      if (computeEarliestStart(node) || (node == from && fromChanged)) {
+        for (int i = 0; i < childCount[node]; i++) {
+          int child = children[node][i];
+          if (!queued[child]) {
+            queued[child] = true;
+            push(rank[child]);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Recomputes the latest finishes of a node and the tasks before it, in
+   * reverse topological order, only following the tasks that moved.
+   */
+  private void propagateBackward(int from, boolean fromChanged) {
+    queued[from] = true;
+    push(size - 1 - rank[from]);
+    while (heapSize > 0) {
+      int node = order[size - 1 - pop()];
+      queued[node] = false;
+      if (computeLatestFinish(node) || (node == from && fromChanged)) {
+        for (int i = 0; i < parentCount[node]; i++) {
+          int parent = parents[node][i];
+          if (!queued[parent]) {
+            queued[parent] = true;
+            push(size - 1 - rank[parent]);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Updates the schedule after a change that's visible forward from one node
+   * and backward from another. The flags say whether those nodes' own finish
+   * (forward) or start (backward) already moved, so their neighbours need a
+   * look even if their recomputed times stay the same.
+   */
+  private void update(
+      int forwardFrom, boolean forwardChanged, int backwardFrom, boolean backwardChanged) {
+    long endBefore = end;
+    propagateForward(forwardFrom, forwardChanged);
+    if (finishingAtEnd == 0) {
+      computeEnd();
+    }
+    if (end != endBefore) {
+      // Every task without children finishes at the new end
+      for (int r = size - 1; r >= 0; r--) {
+        computeLatestFinish(order[r]);
+      }
+    } else {
+      propagateBackward(backwardFrom, backwardChanged);
+    }
+  }
+
+  /**
+   * Changes a task's estimate and deadline.
+   *
+   * @return false if the task isn't part of the schedule
+   */
+  public boolean setTask(int taskId, long taskHours, long deadline) {
+    int node = indexOf.get(taskId, -1);
+    if (node < 0) {
+      return false;
+    }
+    long finishBefore = earliestStart[node] + hours[node];
+    hours[node] = taskHours;
+    deadlines[node] = deadline;
+    finishMoved(finishBefore, earliestStart[node] + taskHours);
+    update(node, true, node, true);
+    return true;
+  }
+
+  /**
+   * Makes one task of the schedule wait for another.
+   *
+   * @return false if either task isn't part of the schedule, or the dependency
+   *     already existed
+   * @throws DependencyCycleException if the dependency would close a cycle
+   */
+  public boolean addDependency(int parentId, int childId) {
+    int parent = indexOf.get(parentId, -1);
+    int child = indexOf.get(childId, -1);
+    if (parent < 0 || child < 0 || hasChild(parent, child)) {
+      return false;
+    }
+    if (parent == child) {
+      throw new DependencyCycleException("Task " + parentId + " can't depend on itself");
+    }
+    link(parent, child);
+    if (rank[parent] < rank[child]) {
+      // The order still holds
+      update(child, false, parent, false);
+      return true;
+    }
+    try {
+      sort();
+    } catch (DependencyCycleException e) {
+      unlink(parent, child);
+      throw e;
+    }
+    computeAll();
+    return true;
+  }
+
+  /**
+   * @return false if there was no such dependency in the schedule
+   */
+  public boolean removeDependency(int parentId, int childId) {
+    int parent = indexOf.get(parentId, -1);
+    int child = indexOf.get(childId, -1);
+    if (parent < 0 || child < 0 || !hasChild(parent, child)) {
+      return false;
+    }
+    unlink(parent, child);
+    update(child, false, parent, false);
+    return true;
+  }
+
+  public boolean contains(int taskId) {
+    return indexOf.containsKey(taskId);
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /**
+   * The hour the last task finishes.
+   */
+  public long getEnd() {
+    return end;
+  }
+
+  /**
+   * The tasks in the order they can be done.
+   */
+  public int[] getTaskIds() {
+    int[] result = new int[size];
+    for (int r = 0; r < size; r++) {
+      result[r] = ids[order[r]];
+    }
+    return result;
+  }
+
+  public long getHours(int taskId) {
+    return hours[node(taskId)];
+  }
+
+  public long getEarliestStart(int taskId) {
+    return earliestStart[node(taskId)];
+  }
+
+  public long getEarliestFinish(int taskId) {
+    int node = node(taskId);
+    return earliestStart[node] + hours[node];
+  }
+
+  public long getLatestStart(int taskId) {
+    int node = node(taskId);
+    return latestFinish[node] - hours[node];
+  }
+
+  public long getLatestFinish(int taskId) {
+    return latestFinish[node(taskId)];
+  }
+
+  /**
+   * How many hours a task can be delayed without delaying the end of the
+   * schedule or missing a deadline.
+   */
+  public long getSlack(int taskId) {
+    return slack(node(taskId));
+  }
+
+  private int node(int taskId) {
+    int node = indexOf.get(taskId, -1);
+    if (node < 0) {
+      throw new IllegalArgumentException("Task " + taskId + " isn't part of the schedule");
+    }
+    return node;
+  }
+
+  /**
+   * A chain of tasks with the least slack, from a task that can start right
+   * away to the one that finishes last. Each task starts as soon as the
+   * previous one finishes.
+   */
+  public int[] getCriticalPath() {
+    if (size == 0) {
+      return new int[0];
+    }
+    // Walk back from the task that finishes last
+    int node = -1;
+    for (int r = size - 1; r >= 0; r--) {
+      int candidate = order[r];
+      if (earliestStart[candidate] + hours[candidate] == end
+          && (node < 0 || slack(candidate) < slack(node))) {
+        node = candidate;
+      }
+    }
+    int[] path = new int[size];
+    int length = 0;
+    while (node >= 0) {
+      path[length++] = ids[node];
+      int previous = -1;
+      for (int i = 0; i < parentCount[node]; i++) {
+        int parent = parents[node][i];
+        if (earliestStart[parent] + hours[parent] == earliestStart[node]
+            && (previous < 0 || slack(parent) < slack(previous))) {
+          previous = parent;
+        }
+      }
+      node = previous;
+    }
+    int[] result = new int[length];
+    for (int i = 0; i < length; i++) {
+      result[i] = path[length - 1 - i];
+    }
+    return result;
+  }
+
+  private long slack(int node) {
+    return latestFinish[node] - hours[node] - earliestStart[node];
+  }
+}
@@ -0,0 +1,11 @@
+package com.springboot.MyTodoList.service.graph;
+
+/**
+ * A dependency was not added because the child already (transitively) blocks
+ * the parent, so the tasks would wait on each other forever.
+ */
+public class DependencyCycleException extends IllegalArgumentException {
+  public DependencyCycleException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,552 @@
+package com.springboot.MyTodoList.service.graph;
+
+import java.util.Arrays;
+
+import com.springboot.MyTodoList.util.IntIntHashMap;
+
+/**
+ * The dependencies between tasks, as a directed acyclic graph over task ids.
+ * An edge goes from a parent task to a child task that waits for it.
+ *
+ * Edges are kept as compressed sparse rows: for each direction, one int array
+ * with the neighbours of every node back to back and an array of offsets into
+ * it. Edges added afterwards go to small per-node arrays, and removed ones are
+ * overwritten with REMOVED, until there are enough changes to rebuild the rows.
+ * Traversals only walk int arrays, so they stay in the microseconds on graphs
+ * with a hundred thousand edges.
+ *
+ * Edges that would close a cycle are rejected. It is not thread-safe.
+ */
+public final class DependencyGraph {
+  private static final int REMOVED = -1;
+  private static final int MIN_CHANGES_BEFORE_REBUILD = 1024;
+
+  // Dense node index of every task id, and back
+  private IntIntHashMap indexOf;
+  private int[] ids;
+  private boolean[] done;
+  private int nodeCount;
+  private int edgeCount;
+
+  // Rows of the nodes that existed at the last rebuild
+  private int rowCount;
+  private int[] childOffsets;
+  private int[] children;
+  private int[] parentOffsets;
+  private int[] parents;
+
+  // Edges added since the last rebuild
+  private int[][] addedChildren;
+  private int[] addedChildCount;
+  private int[][] addedParents;
+  private int[] addedParentCount;
+  private int changes;
+
+  // Traversal scratch space: a node was visited if its mark is the current epoch
+  private int[] mark;
+  private int epoch;
+  private int[] queue;
+
+  // Answers kept until the graph or a task's state changes
+  private int[] topologicalOrder;
+  private int[] blocked;
+
+  public DependencyGraph() {
+    load(new int[0], new int[0], 0);
+  }
+
+  /**
+   * Builds the graph from parallel arrays of parent and child task ids.
+   * Self-dependencies are skipped. Existing cycles are kept, but their tasks
+   * are left out of the topological order.
+   */
+  public static DependencyGraph of(int[] parentIds, int[] childIds) {
+    if (parentIds.length != childIds.length) {
+      throw new IllegalArgumentException("Every parent needs a child");
+    }
+    DependencyGraph graph = new DependencyGraph();
+    graph.load(parentIds, childIds, parentIds.length);
+    return graph;
+  }
+
+  private void load(int[] parentIds, int[] childIds, int count) {
+    indexOf = new IntIntHashMap(Math.max(16, count));
+    nodeCount = 0;
+    allocateNodes(Math.max(16, count));
+    int[] from = new int[count];
+    int[] to = new int[count];
+    int edges = 0;
+    for (int i = 0; i < count; i++) {
+      if (parentIds[i] != childIds[i]) {
+        from[edges] = node(parentIds[i]);
+        to[edges] = node(childIds[i]);
+        edges++;
+      }
+    }
+    rowCount = nodeCount;
+    edgeCount = edges;
+    childOffsets = offsets(from, edges, rowCount);
+    children = rows(childOffsets, from, to, edges);
+    parentOffsets = offsets(to, edges, rowCount);
+    parents = rows(parentOffsets, to, from, edges);
+    changes = 0;
+    topologicalOrder = null;
+    blocked = null;
+  }
+
+  private static int[] offsets(int[] nodes, int count, int nodeCount) {
+    int[] offsets = new int[nodeCount + 1];
+    for (int i = 0; i < count; i++) {
+      offsets[nodes[i] + 1]++;
+    }
+    for (int i = 0; i < nodeCount; i++) {
+      offsets[i + 1] += offsets[i];
+    }
+    return offsets;
+  }
+
+  private static int[] rows(int[] offsets, int[] nodes, int[] neighbours, int count) {
+    int[] next = Arrays.copyOf(offsets, offsets.length - 1);
+    int[] rows = new int[count];
+    for (int i = 0; i < count; i++) {
+      rows[next[nodes[i]]++] = neighbours[i];
+    }
+    return rows;
+  }
+
+  private void allocateNodes(int capacity) {
+    ids = new int[capacity];
+    done = new boolean[capacity];
+    addedChildren = new int[capacity][];
+    addedChildCount = new int[capacity];
+    addedParents = new int[capacity][];
+    addedParentCount = new int[capacity];
+    mark = new int[capacity];
+    epoch = 0;
+    queue = new int[capacity];
+  }
+
+  private void growNodes() {
+    int capacity = ids.length * 2;
+    ids = Arrays.copyOf(ids, capacity);
+    done = Arrays.copyOf(done, capacity);
+    addedChildren = Arrays.copyOf(addedChildren, capacity);
+    addedChildCount = Arrays.copyOf(addedChildCount, capacity);
+    addedParents = Arrays.copyOf(addedParents, capacity);
+    addedParentCount = Arrays.copyOf(addedParentCount, capacity);
+    mark = Arrays.copyOf(mark, capacity);
+    queue = new int[capacity];
+  }
+
+  /**
+   * Returns the index of a task, adding it if it's new.
+   */
+  private int node(int id) {
+    int index = indexOf.get(id, REMOVED);
+    if (index == REMOVED) {
+      if (nodeCount == ids.length) {
+        growNodes();
+      }
+      index = nodeCount++;
+      ids[index] = id;
+      indexOf.put(id, index);
+    }
+    return index;
+  }
+
+  public int nodeCount() {
+    return nodeCount;
+  }
+
+  public int edgeCount() {
+    return edgeCount;
+  }
+
+  public boolean contains(int parentId, int childId) {
+    int parent = indexOf.get(parentId, REMOVED);
+    int child = indexOf.get(childId, REMOVED);
+    return parent != REMOVED && child != REMOVED && hasChild(parent, child);
+  }
+
+  private boolean hasChild(int parent, int child) {
+    if (parent < rowCount) {
+      for (int e = childOffsets[parent]; e < childOffsets[parent + 1]; e++) {
+        if (children[e] == child) {
+          return true;
+        }
+      }
+    }
+    int[] added = addedChildren[parent];
+    for (int i = 0; i < addedChildCount[parent]; i++) {
+      if (added[i] == child) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Makes childId wait for parentId.
+   *
+   * @return false if the dependency already existed
+   * @throws DependencyCycleException if childId already blocks parentId,
+   *     directly or through other tasks
+   */
+  public boolean add(int parentId, int childId) {
+    if (parentId == childId) {
+      throw new DependencyCycleException("Task " + parentId + " can't depend on itself");
+    }
+    int parent = indexOf.get(parentId, REMOVED);
+    int child = indexOf.get(childId, REMOVED);
+    if (parent != REMOVED && child != REMOVED) {
+      if (hasChild(parent, child)) {
+        return false;
+      }
+      if (reach(child, false, parent) < 0) {
+        throw new DependencyCycleException(
+            "Task " + childId + " already blocks task " + parentId);
+      }
+    }
+    parent = node(parentId);
+    child = node(childId);
+    addedChildren[parent] = append(addedChildren[parent], addedChildCount[parent]++, child);
+    addedParents[child] = append(addedParents[child], addedParentCount[child]++, parent);
+    edgeCount++;
+    changed();
+    return true;
+  }
+
+  private static int[] append(int[] row, int size, int value) {
+    if (row == null) {
+      row = new int[4];
+    } else if (size == row.length) {
+      row = Arrays.copyOf(row, size * 2);
+    }
+    row[size] = value;
+    return row;
+  }
+
+  /**
+   * Removes a dependency.
+   *
+   * @return false if there was no such dependency
+   */
+  public boolean remove(int parentId, int childId) {
+    int parent = indexOf.get(parentId, REMOVED);
+    int child = indexOf.get(childId, REMOVED);
+    if (parent == REMOVED
+        || child == REMOVED
+        || !removeFrom(childOffsets, children, addedChildren, addedChildCount, parent, child)) {
+      return false;
+    }
+    removeFrom(parentOffsets, parents, addedParents, addedParentCount, child, parent);
+    edgeCount--;
+    changed();
+    return true;
+  }
+
+  private boolean removeFrom(
+      int[] offsets, int[] rows, int[][] added, int[] addedCount, int node, int neighbour) {
+    if (node < rowCount) {
+      for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+        if (rows[e] == neighbour) {
+          rows[e] = REMOVED;
+          return true;
+        }
+      }
+    }
+    int[] row = added[node];
+    for (int i = 0; i < addedCount[node]; i++) {
+      if (row[i] == neighbour) {
+        row[i] = row[--addedCount[node]];
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void changed() {
+    topologicalOrder = null;
+    blocked = null;
+    if (++changes > Math.max(MIN_CHANGES_BEFORE_REBUILD, edgeCount / 4)) {
+      rebuild();
+    }
+  }
+
+  /**
+   * Rebuilds the rows with every current edge, dropping the tasks that
+   * have none left.
+   */
+  private void rebuild() {
+    int[] parentIds = new int[edgeCount];
+    int[] childIds = new int[edgeCount];
+    int count = 0;
+    for (int node = 0; node < nodeCount; node++) {
+      if (node < rowCount) {
+        for (int e = childOffsets[node]; e < childOffsets[node + 1]; e++) {
+          if (children[e] != REMOVED) {
+            parentIds[count] = ids[node];
+            childIds[count++] = ids[children[e]];
+          }
+        }
+      }
+      for (int i = 0; i < addedChildCount[node]; i++) {
+        parentIds[count] = ids[node];
+        childIds[count++] = ids[addedChildren[node][i]];
+      }
+    }
+    int[] doneIds = new int[nodeCount];
+    int doneCount = 0;
+    for (int node = 0; node < nodeCount; node++) {
+      if (done[node]) {
+        doneIds[doneCount++] = ids[node];
+      }
+    }
+    load(parentIds, childIds, count);
+    for (int i = 0; i < doneCount; i++) {
+      setDone(doneIds[i], true);
+    }
+  }
+
+  /**
+   * Records whether a task is finished. Finished tasks don't block their
+   * children and aren't blocked themselves. Tasks outside the graph are ignored.
+   */
+  public void setDone(int id, boolean isDone) {
+    int node = indexOf.get(id, REMOVED);
+    if (node != REMOVED && done[node] != isDone) {
+      done[node] = isDone;
+      blocked = null;
+    }
+  }
+
+  /**
+   * Whether a task in the graph was recorded as done.
+   */
+  public boolean isDone(int id) {
+    int node = indexOf.get(id, REMOVED);
+    return node != REMOVED && done[node];
+  }
+
+  /**
+   * Visits every node reachable from start, following children or parents,
+   * and leaves them in queue with start first.
+   *
+   * @return how many nodes were visited, or -1 if stop was reached
+   */
+  private int reach(int start, boolean towardsParents, int stop) {
+    int[] offsets = towardsParents ? parentOffsets : childOffsets;
+    int[] rows = towardsParents ? parents : children;
+    int[][] added = towardsParents ? addedParents : addedChildren;
+    int[] addedCount = towardsParents ? addedParentCount : addedChildCount;
+    if (++epoch == 0) {
+      Arrays.fill(mark, 0);
+      epoch = 1;
+    }
+    mark[start] = epoch;
+    queue[0] = start;
+    int head = 0;
+    int tail = 1;
+    while (head < tail) {
+      int node = queue[head++];
+      if (node < rowCount) {
+        for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+          int next = rows[e];
+          if (next != REMOVED && mark[next] != epoch) {
+            if (next == stop) {
+              return -1;
+            }
+            mark[next] = epoch;
+            queue[tail++] = next;
+          }
+        }
+      }
+      int[] row = added[node];
+      for (int i = 0; i < addedCount[node]; i++) {
+        int next = row[i];
+        if (mark[next] != epoch) {
+          if (next == stop) {
+            return -1;
+          }
+          mark[next] = epoch;
+          queue[tail++] = next;
+        }
+      }
+    }
+    return tail;
+  }
+
+  /**
+   * The tasks waiting directly for this one.
+   */
+  public int[] children(int id) {
+    int node = indexOf.get(id, REMOVED);
+    if (node == REMOVED) {
+      return new int[0];
+    }
+    int[] result = new int[liveChildren(node)];
+    int count = 0;
+    if (node < rowCount) {
+      for (int e = childOffsets[node]; e < childOffsets[node + 1]; e++) {
+        if (children[e] != REMOVED) {
+          result[count++] = ids[children[e]];
+        }
+      }
+    }
+    for (int i = 0; i < addedChildCount[node]; i++) {
+      result[count++] = ids[addedChildren[node][i]];
+    }
+    return result;
+  }
+
+  /**
+   * The tasks this one waits for directly.
+   */
+  public int[] parents(int id) {
+    int node = indexOf.get(id, REMOVED);
+    if (node == REMOVED) {
+      return new int[0];
+    }
+    int[] result = new int[liveParents(node)];
+    int count = 0;
+    if (node < rowCount) {
+      for (int e = parentOffsets[node]; e < parentOffsets[node + 1]; e++) {
+        if (parents[e] != REMOVED) {
+          result[count++] = ids[parents[e]];
+        }
+      }
+    }
+    for (int i = 0; i < addedParentCount[node]; i++) {
+      result[count++] = ids[addedParents[node][i]];
+    }
+    return result;
+  }
+
+  private int liveChildren(int node) {
+    int count = addedChildCount[node];
+    if (node < rowCount) {
+      for (int e = childOffsets[node]; e < childOffsets[node + 1]; e++) {
+        if (children[e] != REMOVED) {
+          count++;
+        }
+      }
+    }
+    return count;
+  }
+
+  /**
+   * The tasks this one waits for, directly or through other tasks.
+   */
+  public int[] ancestors(int id) {
+    return reachable(id, true);
+  }
+
+  /**
+   * The tasks waiting for this one, directly or through other tasks.
+   */
+  public int[] descendants(int id) {
+    return reachable(id, false);
+  }
+
+  private int[] reachable(int id, boolean towardsParents) {
+    int node = indexOf.get(id, REMOVED);
+    if (node == REMOVED) {
+      return new int[0];
+    }
+    int count = reach(node, towardsParents, REMOVED);
+    int[] result = new int[count - 1];
+    for (int i = 1; i < count; i++) {
+      result[i - 1] = ids[queue[i]];
+    }
+    return result;
+  }
+
+  /**
+   * Every task in the graph, each one after all the tasks it waits for.
+   * The order is computed once and kept until the graph changes.
+   */
+  public int[] topologicalOrder() {
+    if (topologicalOrder == null) {
+      int[] waitingFor = new int[nodeCount];
+      for (int node = 0; node < nodeCount; node++) {
+        waitingFor[node] = liveParents(node);
+      }
+      int tail = 0;
+      for (int node = 0; node < nodeCount; node++) {
+        if (waitingFor[node] == 0) {
+          queue[tail++] = node;
+        }
+      }
+      for (int head = 0; head < tail; head++) {
+        int node = queue[head];
+        if (node < rowCount) {
+          for (int e = childOffsets[node]; e < childOffsets[node + 1]; e++) {
+            int next = children[e];
+            if (next != REMOVED && --waitingFor[next] == 0) {
+              queue[tail++] = next;
+            }
+          }
+        }
+        for (int i = 0; i < addedChildCount[node]; i++) {
+          int next = addedChildren[node][i];
+          if (--waitingFor[next] == 0) {
+            queue[tail++] = next;
+          }
+        }
+      }
+      topologicalOrder = new int[tail];
+      for (int i = 0; i < tail; i++) {
+        topologicalOrder[i] = ids[queue[i]];
+      }
+    }
+    return topologicalOrder.clone();
+  }
+
+  private int liveParents(int node) {
+    int count = addedParentCount[node];
+    if (node < rowCount) {
+      for (int e = parentOffsets[node]; e < parentOffsets[node + 1]; e++) {
+        if (parents[e] != REMOVED) {
+          count++;
+        }
+      }
+    }
+    return count;
+  }
+
+  /**
+   * The unfinished tasks that wait for at least one unfinished task,
+   * in ascending id order. Also kept until something changes.
+   */
+  public int[] blocked() {
+    if (blocked == null) {
+      int[] result = new int[nodeCount];
+      int count = 0;
+      for (int node = 0; node < nodeCount; node++) {
+        if (!done[node] && hasUnfinishedParent(node)) {
+          result[count++] = ids[node];
+        }
+      }
+      blocked = Arrays.copyOf(result, count);
+      Arrays.sort(blocked);
+    }
+    return blocked.clone();
+  }
+
+  private boolean hasUnfinishedParent(int node) {
+    if (node < rowCount) {
+      for (int e = parentOffsets[node]; e < parentOffsets[node + 1]; e++) {
+        int parent = parents[e];
+        if (parent != REMOVED && !done[parent]) {
+          return true;
+        }
+      }
+    }
+    for (int i = 0; i < addedParentCount[node]; i++) {
+      if (!done[addedParents[node][i]]) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
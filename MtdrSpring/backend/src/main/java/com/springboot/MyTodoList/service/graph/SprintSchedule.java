@@ -0,0 +1,103 @@
+package com.springboot.MyTodoList.service.graph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A copy of a sprint's critical path schedule, safe to hand out while the
+ * schedule keeps changing. Times are hours since the sprint starts.
+ */
+public final class SprintSchedule {
+  private final int sprintId;
+  private final long hours;
+  private final int[] criticalPath;
+  private final List<TaskTimes> tasks;
+
+  /**
+   * When one task can and must be done.
+   */
+  public static final class TaskTimes {
+    private final int taskId;
+    private final long hours;
+    private final long earliestStart;
+    private final long earliestFinish;
+    private final long latestStart;
+    private final long latestFinish;
+    private final long slack;
+
+    private TaskTimes(CriticalPath schedule, int taskId) {
+      this.taskId = taskId;
+      this.hours = schedule.getHours(taskId);
+      this.earliestStart = schedule.getEarliestStart(taskId);
+      this.earliestFinish = schedule.getEarliestFinish(taskId);
+      this.latestStart = schedule.getLatestStart(taskId);
+      this.latestFinish = schedule.getLatestFinish(taskId);
+      this.slack = schedule.getSlack(taskId);
+    }
+
+    public int getTaskId() {
+      return taskId;
+    }
+
+    public long getHours() {
+      return hours;
+    }
+
+    public long getEarliestStart() {
+      return earliestStart;
+    }
+
+    public long getEarliestFinish() {
+      return earliestFinish;
+    }
+
+    public long getLatestStart() {
+      return latestStart;
+    }
+
+    public long getLatestFinish() {
+      return latestFinish;
+    }
+
+    public long getSlack() {
+      return slack;
+    }
+  }
+
+  SprintSchedule(int sprintId, CriticalPath schedule) {
+    this.sprintId = sprintId;
+    this.hours = schedule.getEnd();
+    this.criticalPath = schedule.getCriticalPath();
+    List<TaskTimes> times = new ArrayList<>(schedule.size());
+    for (int taskId : schedule.getTaskIds()) {
+      times.add(new TaskTimes(schedule, taskId));
+    }
+    this.tasks = Collections.unmodifiableList(times);
+  }
+
+  public int getSprintId() {
+    return sprintId;
+  }
+
+  /**
+   * How long the sprint's tasks take, following their dependencies.
+   */
+  public long getHours() {
+    return hours;
+  }
+
+  /**
+   * The ids of the tasks that decide when the sprint is done, in order.
+   */
+  public int[] getCriticalPath() {
+    return criticalPath.clone();
+  }
+
+  /**
+   * Every task of the sprint, in an order they can be done in.
+   */
+  public List<TaskTimes> getTasks() {
+    return tasks;
+  }
+}
@@ -0,0 +1,167 @@
+package com.springboot.MyTodoList.service.graph;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.springboot.MyTodoList.model.Sprint;
+import com.springboot.MyTodoList.model.Task;
+import com.springboot.MyTodoList.repository.TaskRepository;
+import com.springboot.MyTodoList.repository.TaskSpecifications;
+
+/**
+ * Keeps the critical path schedule of the sprints that were asked for.
+ *
+ * A schedule is built from the sprint's tasks and the dependencies between
+ * them in the TaskDependencyIndex. Each task takes its estimated hours and
+ * must be done by its due date and by the end of the sprint.
+ *
+ * TaskService and TaskDependencyService report their changes, and a schedule
+ * is updated in place when one of its tasks gets a new estimate or due date or
+ * a dependency between two of its tasks changes. Tasks joining, leaving or
+ * being deleted drop the schedule, and it's built again on the next request.
+ * Schedules older than sprint.schedule.max-age are built again too, to catch
+ * writes made by other replicas.
+ */
+@Component
+public class SprintSchedules {
+  private final TaskRepository taskRepository;
+  private final TaskDependencyIndex taskDependencyIndex;
+  private final Duration maxAge;
+
+  private final Map<Integer, Entry> entries = new HashMap<>();
+
+  private static final class Entry {
+    final int sprintId;
+    final OffsetDateTime startsAt;
+    final OffsetDateTime endsAt;
+    final CriticalPath schedule;
+    final long builtAt = System.nanoTime();
+
+    Entry(Sprint sprint, CriticalPath schedule) {
+      this.sprintId = sprint.getID_Sprint();
+      this.startsAt = sprint.getStartsAt();
+      this.endsAt = sprint.getEndsAt();
+      this.schedule = schedule;
+    }
+
+    long deadline(Task task) {
+      return SprintSchedules.deadline(startsAt, endsAt, task.getFinishesAt());
+    }
+  }
+
+  public SprintSchedules(
+      TaskRepository taskRepository,
+      TaskDependencyIndex taskDependencyIndex,
+      @Value("${sprint.schedule.max-age:PT5M}") Duration maxAge) {
+    this.taskRepository = taskRepository;
+    this.taskDependencyIndex = taskDependencyIndex;
+    this.maxAge = maxAge;
+  }
+
+  /**
+   * The hour since the sprint started by which a task must be done: its due
+   * date or the end of the sprint, whichever comes first.
+   */
+  static long deadline(OffsetDateTime startsAt, OffsetDateTime endsAt, OffsetDateTime dueAt) {
+    if (startsAt == null) {
+      return CriticalPath.NO_DEADLINE;
+    }
+    long deadline = CriticalPath.NO_DEADLINE;
+    if (endsAt != null) {
+      deadline = Duration.between(startsAt, endsAt).toHours();
+    }
+    if (dueAt != null) {
+      deadline = Math.min(deadline, Duration.between(startsAt, dueAt).toHours());
+    }
+    return deadline;
+  }
+
+  private static long hours(Task task) {
+    return task.getHoursEstimated() != null ? task.getHoursEstimated() : 0;
+  }
+
+  /**
+   * Returns the sprint's schedule, building it if needed.
+   *
+   * @throws DependencyCycleException if the sprint's tasks depend on each
+   *     other in a cycle
+   */
+  public synchronized SprintSchedule forSprint(Sprint sprint) {
+    Entry entry = entries.get(sprint.getID_Sprint());
+    if (entry == null
+        || System.nanoTime() - entry.builtAt > maxAge.toNanos()
+        || !Objects.equals(entry.startsAt, sprint.getStartsAt())
+        || !Objects.equals(entry.endsAt, sprint.getEndsAt())) {
+      entry = build(sprint);
+      entries.put(entry.sprintId, entry);
+    }
+    return new SprintSchedule(entry.sprintId, entry.schedule);
+  }
+
+  private Entry build(Sprint sprint) {
+    List<Task> tasks = taskRepository.findAll(TaskSpecifications.inSprint(sprint.getID_Sprint()));
+    int[] taskIds = new int[tasks.size()];
+    long[] hours = new long[tasks.size()];
+    long[] deadlines = new long[tasks.size()];
+    for (int i = 0; i < tasks.size(); i++) {
+      Task task = tasks.get(i);
+      taskIds[i] = task.getID_Task();
+      hours[i] = hours(task);
+      deadlines[i] = deadline(sprint.getStartsAt(), sprint.getEndsAt(), task.getFinishesAt());
+    }
+    int[][] dependencies = taskDependencyIndex.dependenciesFrom(taskIds);
+    return new Entry(
+        sprint,
+        CriticalPath.of(taskIds, hours, deadlines, dependencies[0], dependencies[1]));
+  }
+
+  /**
+   * Records a task that was added or updated.
+   */
+  public synchronized void taskChanged(Task task) {
+    entries.values().removeIf(
+        entry -> {
+          boolean member = entry.schedule.contains(task.getID_Task());
+          if (member && entry.sprintId == task.getID_Sprint()) {
+            entry.schedule.setTask(task.getID_Task(), hours(task), entry.deadline(task));
+            return false;
+          }
+          // The task joined or left this sprint
+          return member || entry.sprintId == task.getID_Sprint();
+        });
+  }
+
+  public synchronized void taskDeleted(int taskId) {
+    entries.values().removeIf(entry -> entry.schedule.contains(taskId));
+  }
+
+  public synchronized void dependencyAdded(int parentId, int childId) {
+    entries.values().removeIf(
+        entry -> {
+          try {
+            entry.schedule.addDependency(parentId, childId);
+            return false;
+          } catch (DependencyCycleException e) {
+            return true;
+          }
+        });
+  }
+
+  public synchronized void dependencyRemoved(int parentId, int childId) {
+    entries.values().forEach(entry -> entry.schedule.removeDependency(parentId, childId));
+  }
+
+  /**
+   * Drops every schedule.
+   */
+  public synchronized void invalidate() {
+    entries.clear();
+  }
+}
@@ -0,0 +1,165 @@
+package com.springboot.MyTodoList.service.graph;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.springboot.MyTodoList.repository.TaskDependencyRepository;
+
+/**
+ * Keeps the task dependency graph in memory, so graph questions don't need
+ * to read the whole TASK_DEPENDENCY table.
+ *
+ * The graph is loaded once from the database and then kept up to date by
+ * TaskDependencyService, which adds and removes its edges, and by TaskService,
+ * which reports tasks being finished, reopened or deleted.
+ *
+ * Dependencies added by other replicas only show up once the graph is older
+ * than task-dependency.graph.max-age and read again, so the graph is only a
+ * quick first check for cycles: TaskDependencyService asks the database
+ * before saving.
+ */
+@Component
+public class TaskDependencyIndex {
+  private final Logger logger = LoggerFactory.getLogger(TaskDependencyIndex.class);
+
+  private final TaskDependencyRepository taskDependencyRepository;
+  private final Duration maxAge;
+
+  private DependencyGraph graph;
+  private long loadedAt;
+
+  public TaskDependencyIndex(
+      TaskDependencyRepository taskDependencyRepository,
+      @Value("${task-dependency.graph.max-age:PT5M}") Duration maxAge) {
+    this.taskDependencyRepository = taskDependencyRepository;
+    this.maxAge = maxAge;
+  }
+
+  private DependencyGraph graph() {
+    if (graph == null || System.nanoTime() - loadedAt > maxAge.toNanos()) {
+      reload();
+    }
+    return graph;
+  }
+
+  /**
+   * Adds a dependency to the graph, before it's saved.
+   *
+   * @return false if it was already there
+   * @throws DependencyCycleException if it would close a cycle
+   */
+  public synchronized boolean add(
+      int parentId, int childId, boolean parentDone, boolean childDone) {
+    boolean added = graph().add(parentId, childId);
+    graph.setDone(parentId, parentDone);
+    graph.setDone(childId, childDone);
+    return added;
+  }
+
+  public synchronized void remove(int parentId, int childId) {
+    if (graph != null) {
+      graph.remove(parentId, childId);
+    }
+  }
+
+  /**
+   * Records a task's state. Deleted tasks count as done, since they don't
+   * block anything anymore.
+   */
+  public synchronized void setDone(int taskId, boolean done) {
+    if (graph != null) {
+      graph.setDone(taskId, done);
+    }
+  }
+
+  /**
+   * The dependencies whose parent is one of the given tasks, as parallel
+   * arrays of parent and child ids.
+   */
+  public synchronized int[][] dependenciesFrom(int[] taskIds) {
+    int[][] children = new int[taskIds.length][];
+    int count = 0;
+    for (int i = 0; i < taskIds.length; i++) {
+      children[i] = graph().children(taskIds[i]);
+      count += children[i].length;
+    }
+    int[] parentIds = new int[count];
+    int[] childIds = new int[count];
+    int next = 0;
+    for (int i = 0; i < taskIds.length; i++) {
+      for (int child : children[i]) {
+        parentIds[next] = taskIds[i];
+        childIds[next++] = child;
+      }
+    }
+    return new int[][] {parentIds, childIds};
+  }
+
+  /**
+   * For each of the given tasks, the tasks it waits for directly.
+   */
+  public synchronized int[][] parentsOf(int[] taskIds) {
+    int[][] parents = new int[taskIds.length][];
+    for (int i = 0; i < taskIds.length; i++) {
+      parents[i] = graph().parents(taskIds[i]);
+    }
+    return parents;
+  }
+
+  public synchronized boolean isDone(int taskId) {
+    return graph().isDone(taskId);
+  }
+
+  public synchronized int[] ancestors(int taskId) {
+    return graph().ancestors(taskId);
+  }
+
+  public synchronized int[] descendants(int taskId) {
+    return graph().descendants(taskId);
+  }
+
+  public synchronized int[] topologicalOrder() {
+    return graph().topologicalOrder();
+  }
+
+  public synchronized int[] blocked() {
+    return graph().blocked();
+  }
+
+  /**
+   * Drops the graph. The next query reloads it from the database.
+   */
+  public synchronized void invalidate() {
+    graph = null;
+  }
+
+  private void reload() {
+    List<Object[]> pairs = taskDependencyRepository.findAllPairs();
+    int[] parentIds = new int[pairs.size()];
+    int[] childIds = new int[pairs.size()];
+    for (int i = 0; i < pairs.size(); i++) {
+      parentIds[i] = ((Number) pairs.get(i)[0]).intValue();
+      childIds[i] = ((Number) pairs.get(i)[1]).intValue();
+    }
+    graph = DependencyGraph.of(parentIds, childIds);
+    for (int taskId : taskDependencyRepository.findDoneTaskIds()) {
+      graph.setDone(taskId, true);
+    }
+    loadedAt = System.nanoTime();
+    int ordered = graph.topologicalOrder().length;
+    if (ordered < graph.nodeCount()) {
+      logger.warn(
+          "{} tasks are in or behind dependency cycles and have no topological order",
+          graph.nodeCount() - ordered);
+    }
+    logger.info(
+        "Loaded dependency graph with {} tasks and {} dependencies",
+        graph.nodeCount(),
+        graph.edgeCount());
+  }
+}
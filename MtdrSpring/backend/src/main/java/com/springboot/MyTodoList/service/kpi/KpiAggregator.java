@@ -0,0 +1,224 @@
+package com.springboot.MyTodoList.service.kpi;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.TreeSet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.springboot.MyTodoList.model.Sprint;
+import com.springboot.MyTodoList.model.Task;
+import com.springboot.MyTodoList.model.User;
+import com.springboot.MyTodoList.repository.TaskHoursAggregate;
+import com.springboot.MyTodoList.util.IntIntHashMap;
+
+/**
+ * Aggregates completed tasks into the per sprint and per user totals behind the
+ * KPI views used by the AI summary: team performance, individual performance and
+ * estimation accuracy.
+ *
+ * All views are fed from the same accumulators, so the tasks are scanned only
+ * once. Sprint and user IDs are resolved through primitive lookup tables that
+ * map each ID to a slot; slots are assigned by name, so two sprints (or users)
+ * sharing a name are reported together, same as before.
+ *
+ * Not thread-safe. Create one per request.
+ */
+public class KpiAggregator {
+  public static final String BACKLOG_NAME = "Backlog / Unassigned";
+  public static final int BACKLOG_SPRINT_ID = -1;
+
+  private final Logger logger = LoggerFactory.getLogger(KpiAggregator.class);
+
+  private final String[] sprintNames;
+  private final String[] userNames;
+  private final IntIntHashMap sprintSlots;
+  private final IntIntHashMap userSlots;
+
+  // Per sprint slot
+  private final long[] sprintCompleted;
+  private final long[] sprintRealHours;
+  private final long[] sprintEstimatedHours;
+
+  // Per (sprint slot, user slot) pair with any activity
+  private final IntIntHashMap cellSlots = new IntIntHashMap();
+  private long[] cellCompleted = new long[16];
+  private long[] cellRealHours = new long[16];
+
+  private long unknownSprintTasks;
+  private long unknownUserTasks;
+  private boolean skippedLogged;
+
+  public KpiAggregator(List<Sprint> sprints, List<User> users) {
+    TreeSet<String> distinctSprints = new TreeSet<>();
+    sprints.forEach(s -> distinctSprints.add(nameOf(s)));
+    distinctSprints.add(BACKLOG_NAME);
+    this.sprintNames = distinctSprints.toArray(new String[0]);
+
+    TreeSet<String> distinctUsers = new TreeSet<>();
+    users.forEach(u -> distinctUsers.add(nameOf(u)));
+    this.userNames = distinctUsers.toArray(new String[0]);
+
+    this.sprintSlots = new IntIntHashMap(sprints.size() + 1);
+    for (Sprint sprint : sprints) {
+      sprintSlots.putIfAbsent(
+          sprint.getID_Sprint(), Arrays.binarySearch(sprintNames, nameOf(sprint)));
+    }
+    // The backlog always wins over a sprint that happens to use its ID.
+    sprintSlots.put(BACKLOG_SPRINT_ID, Arrays.binarySearch(sprintNames, BACKLOG_NAME));
+
+    this.userSlots = new IntIntHashMap(users.size());
+    for (User user : users) {
+      userSlots.putIfAbsent(user.getID_User(), Arrays.binarySearch(userNames, nameOf(user)));
+    }
+
+    this.sprintCompleted = new long[sprintNames.length];
+    this.sprintRealHours = new long[sprintNames.length];
+    this.sprintEstimatedHours = new long[sprintNames.length];
+  }
+
+  private static String nameOf(Sprint sprint) {
+    return Objects.toString(sprint.getName());
+  }
+
+  private static String nameOf(User user) {
+    return Objects.toString(user.getName());
+  }
+
+  /**
+   * Counts a task if it is DONE. Other states are ignored.
+   */
+  public void add(Task task) {
+    if (!Task.isDone(task.getState())) {
+      return;
+    }
+    add(
+        task.getID_Sprint(),
+        task.getAssignedTo(),
+        1,
+        task.getHoursReal() != null ? task.getHoursReal() : 0,
+        task.getHoursEstimated() != null ? task.getHoursEstimated() : 0);
+  }
+
+  public KpiAggregator addAll(Iterable<Task> tasks) {
+    for (Task task : tasks) {
+      add(task);
+    }
+    return this;
+  }
+
+  /**
+   * Adds rows already summed by the database.
+   */
+  public KpiAggregator addAggregates(Iterable<? extends TaskHoursAggregate> rows) {
+    for (TaskHoursAggregate row : rows) {
+      add(
+          row.getSprintId(),
+          row.getUserId(),
+          row.getCompletedTasks(),
+          row.getRealHours() != null ? row.getRealHours() : 0,
+          row.getEstimatedHours() != null ? row.getEstimatedHours() : 0);
+    }
+    return this;
+  }
+
+  /**
+   * Adds pre-aggregated completed work for a sprint and user.
+   *
+   * @param sprintId the sprint ID, or BACKLOG_SPRINT_ID
+   * @param userId the user the work is assigned to
+   * @param completedTasks how many DONE tasks the numbers represent
+   * @param realHours sum of real hours of those tasks
+   * @param estimatedHours sum of estimated hours of those tasks
+   */
+  public void add(int sprintId, int userId, long completedTasks, long realHours, long estimatedHours) {
+    int sprint = sprintSlots.get(sprintId, -1);
+    if (sprint < 0) {
+      unknownSprintTasks += completedTasks;
+      return;
+    }
+    sprintCompleted[sprint] += completedTasks;
+    sprintRealHours[sprint] += realHours;
+    sprintEstimatedHours[sprint] += estimatedHours;
+
+    int user = userSlots.get(userId, -1);
+    if (user < 0) {
+      unknownUserTasks += completedTasks;
+      return;
+    }
+    int cell = cellFor(sprint * userNames.length + user);
+    cellCompleted[cell] += completedTasks;
+    cellRealHours[cell] += realHours;
+  }
+
+  private int cellFor(int key) {
+    int cell = cellSlots.get(key, -1);
+    if (cell < 0) {
+      cell = cellSlots.size();
+      cellSlots.put(key, cell);
+      if (cell == cellCompleted.length) {
+        cellCompleted = Arrays.copyOf(cellCompleted, cell * 2);
+        cellRealHours = Arrays.copyOf(cellRealHours, cell * 2);
+      }
+    }
+    return cell;
+  }
+
+  private void logSkipped() {
+    if (skippedLogged) return;
+    skippedLogged = true;
+    if (unknownSprintTasks > 0) {
+      logger.warn(
+          "{} completed tasks reference sprints which were not found in the sprints list.",
+          unknownSprintTasks);
+    }
+    if (unknownUserTasks > 0) {
+      logger.warn(
+          "{} completed tasks reference users which were not found in the users list.",
+          unknownUserTasks);
+    }
+  }
+
+  /**
+   * Receives the totals of a sprint.
+   */
+  public interface SprintTotals {
+    void accept(String sprint, long completedTasks, long realHours, long estimatedHours);
+  }
+
+  /**
+   * Receives the totals of a user within a sprint.
+   */
+  public interface UserTotals {
+    void accept(String sprint, String user, long completedTasks, long realHours);
+  }
+
+  /**
+   * Visits every sprint with any activity, sorted by sprint name.
+   */
+  public void forEachSprint(SprintTotals visitor) {
+    logSkipped();
+    for (int s = 0; s < sprintNames.length; s++) {
+      if (sprintCompleted[s] == 0 && sprintRealHours[s] == 0 && sprintEstimatedHours[s] == 0) {
+        continue;
+      }
+      visitor.accept(sprintNames[s], sprintCompleted[s], sprintRealHours[s], sprintEstimatedHours[s]);
+    }
+  }
+
+  /**
+   * Visits every user with activity in a sprint, sorted by sprint and user name.
+   */
+  public void forEachUser(UserTotals visitor) {
+    logSkipped();
+    for (int s = 0; s < sprintNames.length; s++) {
+      for (int u = 0; u < userNames.length; u++) {
+        int cell = cellSlots.get(s * userNames.length + u, -1);
+        if (cell < 0 || (cellCompleted[cell] == 0 && cellRealHours[cell] == 0)) continue;
+        visitor.accept(sprintNames[s], userNames[u], cellCompleted[cell], cellRealHours[cell]);
+      }
+    }
+  }
+}
@@ -0,0 +1,292 @@
+package com.springboot.MyTodoList.service.kpi;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.springboot.MyTodoList.model.Sprint;
+import com.springboot.MyTodoList.model.User;
+import com.springboot.MyTodoList.repository.TaskHoursAggregate;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Builds the KPI summary prompt within a token budget.
+ *
+ * KPIs are written as pipe separated tables, newest sprint first. Only the
+ * kpi.prompt.recent-sprints latest sprints are listed one by one, older ones are
+ * rolled up into a single "Earlier" row. If the prompt is still over
+ * kpi.prompt.max-tokens more sprints are rolled up, and as a last resort rows are
+ * dropped from the end of the per user table. The same data always gives the same
+ * prompt, which keeps KpiService's summary reuse working. Sprint and user names
+ * are escaped so they can't break the tables.
+ *
+ * Tokens are estimated as one per four characters.
+ */
+@Component
+public class KpiPromptBuilder {
+  private static final Logger logger = LoggerFactory.getLogger(KpiPromptBuilder.class);
+
+  private static final String INSTRUCTIONS =
+      "Please provide a brief (2-3 sentences) summary of the following project Key"
+          + " Performance Indicators (KPIs). Focus on overall trends in team performance,"
+          + " individual contributions, and estimation accuracy across sprints.\n"
+          + "Data is given as pipe separated tables, newest sprint first. Hours are totals of"
+          + " completed tasks.\n\n";
+
+  private final int maxTokens;
+  private final int recentSprints;
+  private final DistributionSummary promptTokens;
+  private final Counter reducedPrompts;
+
+  public KpiPromptBuilder(
+      MeterRegistry meterRegistry,
+      @Value("${kpi.prompt.max-tokens:1500}") int maxTokens,
+      @Value("${kpi.prompt.recent-sprints:6}") int recentSprints) {
+    this.maxTokens = maxTokens;
+    this.recentSprints = Math.max(0, recentSprints);
+    this.promptTokens =
+        DistributionSummary.builder("kpi.prompt.size")
+            .description("Estimated size of KPI summary prompts")
+            .baseUnit("tokens")
+            .register(meterRegistry);
+    this.reducedPrompts =
+        Counter.builder("kpi.prompt.reduced")
+            .description("KPI prompts which needed extra rollup or truncation to fit the budget")
+            .register(meterRegistry);
+  }
+
+  /**
+   * Rough token count used for the budget: one token per four characters.
+   */
+  public static int estimateTokens(CharSequence text) {
+    return (text.length() + 3) / 4;
+  }
+
+  private static final class SprintRow {
+    final String name;
+    long completedTasks;
+    long realHours;
+    long estimatedHours;
+
+    SprintRow(String name) {
+      this.name = name;
+    }
+  }
+
+  private static final class UserRow {
+    long completedTasks;
+    long realHours;
+  }
+
+  /**
+   * Builds the prompt for the given completed work.
+   */
+  public String build(
+      List<TaskHoursAggregate> completedHours, List<User> users, List<Sprint> sprints) {
+    KpiAggregator aggregator = new KpiAggregator(sprints, users).addAggregates(completedHours);
+
+    Map<String, SprintRow> sprintRows = new HashMap<>();
+    aggregator.forEachSprint(
+        (sprint, completed, real, estimated) -> {
+          SprintRow row = new SprintRow(sprint);
+          row.completedTasks = completed;
+          row.realHours = real;
+          row.estimatedHours = estimated;
+          sprintRows.put(sprint, row);
+        });
+    // Sorted by user name within each sprint
+    Map<String, Map<String, UserRow>> userRows = new HashMap<>();
+    aggregator.forEachUser(
+        (sprint, user, completed, real) -> {
+          UserRow row = new UserRow();
+          row.completedTasks = completed;
+          row.realHours = real;
+          userRows.computeIfAbsent(sprint, k -> new LinkedHashMap<>()).put(user, row);
+        });
+
+    SprintRow backlog = sprintRows.remove(KpiAggregator.BACKLOG_NAME);
+    List<SprintRow> chronological = newestFirst(sprintRows, sprints);
+
+    int detailed = Math.min(recentSprints, chronological.size());
+    String prompt = render(chronological, detailed, backlog, userRows, Integer.MAX_VALUE);
+    boolean reduced = false;
+    while (estimateTokens(prompt) > maxTokens && detailed > 0) {
+      detailed--;
+      reduced = true;
+      prompt = render(chronological, detailed, backlog, userRows, Integer.MAX_VALUE);
+    }
+    if (estimateTokens(prompt) > maxTokens) {
+      // Every sprint is rolled up by now, so this is the size before dropping user rows
+      int fullLength = prompt.length();
+      prompt = truncateUserRows(chronological, backlog, userRows);
+      logger.debug("KPI prompt truncated from {} to {} characters", fullLength, prompt.length());
+      reduced = true;
+    }
+
+    if (reduced) {
+      reducedPrompts.increment();
+      logger.info(
+          "KPI prompt reduced to fit {} tokens: {} of {} sprints listed individually.",
+          maxTokens,
+          detailed,
+          chronological.size());
+    }
+    promptTokens.record(estimateTokens(prompt));
+    return prompt;
+  }
+
+  /**
+   * Orders sprint rows by the start date of the sprint, newest first. Sprints
+   * without a start date go last, by name.
+   */
+  private static List<SprintRow> newestFirst(Map<String, SprintRow> rows, List<Sprint> sprints) {
+    Map<String, OffsetDateTime> startsAt = new HashMap<>();
+    for (Sprint sprint : sprints) {
+      if (sprint.getStartsAt() == null || sprint.getName() == null) continue;
+      startsAt.merge(
+          sprint.getName(), sprint.getStartsAt(), (a, b) -> a.isAfter(b) ? a : b);
+    }
+    List<SprintRow> ordered = new ArrayList<>(rows.values());
+    ordered.sort(
+        Comparator.comparing(
+                (SprintRow row) -> startsAt.get(row.name),
+                Comparator.nullsLast(Comparator.<OffsetDateTime>reverseOrder()))
+            .thenComparing(row -> row.name));
+    return ordered;
+  }
+
+  private String truncateUserRows(
+      List<SprintRow> chronological, SprintRow backlog, Map<String, Map<String, UserRow>> userRows) {
+    // Find how many rows of the per user table fit, then re-render to include the note
+    int maxChars = maxTokens * 4;
+    String none = render(chronological, 0, backlog, userRows, 0);
+    int rows = 0;
+    int length = none.length();
+    for (String line : userLines(chronological, 0, backlog, userRows)) {
+      if (length + line.length() + 1 > maxChars) break;
+      length += line.length() + 1;
+      rows++;
+    }
+    String prompt = render(chronological, 0, backlog, userRows, rows);
+    while (rows > 0 && estimateTokens(prompt) > maxTokens) {
+      rows--;
+      prompt = render(chronological, 0, backlog, userRows, rows);
+    }
+    return prompt;
+  }
+
+  private String render(
+      List<SprintRow> chronological,
+      int detailed,
+      SprintRow backlog,
+      Map<String, Map<String, UserRow>> userRows,
+      int maxUserRows) {
+    StringBuilder sb = new StringBuilder(INSTRUCTIONS);
+
+    sb.append("Sprints (sprint|done tasks|estimated h|real h):\n");
+    List<SprintRow> sprintLines = new ArrayList<>(chronological.subList(0, detailed));
+    SprintRow earlier = rollUp(chronological, detailed);
+    if (earlier != null) sprintLines.add(earlier);
+    if (backlog != null) sprintLines.add(backlog);
+    if (sprintLines.isEmpty()) sb.append("none\n");
+    for (SprintRow row : sprintLines) {
+      sb.append(cell(row.name))
+          .append('|')
+          .append(row.completedTasks)
+          .append('|')
+          .append(row.estimatedHours)
+          .append('|')
+          .append(row.realHours)
+          .append('\n');
+    }
+
+    sb.append("\nIndividual (sprint|user|done tasks|real h):\n");
+    List<String> lines = userLines(chronological, detailed, backlog, userRows);
+    int shown = Math.min(maxUserRows, lines.size());
+    if (lines.isEmpty()) sb.append("none\n");
+    for (int i = 0; i < shown; i++) {
+      sb.append(lines.get(i)).append('\n');
+    }
+    if (shown < lines.size()) {
+      sb.append("(").append(lines.size() - shown).append(" more rows omitted)\n");
+    }
+
+    sb.append("\nGenerate a concise summary:\n");
+    return sb.toString();
+  }
+
+  private static String earlierName(int sprints) {
+    return "Earlier (" + sprints + (sprints == 1 ? " sprint)" : " sprints)");
+  }
+
+  private static SprintRow rollUp(List<SprintRow> chronological, int detailed) {
+    int older = chronological.size() - detailed;
+    if (older <= 0) return null;
+    SprintRow earlier = new SprintRow(earlierName(older));
+    for (SprintRow row : chronological.subList(detailed, chronological.size())) {
+      earlier.completedTasks += row.completedTasks;
+      earlier.realHours += row.realHours;
+      earlier.estimatedHours += row.estimatedHours;
+    }
+    return earlier;
+  }
+
+  private static List<String> userLines(
+      List<SprintRow> chronological,
+      int detailed,
+      SprintRow backlog,
+      Map<String, Map<String, UserRow>> userRows) {
+    List<String> lines = new ArrayList<>();
+    for (SprintRow sprint : chronological.subList(0, detailed)) {
+      addUserLines(lines, sprint.name, userRows.get(sprint.name));
+    }
+    int older = chronological.size() - detailed;
+    if (older > 0) {
+      Map<String, UserRow> earlier = new TreeMap<>();
+      for (SprintRow sprint : chronological.subList(detailed, chronological.size())) {
+        Map<String, UserRow> rows = userRows.get(sprint.name);
+        if (rows == null) continue;
+        rows.forEach(
+            (user, row) -> {
+              UserRow total = earlier.computeIfAbsent(user, k -> new UserRow());
+              total.completedTasks += row.completedTasks;
+              total.realHours += row.realHours;
+            });
+      }
+      addUserLines(lines, earlierName(older), earlier);
+    }
+    if (backlog != null) {
+      addUserLines(lines, backlog.name, userRows.get(backlog.name));
+    }
+    return lines;
+  }
+
+  private static void addUserLines(List<String> lines, String sprint, Map<String, UserRow> rows) {
+    if (rows == null) return;
+    rows.forEach(
+        (user, row) ->
+            lines.add(
+                cell(sprint) + "|" + cell(user) + "|" + row.completedTasks + "|" + row.realHours));
+  }
+
+  /**
+   * A name as a table cell: pipes escaped as \| and line breaks, with the
+   * spaces around them, turned into one space. Spaces at either end are cut.
+   */
+  private static String cell(String value) {
+    return String.valueOf(value).replace("|", "\\|").replaceAll("\\s*\\R\\s*", " ").strip();
+  }
+}
@@ -0,0 +1,245 @@
+package com.springboot.MyTodoList.service.kpi;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.springboot.MyTodoList.model.Task;
+import com.springboot.MyTodoList.repository.TaskHoursAggregate;
+import com.springboot.MyTodoList.repository.TaskRepository;
+
+/**
+ * Keeps the per sprint and user counters of completed tasks in memory.
+ *
+ * The counters are loaded once from the database and then kept up to date
+ * by TaskService, which reports every task it adds, updates or deletes once
+ * the write has committed, so a reload can't lose a change that's applied
+ * after it.
+ * Every change that moves the numbers bumps the version, so consumers can
+ * tell whether anything changed since they last looked.
+ *
+ * Writes made by other replicas (or directly on the database) are not seen,
+ * so the counters are reloaded once they are older than kpi.snapshot.max-age.
+ */
+@Component
+public class KpiSnapshotCache {
+  private final Logger logger = LoggerFactory.getLogger(KpiSnapshotCache.class);
+
+  private final TaskRepository taskRepository;
+  private final Duration maxAge;
+  private final LongSupplier nanoTime;
+
+  private final Map<Long, Counters> counters = new HashMap<>();
+  private boolean loaded = false;
+  private long loadedAt;
+  private long version = 0;
+  private KpiSnapshot snapshot;
+
+  @Autowired
+  public KpiSnapshotCache(
+      TaskRepository taskRepository,
+      @Value("${kpi.snapshot.max-age:PT5M}") Duration maxAge) {
+    this(taskRepository, maxAge, System::nanoTime);
+  }
+
+  /**
+   * @param nanoTime clock used for the max age, replaceable for tests
+   */
+  public KpiSnapshotCache(TaskRepository taskRepository, Duration maxAge, LongSupplier nanoTime) {
+    this.taskRepository = taskRepository;
+    this.maxAge = maxAge;
+    this.nanoTime = nanoTime;
+  }
+
+  /**
+   * What a single task adds to the KPI counters.
+   */
+  public static final class TaskContribution {
+    private final int sprintId;
+    private final int userId;
+    private final boolean done;
+    private final long realHours;
+    private final long estimatedHours;
+
+    private TaskContribution(Task task) {
+      this.sprintId = task.getID_Sprint();
+      this.userId = task.getAssignedTo();
+      this.done = Task.isDone(task.getState());
+      this.realHours = task.getHoursReal() != null ? task.getHoursReal() : 0;
+      this.estimatedHours = task.getHoursEstimated() != null ? task.getHoursEstimated() : 0;
+    }
+
+    /**
+     * Captures the current values of the task. Take it before mutating
+     * an entity to get the "before" side of an update.
+     */
+    public static TaskContribution of(Task task) {
+      return task == null ? null : new TaskContribution(task);
+    }
+
+    private boolean sameAs(TaskContribution other) {
+      return other != null
+          && done == other.done
+          && sprintId == other.sprintId
+          && userId == other.userId
+          && realHours == other.realHours
+          && estimatedHours == other.estimatedHours;
+    }
+  }
+
+  /**
+   * Immutable view of the counters at a given version.
+   */
+  public static final class KpiSnapshot {
+    private final long version;
+    private final List<TaskHoursAggregate> rows;
+
+    private KpiSnapshot(long version, List<TaskHoursAggregate> rows) {
+      this.version = version;
+      this.rows = rows;
+    }
+
+    public long getVersion() {
+      return version;
+    }
+
+    public List<TaskHoursAggregate> getRows() {
+      return rows;
+    }
+  }
+
+  private static final class Counters implements TaskHoursAggregate {
+    final int sprintId;
+    final int userId;
+    long completedTasks;
+    long realHours;
+    long estimatedHours;
+
+    Counters(int sprintId, int userId) {
+      this.sprintId = sprintId;
+      this.userId = userId;
+    }
+
+    Counters copy() {
+      Counters copy = new Counters(sprintId, userId);
+      copy.completedTasks = completedTasks;
+      copy.realHours = realHours;
+      copy.estimatedHours = estimatedHours;
+      return copy;
+    }
+
+    @Override
+    public int getSprintId() {
+      return sprintId;
+    }
+
+    @Override
+    public int getUserId() {
+      return userId;
+    }
+
+    @Override
+    public long getCompletedTasks() {
+      return completedTasks;
+    }
+
+    @Override
+    public Long getRealHours() {
+      return realHours;
+    }
+
+    @Override
+    public Long getEstimatedHours() {
+      return estimatedHours;
+    }
+  }
+
+  private static long key(int sprintId, int userId) {
+    return ((long) sprintId << 32) | (userId & 0xFFFFFFFFL);
+  }
+
+  /**
+   * Returns the current counters, loading them from the database if needed.
+   */
+  public synchronized KpiSnapshot snapshot() {
+    if (!loaded || nanoTime.getAsLong() - loadedAt > maxAge.toNanos()) {
+      reload();
+    }
+    if (snapshot == null) {
+      List<TaskHoursAggregate> rows = new ArrayList<>(counters.size());
+      counters.values().stream()
+          .filter(c -> c.completedTasks > 0)
+          .forEach(c -> rows.add(c.copy()));
+      snapshot = new KpiSnapshot(version, Collections.unmodifiableList(rows));
+    }
+    return snapshot;
+  }
+
+  /**
+   * Applies the difference between two states of a task.
+   * Use a null before for created tasks and a null after for deleted ones.
+   */
+  public synchronized void apply(TaskContribution before, TaskContribution after) {
+    if (!loaded || (before == null && after == null) || (before != null && before.sameAs(after))) {
+      return;
+    }
+    boolean changed = false;
+    if (before != null && before.done) {
+      add(before, -1);
+      changed = true;
+    }
+    if (after != null && after.done) {
+      add(after, 1);
+      changed = true;
+    }
+    if (changed) {
+      version++;
+      snapshot = null;
+    }
+  }
+
+  /**
+   * Drops the counters. The next snapshot reloads them from the database.
+   */
+  public synchronized void invalidate() {
+    loaded = false;
+    snapshot = null;
+    counters.clear();
+  }
+
+  private void add(TaskContribution task, int sign) {
+    Counters c =
+        counters.computeIfAbsent(
+            key(task.sprintId, task.userId), k -> new Counters(task.sprintId, task.userId));
+    c.completedTasks += sign;
+    c.realHours += sign * task.realHours;
+    c.estimatedHours += sign * task.estimatedHours;
+  }
+
+  private void reload() {
+    counters.clear();
+    for (TaskHoursAggregate row : taskRepository.sumCompletedHoursBySprintAndUser()) {
+      Counters c = new Counters(row.getSprintId(), row.getUserId());
+      c.completedTasks = row.getCompletedTasks();
+      c.realHours = row.getRealHours() != null ? row.getRealHours() : 0;
+      c.estimatedHours = row.getEstimatedHours() != null ? row.getEstimatedHours() : 0;
+      counters.put(key(c.sprintId, c.userId), c);
+    }
+    loaded = true;
+    loadedAt = nanoTime.getAsLong();
+    version++;
+    snapshot = null;
+    logger.info(
+        "Loaded KPI counters for {} sprint/user pairs (version {})", counters.size(), version);
+  }
+}
@@ -0,0 +1,149 @@
+package com.springboot.MyTodoList.service.kpi;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.springboot.MyTodoList.service.KpiService;
+
+/**
+ * Keeps track of AI summaries requested through the asynchronous KPI endpoints.
+ *
+ * Finished jobs are kept for kpi.jobs.retention (10 minutes by default) so clients
+ * can come back for the result. They're dropped every kpi.jobs.eviction-interval,
+ * and when a job is submitted, so an idle instance doesn't keep them either.
+ */
+@Component
+public class KpiSummaryJobs {
+
+  public enum Status {
+    PENDING,
+    DONE,
+    FAILED
+  }
+
+  /**
+   * A submitted summary request. Exposed as JSON by the KPI controller.
+   */
+  public static final class Job {
+    private final String id;
+    private final Instant createdAt;
+    private final CompletableFuture<String> result;
+    private volatile Instant finishedAt;
+
+    private Job(String id, Instant createdAt, CompletableFuture<String> result) {
+      this.id = id;
+      this.createdAt = createdAt;
+      this.result = result;
+    }
+
+    public String getId() {
+      return id;
+    }
+
+    public Instant getCreatedAt() {
+      return createdAt;
+    }
+
+    public Instant getFinishedAt() {
+      return finishedAt;
+    }
+
+    public Status getStatus() {
+      if (!result.isDone()) return Status.PENDING;
+      return result.isCompletedExceptionally() ? Status.FAILED : Status.DONE;
+    }
+
+    public String getSummary() {
+      return getStatus() == Status.DONE ? result.join() : null;
+    }
+
+    public String getError() {
+      if (getStatus() != Status.FAILED) return null;
+      try {
+        result.join();
+        return null;
+      } catch (CompletionException e) {
+        Throwable cause = e.getCause() != null ? e.getCause() : e;
+        return cause.getMessage();
+      }
+    }
+
+    /**
+     * Completes when the job finishes, successfully or not.
+     */
+    public CompletableFuture<Job> whenFinished() {
+      return result.handle((summary, error) -> this);
+    }
+  }
+
+  private final KpiService kpiService;
+  private final Duration retention;
+  private final Supplier<Instant> now;
+  private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+  @Autowired
+  public KpiSummaryJobs(
+      KpiService kpiService, @Value("${kpi.jobs.retention:PT10M}") Duration retention) {
+    this(kpiService, retention, Instant::now);
+  }
+
+  /**
+   * @param now clock used for the retention, replaceable for tests
+   */
+  public KpiSummaryJobs(KpiService kpiService, Duration retention, Supplier<Instant> now) {
+    this.kpiService = kpiService;
+    this.retention = retention;
+    this.now = now;
+  }
+
+  /**
+   * Starts generating a summary and returns right away. Jobs submitted while an
+   * identical summary is being generated share the same upstream request.
+   */
+  public Job submit() {
+    evictFinished();
+    CompletableFuture<String> result;
+    try {
+      result = kpiService.generateKpiSummaryAsync();
+    } catch (RuntimeException e) {
+      result = CompletableFuture.failedFuture(e);
+    }
+    Job job = new Job(UUID.randomUUID().toString(), now.get(), result);
+    result.whenComplete((summary, error) -> job.finishedAt = now.get());
+    jobs.put(job.getId(), job);
+    return job;
+  }
+
+  public Optional<Job> find(String id) {
+    return Optional.ofNullable(jobs.get(id));
+  }
+
+  /**
+   * Drops the jobs that finished more than kpi.jobs.retention ago.
+   */
+  @Scheduled(
+      fixedDelayString = "${kpi.jobs.eviction-interval:PT1M}",
+      initialDelayString = "${kpi.jobs.eviction-interval:PT1M}")
+  public void evictFinished() {
+    Instant cutoff = now.get().minus(retention);
+    for (Iterator<Job> it = jobs.values().iterator(); it.hasNext(); ) {
+      Job job = it.next();
+      if (job.finishedAt != null && job.finishedAt.isBefore(cutoff)) {
+        it.remove();
+      }
+    }
+  }
+}
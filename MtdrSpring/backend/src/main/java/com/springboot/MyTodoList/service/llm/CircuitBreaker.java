@@ -0,0 +1,99 @@
+package com.springboot.MyTodoList.service.llm;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Stops calling an upstream service while it keeps failing.
+ *
+ * After failureThreshold consecutive failures the breaker opens and rejects calls
+ * for openDuration. Then a single trial call is let through: if it succeeds the
+ * breaker closes again, otherwise it stays open for another openDuration.
+ *
+ * Rate limited calls are neither: the service is up but wants fewer calls, so
+ * they don't count towards opening the breaker, nor close it.
+ */
+public class CircuitBreaker {
+  public enum State {
+    CLOSED,
+    OPEN,
+    HALF_OPEN
+  }
+
+  private final int failureThreshold;
+  private final long openNanos;
+  private final LongSupplier nanoTime;
+
+  private State state = State.CLOSED;
+  private int consecutiveFailures = 0;
+  private long openedAt;
+  private boolean trialInFlight = false;
+
+  public CircuitBreaker(int failureThreshold, Duration openDuration) {
+    this(failureThreshold, openDuration, System::nanoTime);
+  }
+
+  /**
+   * @param nanoTime clock used to time the open state, replaceable for tests
+   */
+  public CircuitBreaker(int failureThreshold, Duration openDuration, LongSupplier nanoTime) {
+    if (failureThreshold < 1) {
+      throw new IllegalArgumentException("failureThreshold must be at least 1");
+    }
+    this.failureThreshold = failureThreshold;
+    this.openNanos = openDuration.toNanos();
+    this.nanoTime = nanoTime;
+  }
+
+  /**
+   * Whether a call may go ahead. Every permitted call must be followed by
+   * onSuccess, onFailure or onRateLimited.
+   */
+  public synchronized boolean tryAcquire() {
+    switch (state) {
+      case CLOSED:
+        return true;
+      case OPEN:
+        if (nanoTime.getAsLong() - openedAt < openNanos) {
+          return false;
+        }
+        state = State.HALF_OPEN;
+        trialInFlight = true;
+        return true;
+      case HALF_OPEN:
+      default:
+        if (trialInFlight) {
+          return false;
+        }
+        trialInFlight = true;
+        return true;
+    }
+  }
+
+  public synchronized void onSuccess() {
+    state = State.CLOSED;
+    consecutiveFailures = 0;
+    trialInFlight = false;
+  }
+
+  public synchronized void onFailure() {
+    trialInFlight = false;
+    consecutiveFailures++;
+    if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+      state = State.OPEN;
+      openedAt = nanoTime.getAsLong();
+    }
+  }
+
+  /**
+   * The call was turned away for going over the service's rate limit. The
+   * failure count is kept as is, and a half open breaker lets another trial in.
+   */
+  public synchronized void onRateLimited() {
+    trialInFlight = false;
+  }
+
+  public synchronized State getState() {
+    return state;
+  }
+}
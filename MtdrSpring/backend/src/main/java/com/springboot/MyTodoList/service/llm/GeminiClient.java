@@ -0,0 +1,460 @@
+package com.springboot.MyTodoList.service.llm;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodySubscribers;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Talks to the Google Gemini generateContent API.
+ *
+ * Both the plain and the streaming endpoints are supported. The streaming endpoint is
+ * read as Server-Sent Events; each event carries a partial response whose text is
+ * handed to the caller as soon as it is parsed.
+ *
+ * A single HTTP/2 capable client is shared by all calls so connections are reused.
+ * At most gemini.api.max-concurrent-requests requests are in flight, extra calls fail
+ * right away instead of queueing. Rate limits (429) and server errors (5xx) are
+ * retried with jittered exponential backoff, honoring Retry-After; a call waiting
+ * to retry doesn't hold a slot. Repeated server errors open a circuit breaker that
+ * fails calls fast while the API is down, rate limits don't.
+ */
+@Component
+public class GeminiClient implements LlmClient {
+  private static final Logger logger = LoggerFactory.getLogger(GeminiClient.class);
+  private static final Duration REQUEST_TIMEOUT = Duration.ofMinutes(2);
+  // Longer Retry-After values are not waited for, the call fails instead
+  private static final Duration MAX_RETRY_DELAY = Duration.ofSeconds(30);
+
+  private final String modelUrl;
+  private final String apiKey;
+  private final int maxAttempts;
+  private final Duration retryBackoff;
+  private final Semaphore permits;
+  private final CircuitBreaker circuitBreaker;
+
+  private final HttpClient httpClient =
+      HttpClient.newBuilder()
+          .version(HttpClient.Version.HTTP_2)
+          .connectTimeout(Duration.ofSeconds(20)) // Connection timeout
+          .build();
+
+  /**
+   * @param modelUrl URL of the model, without the method, e.g.
+   *     https://generativelanguage.googleapis.com/v1beta/models/gemini-1.5-flash
+   * @param apiKey the API key, may be null when AI features are disabled
+   * @param maxConcurrentRequests requests allowed in flight at once, retries included
+   * @param maxAttempts attempts per call, including the first one
+   * @param retryBackoff base delay before the first retry, doubled on each retry
+   * @param failureThreshold consecutive failures that open the circuit breaker
+   * @param openDuration how long the circuit breaker stays open
+   */
+  public GeminiClient(
+      @Value(
+              "${gemini.api.url:https://generativelanguage.googleapis.com/v1beta/models/gemini-1.5-flash}")
+          String modelUrl,
+      @Value("${gemini.api.key:#{null}}") String apiKey,
+      @Value("${gemini.api.max-concurrent-requests:4}") int maxConcurrentRequests,
+      @Value("${gemini.api.max-attempts:3}") int maxAttempts,
+      @Value("${gemini.api.retry-backoff:PT0.5S}") Duration retryBackoff,
+      @Value("${gemini.circuit.failure-threshold:5}") int failureThreshold,
+      @Value("${gemini.circuit.open-duration:PT30S}") Duration openDuration) {
+    this.modelUrl = modelUrl;
+    this.apiKey = apiKey;
+    this.maxAttempts = Math.max(1, maxAttempts);
+    this.retryBackoff = retryBackoff;
+    this.permits = new Semaphore(maxConcurrentRequests);
+    this.circuitBreaker = new CircuitBreaker(failureThreshold, openDuration);
+  }
+
+  /**
+   * Whether an API key is configured. Keep checks for null, blank, or a generic placeholder.
+   */
+  @Override
+  public boolean isConfigured() {
+    return apiKey != null && !apiKey.isBlank() && !apiKey.equals("YOUR_FALLBACK_API_KEY");
+  }
+
+  public CircuitBreaker.State getCircuitState() {
+    return circuitBreaker.getState();
+  }
+
+  @Override
+  public CompletableFuture<String> generate(String prompt) {
+    HttpRequest request;
+    try {
+      request = buildRequest(":generateContent?key=", prompt);
+    } catch (JSONException e) {
+      return failedRequest(e);
+    }
+
+    logger.info("Sending request to Gemini API endpoint: {}:generateContent", modelUrl);
+    return call(
+        request,
+        HttpResponse.BodyHandlers.ofString(),
+        body -> {
+          logger.info("Received successful response from Gemini API.");
+          return parseGeminiResponse(body);
+        },
+        () -> true);
+  }
+
+  @Override
+  public CompletableFuture<String> stream(String prompt, Consumer<String> onText) {
+    HttpRequest request;
+    try {
+      request = buildRequest(":streamGenerateContent?alt=sse&key=", prompt);
+    } catch (JSONException e) {
+      return failedRequest(e);
+    }
+
+    // Once text was handed out a retry would repeat it, so only retry before that
+    AtomicBoolean delivered = new AtomicBoolean(false);
+    Consumer<String> tracked =
+        text -> {
+          delivered.set(true);
+          onText.accept(text);
+        };
+    // Successful responses are parsed line by line, errors are read whole to report them.
+    HttpResponse.BodyHandler<String> handler =
+        info ->
+            info.statusCode() == 200
+                ? BodySubscribers.fromLineSubscriber(
+                    new StreamSubscriber(tracked), StreamSubscriber::text, StandardCharsets.UTF_8, "\n")
+                : BodySubscribers.ofString(StandardCharsets.UTF_8);
+
+    logger.info("Sending request to Gemini API endpoint: {}:streamGenerateContent", modelUrl);
+    return call(
+        request,
+        handler,
+        body -> {
+          logger.info("Finished streaming response from Gemini API.");
+          return body;
+        },
+        () -> !delivered.get());
+  }
+
+  /**
+   * Runs a request within the concurrency limit, retrying it while allowed.
+   */
+  private CompletableFuture<String> call(
+      HttpRequest request,
+      HttpResponse.BodyHandler<String> handler,
+      Function<String, String> onSuccess,
+      BooleanSupplier retryable) {
+    return attempt(1, request, handler, onSuccess, retryable);
+  }
+
+  /**
+   * Sends the request once, holding a permit only while it's in flight, and
+   * schedules the next attempt if it should be retried.
+   */
+  private CompletableFuture<String> attempt(
+      int attempt,
+      HttpRequest request,
+      HttpResponse.BodyHandler<String> handler,
+      Function<String, String> onSuccess,
+      BooleanSupplier retryable) {
+    if (!permits.tryAcquire()) {
+      logger.warn("Too many concurrent requests to Gemini API, rejecting call.");
+      return CompletableFuture.failedFuture(
+          new LlmUnavailableException("Too many AI requests in progress, try again later."));
+    }
+    if (!circuitBreaker.tryAcquire()) {
+      permits.release();
+      logger.warn("Gemini API circuit breaker is open, failing fast.");
+      return CompletableFuture.failedFuture(
+          new LlmUnavailableException("AI service is temporarily unavailable."));
+    }
+    CompletableFuture<HttpResponse<String>> sent;
+    try {
+      sent = httpClient.sendAsync(request, handler);
+    } catch (RuntimeException e) {
+      permits.release();
+      circuitBreaker.onFailure();
+      return CompletableFuture.failedFuture(e);
+    }
+    return sent
+        .handle(
+            (response, error) -> {
+              // The body has been read by now, so the slot is free for others while we wait
+              permits.release();
+              Duration delay;
+              IOException failure;
+              if (error != null) {
+                circuitBreaker.onFailure();
+                failure = sendError(error);
+                delay = backoff(attempt);
+              } else if (response.statusCode() == 200) {
+                circuitBreaker.onSuccess();
+                return CompletableFuture.completedFuture(onSuccess.apply(response.body()));
+              } else if (isRetryable(response.statusCode())) {
+                if (response.statusCode() == 429) {
+                  circuitBreaker.onRateLimited();
+                } else {
+                  circuitBreaker.onFailure();
+                }
+                failure = apiError(response.statusCode(), response.body());
+                delay = response.headers().firstValue("Retry-After")
+                    .map(GeminiClient::parseRetryAfter)
+                    .orElseGet(() -> backoff(attempt));
+              } else {
+                // The API is up, the request itself was rejected; retrying won't help
+                circuitBreaker.onSuccess();
+                return CompletableFuture.<String>failedFuture(
+                    apiError(response.statusCode(), response.body()));
+              }
+
+              if (attempt >= maxAttempts
+                  || !retryable.getAsBoolean()
+                  || delay.compareTo(MAX_RETRY_DELAY) > 0) {
+                return CompletableFuture.<String>failedFuture(failure);
+              }
+              logger.info(
+                  "Gemini API attempt {} of {} failed ({}), retrying in {} ms",
+                  attempt,
+                  maxAttempts,
+                  failure.getMessage(),
+                  delay.toMillis());
+              Executor delayed =
+                  CompletableFuture.delayedExecutor(delay.toMillis(), TimeUnit.MILLISECONDS);
+              return CompletableFuture.supplyAsync(() -> null, delayed)
+                  .thenCompose(
+                      ignored -> attempt(attempt + 1, request, handler, onSuccess, retryable));
+            })
+        .thenCompose(Function.identity());
+  }
+
+  private static boolean isRetryable(int status) {
+    return status == 429 || status >= 500;
+  }
+
+  /**
+   * Exponential backoff with jitter: somewhere between half and all of
+   * retryBackoff * 2^(attempt - 1).
+   */
+  private Duration backoff(int attempt) {
+    long max = retryBackoff.toMillis() << Math.min(attempt - 1, 16);
+    long half = max / 2;
+    return Duration.ofMillis(half + ThreadLocalRandom.current().nextLong(max - half + 1));
+  }
+
+  /**
+   * Retry-After in seconds. HTTP dates are not used by the API and count as no delay.
+   */
+  private static Duration parseRetryAfter(String value) {
+    try {
+      return Duration.ofSeconds(Math.max(0, Long.parseLong(value.trim())));
+    } catch (NumberFormatException e) {
+      return Duration.ZERO;
+    }
+  }
+
+  private HttpRequest buildRequest(String method, String prompt) throws JSONException {
+    return HttpRequest.newBuilder()
+        .uri(URI.create(modelUrl + method + apiKey))
+        .timeout(REQUEST_TIMEOUT)
+        .header("Content-Type", "application/json")
+        .POST(HttpRequest.BodyPublishers.ofString(buildJsonRequestBody(prompt)))
+        .build();
+  }
+
+  private static <T> CompletableFuture<T> failedRequest(JSONException e) {
+    logger.error("Error building JSON request body: " + e.getMessage(), e);
+    return CompletableFuture.failedFuture(new IOException("Error building JSON request body", e));
+  }
+
+  private static IOException sendError(Throwable error) {
+    Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+    logger.error("Error sending request to Gemini API: {}", cause.getMessage(), cause);
+    return cause instanceof IOException
+        ? (IOException) cause
+        : new IOException("Error sending request to Gemini API", cause);
+  }
+
+  private static IOException apiError(int status, String body) {
+    logger.error("Error response from Gemini API. Status: {}, Body: {}", status, body);
+    String errorMsg = parseGeminiError(body);
+    return new IOException(
+        "Failed to generate AI summary. API Error: "
+            + (errorMsg != null ? errorMsg : "Status code " + status));
+  }
+
+  /**
+   * Reads the Server-Sent Events of a streamed response. Every event holds a
+   * GenerateContentResponse with the next piece of text.
+   */
+  private static final class StreamSubscriber implements Flow.Subscriber<String> {
+    private final Consumer<String> onText;
+    private final StringBuilder text = new StringBuilder();
+    private final StringBuilder data = new StringBuilder();
+
+    StreamSubscriber(Consumer<String> onText) {
+      this.onText = onText;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      subscription.request(Long.MAX_VALUE);
+    }
+
+    @Override
+    public void onNext(String line) {
+      if (line.endsWith("\r")) {
+        line = line.substring(0, line.length() - 1);
+      }
+      if (line.isEmpty()) {
+        dispatch();
+      } else if (line.startsWith("data:")) {
+        if (data.length() > 0) data.append('\n');
+        data.append(line, line.startsWith("data: ") ? 6 : 5, line.length());
+      }
+      // Comments, event names and ids are not used by the API
+    }
+
+    @Override
+    public void onError(Throwable throwable) {}
+
+    @Override
+    public void onComplete() {
+      dispatch();
+    }
+
+    String text() {
+      return text.toString();
+    }
+
+    private void dispatch() {
+      if (data.length() == 0) return;
+      String event = data.toString();
+      data.setLength(0);
+      String chunk;
+      try {
+        chunk = extractText(new JSONObject(event));
+      } catch (JSONException e) {
+        logger.warn("Skipping malformed chunk in Gemini stream: {}", event);
+        return;
+      }
+      if (chunk.isEmpty()) return;
+      text.append(chunk);
+      try {
+        onText.accept(chunk);
+      } catch (RuntimeException e) {
+        logger.error("Error handling streamed Gemini text: {}", e.getMessage(), e);
+      }
+    }
+  }
+
+  /**
+   * Builds the JSON request body string for the Gemini API.
+   * @param prompt The text prompt to send to the model.
+   * @return A JSON string representing the request body.
+   */
+  private static String buildJsonRequestBody(String prompt) throws JSONException {
+    JSONObject textPart = new JSONObject();
+    textPart.put("text", prompt);
+
+    JSONObject content = new JSONObject();
+    content.put("parts", new JSONArray().put(textPart));
+
+    JSONObject requestJson = new JSONObject();
+    requestJson.put("contents", new JSONArray().put(content));
+
+    // Optional: Add generation configuration if needed (e.g., temperature, max tokens)
+    // JSONObject generationConfig = new JSONObject();
+    // generationConfig.put("temperature", 0.7);
+    // generationConfig.put("maxOutputTokens", 256);
+    // requestJson.put("generationConfig", generationConfig);
+
+    return requestJson.toString();
+  }
+
+  /**
+   * Concatenates the text parts of the first candidate, empty if there are none.
+   */
+  private static String extractText(JSONObject jsonResponse) {
+    // Navigate the expected JSON structure: response -> candidates -> content -> parts -> text
+    JSONArray candidates = jsonResponse.optJSONArray("candidates");
+    if (candidates == null || candidates.length() == 0) return "";
+    JSONObject firstCandidate = candidates.optJSONObject(0);
+    if (firstCandidate == null) return "";
+    JSONObject content = firstCandidate.optJSONObject("content");
+    if (content == null) return "";
+    JSONArray parts = content.optJSONArray("parts");
+    if (parts == null) return "";
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < parts.length(); i++) {
+      JSONObject part = parts.optJSONObject(i);
+      if (part != null) {
+        text.append(part.optString("text", ""));
+      }
+    }
+    return text.toString();
+  }
+
+  /**
+   * Parses the successful JSON response from the Gemini API to extract the generated text.
+   * @param responseBody The JSON string response body.
+   * @return The extracted text summary, or an error message if parsing fails.
+   */
+  private static String parseGeminiResponse(String responseBody) {
+    try {
+      String text = extractText(new JSONObject(responseBody));
+      if (!text.isEmpty()) {
+        return text;
+      }
+      // Log a warning if the expected text part wasn't found
+      logger.warn("Could not find 'text' part in Gemini response structure: {}", responseBody);
+      return "AI response received but content was empty or in unexpected format.";
+    } catch (Exception e) {
+      // Log any errors during JSON parsing
+      logger.error("Error parsing Gemini JSON response: {}", e.getMessage(), e);
+      return "Error parsing AI response.";
+    }
+  }
+
+  /**
+   * Attempts to parse an error message from a failed Gemini API JSON response.
+   * @param responseBody The JSON string response body from a failed request.
+   * @return The extracted error message, or null if it cannot be found.
+   */
+  private static String parseGeminiError(String responseBody) {
+    try {
+      JSONObject jsonResponse = new JSONObject(responseBody);
+      // Check for the standard 'error' object in Google API responses
+      if (jsonResponse.has("error")) {
+        JSONObject error = jsonResponse.getJSONObject("error");
+        if (error.has("message")) {
+          return error.getString("message"); // Return the specific error message
+        }
+      }
+    } catch (Exception e) {
+      // Log if parsing the error structure fails
+      logger.error("Could not parse error details from Gemini response body: {}", e.getMessage());
+    }
+    return null; // Return null if no specific error message could be extracted
+  }
+}
@@ -0,0 +1,30 @@
+package com.springboot.MyTodoList.service.llm;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * A large language model that turns a prompt into text.
+ *
+ * Calls never block the caller. Returned futures fail with an IOException when the
+ * model can't answer, or with an LlmUnavailableException when the client refuses to
+ * call it right now (too many requests in flight or upstream known to be down).
+ */
+public interface LlmClient {
+
+  /**
+   * Whether the client has what it needs (e.g. an API key) to make calls.
+   */
+  boolean isConfigured();
+
+  /**
+   * Requests the full response for a prompt.
+   */
+  CompletableFuture<String> generate(String prompt);
+
+  /**
+   * Requests a streamed response for a prompt. Partial text is passed to onText in
+   * order, as it arrives; the future completes with the concatenated text.
+   */
+  CompletableFuture<String> stream(String prompt, Consumer<String> onText);
+}
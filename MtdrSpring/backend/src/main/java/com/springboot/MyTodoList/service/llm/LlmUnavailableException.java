@@ -0,0 +1,13 @@
+package com.springboot.MyTodoList.service.llm;
+
+import java.io.IOException;
+
+/**
+ * The LLM was not called because it is known to be down or overloaded.
+ * Callers should not retry right away.
+ */
+public class LlmUnavailableException extends IOException {
+  public LlmUnavailableException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,178 @@
+package com.springboot.MyTodoList.service.notification;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.springboot.MyTodoList.model.Message;
+
+/**
+ * The MESSAGES table read as an outbox: a message is pending until
+ * DELIVERED_AT is set.
+ *
+ * Claiming a batch locks pending rows with FOR UPDATE SKIP LOCKED, so replicas
+ * claiming at the same time get different rows, and leases them by pushing
+ * NEXT_ATTEMPT_AT forward before committing. Sending happens after the commit,
+ * without holding locks. A message that isn't marked delivered in time is
+ * claimed again once its lease runs out, each time for longer, until it has
+ * been tried notifications.max-attempts times.
+ */
+@Component
+public class MessageOutbox {
+  // Oracle doesn't allow FETCH FIRST with FOR UPDATE; the JDBC max rows stops
+  // the fetch, and SKIP LOCKED only locks the rows that were fetched. Oldest
+  // first, so a backlog larger than a batch is worked through in posting order.
+  private static final String CLAIM =
+      "SELECT ID_MESSAGE, CONTENT, POSTED_AT, NOTIFICATE_TO FROM MESSAGES"
+          + " WHERE DELIVERED_AT IS NULL AND ATTEMPTS < ?"
+          + " AND (NEXT_ATTEMPT_AT IS NULL OR NEXT_ATTEMPT_AT <= SYSTIMESTAMP)"
+          + " ORDER BY POSTED_AT, ID_MESSAGE"
+          + " FOR UPDATE SKIP LOCKED";
+  private static final String LEASE =
+      "UPDATE MESSAGES SET ATTEMPTS = ATTEMPTS + 1,"
+          + " NEXT_ATTEMPT_AT = SYSTIMESTAMP + NUMTODSINTERVAL(? * (ATTEMPTS + 1), 'SECOND')"
+          + " WHERE ID_MESSAGE = ?";
+  private static final String DELIVERED =
+      "UPDATE MESSAGES SET DELIVERED_AT = ? WHERE ID_MESSAGE = ?";
+  private static final String GIVE_UP = "UPDATE MESSAGES SET ATTEMPTS = ? WHERE ID_MESSAGE = ?";
+  private static final String COUNT =
+      "SELECT COUNT(*) FROM MESSAGES WHERE DELIVERED_AT IS NULL AND ATTEMPTS < ?";
+  private static final String INSERT =
+      "INSERT INTO MESSAGES (CONTENT, POSTED_AT, NOTIFICATE_TO) VALUES (?, ?, ?)";
+
+  private static final RowMapper<Message> MESSAGE =
+      (rs, row) -> {
+        Timestamp postedAt = rs.getTimestamp("POSTED_AT");
+        return new Message(
+            rs.getInt("ID_MESSAGE"),
+            rs.getString("CONTENT"),
+            postedAt != null ? postedAt.toLocalDateTime() : null,
+            rs.getInt("NOTIFICATE_TO"));
+      };
+
+  private final JdbcTemplate jdbcTemplate;
+  private final JdbcTemplate claimTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final int batchSize;
+  private final int maxAttempts;
+  private final long leaseSeconds;
+
+  @Autowired
+  public MessageOutbox(
+      JdbcTemplate jdbcTemplate,
+      PlatformTransactionManager transactionManager,
+      @Value("${notifications.batch-size:100}") int batchSize,
+      @Value("${notifications.max-attempts:5}") int maxAttempts,
+      @Value("${notifications.lease:PT1M}") Duration lease) {
+    this(
+        jdbcTemplate,
+        new JdbcTemplate(jdbcTemplate.getDataSource()),
+        transactionManager,
+        batchSize,
+        maxAttempts,
+        lease);
+  }
+
+  /**
+   * @param claimTemplate runs the claim query, limited to a batch of rows; not
+   *     shared with other queries, replaceable for tests
+   */
+  public MessageOutbox(
+      JdbcTemplate jdbcTemplate,
+      JdbcTemplate claimTemplate,
+      PlatformTransactionManager transactionManager,
+      int batchSize,
+      int maxAttempts,
+      Duration lease) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.claimTemplate = claimTemplate;
+    this.claimTemplate.setFetchSize(batchSize);
+    this.claimTemplate.setMaxRows(batchSize);
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.batchSize = batchSize;
+    this.maxAttempts = maxAttempts;
+    this.leaseSeconds = Math.max(1, lease.getSeconds());
+  }
+
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  /**
+   * Claims up to a batch of pending messages for this replica to send.
+   */
+  public List<Message> claim() {
+    return transactionTemplate.execute(
+        status -> {
+          List<Message> claimed = claimTemplate.query(CLAIM, MESSAGE, maxAttempts);
+          if (claimed.isEmpty()) {
+            return claimed;
+          }
+          List<Object[]> leases = new ArrayList<>(claimed.size());
+          for (Message message : claimed) {
+            leases.add(new Object[] {leaseSeconds, message.getID_Message()});
+          }
+          jdbcTemplate.batchUpdate(LEASE, leases);
+          return claimed;
+        });
+  }
+
+  public void markDelivered(Collection<Integer> messageIds, LocalDateTime deliveredAt) {
+    if (messageIds.isEmpty()) {
+      return;
+    }
+    Timestamp at = Timestamp.valueOf(deliveredAt);
+    List<Object[]> rows = new ArrayList<>(messageIds.size());
+    for (int id : messageIds) {
+      rows.add(new Object[] {at, id});
+    }
+    jdbcTemplate.batchUpdate(DELIVERED, rows);
+  }
+
+  /**
+   * Stops trying to deliver the given messages, e.g. because their recipient
+   * has no Telegram account.
+   */
+  public void giveUp(Collection<Integer> messageIds) {
+    if (messageIds.isEmpty()) {
+      return;
+    }
+    List<Object[]> rows = new ArrayList<>(messageIds.size());
+    for (int id : messageIds) {
+      rows.add(new Object[] {maxAttempts, id});
+    }
+    jdbcTemplate.batchUpdate(GIVE_UP, rows);
+  }
+
+  /**
+   * Messages that will still be tried, leased or not.
+   */
+  public long countPending() {
+    Long count = jdbcTemplate.queryForObject(COUNT, Long.class, maxAttempts);
+    return count != null ? count : 0;
+  }
+
+  /**
+   * Stores the same message for each user in one JDBC batch. Message ids come
+   * from an identity column, which keeps Hibernate from batching these inserts.
+   */
+  public void insert(String content, List<Integer> userIds, LocalDateTime postedAt) {
+    Timestamp at = Timestamp.valueOf(postedAt);
+    List<Object[]> rows = new ArrayList<>(userIds.size());
+    for (int userId : userIds) {
+      rows.add(new Object[] {content, at, userId});
+    }
+    jdbcTemplate.batchUpdate(INSERT, rows);
+  }
+}
@@ -0,0 +1,223 @@
+package com.springboot.MyTodoList.service.notification;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.springboot.MyTodoList.bot.TelegramBot;
+import com.springboot.MyTodoList.model.Message;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Delivers the messages in the MessageOutbox to their recipients' Telegram
+ * chats.
+ *
+ * Every notifications.poll-interval, and right after messages are added, it
+ * claims batches until none is full. Each batch's messages are sent at once,
+ * and the bot's outbound queue spaces out the ones for the same chat. The
+ * batch is marked delivered in one go when every send is done or
+ * notifications.send-timeout passes; the rest are claimed again later, so a
+ * message whose send was slow may arrive twice.
+ *
+ * Runs on a thread of its own, since it waits for the sends: the poll and
+ * wakeUp only queue a run, so Spring's scheduler thread is free for the other
+ * scheduled tasks. Requests made while a run is queued share it.
+ */
+@Component
+public class NotificationDispatcher {
+  private final Logger logger = LoggerFactory.getLogger(NotificationDispatcher.class);
+
+  private final MessageOutbox outbox;
+  private final RecipientCache recipients;
+  private final TelegramBot bot;
+  private final ExecutorService executor;
+  private final long sendTimeoutMillis;
+
+  private final AtomicBoolean queued = new AtomicBoolean();
+  private final AtomicLong backlog = new AtomicLong();
+  private final Timer latency;
+  private final Counter delivered;
+  private final Counter failed;
+  private final Counter unreachable;
+
+  @Autowired
+  public NotificationDispatcher(
+      MessageOutbox outbox,
+      RecipientCache recipients,
+      TelegramBot bot,
+      MeterRegistry meterRegistry,
+      @Value("${notifications.send-timeout:PT30S}") Duration sendTimeout) {
+    this(
+        outbox,
+        recipients,
+        bot,
+        Executors.newSingleThreadExecutor(
+            r -> {
+              Thread thread = new Thread(r, "notification-dispatcher");
+              thread.setDaemon(true);
+              return thread;
+            }),
+        meterRegistry,
+        sendTimeout);
+  }
+
+  /**
+   * @param executor runs the deliveries, one at a time; replaceable for tests
+   */
+  public NotificationDispatcher(
+      MessageOutbox outbox,
+      RecipientCache recipients,
+      TelegramBot bot,
+      ExecutorService executor,
+      MeterRegistry meterRegistry,
+      Duration sendTimeout) {
+    this.outbox = outbox;
+    this.recipients = recipients;
+    this.bot = bot;
+    this.executor = executor;
+    this.sendTimeoutMillis = sendTimeout.toMillis();
+
+    // Refreshed after every run rather than counted on every scrape
+    Gauge.builder("notifications.backlog", backlog, AtomicLong::get)
+        .description("Messages waiting to be delivered")
+        .register(meterRegistry);
+    this.latency =
+        Timer.builder("notifications.delivery.latency")
+            .description("Time from a message being posted to it reaching Telegram")
+            .register(meterRegistry);
+    this.delivered = sends(meterRegistry, "delivered");
+    this.failed = sends(meterRegistry, "failed");
+    this.unreachable = sends(meterRegistry, "unreachable");
+  }
+
+  private static Counter sends(MeterRegistry meterRegistry, String result) {
+    return Counter.builder("notifications.sends")
+        .description("Messages sent (delivered), not sent in time (failed) or without a chat")
+        .tag("result", result)
+        .register(meterRegistry);
+  }
+
+  /**
+   * Delivers new messages soon instead of at the next poll.
+   */
+  public void wakeUp() {
+    request();
+  }
+
+  @Scheduled(
+      fixedDelayString = "${notifications.poll-interval:PT5S}",
+      initialDelayString = "${notifications.poll-interval:PT5S}")
+  public void poll() {
+    request();
+  }
+
+  private void request() {
+    if (queued.compareAndSet(false, true)) {
+      executor.execute(this::deliver);
+    }
+  }
+
+  /**
+   * Claims and sends batches until one isn't full, on the calling thread.
+   */
+  public void deliver() {
+    // Requests from now on need another run, since this one may have claimed already
+    queued.set(false);
+    try {
+      List<Message> batch;
+      do {
+        batch = outbox.claim();
+        send(batch);
+      } while (batch.size() == outbox.getBatchSize());
+      backlog.set(outbox.countPending());
+    } catch (RuntimeException e) {
+      logger.warn("Delivering notifications failed, retrying at the next poll", e);
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  private void send(List<Message> batch) {
+    if (batch.isEmpty()) {
+      return;
+    }
+    Set<Integer> userIds = new HashSet<>();
+    for (Message message : batch) {
+      userIds.add(message.getUserId());
+    }
+    Map<Integer, Long> chats = recipients.chatsOf(userIds);
+
+    List<Message> sent = new ArrayList<>(batch.size());
+    List<CompletableFuture<?>> sends = new ArrayList<>(batch.size());
+    List<Integer> noChat = new ArrayList<>();
+    for (Message message : batch) {
+      Long chatId = chats.get(message.getUserId());
+      if (chatId == null) {
+        noChat.add(message.getID_Message());
+      } else {
+        sent.add(message);
+        sends.add(bot.sendText(chatId, message.getContent()));
+      }
+    }
+    await(sends);
+
+    LocalDateTime now = LocalDateTime.now();
+    List<Integer> deliveredIds = new ArrayList<>(sent.size());
+    for (int i = 0; i < sent.size(); i++) {
+      CompletableFuture<?> send = sends.get(i);
+      if (send.isDone() && !send.isCompletedExceptionally()) {
+        Message message = sent.get(i);
+        deliveredIds.add(message.getID_Message());
+        if (message.getTimestamp() != null) {
+          latency.record(Duration.between(message.getTimestamp(), now));
+        }
+      }
+    }
+    outbox.markDelivered(deliveredIds, now);
+    outbox.giveUp(noChat);
+    delivered.increment(deliveredIds.size());
+    failed.increment(sent.size() - deliveredIds.size());
+    unreachable.increment(noChat.size());
+  }
+
+  private void await(List<CompletableFuture<?>> sends) {
+    try {
+      CompletableFuture.allOf(sends.toArray(new CompletableFuture<?>[0]))
+          .get(sendTimeoutMillis, TimeUnit.MILLISECONDS);
+    } catch (ExecutionException e) {
+      // Each failed send is told apart below and retried later
+    } catch (TimeoutException e) {
+      logger.warn("Some notifications weren't sent within {}ms", sendTimeoutMillis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
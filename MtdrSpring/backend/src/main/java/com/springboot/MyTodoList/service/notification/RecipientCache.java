@@ -0,0 +1,108 @@
+package com.springboot.MyTodoList.service.notification;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.springboot.MyTodoList.model.User;
+import com.springboot.MyTodoList.repository.UserRepository;
+import com.springboot.MyTodoList.service.UserChangedEvent;
+
+/**
+ * The Telegram chat of each user messages are addressed to, cached for
+ * notifications.recipients.ttl. The users a batch needs that aren't cached
+ * are read in one query. Users changed through UserService are dropped once
+ * the change commits; on other replicas they stay until they expire.
+ */
+@Component
+public class RecipientCache {
+  private final UserRepository userRepository;
+  private final long ttlNanos;
+  private final LongSupplier nanoTime;
+  private final Map<Integer, Entry> chats = new ConcurrentHashMap<>();
+
+  private static final class Entry {
+    // Null if the user has no Telegram account
+    final Long chatId;
+    final long expiresAt;
+
+    Entry(Long chatId, long expiresAt) {
+      this.chatId = chatId;
+      this.expiresAt = expiresAt;
+    }
+  }
+
+  @Autowired
+  public RecipientCache(
+      UserRepository userRepository,
+      @Value("${notifications.recipients.ttl:PT10M}") Duration ttl) {
+    this(userRepository, ttl, System::nanoTime);
+  }
+
+  /**
+   * @param nanoTime clock used for expiry, replaceable for tests
+   */
+  public RecipientCache(UserRepository userRepository, Duration ttl, LongSupplier nanoTime) {
+    this.userRepository = userRepository;
+    this.ttlNanos = ttl.toNanos();
+    this.nanoTime = nanoTime;
+  }
+
+  /**
+   * The chat of each of the given users that exists and has a Telegram account.
+   */
+  public Map<Integer, Long> chatsOf(Collection<Integer> userIds) {
+    long now = nanoTime.getAsLong();
+    Map<Integer, Long> found = new HashMap<>();
+    Set<Integer> missing = new HashSet<>();
+    for (Integer userId : userIds) {
+      Entry entry = chats.get(userId);
+      if (entry != null && entry.expiresAt - now > 0) {
+        if (entry.chatId != null) {
+          found.put(userId, entry.chatId);
+        }
+      } else {
+        missing.add(userId);
+      }
+    }
+    if (missing.isEmpty()) {
+      return found;
+    }
+    long expiresAt = now + ttlNanos;
+    for (User user : userRepository.findAllById(missing)) {
+      missing.remove(user.getID_User());
+      chats.put(user.getID_User(), new Entry(user.getID_Telegram(), expiresAt));
+      if (user.getID_Telegram() != null) {
+        found.put(user.getID_User(), user.getID_Telegram());
+      }
+    }
+    // Deleted users are cached as having no chat
+    for (Integer userId : missing) {
+      chats.put(userId, new Entry(null, expiresAt));
+    }
+    return found;
+  }
+
+  /**
+   * Forgets a user's chat, so the next message to them reads it again.
+   */
+  public void invalidate(int userId) {
+    chats.remove(userId);
+  }
+
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void onUserChanged(UserChangedEvent event) {
+    invalidate(event.getUserId());
+  }
+}
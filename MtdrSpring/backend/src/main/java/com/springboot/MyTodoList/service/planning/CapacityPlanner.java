@@ -0,0 +1,465 @@
+package com.springboot.MyTodoList.service.planning;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Proposes which user should take each candidate task, without going over
+ * anyone's available hours.
+ *
+ * It's a bin packing problem with dependencies: a task can only be planned if
+ * the tasks it depends on are planned too (or don't need to be). A plan is
+ * better if it plans more hours, then if the load is more even, measured as
+ * the sum of each user's squared utilization.
+ *
+ * The solver builds a plan greedily, biggest tasks first in dependency order,
+ * and improves it with a local search that moves, swaps, inserts and replaces
+ * tasks. Several workers do this in parallel from differently randomized
+ * starts, over and over until every task that can be planned is, restarts
+ * stop finding better plans or the time budget runs out, and the best plan
+ * wins. Users and tasks are indexes into the arrays given to the constructor.
+ */
+public final class CapacityPlanner {
+  public static final int UNASSIGNED = -1;
+  // Restarts in a row without a better plan after which a worker gives up
+  private static final int MAX_STALE_RESTARTS = 20;
+
+  private final long[] capacity;
+  private final long[] initialLoad;
+  private final int[] hours;
+  private final int[][] parents;
+  private final int[][] children;
+  private final boolean[] eligible;
+  // Hours of all the tasks that can be planned, the most any plan can reach
+  private final long eligibleHours;
+  private final int users;
+  private final int tasks;
+
+  /**
+   * @param capacity the hours each user is available, more than zero
+   * @param initialLoad the hours each user already has assigned
+   * @param hours the estimated hours of each candidate task
+   * @param parents for each task, the candidate tasks it depends on
+   * @param eligible whether each task can be planned at all, i.e. whether
+   *     every task it depends on outside the candidates is done or planned
+   */
+  public CapacityPlanner(
+      long[] capacity, long[] initialLoad, int[] hours, int[][] parents, boolean[] eligible) {
+    if (capacity.length != initialLoad.length
+        || hours.length != parents.length
+        || hours.length != eligible.length) {
+      throw new IllegalArgumentException("Every user and task needs all its values");
+    }
+    for (long available : capacity) {
+      if (available <= 0) {
+        throw new IllegalArgumentException("Users without available hours can't be planned");
+      }
+    }
+    this.capacity = capacity.clone();
+    this.initialLoad = initialLoad.clone();
+    this.hours = hours.clone();
+    this.parents = parents.clone();
+    this.eligible = eligible.clone();
+    this.users = capacity.length;
+    this.tasks = hours.length;
+
+    int[] childCount = new int[tasks];
+    for (int[] taskParents : parents) {
+      for (int parent : taskParents) {
+        childCount[parent]++;
+      }
+    }
+    children = new int[tasks][];
+    for (int task = 0; task < tasks; task++) {
+      children[task] = new int[childCount[task]];
+      childCount[task] = 0;
+    }
+    for (int task = 0; task < tasks; task++) {
+      for (int parent : parents[task]) {
+        children[parent][childCount[parent]++] = task;
+      }
+    }
+    // Tasks in or behind a dependency cycle can never have their parents planned
+    int[] waiting = new int[tasks];
+    int[] queue = new int[tasks];
+    int tail = 0;
+    for (int task = 0; task < tasks; task++) {
+      waiting[task] = parents[task].length;
+      if (waiting[task] == 0) {
+        queue[tail++] = task;
+      }
+    }
+    for (int head = 0; head < tail; head++) {
+      for (int child : children[queue[head]]) {
+        if (--waiting[child] == 0) {
+          queue[tail++] = child;
+        }
+      }
+    }
+    for (int task = 0; task < tasks; task++) {
+      if (waiting[task] > 0) {
+        this.eligible[task] = false;
+      }
+    }
+    // So do tasks behind one that can't be planned; the queue is in dependency order
+    long total = 0;
+    for (int i = 0; i < tail; i++) {
+      int task = queue[i];
+      for (int parent : parents[task]) {
+        if (!this.eligible[parent]) {
+          this.eligible[task] = false;
+        }
+      }
+      if (this.eligible[task]) {
+        total += hours[task];
+      }
+    }
+    this.eligibleHours = total;
+  }
+
+  /**
+   * The best plan found.
+   */
+  public static final class Plan {
+    private final int[] assignment;
+    private final long[] load;
+    private final long plannedHours;
+    private final double imbalance;
+    private final int attempts;
+
+    private Plan(int[] assignment, long[] load, long plannedHours, double imbalance, int attempts) {
+      this.assignment = assignment;
+      this.load = load;
+      this.plannedHours = plannedHours;
+      this.imbalance = imbalance;
+      this.attempts = attempts;
+    }
+
+    /**
+     * The user index each task goes to, or UNASSIGNED.
+     */
+    public int getUser(int task) {
+      return assignment[task];
+    }
+
+    /**
+     * Each user's hours with the plan, including what they already had.
+     */
+    public long getLoad(int user) {
+      return load[user];
+    }
+
+    public long getPlannedHours() {
+      return plannedHours;
+    }
+
+    public double getImbalance() {
+      return imbalance;
+    }
+
+    /**
+     * How many starts were searched, across all workers.
+     */
+    public int getAttempts() {
+      return attempts;
+    }
+
+    private boolean betterThan(Plan other) {
+      return other == null
+          || plannedHours > other.plannedHours
+          || (plannedHours == other.plannedHours && imbalance < other.imbalance - 1e-9);
+    }
+  }
+
+  /**
+   * Searches for a plan until it can't get better or the budget runs out.
+   *
+   * @param workers how many searches run in parallel
+   */
+  public Plan solve(Executor executor, int workers, Duration budget, long seed) {
+    long deadline = System.nanoTime() + budget.toNanos();
+    SplittableRandom random = new SplittableRandom(seed);
+    List<CompletableFuture<Plan>> results = new ArrayList<>(workers);
+    for (int worker = 0; worker < workers; worker++) {
+      SplittableRandom workerRandom = random.split();
+      boolean greedyFirst = worker == 0;
+      results.add(
+          CompletableFuture.supplyAsync(
+              () -> new Search(workerRandom).run(deadline, greedyFirst), executor));
+    }
+    Plan best = null;
+    int attempts = 0;
+    for (CompletableFuture<Plan> result : results) {
+      Plan plan = result.join();
+      attempts += plan.attempts;
+      if (plan.betterThan(best)) {
+        best = plan;
+      }
+    }
+    return new Plan(best.assignment, best.load, best.plannedHours, best.imbalance, attempts);
+  }
+
+  /**
+   * One worker's state: the plan being improved.
+   */
+  private final class Search {
+    private final SplittableRandom random;
+    private final int[] assignment = new int[tasks];
+    private final long[] load = new long[users];
+    // Planned tasks that depend on each task, and candidate parents not planned yet
+    private final int[] plannedChildren = new int[tasks];
+    private final int[] missingParents = new int[tasks];
+    private long plannedHours;
+    private double imbalance;
+
+    Search(SplittableRandom random) {
+      this.random = random;
+    }
+
+    Plan run(long deadline, boolean greedyFirst) {
+      Plan best = null;
+      int attempts = 0;
+      int stale = 0;
+      do {
+        build(attempts == 0 && greedyFirst ? 0 : 0.5);
+        improve(deadline);
+        attempts++;
+        Plan plan = snapshot(attempts);
+        if (plan.betterThan(best)) {
+          best = plan;
+          stale = 0;
+        } else {
+          stale++;
+        }
+      } while (best.plannedHours < eligibleHours
+          && stale < MAX_STALE_RESTARTS
+          && System.nanoTime() < deadline
+          && tasks > 0
+          && users > 0);
+      return new Plan(best.assignment, best.load, best.plannedHours, best.imbalance, attempts);
+    }
+
+    private Plan snapshot(int attempts) {
+      return new Plan(assignment.clone(), load.clone(), plannedHours, imbalance, attempts);
+    }
+
+    private double utilization(int user, long userLoad) {
+      double ratio = (double) userLoad / capacity[user];
+      return ratio * ratio;
+    }
+
+    private boolean fits(int user, long extra) {
+      return load[user] + extra <= capacity[user];
+    }
+
+    private void assign(int task, int user) {
+      imbalance += utilization(user, load[user] + hours[task]) - utilization(user, load[user]);
+      load[user] += hours[task];
+      plannedHours += hours[task];
+      assignment[task] = user;
+      for (int parent : parents[task]) {
+        plannedChildren[parent]++;
+      }
+      for (int child : children[task]) {
+        missingParents[child]--;
+      }
+    }
+
+    private void unassign(int task) {
+      int user = assignment[task];
+      imbalance += utilization(user, load[user] - hours[task]) - utilization(user, load[user]);
+      load[user] -= hours[task];
+      plannedHours -= hours[task];
+      assignment[task] = UNASSIGNED;
+      for (int parent : parents[task]) {
+        plannedChildren[parent]--;
+      }
+      for (int child : children[task]) {
+        missingParents[child]++;
+      }
+    }
+
+    private boolean canPlan(int task) {
+      return eligible[task] && assignment[task] == UNASSIGNED && missingParents[task] == 0;
+    }
+
+    /**
+     * Plans tasks biggest first, never before the tasks they depend on, each
+     * on the user it leaves least loaded. Noise shuffles the order of tasks of
+     * similar size.
+     */
+    private void build(double noise) {
+      Arrays.fill(assignment, UNASSIGNED);
+      Arrays.fill(plannedChildren, 0);
+      plannedHours = 0;
+      imbalance = 0;
+      for (int user = 0; user < users; user++) {
+        load[user] = initialLoad[user];
+        imbalance += utilization(user, load[user]);
+      }
+      double[] priority = new double[tasks];
+      PriorityQueue<Integer> ready =
+          new PriorityQueue<>(
+              Math.max(1, tasks), (a, b) -> Double.compare(priority[b], priority[a]));
+      for (int task = 0; task < tasks; task++) {
+        missingParents[task] = parents[task].length;
+        priority[task] = hours[task] * (1 + noise * random.nextDouble());
+        if (missingParents[task] == 0) {
+          ready.add(task);
+        }
+      }
+      while (!ready.isEmpty()) {
+        int task = ready.poll();
+        if (!eligible[task]) {
+          continue;
+        }
+        int user = bestUser(task, UNASSIGNED);
+        if (user != UNASSIGNED) {
+          assign(task, user);
+          for (int child : children[task]) {
+            if (missingParents[child] == 0) {
+              ready.add(child);
+            }
+          }
+        }
+      }
+    }
+
+    /**
+     * The user with room for the task who ends up least utilized, other than
+     * the excluded one.
+     */
+    private int bestUser(int task, int excluded) {
+      int best = UNASSIGNED;
+      double bestUtilization = Double.MAX_VALUE;
+      for (int user = 0; user < users; user++) {
+        if (user != excluded && fits(user, hours[task])) {
+          double after = (double) (load[user] + hours[task]) / capacity[user];
+          if (after < bestUtilization) {
+            best = user;
+            bestUtilization = after;
+          }
+        }
+      }
+      return best;
+    }
+
+    /**
+     * Applies random improving moves until a long streak of them fails or
+     * the deadline passes.
+     */
+    private void improve(long deadline) {
+      if (tasks == 0 || users == 0) {
+        return;
+      }
+      int maxFailures = Math.max(1000, 20 * tasks);
+      int failures = 0;
+      for (int step = 0; failures < maxFailures; step++) {
+        if ((step & 1023) == 0 && System.nanoTime() >= deadline) {
+          return;
+        }
+        boolean improved;
+        switch (random.nextInt(4)) {
+          case 0:
+            improved = tryInsert(random.nextInt(tasks));
+            break;
+          case 1:
+            improved = tryRelocate(random.nextInt(tasks));
+            break;
+          case 2:
+            improved = trySwap(random.nextInt(tasks), random.nextInt(tasks));
+            break;
+          default:
+            improved = tryReplace(random.nextInt(tasks), random.nextInt(tasks));
+            break;
+        }
+        failures = improved ? 0 : failures + 1;
+      }
+    }
+
+    private boolean tryInsert(int task) {
+      if (!canPlan(task)) {
+        return false;
+      }
+      int user = bestUser(task, UNASSIGNED);
+      if (user == UNASSIGNED) {
+        return false;
+      }
+      assign(task, user);
+      return true;
+    }
+
+    // Moves a planned task to another user if that evens out the load
+    private boolean tryRelocate(int task) {
+      int from = assignment[task];
+      if (from == UNASSIGNED) {
+        return false;
+      }
+      int to = bestUser(task, from);
+      if (to == UNASSIGNED) {
+        return false;
+      }
+      double before = imbalance;
+      unassign(task);
+      assign(task, to);
+      if (imbalance < before - 1e-9) {
+        return true;
+      }
+      unassign(task);
+      assign(task, from);
+      return false;
+    }
+
+    // Exchanges two planned tasks of different users if that evens out the load
+    private boolean trySwap(int first, int second) {
+      int firstUser = assignment[first];
+      int secondUser = assignment[second];
+      if (firstUser == UNASSIGNED || secondUser == UNASSIGNED || firstUser == secondUser) {
+        return false;
+      }
+      long diff = hours[second] - hours[first];
+      if (!fits(firstUser, diff) || !fits(secondUser, -diff)) {
+        return false;
+      }
+      double before = imbalance;
+      unassign(first);
+      unassign(second);
+      assign(first, secondUser);
+      assign(second, firstUser);
+      if (imbalance < before - 1e-9) {
+        return true;
+      }
+      unassign(first);
+      unassign(second);
+      assign(first, firstUser);
+      assign(second, secondUser);
+      return false;
+    }
+
+    // Drops a planned task nothing planned depends on, for a bigger one
+    private boolean tryReplace(int out, int in) {
+      int user = assignment[out];
+      if (user == UNASSIGNED
+          || plannedChildren[out] > 0
+          || assignment[in] != UNASSIGNED
+          || !eligible[in]
+          || hours[in] <= hours[out]
+          || !fits(user, hours[in] - hours[out])) {
+        return false;
+      }
+      unassign(out);
+      if (missingParents[in] > 0) {
+        assign(out, user);
+        return false;
+      }
+      assign(in, user);
+      return true;
+    }
+  }
+}
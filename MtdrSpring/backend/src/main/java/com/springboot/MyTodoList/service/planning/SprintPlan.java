@@ -0,0 +1,140 @@
+package com.springboot.MyTodoList.service.planning;
+
+import java.util.List;
+
+/**
+ * A proposed assignment of a sprint's unassigned tasks and the pending
+ * unassigned backlog tasks. Nothing is saved until the tasks are updated.
+ */
+public final class SprintPlan {
+  private final int sprintId;
+  private final List<UserLoad> users;
+  private final List<Assignment> assignments;
+  private final List<Integer> unplannedTaskIds;
+  private final long plannedHours;
+  private final int attempts;
+  private final long elapsedMillis;
+
+  /**
+   * A user's hours before and after the plan.
+   */
+  public static final class UserLoad {
+    private final int userId;
+    private final long availableHours;
+    private final long assignedHours;
+    private final long plannedHours;
+
+    public UserLoad(int userId, long availableHours, long assignedHours, long plannedHours) {
+      this.userId = userId;
+      this.availableHours = availableHours;
+      this.assignedHours = assignedHours;
+      this.plannedHours = plannedHours;
+    }
+
+    public int getUserId() {
+      return userId;
+    }
+
+    /**
+     * The user's weekly available hours times the weeks of the sprint.
+     */
+    public long getAvailableHours() {
+      return availableHours;
+    }
+
+    /**
+     * The estimated hours of the user's unfinished tasks in the sprint.
+     */
+    public long getAssignedHours() {
+      return assignedHours;
+    }
+
+    /**
+     * The assigned hours plus those of the tasks the plan gives the user.
+     */
+    public long getPlannedHours() {
+      return plannedHours;
+    }
+  }
+
+  /**
+   * A task the plan gives to a user.
+   */
+  public static final class Assignment {
+    private final int taskId;
+    private final int userId;
+    private final boolean fromBacklog;
+
+    public Assignment(int taskId, int userId, boolean fromBacklog) {
+      this.taskId = taskId;
+      this.userId = userId;
+      this.fromBacklog = fromBacklog;
+    }
+
+    public int getTaskId() {
+      return taskId;
+    }
+
+    public int getUserId() {
+      return userId;
+    }
+
+    /**
+     * Whether the task also has to be moved into the sprint.
+     */
+    public boolean isFromBacklog() {
+      return fromBacklog;
+    }
+  }
+
+  public SprintPlan(
+      int sprintId,
+      List<UserLoad> users,
+      List<Assignment> assignments,
+      List<Integer> unplannedTaskIds,
+      long plannedHours,
+      int attempts,
+      long elapsedMillis) {
+    this.sprintId = sprintId;
+    this.users = users;
+    this.assignments = assignments;
+    this.unplannedTaskIds = unplannedTaskIds;
+    this.plannedHours = plannedHours;
+    this.attempts = attempts;
+    this.elapsedMillis = elapsedMillis;
+  }
+
+  public int getSprintId() {
+    return sprintId;
+  }
+
+  public List<UserLoad> getUsers() {
+    return users;
+  }
+
+  public List<Assignment> getAssignments() {
+    return assignments;
+  }
+
+  /**
+   * The candidate tasks that didn't fit, or wait for tasks that aren't planned.
+   */
+  public List<Integer> getUnplannedTaskIds() {
+    return unplannedTaskIds;
+  }
+
+  public long getPlannedHours() {
+    return plannedHours;
+  }
+
+  /**
+   * How many starting points the solver searched from.
+   */
+  public int getAttempts() {
+    return attempts;
+  }
+
+  public long getElapsedMillis() {
+    return elapsedMillis;
+  }
+}
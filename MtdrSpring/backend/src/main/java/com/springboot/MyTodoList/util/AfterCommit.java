@@ -0,0 +1,46 @@
+package com.springboot.MyTodoList.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Defers updates to in-memory caches and indexes until the database write
+ * they mirror has committed, so a rollback leaves them untouched.
+ */
+public final class AfterCommit {
+  private AfterCommit() {}
+
+  /**
+   * Runs the action once the current transaction commits, or right away if
+   * there's no transaction. Nothing runs if the transaction rolls back.
+   */
+  public static void run(Runnable action) {
+    run(action, () -> {});
+  }
+
+  /**
+   * Runs the action once the current transaction commits, or right away if
+   * there's no transaction, and onRollback if it doesn't commit. For state
+   * that has to change before the commit, onRollback can undo or drop it.
+   */
+  public static void run(Runnable action, Runnable onRollback) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      action.run();
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronization() {
+          @Override
+          public void afterCommit() {
+            action.run();
+          }
+
+          @Override
+          public void afterCompletion(int status) {
+            if (status != STATUS_COMMITTED) {
+              onRollback.run();
+            }
+          }
+        });
+  }
+}
@@ -0,0 +1,143 @@
+package com.springboot.MyTodoList.util;
+
+import java.util.Arrays;
+
+/**
+ * A small open-addressing hash map from int keys to int values.
+ *
+ * Database IDs in this project are plain ints, and the hot loops that
+ * aggregate tasks look up sprint, user and task IDs millions of times.
+ * Using a HashMap<Integer, ...> there means boxing every key and chasing
+ * pointers on every probe; this map keeps keys and values in flat arrays
+ * instead. It is not thread-safe.
+ */
+public final class IntIntHashMap {
+  private static final float LOAD_FACTOR = 0.5f;
+
+  private int[] keys;
+  private int[] values;
+  private boolean[] used;
+  private int size;
+  private int mask;
+
+  public IntIntHashMap() {
+    this(16);
+  }
+
+  public IntIntHashMap(int expectedSize) {
+    int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+    allocate(capacity);
+  }
+
+  private void allocate(int capacity) {
+    keys = new int[capacity];
+    values = new int[capacity];
+    used = new boolean[capacity];
+    mask = capacity - 1;
+  }
+
+  private static int mix(int key) {
+    int h = key * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+
+  private int slotOf(int key) {
+    int slot = mix(key) & mask;
+    while (used[slot] && keys[slot] != key) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  /**
+   * Returns the value mapped to key, or defaultValue if there is none.
+   */
+  public int get(int key, int defaultValue) {
+    int slot = slotOf(key);
+    return used[slot] ? values[slot] : defaultValue;
+  }
+
+  public boolean containsKey(int key) {
+    return used[slotOf(key)];
+  }
+
+  /**
+   * Maps key to value, replacing any previous mapping.
+   */
+  public void put(int key, int value) {
+    int slot = slotOf(key);
+    if (!used[slot]) {
+      used[slot] = true;
+      keys[slot] = key;
+      size++;
+    }
+    values[slot] = value;
+    if (size > keys.length * LOAD_FACTOR) {
+      grow();
+    }
+  }
+
+  /**
+   * Maps key to value only if key is not present yet.
+   *
+   * @return true if the mapping was added.
+   */
+  public boolean putIfAbsent(int key, int value) {
+    if (containsKey(key)) {
+      return false;
+    }
+    put(key, value);
+    return true;
+  }
+
+  /**
+   * Removes the mapping for key, if present.
+   *
+   * @return true if a mapping was removed.
+   */
+  public boolean remove(int key) {
+    int slot = slotOf(key);
+    if (!used[slot]) {
+      return false;
+    }
+    used[slot] = false;
+    size--;
+    // Re-insert the rest of the probe chain so lookups don't stop early.
+    int next = (slot + 1) & mask;
+    while (used[next]) {
+      int k = keys[next];
+      int v = values[next];
+      used[next] = false;
+      size--;
+      put(k, v);
+      next = (next + 1) & mask;
+    }
+    return true;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public void clear() {
+    Arrays.fill(used, false);
+    size = 0;
+  }
+
+  private void grow() {
+    int[] oldKeys = keys;
+    int[] oldValues = values;
+    boolean[] oldUsed = used;
+    allocate(oldKeys.length << 1);
+    size = 0;
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldUsed[i]) {
+        put(oldKeys[i], oldValues[i]);
+      }
+    }
+  }
+}
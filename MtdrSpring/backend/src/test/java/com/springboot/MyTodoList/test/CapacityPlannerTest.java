@@ -0,0 +1,157 @@
+package com.springboot.MyTodoList.test;
+
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import com.springboot.MyTodoList.service.planning.CapacityPlanner;
+
+public class CapacityPlannerTest {
+
+    private static final int[] NO_PARENTS = {};
+
+    private static CapacityPlanner.Plan solve(CapacityPlanner planner, long millis) {
+        return planner.solve(ForkJoinPool.commonPool(), 4, Duration.ofMillis(millis), 1);
+    }
+
+    @Test
+    public void testFillsEveryUserExactly() {
+        // 4+4+2 and 3+3+2+2 fit two users of 10 hours only one way around
+        int[] hours = {4, 3, 4, 3, 2, 2, 2};
+        int[][] parents = new int[hours.length][];
+        boolean[] eligible = new boolean[hours.length];
+        for (int i = 0; i < hours.length; i++) {
+            parents[i] = NO_PARENTS;
+            eligible[i] = true;
+        }
+        CapacityPlanner planner =
+            new CapacityPlanner(new long[] {10, 10}, new long[] {0, 0}, hours, parents, eligible);
+
+        CapacityPlanner.Plan plan = solve(planner, 200);
+
+        assertEquals(20, plan.getPlannedHours());
+        assertEquals(10, plan.getLoad(0));
+        assertEquals(10, plan.getLoad(1));
+    }
+
+    @Test
+    public void testRespectsCapacityAndDependencies() {
+        Random random = new Random(3);
+        int users = 20;
+        int tasks = 1000;
+        long[] capacity = new long[users];
+        long[] initialLoad = new long[users];
+        for (int u = 0; u < users; u++) {
+            capacity[u] = 20 + random.nextInt(40);
+            initialLoad[u] = random.nextInt(10);
+        }
+        int[] hours = new int[tasks];
+        int[][] parents = new int[tasks][];
+        boolean[] eligible = new boolean[tasks];
+        for (int t = 0; t < tasks; t++) {
+            hours[t] = 1 + random.nextInt(12);
+            parents[t] = t > 10 && random.nextInt(3) == 0
+                ? new int[] {random.nextInt(t)}
+                : NO_PARENTS;
+            eligible[t] = random.nextInt(20) != 0;
+        }
+        CapacityPlanner planner =
+            new CapacityPlanner(capacity, initialLoad, hours, parents, eligible);
+
+        CapacityPlanner.Plan plan = solve(planner, 300);
+
+        long[] load = initialLoad.clone();
+        long planned = 0;
+        for (int t = 0; t < tasks; t++) {
+            int user = plan.getUser(t);
+            if (user == CapacityPlanner.UNASSIGNED) {
+                continue;
+            }
+            assertTrue(eligible[t]);
+            for (int parent : parents[t]) {
+                assertNotEquals(CapacityPlanner.UNASSIGNED, plan.getUser(parent));
+            }
+            load[user] += hours[t];
+            planned += hours[t];
+        }
+        for (int u = 0; u < users; u++) {
+            assertEquals(load[u], plan.getLoad(u));
+            assertTrue(load[u] <= capacity[u]);
+        }
+        assertEquals(planned, plan.getPlannedHours());
+    }
+
+    @Test
+    public void testSkipsTasksInACycle() {
+        int[][] parents = {{1}, {0}, NO_PARENTS};
+        CapacityPlanner planner = new CapacityPlanner(
+            new long[] {100}, new long[] {0}, new int[] {1, 1, 1}, parents,
+            new boolean[] {true, true, true});
+
+        CapacityPlanner.Plan plan = solve(planner, 50);
+
+        assertEquals(CapacityPlanner.UNASSIGNED, plan.getUser(0));
+        assertEquals(CapacityPlanner.UNASSIGNED, plan.getUser(1));
+        assertEquals(0, plan.getUser(2));
+    }
+
+    @Test
+    public void testStopsOnceNothingCanImprove() {
+        // Everything fits, so the first plan can't be beaten on planned hours
+        CapacityPlanner fits = new CapacityPlanner(
+            new long[] {10, 10}, new long[] {0, 0}, new int[] {3, 2, 4},
+            new int[][] {NO_PARENTS, {0}, NO_PARENTS}, new boolean[] {true, true, true});
+        // Nothing fits, so restarts stop finding better plans
+        CapacityPlanner full = new CapacityPlanner(
+            new long[] {1}, new long[] {0}, new int[] {5, 6}, new int[][] {NO_PARENTS, NO_PARENTS},
+            new boolean[] {true, true});
+
+        long started = System.nanoTime();
+        CapacityPlanner.Plan planned = solve(fits, 10_000);
+        CapacityPlanner.Plan unplanned = solve(full, 10_000);
+        long elapsed = Duration.ofNanos(System.nanoTime() - started).toMillis();
+
+        assertTrue(elapsed < 2000, "Took " + elapsed + "ms");
+        assertEquals(9, planned.getPlannedHours());
+        assertEquals(0, unplanned.getPlannedHours());
+    }
+
+    @Test
+    public void testStaysWithinTheBudget() {
+        Random random = new Random(5);
+        int tasks = 5000;
+        int users = 100;
+        long[] capacity = new long[users];
+        for (int u = 0; u < users; u++) {
+            capacity[u] = 40;
+        }
+        int[] hours = new int[tasks];
+        int[][] parents = new int[tasks][];
+        boolean[] eligible = new boolean[tasks];
+        for (int t = 0; t < tasks; t++) {
+            hours[t] = 1 + random.nextInt(16);
+            parents[t] = t > 0 && random.nextBoolean() ? new int[] {random.nextInt(t)} : NO_PARENTS;
+            eligible[t] = true;
+        }
+        CapacityPlanner planner =
+            new CapacityPlanner(capacity, new long[users], hours, parents, eligible);
+
+        long started = System.nanoTime();
+        CapacityPlanner.Plan plan = solve(planner, 500);
+        long elapsed = Duration.ofNanos(System.nanoTime() - started).toMillis();
+
+        assertTrue(elapsed < 2000, "Took " + elapsed + "ms");
+        assertTrue(plan.getAttempts() >= 1);
+        // 4000 hours available for about 42000 hours of tasks
+        assertTrue(plan.getPlannedHours() > 3900, "Planned " + plan.getPlannedHours());
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> new CapacityPlanner(new long[] {0}, new long[] {0}, hours, parents, eligible));
+    }
+}
@@ -0,0 +1,88 @@
+package com.springboot.MyTodoList.test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import com.springboot.MyTodoList.service.llm.CircuitBreaker;
+
+public class CircuitBreakerTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final CircuitBreaker breaker = new CircuitBreaker(2, Duration.ofSeconds(10), now::get);
+
+    private void fail() {
+        assertTrue(breaker.tryAcquire());
+        breaker.onFailure();
+    }
+
+    @Test
+    public void testOpensAfterConsecutiveFailures() {
+        fail();
+        assertTrue(breaker.tryAcquire());
+        breaker.onSuccess();
+        fail();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        fail();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    @Test
+    public void testSingleTrialAfterOpenDuration() {
+        fail();
+        fail();
+        now.addAndGet(Duration.ofSeconds(10).toNanos());
+
+        assertTrue(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    public void testFailedTrialReopens() {
+        fail();
+        fail();
+        now.addAndGet(Duration.ofSeconds(11).toNanos());
+
+        fail();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        now.addAndGet(Duration.ofSeconds(5).toNanos());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    @Test
+    public void testRateLimitsDontOpen() {
+        fail();
+        for (int i = 0; i < 5; i++) {
+            assertTrue(breaker.tryAcquire());
+            breaker.onRateLimited();
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        // Nor do they reset the count of failures
+        fail();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    public void testRateLimitedTrialLetsAnotherOneIn() {
+        fail();
+        fail();
+        now.addAndGet(Duration.ofSeconds(10).toNanos());
+
+        assertTrue(breaker.tryAcquire());
+        breaker.onRateLimited();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+    }
+}
@@ -0,0 +1,84 @@
+package com.springboot.MyTodoList.test;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import com.springboot.MyTodoList.service.forecast.CompletionSimulator;
+
+public class CompletionSimulatorTest {
+
+    private static final int NONE = CompletionSimulator.UNASSIGNED;
+
+    @Test
+    public void testExactWhenEstimatesAreAlwaysRight() {
+        // User 0 has 20h left at 10h a week, user 1 has 5h at 20h a week,
+        // and 5 unassigned hours go to the team's 30h a week
+        CompletionSimulator simulator = new CompletionSimulator(
+            new double[] {10, 20},
+            new double[][] {{1.0}, {1.0}},
+            new double[] {1.0},
+            new int[] {0, 0, 1, NONE},
+            new double[] {8, 16, 5, 5},
+            new double[] {0, 4, 0, 0});
+
+        double[] hours = simulator.simulate(Runnable::run, 100, 1);
+
+        assertEquals(100, hours.length);
+        assertEquals(2 * 7 * 24, hours[0], 1e-9);
+        assertEquals(2 * 7 * 24, hours[99], 1e-9);
+    }
+
+    @Test
+    public void testSameSeedSameResults() {
+        Random random = new Random(11);
+        int tasks = 300;
+        int[] users = new int[tasks];
+        double[] estimates = new double[tasks];
+        for (int t = 0; t < tasks; t++) {
+            users[t] = random.nextInt(6) - 1;
+            estimates[t] = 1 + random.nextInt(12);
+        }
+        double[][] ratios = new double[5][];
+        for (int u = 0; u < 5; u++) {
+            ratios[u] = new double[] {0.5 + u * 0.1, 1.0, 1.5 + u * 0.2};
+        }
+        CompletionSimulator simulator = new CompletionSimulator(
+            new double[] {40, 30, 20, 40, 10}, ratios, new double[] {0.8, 1.2, 2.0},
+            users, estimates, new double[tasks]);
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        double[] first;
+        double[] other;
+        try {
+            first = simulator.simulate(pool, 50_000, 42);
+            other = simulator.simulate(pool, 50_000, 43);
+        } finally {
+            pool.shutdown();
+        }
+        // One chunk after another on this thread gives the same results
+        double[] second = simulator.simulate(Runnable::run, 50_000, 42);
+
+        assertArrayEquals(first, second);
+        assertTrue(first[0] < first[first.length - 1]);
+        double median = CompletionSimulator.percentile(first, 0.5);
+        assertEquals(median, CompletionSimulator.percentile(other, 0.5), median * 0.02);
+    }
+
+    @Test
+    public void testPercentilesAndProbability() {
+        double[] sorted = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10};
+
+        assertEquals(5, CompletionSimulator.percentile(sorted, 0.5));
+        assertEquals(9, CompletionSimulator.percentile(sorted, 0.9));
+        assertEquals(10, CompletionSimulator.percentile(sorted, 1.0));
+        assertEquals(0.0, CompletionSimulator.fractionWithin(sorted, 0.5));
+        assertEquals(0.4, CompletionSimulator.fractionWithin(sorted, 4));
+        assertEquals(1.0, CompletionSimulator.fractionWithin(sorted, 10));
+    }
+}
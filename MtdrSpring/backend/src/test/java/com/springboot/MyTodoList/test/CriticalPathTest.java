@@ -0,0 +1,122 @@
+package com.springboot.MyTodoList.test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import com.springboot.MyTodoList.service.graph.CriticalPath;
+import com.springboot.MyTodoList.service.graph.DependencyCycleException;
+
+public class CriticalPathTest {
+
+    private static final long NONE = CriticalPath.NO_DEADLINE;
+
+    // 1 (3h) -> 2 (2h) -> 4 (4h), 1 -> 3 (1h) -> 4
+    private static CriticalPath diamond() {
+        return CriticalPath.of(
+            new int[] {1, 2, 3, 4},
+            new long[] {3, 2, 1, 4},
+            new long[] {NONE, NONE, NONE, NONE},
+            new int[] {1, 1, 2, 3},
+            new int[] {2, 3, 4, 4});
+    }
+
+    @Test
+    public void testComputesStartsAndSlack() {
+        CriticalPath schedule = diamond();
+
+        assertEquals(9, schedule.getEnd());
+        assertEquals(3, schedule.getEarliestStart(3));
+        assertEquals(4, schedule.getLatestStart(3));
+        assertEquals(1, schedule.getSlack(3));
+        assertEquals(0, schedule.getSlack(2));
+        assertArrayEquals(new int[] {1, 2, 4}, schedule.getCriticalPath());
+    }
+
+    @Test
+    public void testUpdatesWhenATaskOrDependencyChanges() {
+        CriticalPath schedule = diamond();
+
+        schedule.setTask(3, 5, NONE);
+        assertEquals(12, schedule.getEnd());
+        assertArrayEquals(new int[] {1, 3, 4}, schedule.getCriticalPath());
+        assertEquals(3, schedule.getSlack(2));
+
+        schedule.removeDependency(3, 4);
+        assertEquals(9, schedule.getEnd());
+        assertEquals(1, schedule.getSlack(3));
+
+        assertThrows(DependencyCycleException.class, () -> schedule.addDependency(4, 1));
+        assertEquals(9, schedule.getEnd());
+    }
+
+    @Test
+    public void testDeadlinesGiveNegativeSlack() {
+        CriticalPath schedule = diamond();
+        schedule.setTask(2, 2, 4);
+
+        assertEquals(-1, schedule.getSlack(2));
+        assertEquals(-1, schedule.getSlack(1));
+        assertEquals(0, schedule.getSlack(4));
+    }
+
+    @Test
+    public void testIncrementalUpdatesMatchARebuild() {
+        Random random = new Random(7);
+        int size = 300;
+        int[] ids = new int[size];
+        long[] hours = new long[size];
+        long[] deadlines = new long[size];
+        for (int i = 0; i < size; i++) {
+            ids[i] = i + 1;
+            hours[i] = 1 + random.nextInt(8);
+            deadlines[i] = random.nextInt(10) == 0 ? 20 + random.nextInt(200) : NONE;
+        }
+        int edges = 900;
+        int[] parents = new int[edges];
+        int[] children = new int[edges];
+        Set<Long> seen = new HashSet<>();
+        for (int e = 0; e < edges; ) {
+            int a = random.nextInt(size);
+            int b = random.nextInt(size);
+            if (a != b && seen.add((long) Math.min(a, b) * size + Math.max(a, b))) {
+                parents[e] = Math.min(a, b) + 1;
+                children[e++] = Math.max(a, b) + 1;
+            }
+        }
+        CriticalPath schedule = CriticalPath.of(ids, hours, deadlines, parents, children);
+
+        for (int step = 0; step < 200; step++) {
+            int e = random.nextInt(edges);
+            if (random.nextBoolean()) {
+                int node = random.nextInt(size);
+                hours[node] = random.nextInt(10);
+                schedule.setTask(ids[node], hours[node], deadlines[node]);
+            } else if (schedule.removeDependency(parents[e], children[e])) {
+                // Put it back the other way around when that's not a cycle
+                try {
+                    schedule.addDependency(children[e], parents[e]);
+                    int parent = parents[e];
+                    parents[e] = children[e];
+                    children[e] = parent;
+                } catch (DependencyCycleException ex) {
+                    schedule.addDependency(parents[e], children[e]);
+                }
+            }
+        }
+
+        CriticalPath rebuilt = CriticalPath.of(ids, hours, deadlines, parents, children);
+        assertEquals(rebuilt.getEnd(), schedule.getEnd());
+        for (int id : ids) {
+            assertEquals(rebuilt.getEarliestStart(id), schedule.getEarliestStart(id));
+            assertEquals(rebuilt.getLatestFinish(id), schedule.getLatestFinish(id));
+        }
+        assertTrue(schedule.getCriticalPath().length > 0);
+    }
+}
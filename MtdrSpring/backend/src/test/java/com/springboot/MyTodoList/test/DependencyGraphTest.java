@@ -0,0 +1,99 @@
+package com.springboot.MyTodoList.test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import com.springboot.MyTodoList.service.graph.DependencyCycleException;
+import com.springboot.MyTodoList.service.graph.DependencyGraph;
+
+public class DependencyGraphTest {
+
+    private static int[] sorted(int[] ids) {
+        int[] copy = ids.clone();
+        Arrays.sort(copy);
+        return copy;
+    }
+
+    private static int positionOf(int[] order, int id) {
+        for (int i = 0; i < order.length; i++) {
+            if (order[i] == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Test
+    public void testFollowsLoadedAndAddedEdges() {
+        // 1 -> 2 -> 3 loaded, 3 -> 4 and 1 -> 5 added later
+        DependencyGraph graph = DependencyGraph.of(new int[] {1, 2}, new int[] {2, 3});
+        assertTrue(graph.add(3, 4));
+        assertTrue(graph.add(1, 5));
+        assertFalse(graph.add(1, 2));
+
+        assertArrayEquals(new int[] {2, 3, 4, 5}, sorted(graph.descendants(1)));
+        assertArrayEquals(new int[] {1, 2, 3}, sorted(graph.ancestors(4)));
+        assertArrayEquals(new int[0], graph.ancestors(42));
+        assertEquals(4, graph.edgeCount());
+    }
+
+    @Test
+    public void testRejectsCycles() {
+        DependencyGraph graph = DependencyGraph.of(new int[] {1, 2}, new int[] {2, 3});
+        graph.add(3, 4);
+
+        assertThrows(DependencyCycleException.class, () -> graph.add(4, 1));
+        assertThrows(DependencyCycleException.class, () -> graph.add(3, 2));
+        assertThrows(DependencyCycleException.class, () -> graph.add(5, 5));
+        assertFalse(graph.contains(4, 1));
+
+        assertTrue(graph.remove(2, 3));
+        assertTrue(graph.add(4, 1));
+    }
+
+    @Test
+    public void testTopologicalOrderAndBlockedTasks() {
+        DependencyGraph graph = DependencyGraph.of(new int[] {1, 1, 2, 3}, new int[] {2, 3, 4, 4});
+        int[] order = graph.topologicalOrder();
+        assertEquals(4, order.length);
+        assertTrue(positionOf(order, 1) < positionOf(order, 2));
+        assertTrue(positionOf(order, 3) < positionOf(order, 4));
+        assertTrue(positionOf(order, 2) < positionOf(order, 4));
+
+        assertArrayEquals(new int[] {2, 3, 4}, graph.blocked());
+        graph.setDone(1, true);
+        assertArrayEquals(new int[] {4}, graph.blocked());
+        graph.setDone(2, true);
+        graph.setDone(3, true);
+        assertArrayEquals(new int[0], graph.blocked());
+    }
+
+    @Test
+    public void testKeepsWorkingAcrossRebuilds() {
+        // A chain 0 -> 1 -> ... -> 4999, changed often enough to be rebuilt
+        DependencyGraph graph = new DependencyGraph();
+        for (int i = 0; i < 4999; i++) {
+            graph.add(i, i + 1);
+        }
+        graph.setDone(0, true);
+        for (int i = 0; i < 4999; i += 2) {
+            graph.remove(i, i + 1);
+        }
+
+        assertEquals(2499, graph.edgeCount());
+        assertArrayEquals(new int[] {3}, graph.ancestors(4));
+        assertTrue(graph.add(2, 3));
+        assertArrayEquals(new int[] {1, 2, 3}, sorted(graph.ancestors(4)));
+        assertThrows(DependencyCycleException.class, () -> graph.add(4, 1));
+        assertEquals(graph.nodeCount(), graph.topologicalOrder().length);
+        int[] blocked = graph.blocked();
+        assertEquals(-1, positionOf(blocked, 1));
+        assertTrue(positionOf(blocked, 2) >= 0);
+    }
+}
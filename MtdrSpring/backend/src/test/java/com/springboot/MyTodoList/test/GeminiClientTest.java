@@ -0,0 +1,231 @@
+package com.springboot.MyTodoList.test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.springboot.MyTodoList.service.llm.CircuitBreaker;
+import com.springboot.MyTodoList.service.llm.GeminiClient;
+import com.springboot.MyTodoList.service.llm.LlmUnavailableException;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Runs GeminiClient against a local stub of the Gemini API.
+ */
+public class GeminiClientTest {
+
+    private HttpServer server;
+    private GeminiClient client;
+    private final List<String> requestedPaths = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.start();
+        String modelUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/models/test";
+        client = new GeminiClient(modelUrl, "test-key", 2, 3, Duration.ofMillis(10), 3, Duration.ofMinutes(1));
+    }
+
+    @AfterEach
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    private static String chunk(String text) {
+        return "data: {\"candidates\":[{\"content\":{\"parts\":[{\"text\":\"" + text
+                + "\"}],\"role\":\"model\"}}]}\r\n\r\n";
+    }
+
+    private static final class StubResponse {
+        final int status;
+        final String contentType;
+        final String retryAfter;
+        final String[] parts;
+
+        StubResponse(int status, String contentType, String retryAfter, String... parts) {
+            this.status = status;
+            this.contentType = contentType;
+            this.retryAfter = retryAfter;
+            this.parts = parts;
+        }
+    }
+
+    private static StubResponse json(int status, String body) {
+        return new StubResponse(status, "application/json", null, body);
+    }
+
+    private static final String OVERLOADED = "{\"error\":{\"code\":503,\"message\":\"Overloaded\"}}";
+    private static final String SUMMARY = "{\"candidates\":[{\"content\":{\"parts\":[{\"text\":\"All good.\"}]}}]}";
+
+    /**
+     * Answers requests to path with the given responses in order, repeating the last one.
+     */
+    private void respond(String path, StubResponse... responses) {
+        Queue<StubResponse> queue = new ConcurrentLinkedQueue<>(List.of(responses));
+        server.createContext(path, exchange -> {
+            requestedPaths.add(exchange.getRequestURI().toString());
+            StubResponse response = queue.size() > 1 ? queue.poll() : queue.peek();
+            exchange.getRequestBody().readAllBytes();
+            exchange.getResponseHeaders().set("Content-Type", response.contentType);
+            if (response.retryAfter != null) {
+                exchange.getResponseHeaders().set("Retry-After", response.retryAfter);
+            }
+            exchange.sendResponseHeaders(response.status, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                for (String part : response.parts) {
+                    out.write(part.getBytes(StandardCharsets.UTF_8));
+                    out.flush();
+                }
+            }
+        });
+    }
+
+    private void respond(String path, int status, String contentType, String... parts) {
+        respond(path, new StubResponse(status, contentType, null, parts));
+    }
+
+    @Test
+    public void testStreamDeliversChunksInOrder() throws Exception {
+        respond("/models/test:streamGenerateContent", 200, "text/event-stream",
+                chunk("The team "), chunk("closed 12 tasks"), ": keep-alive\r\n\r\n", chunk("."));
+
+        List<String> chunks = new CopyOnWriteArrayList<>();
+        String text = client.stream("prompt", chunks::add).get(10, TimeUnit.SECONDS);
+
+        assertEquals(List.of("The team ", "closed 12 tasks", "."), chunks);
+        assertEquals("The team closed 12 tasks.", text);
+        assertEquals("/models/test:streamGenerateContent?alt=sse&key=test-key", requestedPaths.get(0));
+    }
+
+    @Test
+    public void testStreamErrorFailsWithApiMessage() {
+        respond("/models/test:streamGenerateContent", 429, "application/json",
+                "{\"error\":{\"code\":429,\"message\":\"Resource exhausted\"}}");
+
+        List<String> chunks = new CopyOnWriteArrayList<>();
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> client.stream("prompt", chunks::add).get(10, TimeUnit.SECONDS));
+
+        assertTrue(e.getCause() instanceof IOException);
+        assertTrue(e.getCause().getMessage().contains("Resource exhausted"));
+        assertTrue(chunks.isEmpty());
+    }
+
+    @Test
+    public void testGenerateReturnsWholeText() throws Exception {
+        respond("/models/test:generateContent", json(200, SUMMARY));
+
+        assertEquals("All good.", client.generate("prompt").get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testRetriesServerErrorsAndRateLimits() throws Exception {
+        respond("/models/test:generateContent",
+                json(503, OVERLOADED),
+                new StubResponse(429, "application/json", "0", "{}"),
+                json(200, SUMMARY));
+
+        assertEquals("All good.", client.generate("prompt").get(10, TimeUnit.SECONDS));
+        assertEquals(3, requestedPaths.size());
+        assertEquals(CircuitBreaker.State.CLOSED, client.getCircuitState());
+    }
+
+    @Test
+    public void testClientErrorsAreNotRetried() {
+        respond("/models/test:generateContent",
+                json(400, "{\"error\":{\"code\":400,\"message\":\"Bad prompt\"}}"));
+
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> client.generate("prompt").get(10, TimeUnit.SECONDS));
+
+        assertTrue(e.getCause().getMessage().contains("Bad prompt"));
+        assertEquals(1, requestedPaths.size());
+    }
+
+    @Test
+    public void testStreamIsNotRetriedAfterTextWasDelivered() {
+        // The connection drops before the announced length was sent
+        server.createContext("/models/test:streamGenerateContent", exchange -> {
+            requestedPaths.add(exchange.getRequestURI().toString());
+            exchange.getRequestBody().readAllBytes();
+            exchange.sendResponseHeaders(200, 1000);
+            exchange.getResponseBody().write(chunk("Partial").getBytes(StandardCharsets.UTF_8));
+            exchange.getResponseBody().flush();
+            exchange.close();
+        });
+
+        List<String> chunks = new CopyOnWriteArrayList<>();
+        assertThrows(ExecutionException.class,
+                () -> client.stream("prompt", chunks::add).get(10, TimeUnit.SECONDS));
+
+        assertEquals(List.of("Partial"), chunks);
+        assertEquals(1, requestedPaths.size());
+    }
+
+    @Test
+    public void testOpenCircuitFailsFast() throws Exception {
+        respond("/models/test:generateContent", json(503, OVERLOADED));
+
+        // Three attempts, three failures: the breaker opens
+        assertThrows(ExecutionException.class,
+                () -> client.generate("prompt").get(10, TimeUnit.SECONDS));
+        assertEquals(CircuitBreaker.State.OPEN, client.getCircuitState());
+        assertEquals(3, requestedPaths.size());
+
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> client.generate("prompt").get(10, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof LlmUnavailableException);
+        assertEquals(3, requestedPaths.size());
+    }
+
+    @Test
+    public void testRateLimitsDontOpenCircuit() {
+        respond("/models/test:generateContent",
+                new StubResponse(429, "application/json", "0", "{}"));
+
+        assertThrows(ExecutionException.class,
+                () -> client.generate("prompt").get(10, TimeUnit.SECONDS));
+        assertThrows(ExecutionException.class,
+                () -> client.generate("prompt").get(10, TimeUnit.SECONDS));
+        assertEquals(CircuitBreaker.State.CLOSED, client.getCircuitState());
+        assertEquals(6, requestedPaths.size());
+    }
+
+    @Test
+    public void testWaitingRetryDoesNotHoldPermit() throws Exception {
+        String modelUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/models/test";
+        GeminiClient single = new GeminiClient(
+                modelUrl, "test-key", 1, 2, Duration.ofMillis(10), 3, Duration.ofMinutes(1));
+        respond("/models/test:generateContent",
+                new StubResponse(429, "application/json", "1", "{}"),
+                json(200, SUMMARY));
+
+        CompletableFuture<String> first = single.generate("prompt");
+        while (requestedPaths.isEmpty()) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(200);
+
+        // The first call is waiting out Retry-After, its permit is free meanwhile
+        assertFalse(first.isDone());
+        assertEquals("All good.", single.generate("prompt").get(10, TimeUnit.SECONDS));
+        assertEquals("All good.", first.get(10, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,140 @@
+package com.springboot.MyTodoList.test;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.ComponentScan.Filter;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.springboot.MyTodoList.model.Sprint;
+import com.springboot.MyTodoList.model.User;
+import com.springboot.MyTodoList.repository.SprintRepository;
+import com.springboot.MyTodoList.repository.UserRepository;
+
+/**
+ * Checks against an in-memory database that sprint and user lookups are answered
+ * from the second-level and query caches, using the Hibernate statistics that
+ * application.properties turns on.
+ */
+@DataJpaTest
+// Every repository call gets its own persistence context, so only the shared
+// caches can save a trip to the database
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class HibernateCacheTest {
+
+    // Just the cached entities and their repositories, without the bot
+    @SpringBootConfiguration
+    @EntityScan(basePackageClasses = Sprint.class)
+    @EnableJpaRepositories(
+            basePackageClasses = SprintRepository.class,
+            includeFilters = @Filter(
+                    type = FilterType.ASSIGNABLE_TYPE,
+                    classes = {SprintRepository.class, UserRepository.class}))
+    static class Config {
+    }
+
+    private static final OffsetDateTime NOW = OffsetDateTime.of(2024, 3, 15, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    @Autowired
+    private SprintRepository sprintRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics stats;
+
+    @BeforeEach
+    public void setUp() {
+        sprintRepository.deleteAll();
+        userRepository.deleteAll();
+        stats = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private Sprint saveSprint(String name, int project) {
+        Sprint sprint = new Sprint();
+        sprint.setName(name);
+        sprint.setStartsAt(NOW.minusDays(7));
+        sprint.setEndsAt(NOW.plusDays(7));
+        sprint.setID_Project(project);
+        return sprintRepository.save(sprint);
+    }
+
+    private User saveUser(long telegramId, String name) {
+        return userRepository.save(new User(0, telegramId, name, "Dev"));
+    }
+
+    @Test
+    public void testSprintByIdFromSecondLevelCache() {
+        int id = saveSprint("Sprint 1", 1).getID_Sprint();
+        sprintRepository.findById(id);
+        stats.clear();
+
+        assertEquals("Sprint 1", sprintRepository.findById(id).get().getName());
+        assertTrue(stats.getSecondLevelCacheHitCount() >= 1);
+        assertEquals(0, stats.getPrepareStatementCount());
+    }
+
+    @Test
+    public void testSprintQueriesFromQueryCache() {
+        saveSprint("Sprint 1", 1);
+        saveSprint("Sprint 2", 2);
+        sprintRepository.findAll();
+        sprintRepository.findCurrentSprints(NOW);
+        sprintRepository.findCurrentSprintsByProject(NOW, 1);
+        stats.clear();
+
+        assertEquals(2, sprintRepository.findAll().size());
+        assertEquals(2, sprintRepository.findCurrentSprints(NOW).size());
+        assertEquals(1, sprintRepository.findCurrentSprintsByProject(NOW, 1).size());
+        assertEquals(3, stats.getQueryCacheHitCount());
+        assertEquals(0, stats.getQueryCacheMissCount());
+        // The sprints the cached queries point to come from the second-level cache
+        assertEquals(0, stats.getPrepareStatementCount());
+    }
+
+    @Test
+    public void testWritingSprintInvalidatesCachedQueries() {
+        saveSprint("Sprint 1", 1);
+        sprintRepository.findAll();
+
+        saveSprint("Sprint 2", 1);
+        stats.clear();
+
+        assertEquals(2, sprintRepository.findAll().size());
+        assertEquals(0, stats.getQueryCacheHitCount());
+        assertEquals(1, stats.getQueryCacheMissCount());
+    }
+
+    @Test
+    public void testUsersFromCaches() {
+        int id = saveUser(1L, "Ana").getID_User();
+        saveUser(2L, "Zoe");
+        userRepository.findAll();
+        userRepository.findById(id);
+        stats.clear();
+
+        assertEquals(2, userRepository.findAll().size());
+        assertEquals("Ana", userRepository.findById(id).get().getName());
+        assertEquals(1, stats.getQueryCacheHitCount());
+        assertTrue(stats.getSecondLevelCacheHitCount() >= 1);
+        assertEquals(0, stats.getPrepareStatementCount());
+    }
+}
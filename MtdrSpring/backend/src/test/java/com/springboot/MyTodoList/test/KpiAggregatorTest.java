@@ -0,0 +1,165 @@
+package com.springboot.MyTodoList.test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.Test;
+
+import com.springboot.MyTodoList.model.Sprint;
+import com.springboot.MyTodoList.model.Task;
+import com.springboot.MyTodoList.model.User;
+import com.springboot.MyTodoList.repository.TaskHoursAggregate;
+import com.springboot.MyTodoList.service.kpi.KpiAggregator;
+import com.springboot.MyTodoList.test.benchmark.LegacyKpiAggregation;
+import com.springboot.MyTodoList.test.benchmark.SyntheticData;
+
+public class KpiAggregatorTest {
+
+    private static Task task(int id, String state, Integer est, Integer real, int sprint, int user) {
+        Task task = new Task();
+        task.setID_Task(id);
+        task.setState(state);
+        task.setHoursEstimated(est);
+        task.setHoursReal(real);
+        task.setID_Sprint(sprint);
+        task.setAssignedTo(user);
+        return task;
+    }
+
+    // The views as the legacy code wrote them, built from the aggregator's totals
+
+    private static String teamPerformance(KpiAggregator aggregator) {
+        List<String> lines = new ArrayList<>();
+        aggregator.forEachSprint((sprint, completed, real, estimated) -> {
+            if (completed == 0 && real == 0) return;
+            lines.add(String.format(
+                    "- %s: %d tasks completed, %.1f total real hours.", sprint, completed, (double) real));
+        });
+        return String.join("\n", lines);
+    }
+
+    private static String individualPerformance(KpiAggregator aggregator) {
+        StringBuilder sb = new StringBuilder();
+        String[] current = {null};
+        aggregator.forEachUser((sprint, user, completed, real) -> {
+            if (!sprint.equals(current[0])) {
+                if (sb.length() > 0) sb.append("\n\n");
+                sb.append(sprint).append(":");
+                current[0] = sprint;
+            }
+            sb.append('\n').append(String.format("  - %s: %d tasks, %.1fh", user, completed, (double) real));
+        });
+        return sb.toString();
+    }
+
+    private static String estimationAccuracy(KpiAggregator aggregator) {
+        List<String> lines = new ArrayList<>();
+        aggregator.forEachSprint((sprint, completed, real, estimated) -> {
+            if (estimated == 0 && real == 0) return;
+            lines.add(String.format(
+                    "- %s: Est. %.1fh, Real %.1fh", sprint, (double) estimated, (double) real));
+        });
+        return String.join("\n", lines);
+    }
+
+    @Test
+    public void testViewsFromSingleScan() {
+        List<Sprint> sprints = List.of(
+                new Sprint(1, "Sprint B", null, null, 1),
+                new Sprint(2, "Sprint A", null, null, 1));
+        List<User> users = List.of(
+                new User(10, 1L, "Zoe", "Dev"),
+                new User(11, 2L, "Ana", "Dev"));
+        List<Task> tasks = List.of(
+                task(1, "DONE", 3, 4, 1, 10),
+                task(2, "done", 2, null, 1, 11),
+                task(3, "TODO", 4, 0, 1, 10),
+                task(4, "DONE", 1, 2, 2, 11),
+                task(5, "DONE", 2, 2, -1, 10),
+                task(6, "DONE", 5, 5, 99, 10), // unknown sprint
+                task(7, "DONE", 1, 1, 2, 42)); // unknown user
+
+        KpiAggregator aggregator = new KpiAggregator(sprints, users).addAll(tasks);
+
+        assertEquals(
+                "- Backlog / Unassigned: 1 tasks completed, 2.0 total real hours.\n"
+                        + "- Sprint A: 2 tasks completed, 3.0 total real hours.\n"
+                        + "- Sprint B: 2 tasks completed, 4.0 total real hours.",
+                teamPerformance(aggregator));
+        assertEquals(
+                "Backlog / Unassigned:\n"
+                        + "  - Zoe: 1 tasks, 2.0h\n\n"
+                        + "Sprint A:\n"
+                        + "  - Ana: 1 tasks, 2.0h\n\n"
+                        + "Sprint B:\n"
+                        + "  - Ana: 1 tasks, 0.0h\n"
+                        + "  - Zoe: 1 tasks, 4.0h",
+                individualPerformance(aggregator));
+        assertEquals(
+                "- Backlog / Unassigned: Est. 2.0h, Real 2.0h\n"
+                        + "- Sprint A: Est. 2.0h, Real 3.0h\n"
+                        + "- Sprint B: Est. 5.0h, Real 4.0h",
+                estimationAccuracy(aggregator));
+    }
+
+    @Test
+    public void testMatchesLegacyCalculations() {
+        List<Sprint> sprints = SyntheticData.sprints(12);
+        List<User> users = SyntheticData.users(9);
+        List<Task> tasks = SyntheticData.tasks(5_000, 14, 11, 7L);
+
+        KpiAggregator aggregator = new KpiAggregator(sprints, users).addAll(tasks);
+
+        assertEquals(
+                LegacyKpiAggregation.teamPerformance(tasks, sprints),
+                teamPerformance(aggregator));
+        assertEquals(
+                LegacyKpiAggregation.individualPerformance(tasks, users, sprints),
+                individualPerformance(aggregator));
+        assertEquals(
+                LegacyKpiAggregation.estimationAccuracy(tasks, sprints),
+                estimationAccuracy(aggregator));
+    }
+
+    private static TaskHoursAggregate row(int sprint, int user, long tasks, Long real, Long est) {
+        return new TaskHoursAggregate() {
+            public int getSprintId() { return sprint; }
+            public int getUserId() { return user; }
+            public long getCompletedTasks() { return tasks; }
+            public Long getRealHours() { return real; }
+            public Long getEstimatedHours() { return est; }
+        };
+    }
+
+    @Test
+    public void testAggregateRowsMatchTasks() {
+        List<Sprint> sprints = List.of(new Sprint(1, "Sprint 1", null, null, 1));
+        List<User> users = List.of(new User(10, 1L, "Zoe", "Dev"));
+        List<Task> tasks = List.of(
+                task(1, "DONE", 3, 4, 1, 10),
+                task(2, "DONE", 2, 1, 1, 10),
+                task(3, "DONE", null, null, -1, 10),
+                task(4, "DONE", 1, 1, 1, 42));
+        List<TaskHoursAggregate> rows = new ArrayList<>();
+        rows.add(row(1, 10, 2, 5L, 5L));
+        rows.add(row(-1, 10, 1, null, null));
+        rows.add(row(1, 42, 1, 1L, 1L));
+
+        KpiAggregator fromTasks = new KpiAggregator(sprints, users).addAll(tasks);
+        KpiAggregator fromRows = new KpiAggregator(sprints, users).addAggregates(rows);
+
+        assertEquals(teamPerformance(fromTasks), teamPerformance(fromRows));
+        assertEquals(individualPerformance(fromTasks), individualPerformance(fromRows));
+        assertEquals(estimationAccuracy(fromTasks), estimationAccuracy(fromRows));
+    }
+
+    @Test
+    public void testEmptyData() {
+        KpiAggregator aggregator = new KpiAggregator(List.of(), List.of());
+
+        assertEquals("", teamPerformance(aggregator));
+        assertEquals("", individualPerformance(aggregator));
+        assertEquals("", estimationAccuracy(aggregator));
+    }
+}
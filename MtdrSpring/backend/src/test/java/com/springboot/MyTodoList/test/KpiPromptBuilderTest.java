@@ -0,0 +1,118 @@
+package com.springboot.MyTodoList.test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import com.springboot.MyTodoList.model.Sprint;
+import com.springboot.MyTodoList.model.User;
+import com.springboot.MyTodoList.repository.TaskHoursAggregate;
+import com.springboot.MyTodoList.service.kpi.KpiPromptBuilder;
+import com.springboot.MyTodoList.test.benchmark.SyntheticData;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class KpiPromptBuilderTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private static TaskHoursAggregate row(int sprint, int user, long tasks, long real, long est) {
+        return new TaskHoursAggregate() {
+            public int getSprintId() { return sprint; }
+            public int getUserId() { return user; }
+            public long getCompletedTasks() { return tasks; }
+            public Long getRealHours() { return real; }
+            public Long getEstimatedHours() { return est; }
+        };
+    }
+
+    /**
+     * Every user completes one task in every sprint.
+     */
+    private static List<TaskHoursAggregate> everyoneEverySprint(List<Sprint> sprints, List<User> users) {
+        List<TaskHoursAggregate> rows = new ArrayList<>();
+        for (Sprint sprint : sprints) {
+            for (User user : users) {
+                rows.add(row(sprint.getID_Sprint(), user.getID_User(), 1, 3, 2));
+            }
+        }
+        return rows;
+    }
+
+    @Test
+    public void testCompactTablesNewestFirst() {
+        List<Sprint> sprints = SyntheticData.sprints(3);
+        List<User> users = List.of(new User(1, 1L, "Ana", "Dev"), new User(2, 2L, "Zoe", "Dev"));
+        List<TaskHoursAggregate> rows = List.of(
+                row(1, 1, 2, 5, 4),
+                row(3, 2, 1, 2, 3),
+                row(-1, 1, 1, 1, 1));
+
+        String prompt = new KpiPromptBuilder(registry, 1500, 6).build(rows, users, sprints);
+
+        assertTrue(prompt.contains(
+                "Sprints (sprint|done tasks|estimated h|real h):\n"
+                        + "Sprint 003|1|3|2\n"
+                        + "Sprint 001|2|4|5\n"
+                        + "Backlog / Unassigned|1|1|1\n"), prompt);
+        assertTrue(prompt.contains(
+                "Individual (sprint|user|done tasks|real h):\n"
+                        + "Sprint 003|Zoe|1|2\n"
+                        + "Sprint 001|Ana|2|5\n"
+                        + "Backlog / Unassigned|Ana|1|1\n"), prompt);
+        assertEquals(1, registry.get("kpi.prompt.size").summary().count());
+    }
+
+    @Test
+    public void testNamesCantBreakTheTables() {
+        List<Sprint> sprints = SyntheticData.sprints(1);
+        sprints.get(0).setName("Sprint 1 | Q3");
+        List<User> users = List.of(
+                new User(1, 1L, "Ana|Lead", "Dev"), new User(2, 2L, "Zoe \r\n Dev\n", "Dev"));
+        List<TaskHoursAggregate> rows = List.of(row(1, 1, 2, 5, 4), row(1, 2, 1, 2, 3));
+
+        String prompt = new KpiPromptBuilder(registry, 1500, 6).build(rows, users, sprints);
+
+        assertTrue(prompt.contains(
+                "Sprints (sprint|done tasks|estimated h|real h):\n"
+                        + "Sprint 1 \\| Q3|3|7|7\n"), prompt);
+        assertTrue(prompt.contains(
+                "Individual (sprint|user|done tasks|real h):\n"
+                        + "Sprint 1 \\| Q3|Ana\\|Lead|2|5\n"
+                        + "Sprint 1 \\| Q3|Zoe Dev|1|2\n"), prompt);
+    }
+
+    @Test
+    public void testOlderSprintsRolledUp() {
+        List<Sprint> sprints = SyntheticData.sprints(10);
+        List<User> users = SyntheticData.users(2);
+
+        String prompt = new KpiPromptBuilder(registry, 1500, 3)
+                .build(everyoneEverySprint(sprints, users), users, sprints);
+
+        assertTrue(prompt.contains("Sprint 010|2|4|6\nSprint 009|2|4|6\nSprint 008|2|4|6\n"
+                + "Earlier (7 sprints)|14|28|42\n"), prompt);
+        assertFalse(prompt.contains("Sprint 007"));
+        assertEquals(0.0, registry.get("kpi.prompt.reduced").counter().count());
+    }
+
+    @Test
+    public void testStaysWithinBudgetDeterministically() {
+        List<Sprint> sprints = SyntheticData.sprints(20);
+        List<User> users = SyntheticData.users(200);
+        List<TaskHoursAggregate> rows = everyoneEverySprint(sprints, users);
+        KpiPromptBuilder builder = new KpiPromptBuilder(registry, 400, 6);
+
+        String prompt = builder.build(rows, users, sprints);
+
+        assertTrue(KpiPromptBuilder.estimateTokens(prompt) <= 400, prompt);
+        assertTrue(prompt.contains("Earlier (20 sprints)|4000|8000|12000"), prompt);
+        assertTrue(prompt.contains("more rows omitted)"), prompt);
+        assertEquals(prompt, builder.build(new ArrayList<>(rows), users, sprints));
+        assertEquals(2.0, registry.get("kpi.prompt.reduced").counter().count());
+    }
+}
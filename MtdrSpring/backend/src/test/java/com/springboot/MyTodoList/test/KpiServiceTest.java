@@ -0,0 +1,166 @@
+package com.springboot.MyTodoList.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.springboot.MyTodoList.model.Sprint;
+import com.springboot.MyTodoList.model.User;
+import com.springboot.MyTodoList.repository.TaskHoursAggregate;
+import com.springboot.MyTodoList.service.KpiService;
+import com.springboot.MyTodoList.service.SprintService;
+import com.springboot.MyTodoList.service.UserService;
+import com.springboot.MyTodoList.service.kpi.KpiPromptBuilder;
+import com.springboot.MyTodoList.service.kpi.KpiSnapshotCache;
+import com.springboot.MyTodoList.service.kpi.KpiSnapshotCache.KpiSnapshot;
+import com.springboot.MyTodoList.service.llm.LlmUnavailableException;
+import com.springboot.MyTodoList.test.util.FakeLlmClient;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+public class KpiServiceTest {
+    @Mock
+    private KpiSnapshotCache kpiSnapshotCache;
+
+    @Mock
+    private KpiSnapshot snapshot;
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private SprintService sprintService;
+
+    private FakeLlmClient llm;
+    private KpiService kpiService;
+
+    private static TaskHoursAggregate row(int sprint, int user, long tasks, long hours) {
+        return new TaskHoursAggregate() {
+            public int getSprintId() { return sprint; }
+            public int getUserId() { return user; }
+            public long getCompletedTasks() { return tasks; }
+            public Long getRealHours() { return hours; }
+            public Long getEstimatedHours() { return hours; }
+        };
+    }
+
+    @BeforeEach
+    public void setUp() {
+        llm = new FakeLlmClient();
+        kpiService = new KpiService();
+        ReflectionTestUtils.setField(kpiService, "kpiSnapshotCache", kpiSnapshotCache);
+        ReflectionTestUtils.setField(kpiService, "userService", userService);
+        ReflectionTestUtils.setField(kpiService, "sprintService", sprintService);
+        ReflectionTestUtils.setField(kpiService, "llmClient", llm);
+        ReflectionTestUtils.setField(kpiService, "executor", (Executor) Runnable::run);
+        ReflectionTestUtils.setField(kpiService, "kpiPromptBuilder",
+                new KpiPromptBuilder(new SimpleMeterRegistry(), 1500, 6));
+
+        lenient().when(kpiSnapshotCache.snapshot()).thenReturn(snapshot);
+        lenient().when(snapshot.getRows()).thenReturn(List.of(row(1, 10, 3, 12)));
+        lenient().when(userService.findAll()).thenReturn(List.of(new User(10, 1L, "Ana", "Dev")));
+        lenient().when(sprintService.findAll())
+                .thenReturn(List.of(new Sprint(1, "Sprint 1", null, null, 1)));
+    }
+
+    @Test
+    public void testIdenticalRequestsShareOneCall() throws Exception {
+        llm.hold();
+
+        CompletableFuture<String> first = kpiService.generateKpiSummaryAsync();
+        CompletableFuture<String> second = kpiService.generateKpiSummaryAsync();
+        assertFalse(first.isDone());
+        assertFalse(second.isDone());
+
+        llm.release();
+        assertEquals("Fake summary.", first.get());
+        assertEquals("Fake summary.", second.get());
+        assertEquals(1, llm.getPrompts().size());
+        assertTrue(llm.getPrompts().get(0).contains("Sprint 1|3|12|12"));
+    }
+
+    @Test
+    public void testBuildsThePromptOffTheCallingThread() throws Exception {
+        List<Runnable> queued = new ArrayList<>();
+        ReflectionTestUtils.setField(kpiService, "executor", (Executor) queued::add);
+
+        CompletableFuture<String> summary = kpiService.generateKpiSummaryAsync();
+        assertFalse(summary.isDone());
+        verify(userService, never()).findAll();
+        verify(sprintService, never()).findAll();
+
+        queued.forEach(Runnable::run);
+        assertEquals("Fake summary.", summary.get());
+    }
+
+    @Test
+    public void testUnchangedDataReusesSummary() throws Exception {
+        assertEquals("Fake summary.", kpiService.generateKpiSummary());
+        llm.respondWith("Another summary.");
+
+        assertEquals("Fake summary.", kpiService.generateKpiSummary());
+        assertEquals(1, llm.getPrompts().size());
+    }
+
+    @Test
+    public void testNewSnapshotVersionAsksAgain() throws Exception {
+        when(snapshot.getVersion()).thenReturn(1L, 1L, 2L);
+
+        assertEquals("Fake summary.", kpiService.generateKpiSummary());
+        llm.respondWith("Another summary.");
+        assertEquals("Fake summary.", kpiService.generateKpiSummary());
+        assertEquals("Another summary.", kpiService.generateKpiSummary());
+
+        assertEquals(2, llm.getPrompts().size());
+        // Users and sprints are only read when the version moves
+        verify(userService, times(2)).findAll();
+        verify(sprintService, times(2)).findAll();
+    }
+
+    @Test
+    public void testStreamForwardsPartialText() throws Exception {
+        llm.respondWith("Three tasks done.");
+        List<String> chunks = new CopyOnWriteArrayList<>();
+
+        assertEquals("Three tasks done.", kpiService.streamKpiSummary(chunks::add).get());
+        assertEquals(List.of("Three ", "tasks ", "done."), chunks);
+    }
+
+    @Test
+    public void testUnavailableModelIsReported() {
+        llm.failWith(new LlmUnavailableException("AI service is temporarily unavailable."));
+
+        assertThrows(LlmUnavailableException.class, () -> kpiService.generateKpiSummary());
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> kpiService.generateKpiSummaryAsync().get());
+        assertTrue(e.getCause() instanceof LlmUnavailableException);
+    }
+
+    @Test
+    public void testDisabledWithoutCallingModel() throws Exception {
+        llm.unconfigured();
+
+        assertTrue(KpiService.isDisabledMessage(kpiService.generateKpiSummary()));
+        assertTrue(llm.getPrompts().isEmpty());
+    }
+}
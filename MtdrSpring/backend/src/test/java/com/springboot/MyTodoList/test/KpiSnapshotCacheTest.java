@@ -0,0 +1,142 @@
+package com.springboot.MyTodoList.test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.springboot.MyTodoList.model.Task;
+import com.springboot.MyTodoList.repository.TaskHoursAggregate;
+import com.springboot.MyTodoList.repository.TaskRepository;
+import com.springboot.MyTodoList.service.kpi.KpiSnapshotCache;
+import com.springboot.MyTodoList.service.kpi.KpiSnapshotCache.KpiSnapshot;
+import com.springboot.MyTodoList.service.kpi.KpiSnapshotCache.TaskContribution;
+
+@ExtendWith(MockitoExtension.class)
+public class KpiSnapshotCacheTest {
+
+    @Mock
+    private TaskRepository taskRepository;
+
+    private AtomicLong clock;
+    private KpiSnapshotCache cache;
+
+    private static TaskHoursAggregate row(int sprint, int user, long tasks, long hours) {
+        return new TaskHoursAggregate() {
+            public int getSprintId() { return sprint; }
+            public int getUserId() { return user; }
+            public long getCompletedTasks() { return tasks; }
+            public Long getRealHours() { return hours; }
+            public Long getEstimatedHours() { return hours; }
+        };
+    }
+
+    private static TaskContribution task(int sprint, int user, String state, int hours) {
+        Task task = new Task();
+        task.setID_Sprint(sprint);
+        task.setAssignedTo(user);
+        task.setState(state);
+        task.setHoursReal(hours);
+        task.setHoursEstimated(hours);
+        return TaskContribution.of(task);
+    }
+
+    @BeforeEach
+    public void setUp() {
+        clock = new AtomicLong();
+        cache = new KpiSnapshotCache(taskRepository, Duration.ofMinutes(5), clock::get);
+    }
+
+    @Test
+    public void testAppliesChangesWithoutReadingAgain() {
+        when(taskRepository.sumCompletedHoursBySprintAndUser())
+            .thenReturn(List.of(row(1, 10, 2, 8)));
+
+        KpiSnapshot loaded = cache.snapshot();
+        cache.apply(null, task(1, 10, "DONE", 3));
+        KpiSnapshot created = cache.snapshot();
+        // Changes that don't touch finished tasks keep the version
+        cache.apply(task(1, 10, "TODO", 1), task(1, 10, "DOING", 2));
+        KpiSnapshot unchanged = cache.snapshot();
+        cache.apply(task(1, 10, "DONE", 3), null);
+        cache.apply(task(1, 10, "DONE", 8), null);
+        KpiSnapshot deleted = cache.snapshot();
+
+        assertEquals(2, loaded.getRows().get(0).getCompletedTasks());
+        assertEquals(loaded.getVersion() + 1, created.getVersion());
+        assertEquals(3, created.getRows().get(0).getCompletedTasks());
+        assertEquals(11L, created.getRows().get(0).getRealHours());
+        assertSame(created, unchanged);
+        assertEquals(1, deleted.getRows().get(0).getCompletedTasks());
+        verify(taskRepository, times(1)).sumCompletedHoursBySprintAndUser();
+    }
+
+    @Test
+    public void testCountsDoneInAnyCaseLikeTheRebuild() {
+        when(taskRepository.sumCompletedHoursBySprintAndUser())
+            .thenReturn(List.of(row(1, 10, 2, 8)));
+
+        cache.snapshot();
+        // KpiAggregator and the query both count "done" as finished
+        cache.apply(null, task(1, 10, "done", 3));
+        cache.apply(task(1, 10, "TODO", 1), task(1, 10, "Done", 1));
+
+        assertEquals(4, cache.snapshot().getRows().get(0).getCompletedTasks());
+    }
+
+    @Test
+    public void testIgnoresChangesBeforeLoading() {
+        when(taskRepository.sumCompletedHoursBySprintAndUser())
+            .thenReturn(List.of(row(1, 10, 2, 8)));
+
+        // The load will read this change from the database
+        cache.apply(null, task(1, 10, "DONE", 3));
+
+        assertEquals(2, cache.snapshot().getRows().get(0).getCompletedTasks());
+    }
+
+    @Test
+    public void testInvalidateReadsAgain() {
+        when(taskRepository.sumCompletedHoursBySprintAndUser())
+            .thenReturn(List.of(row(1, 10, 2, 8)))
+            .thenReturn(List.of(row(1, 10, 5, 20)));
+
+        KpiSnapshot first = cache.snapshot();
+        cache.invalidate();
+        cache.apply(null, task(1, 10, "DONE", 3));
+        KpiSnapshot second = cache.snapshot();
+
+        assertEquals(5, second.getRows().get(0).getCompletedTasks());
+        assertTrue(second.getVersion() > first.getVersion());
+        verify(taskRepository, times(2)).sumCompletedHoursBySprintAndUser();
+    }
+
+    @Test
+    public void testReloadsOnceOlderThanMaxAge() {
+        when(taskRepository.sumCompletedHoursBySprintAndUser())
+            .thenReturn(List.of(row(1, 10, 2, 8)))
+            .thenReturn(List.of(row(1, 10, 4, 16)));
+
+        KpiSnapshot first = cache.snapshot();
+        clock.addAndGet(Duration.ofMinutes(4).toNanos());
+        KpiSnapshot young = cache.snapshot();
+        clock.addAndGet(Duration.ofMinutes(2).toNanos());
+        KpiSnapshot old = cache.snapshot();
+
+        assertSame(first, young);
+        assertEquals(4, old.getRows().get(0).getCompletedTasks());
+        assertTrue(old.getVersion() > first.getVersion());
+        verify(taskRepository, times(2)).sumCompletedHoursBySprintAndUser();
+    }
+}
@@ -0,0 +1,72 @@
+package com.springboot.MyTodoList.test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.springboot.MyTodoList.service.KpiService;
+import com.springboot.MyTodoList.service.kpi.KpiSummaryJobs;
+import com.springboot.MyTodoList.service.kpi.KpiSummaryJobs.Job;
+
+@ExtendWith(MockitoExtension.class)
+public class KpiSummaryJobsTest {
+
+    @Mock
+    private KpiService kpiService;
+
+    private AtomicReference<Instant> clock;
+    private KpiSummaryJobs jobs;
+
+    @BeforeEach
+    public void setUp() {
+        clock = new AtomicReference<>(Instant.parse("2024-05-01T10:00:00Z"));
+        jobs = new KpiSummaryJobs(kpiService, Duration.ofMinutes(10), clock::get);
+    }
+
+    private void advance(Duration duration) {
+        clock.set(clock.get().plus(duration));
+    }
+
+    @Test
+    public void testDropsFinishedJobsAfterTheRetention() {
+        when(kpiService.generateKpiSummaryAsync())
+            .thenReturn(CompletableFuture.completedFuture("Summary."));
+
+        Job job = jobs.submit();
+        advance(Duration.ofMinutes(9));
+        jobs.evictFinished();
+        assertEquals("Summary.", jobs.find(job.getId()).get().getSummary());
+
+        advance(Duration.ofMinutes(2));
+        jobs.evictFinished();
+        assertFalse(jobs.find(job.getId()).isPresent());
+    }
+
+    @Test
+    public void testKeepsPendingJobs() {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        when(kpiService.generateKpiSummaryAsync()).thenReturn(result);
+
+        Job job = jobs.submit();
+        advance(Duration.ofHours(1));
+        jobs.evictFinished();
+        assertEquals(KpiSummaryJobs.Status.PENDING, jobs.find(job.getId()).get().getStatus());
+
+        // The retention counts from when it finished
+        result.complete("Summary.");
+        advance(Duration.ofMinutes(5));
+        jobs.evictFinished();
+        assertTrue(jobs.find(job.getId()).isPresent());
+    }
+}
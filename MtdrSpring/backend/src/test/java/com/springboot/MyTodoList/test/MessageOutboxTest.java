@@ -0,0 +1,121 @@
+package com.springboot.MyTodoList.test;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import com.springboot.MyTodoList.model.Message;
+import com.springboot.MyTodoList.service.notification.MessageOutbox;
+
+@ExtendWith(MockitoExtension.class)
+public class MessageOutboxTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private JdbcTemplate claimTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Captor
+    private ArgumentCaptor<String> sql;
+
+    @Captor
+    private ArgumentCaptor<List<Object[]>> rows;
+
+    private MessageOutbox outbox;
+
+    @BeforeEach
+    public void setUp() {
+        outbox = new MessageOutbox(
+            jdbcTemplate, claimTemplate, transactionManager, 2, 5, Duration.ofMinutes(1));
+    }
+
+    private static Message message(int id, int userId) {
+        return new Message(id, "Hello " + id, LocalDateTime.of(2024, 5, 1, 10, id), userId);
+    }
+
+    @Test
+    public void testClaimsOldestFirstAndLeasesInTheSameTransaction() {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(claimTemplate.query(anyString(), any(RowMapper.class), eq(5)))
+            .thenReturn(List.of(message(1, 10), message(2, 11)));
+
+        List<Message> claimed = outbox.claim();
+
+        assertEquals(2, claimed.size());
+        // Only a batch is read, and only those rows are locked
+        verify(claimTemplate).setMaxRows(2);
+        verify(claimTemplate).query(sql.capture(), any(RowMapper.class), eq(5));
+        assertTrue(sql.getValue().contains("ORDER BY POSTED_AT, ID_MESSAGE FOR UPDATE SKIP LOCKED"),
+            sql.getValue());
+        verify(jdbcTemplate).batchUpdate(sql.capture(), rows.capture());
+        assertTrue(sql.getValue().startsWith("UPDATE MESSAGES SET ATTEMPTS = ATTEMPTS + 1"));
+        assertArrayEquals(new Object[] {60L, 1}, rows.getValue().get(0));
+        assertArrayEquals(new Object[] {60L, 2}, rows.getValue().get(1));
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    public void testNothingToClaimLeasesNothing() {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(claimTemplate.query(anyString(), any(RowMapper.class), eq(5))).thenReturn(List.of());
+
+        assertTrue(outbox.claim().isEmpty());
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    public void testMarksDeliveredInOneBatch() {
+        LocalDateTime now = LocalDateTime.of(2024, 5, 1, 10, 30);
+
+        outbox.markDelivered(List.of(1, 2), now);
+
+        verify(jdbcTemplate).batchUpdate(sql.capture(), rows.capture());
+        assertTrue(sql.getValue().startsWith("UPDATE MESSAGES SET DELIVERED_AT = ?"));
+        assertArrayEquals(new Object[] {Timestamp.valueOf(now), 1}, rows.getValue().get(0));
+        assertArrayEquals(new Object[] {Timestamp.valueOf(now), 2}, rows.getValue().get(1));
+    }
+
+    @Test
+    public void testGivingUpUsesEveryAttempt() {
+        outbox.giveUp(List.of(3));
+
+        verify(jdbcTemplate).batchUpdate(sql.capture(), rows.capture());
+        assertTrue(sql.getValue().startsWith("UPDATE MESSAGES SET ATTEMPTS = ?"));
+        assertArrayEquals(new Object[] {5, 3}, rows.getValue().get(0));
+    }
+
+    @Test
+    public void testEmptyUpdatesSkipTheDatabase() {
+        outbox.markDelivered(List.of(), LocalDateTime.now());
+        outbox.giveUp(List.of());
+
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+}
@@ -0,0 +1,103 @@
+package com.springboot.MyTodoList.test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.springboot.MyTodoList.model.User;
+import com.springboot.MyTodoList.repository.MessageRepository;
+import com.springboot.MyTodoList.repository.UserRepository;
+import com.springboot.MyTodoList.service.MessageService;
+import com.springboot.MyTodoList.service.MessageService.Broadcast;
+import com.springboot.MyTodoList.service.notification.MessageOutbox;
+import com.springboot.MyTodoList.service.notification.NotificationDispatcher;
+
+@ExtendWith(MockitoExtension.class)
+public class MessageServiceTest {
+
+    @Mock
+    private MessageRepository messageRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private MessageOutbox messageOutbox;
+
+    @Mock
+    private NotificationDispatcher notificationDispatcher;
+
+    private MessageService messageService;
+
+    @BeforeEach
+    public void setUp() {
+        messageService = new MessageService();
+        ReflectionTestUtils.setField(messageService, "messageRepository", messageRepository);
+        ReflectionTestUtils.setField(messageService, "userRepository", userRepository);
+        ReflectionTestUtils.setField(messageService, "messageOutbox", messageOutbox);
+        ReflectionTestUtils.setField(messageService, "notificationDispatcher", notificationDispatcher);
+    }
+
+    private static Broadcast broadcast(String content, Integer... userIds) {
+        Broadcast broadcast = new Broadcast();
+        broadcast.setContent(content);
+        broadcast.setUserIds(List.of(userIds));
+        return broadcast;
+    }
+
+    @Test
+    public void testBroadcastToEveryUser() {
+        when(userRepository.findAll()).thenReturn(List.of(
+            new User(1, 100L, "Ana", "Developer"),
+            new User(2, 200L, "Luis", "Manager")));
+
+        assertEquals(2, messageService.broadcast(broadcast("Standup in 5")));
+
+        verify(messageOutbox).insert(eq("Standup in 5"), eq(List.of(1, 2)), any(LocalDateTime.class));
+        verify(notificationDispatcher).wakeUp();
+    }
+
+    @Test
+    public void testBroadcastToListedUsers() {
+        when(userRepository.findAllById(any())).thenReturn(List.of(new User(2, 200L, "Luis", "Manager")));
+
+        assertEquals(1, messageService.broadcast(broadcast("Review today", 2)));
+
+        verify(messageOutbox).insert(eq("Review today"), eq(List.of(2)), any(LocalDateTime.class));
+        verify(notificationDispatcher).wakeUp();
+    }
+
+    @Test
+    public void testBroadcastToUnknownUserStoresNothing() {
+        when(userRepository.findAllById(any())).thenReturn(List.of(new User(2, 200L, "Luis", "Manager")));
+
+        assertThrows(IllegalArgumentException.class, () -> messageService.broadcast(broadcast("Hi", 2, 9)));
+
+        verify(messageOutbox, never()).insert(anyString(), anyList(), any());
+        verify(notificationDispatcher, never()).wakeUp();
+    }
+
+    @Test
+    public void testBroadcastWithoutContentIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> messageService.broadcast(broadcast(null)));
+        assertThrows(IllegalArgumentException.class, () -> messageService.broadcast(broadcast("  ")));
+
+        verify(userRepository, never()).findAll();
+        verify(messageOutbox, never()).insert(anyString(), anyList(), any());
+    }
+}
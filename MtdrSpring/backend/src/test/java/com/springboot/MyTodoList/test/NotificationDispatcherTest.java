@@ -0,0 +1,79 @@
+package com.springboot.MyTodoList.test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.springboot.MyTodoList.bot.TelegramBot;
+import com.springboot.MyTodoList.service.notification.MessageOutbox;
+import com.springboot.MyTodoList.service.notification.NotificationDispatcher;
+import com.springboot.MyTodoList.service.notification.RecipientCache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+public class NotificationDispatcherTest {
+
+    @Mock
+    private MessageOutbox outbox;
+
+    @Mock
+    private RecipientCache recipients;
+
+    @Mock
+    private TelegramBot bot;
+
+    @Mock
+    private ExecutorService executor;
+
+    @Captor
+    private ArgumentCaptor<Runnable> run;
+
+    private NotificationDispatcher dispatcher;
+
+    @BeforeEach
+    public void setUp() {
+        dispatcher = new NotificationDispatcher(
+            outbox, recipients, bot, executor, new SimpleMeterRegistry(), Duration.ofSeconds(1));
+    }
+
+    @Test
+    public void testPollAndWakeUpOnlyQueueOneRun() {
+        dispatcher.poll();
+        dispatcher.wakeUp();
+        dispatcher.wakeUp();
+
+        // Nothing is claimed on the calling threads
+        verify(executor, times(1)).execute(run.capture());
+        verify(outbox, never()).claim();
+
+        when(outbox.claim()).thenReturn(List.of());
+        when(outbox.getBatchSize()).thenReturn(100);
+        run.getValue().run();
+        verify(outbox, times(1)).claim();
+
+        // Once the run has started, a new request queues another one
+        dispatcher.wakeUp();
+        verify(executor, times(2)).execute(any());
+    }
+
+    @Test
+    public void testShutdownStopsTheDispatcherThread() {
+        dispatcher.shutdown();
+
+        verify(executor).shutdownNow();
+    }
+}
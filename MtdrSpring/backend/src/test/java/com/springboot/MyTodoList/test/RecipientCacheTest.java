@@ -0,0 +1,67 @@
+package com.springboot.MyTodoList.test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.springboot.MyTodoList.model.User;
+import com.springboot.MyTodoList.repository.UserRepository;
+import com.springboot.MyTodoList.service.notification.RecipientCache;
+
+@ExtendWith(MockitoExtension.class)
+public class RecipientCacheTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private AtomicLong clock;
+    private RecipientCache cache;
+
+    @BeforeEach
+    public void setUp() {
+        clock = new AtomicLong();
+        cache = new RecipientCache(userRepository, Duration.ofMinutes(10), clock::get);
+    }
+
+    @Test
+    public void testReadsMissingUsersInOneQuery() {
+        when(userRepository.findAllById(any())).thenReturn(List.of(
+            new User(1, 100L, "Ana", "Developer"),
+            new User(2, null, "Luis", "Manager")));
+
+        Map<Integer, Long> chats = cache.chatsOf(Arrays.asList(1, 2, 3, 1));
+        Map<Integer, Long> again = cache.chatsOf(Set.of(1, 2, 3));
+
+        assertEquals(Map.of(1, 100L), chats);
+        assertEquals(Map.of(1, 100L), again);
+        verify(userRepository, times(1)).findAllById(any());
+    }
+
+    @Test
+    public void testReadsAgainWhenExpiredOrInvalidated() {
+        when(userRepository.findAllById(any()))
+            .thenReturn(List.of(new User(1, 100L, "Ana", "Developer")))
+            .thenReturn(List.of(new User(1, 200L, "Ana", "Developer")))
+            .thenReturn(List.of(new User(1, 300L, "Ana", "Developer")));
+
+        assertEquals(Map.of(1, 100L), cache.chatsOf(List.of(1)));
+        clock.addAndGet(Duration.ofMinutes(11).toNanos());
+        assertEquals(Map.of(1, 200L), cache.chatsOf(List.of(1)));
+        cache.invalidate(1);
+        assertEquals(Map.of(1, 300L), cache.chatsOf(List.of(1)));
+    }
+}
@@ -0,0 +1,74 @@
+package com.springboot.MyTodoList.test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springboot.MyTodoList.controller.TaskController;
+import com.springboot.MyTodoList.model.Task;
+import com.springboot.MyTodoList.service.TaskExportService;
+import com.springboot.MyTodoList.service.TaskService;
+import com.springboot.MyTodoList.service.TaskService.BatchItemResult;
+import com.springboot.MyTodoList.service.TaskService.BatchItemResult.Status;
+
+@ExtendWith(MockitoExtension.class)
+public class TaskControllerTest {
+
+    @Mock
+    private TaskService taskService;
+
+    @Mock
+    private TaskExportService taskExportService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private TaskController controller;
+
+    @BeforeEach
+    public void setUp() {
+        controller = new TaskController(taskService, taskExportService);
+    }
+
+    private List<JsonNode> patches(String... json) throws Exception {
+        List<JsonNode> patches = new ArrayList<>();
+        for (String patch : json) {
+            patches.add(patch != null ? objectMapper.readTree(patch) : null);
+        }
+        return patches;
+    }
+
+    @Test
+    public void testConcurrentWriteFailsBatchWithConflict() throws Exception {
+        // A write that committed between reading task 7 and flushing the batch
+        when(taskService.updateTasks(anyList()))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Task.class, 7));
+
+        ResponseEntity<List<BatchItemResult>> response = controller.updateTasks(patches(
+                "{\"id_Task\": 1, \"state\": \"DONE\"}",
+                "{\"id_Task\": 7, \"state\": \"DONE\"}",
+                null,
+                "{\"id_Task\": 7, \"hoursReal\": 3}"));
+
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        List<BatchItemResult> conflicts = response.getBody();
+        assertEquals(2, conflicts.size());
+        assertEquals(1, conflicts.get(0).getIndex());
+        assertEquals(3, conflicts.get(1).getIndex());
+        for (BatchItemResult conflict : conflicts) {
+            assertEquals(7, conflict.getId());
+            assertEquals(Status.CONFLICT, conflict.getStatus());
+        }
+    }
+}
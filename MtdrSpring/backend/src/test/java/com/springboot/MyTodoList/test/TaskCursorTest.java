@@ -0,0 +1,55 @@
+package com.springboot.MyTodoList.test;
+
+import java.time.OffsetDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import com.springboot.MyTodoList.model.Task;
+import com.springboot.MyTodoList.repository.TaskCursor;
+import com.springboot.MyTodoList.repository.TaskSort;
+
+/**
+ * Tests for the sort and cursor parameters of the task search.
+ */
+public class TaskCursorTest {
+
+    @Test
+    public void testParsesSortParameter() {
+        TaskSort sort = TaskSort.parse("dueDate,desc");
+        assertEquals(TaskSort.Key.DUE_DATE, sort.getKey());
+        assertTrue(sort.isDescending());
+        assertEquals(TaskSort.Key.STORY_POINTS, TaskSort.parse("storyPoints").getKey());
+        assertThrows(IllegalArgumentException.class, () -> TaskSort.parse("description"));
+        assertThrows(IllegalArgumentException.class, () -> TaskSort.parse("id,sideways"));
+    }
+
+    @Test
+    public void testCursorRoundTrip() {
+        TaskSort sort = TaskSort.parse("dueDate");
+        Task task = new Task();
+        task.setID_Task(42);
+        task.setFinishesAt(OffsetDateTime.parse("2024-01-15T17:00:00+01:00"));
+
+        String cursor = TaskCursor.of(sort, task).encode();
+        assertEquals(cursor, TaskCursor.decode(cursor, sort).encode());
+
+        task.setFinishesAt(null);
+        String nullCursor = TaskCursor.of(sort, task).encode();
+        assertEquals(nullCursor, TaskCursor.decode(nullCursor, sort).encode());
+    }
+
+    @Test
+    public void testRejectsCursorOfAnotherSort() {
+        Task task = new Task();
+        task.setID_Task(7);
+        String cursor = TaskCursor.of(TaskSort.DEFAULT, task).encode();
+
+        assertThrows(IllegalArgumentException.class,
+            () -> TaskCursor.decode(cursor, TaskSort.parse("createdAt")));
+        assertThrows(IllegalArgumentException.class,
+            () -> TaskCursor.decode("not a cursor!", TaskSort.DEFAULT));
+    }
+}
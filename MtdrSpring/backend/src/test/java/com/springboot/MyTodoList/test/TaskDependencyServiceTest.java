@@ -0,0 +1,99 @@
+package com.springboot.MyTodoList.test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.springboot.MyTodoList.model.Task;
+import com.springboot.MyTodoList.model.TaskDependency;
+import com.springboot.MyTodoList.repository.TaskDependencyRepository;
+import com.springboot.MyTodoList.repository.TaskRepository;
+import com.springboot.MyTodoList.service.TaskDependencyService;
+import com.springboot.MyTodoList.service.graph.DependencyCycleException;
+import com.springboot.MyTodoList.service.graph.SprintSchedules;
+import com.springboot.MyTodoList.service.graph.TaskDependencyIndex;
+
+@ExtendWith(MockitoExtension.class)
+public class TaskDependencyServiceTest {
+
+    @Mock
+    private TaskDependencyRepository taskDependencyRepository;
+
+    @Mock
+    private TaskRepository taskRepository;
+
+    @Mock
+    private TaskDependencyIndex taskDependencyIndex;
+
+    @Mock
+    private SprintSchedules sprintSchedules;
+
+    private TaskDependencyService service;
+
+    @BeforeEach
+    public void setUp() {
+        service = new TaskDependencyService();
+        ReflectionTestUtils.setField(service, "taskDependencyRepository", taskDependencyRepository);
+        ReflectionTestUtils.setField(service, "taskRepository", taskRepository);
+        ReflectionTestUtils.setField(service, "taskDependencyIndex", taskDependencyIndex);
+        ReflectionTestUtils.setField(service, "sprintSchedules", sprintSchedules);
+    }
+
+    private static Task task(int id, String state) {
+        Task task = new Task();
+        task.setID_Task(id);
+        task.setState(state);
+        return task;
+    }
+
+    @Test
+    public void testLocksBothTasksAndChecksTheDatabaseBeforeSaving() {
+        TaskDependency dependency = new TaskDependency(1, 2);
+        when(taskRepository.lockAll(List.of(1, 2))).thenReturn(List.of(task(1, "DONE"), task(2, "TODO")));
+        when(taskDependencyRepository.saveAndFlush(dependency)).thenReturn(dependency);
+
+        assertSame(dependency, service.addTaskDependency(dependency));
+
+        InOrder order = inOrder(taskRepository, taskDependencyIndex, taskDependencyRepository);
+        order.verify(taskRepository).lockAll(List.of(1, 2));
+        order.verify(taskDependencyIndex).add(1, 2, true, false);
+        order.verify(taskDependencyRepository).countPaths(2, 1);
+        order.verify(taskDependencyRepository).saveAndFlush(dependency);
+    }
+
+    @Test
+    public void testRejectsCycleOnlyTheDatabaseKnowsAbout() {
+        // Another replica saved 2 -> 1 after this replica loaded its graph
+        when(taskRepository.lockAll(List.of(1, 2))).thenReturn(List.of(task(1, "TODO"), task(2, "TODO")));
+        when(taskDependencyRepository.countPaths(2, 1)).thenReturn(1L);
+
+        assertThrows(DependencyCycleException.class,
+                () -> service.addTaskDependency(new TaskDependency(1, 2)));
+        verify(taskDependencyRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    public void testMissingTaskIsRejected() {
+        when(taskRepository.lockAll(List.of(1, 2))).thenReturn(List.of(task(1, "TODO")));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> service.addTaskDependency(new TaskDependency(1, 2)));
+        verify(taskDependencyIndex, never()).add(anyInt(), anyInt(), anyBoolean(), anyBoolean());
+        verify(taskDependencyRepository, never()).saveAndFlush(any());
+    }
+}
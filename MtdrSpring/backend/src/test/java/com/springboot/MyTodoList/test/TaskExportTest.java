@@ -0,0 +1,126 @@
+package com.springboot.MyTodoList.test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.springboot.MyTodoList.model.Task;
+import com.springboot.MyTodoList.repository.TaskRepository;
+import com.springboot.MyTodoList.service.TaskExportService;
+import com.springboot.MyTodoList.service.TaskExportWriter;
+import com.springboot.MyTodoList.service.TaskExportWriter.Format;
+
+/**
+ * Tests for the streaming task export.
+ */
+@ExtendWith(MockitoExtension.class)
+public class TaskExportTest {
+
+    @Mock
+    private TaskRepository taskRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final TaskExportWriter writer =
+        new TaskExportWriter(new ObjectMapper().registerModule(new JavaTimeModule()));
+
+    private static Task task(int id, String description) {
+        Task task = new Task();
+        task.setID_Task(id);
+        task.setDescription(description);
+        task.setState("TODO");
+        task.setHoursEstimated(3);
+        task.setID_Sprint(1);
+        task.setAssignedTo(2);
+        task.setFinishesAt(OffsetDateTime.parse("2024-01-15T17:00:00+01:00"));
+        return task;
+    }
+
+    private static Stream<Task> generatedTasks(int count) {
+        // Each task is created when the writer asks for it, like rows read from a cursor
+        return IntStream.rangeClosed(1, count)
+            .mapToObj(i -> task(i, "Task number " + i + " ".repeat(200)));
+    }
+
+    @Test
+    public void testWritesCsvWithQuotedFields() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long count = writer.write(Format.CSV,
+            Stream.of(task(1, "plain"), task(2, "has, a comma and \"quotes\"")), out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals(2, count);
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].startsWith("id,description,state"));
+        assertTrue(lines[1].startsWith("1,plain,TODO,3,0,1,2,,2024-01-15T17:00+01:00,"));
+        assertTrue(lines[2].startsWith("2,\"has, a comma and \"\"quotes\"\"\",TODO,"));
+    }
+
+    @Test
+    public void testWritesOneJsonObjectPerLine() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.write(Format.NDJSON, generatedTasks(3), out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, lines.length);
+        for (String line : lines) {
+            assertTrue(line.startsWith("{") && line.endsWith("}"));
+        }
+    }
+
+    @Test
+    public void testServiceDetachesTasksAsTheyAreWritten() throws Exception {
+        // Stands in for Hibernate's persistence context: tasks read from the
+        // cursor are managed until detached
+        Set<Task> managed = Collections.newSetFromMap(new IdentityHashMap<>());
+        AtomicInteger mostManaged = new AtomicInteger();
+        AtomicBoolean closed = new AtomicBoolean();
+        when(taskRepository.streamAll()).thenReturn(generatedTasks(10_000)
+            .peek(task -> {
+                managed.add(task);
+                mostManaged.accumulateAndGet(managed.size(), Math::max);
+            })
+            .onClose(() -> closed.set(true)));
+        doAnswer(invocation -> managed.remove(invocation.getArgument(0)))
+            .when(entityManager).detach(any());
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+        TaskExportService service = new TaskExportService(taskRepository, entityManager,
+            transactionManager, new ObjectMapper().registerModule(new JavaTimeModule()));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertEquals(10_000, service.export(Format.NDJSON, out));
+        assertTrue(managed.isEmpty());
+        assertEquals(1, mostManaged.get());
+        assertTrue(closed.get());
+        verify(transactionManager).commit(any());
+    }
+}
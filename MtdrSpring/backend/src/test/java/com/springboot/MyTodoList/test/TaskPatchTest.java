@@ -0,0 +1,71 @@
+package com.springboot.MyTodoList.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springboot.MyTodoList.model.Task;
+import com.springboot.MyTodoList.service.TaskPatch;
+
+/**
+ * Tests for reading JSON Merge Patches of tasks.
+ */
+public class TaskPatchTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private TaskPatch parse(String json) throws Exception {
+        return TaskPatch.parse(objectMapper.readTree(json));
+    }
+
+    @Test
+    public void testChangesOnlyPatchedFields() throws Exception {
+        Task task = new Task();
+        task.setDescription("Write tests");
+        task.setState("TODO");
+        task.setHoursEstimated(4);
+
+        TaskPatch patch = parse("{\"state\": \"DONE\", \"hoursEstimated\": null, \"storyPoints\": 3}");
+        patch.applyTo(task);
+
+        assertEquals("Write tests", task.getDescription());
+        assertEquals("DONE", task.getState());
+        assertNull(task.getHoursEstimated());
+        assertEquals(3, task.getStoryPoints());
+        assertEquals(3, patch.getAttributes().size());
+        assertEquals("DONE", patch.getAttributes().get("state"));
+    }
+
+    @Test
+    public void testReadsVersionAndIgnoresReadOnlyFields() throws Exception {
+        TaskPatch patch = parse("{\"id_Task\": 7, \"version\": 2, \"updatedAt\": null}");
+
+        assertEquals(2L, patch.getVersion().get());
+        assertEquals(0, patch.getAttributes().size());
+    }
+
+    @Test
+    public void testChangesOnlyIfAValueDiffers() throws Exception {
+        Task task = new Task();
+        task.setState("DONE");
+        task.setHoursReal(3);
+
+        assertFalse(parse("{\"state\": \"DONE\", \"hoursReal\": 3}").changes(task));
+        assertFalse(parse("{\"version\": 2}").changes(task));
+        assertTrue(parse("{\"state\": \"DONE\", \"hoursReal\": 4}").changes(task));
+        assertTrue(parse("{\"hoursReal\": null}").changes(task));
+    }
+
+    @Test
+    public void testRejectsInvalidPatches() {
+        assertThrows(IllegalArgumentException.class, () -> parse("[]"));
+        assertThrows(IllegalArgumentException.class, () -> parse("{\"owner\": 1}"));
+        assertThrows(IllegalArgumentException.class, () -> parse("{\"assignedTo\": null}"));
+        assertThrows(IllegalArgumentException.class, () -> parse("{\"storyPoints\": \"three\"}"));
+        assertThrows(IllegalArgumentException.class, () -> parse("{\"finishesAt\": \"tomorrow\"}"));
+    }
+}
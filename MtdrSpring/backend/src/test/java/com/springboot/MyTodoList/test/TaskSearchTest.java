@@ -0,0 +1,162 @@
+package com.springboot.MyTodoList.test;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.ComponentScan.Filter;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+import com.springboot.MyTodoList.model.Task;
+import com.springboot.MyTodoList.repository.TaskCursor;
+import com.springboot.MyTodoList.repository.TaskRepository;
+import com.springboot.MyTodoList.repository.TaskSort;
+import com.springboot.MyTodoList.repository.TaskSpecifications;
+
+/**
+ * Pages through the task search against an in-memory database: the filters,
+ * and the keyset predicate of every sort key, which must neither skip nor
+ * repeat a task when sort values tie or are null. TaskSort places nulls the
+ * way Oracle does, as the highest values, which the surefire configuration
+ * makes H2 do too.
+ */
+@DataJpaTest
+public class TaskSearchTest {
+
+    // Just the task repository and its fragments, without the bot
+    @SpringBootConfiguration
+    @EntityScan(basePackageClasses = Task.class)
+    @EnableJpaRepositories(
+            basePackageClasses = TaskRepository.class,
+            includeFilters = @Filter(type = FilterType.ASSIGNABLE_TYPE, classes = TaskRepository.class))
+    static class Config {
+    }
+
+    private static final OffsetDateTime DAY = OffsetDateTime.of(2024, 3, 15, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    private List<Task> tasks;
+
+    @BeforeEach
+    public void setUp() {
+        tasks = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            Task task = new Task();
+            task.setDescription(i % 4 == 0 ? "Cover 100% of the bot" : "Write tests " + i);
+            task.setState(i % 2 == 0 ? "TODO" : "DONE");
+            task.setID_Sprint(i % 2 + 1);
+            task.setAssignedTo(i % 3 + 1);
+            // Every sort key has values shared by several tasks, and the nullable
+            // ones are null for a third of them
+            task.setFinishesAt(i % 3 == 2 ? null : DAY.plusDays(i % 2));
+            task.setHoursEstimated(i % 3 == 1 ? null : 4);
+            task.setCreatedAt(DAY.minusDays(i / 4));
+            task.setUpdatedAt(i % 3 == 0 ? null : DAY.plusHours(i % 2));
+            task.setStoryPoint(i % 3);
+            tasks.add(taskRepository.save(task));
+        }
+    }
+
+    private static Comparable<?> valueOf(TaskSort.Key key, Task task) {
+        switch (key) {
+            case DUE_DATE:
+                return task.getFinishesAt();
+            case CREATED_AT:
+                return task.getCreatedAt();
+            case UPDATED_AT:
+                return task.getUpdatedAt();
+            case STORY_POINTS:
+                return task.getStoryPoints();
+            default:
+                return task.getID_Task();
+        }
+    }
+
+    // The tasks matching the filter, sorted in memory the way TaskSort says
+    @SuppressWarnings("unchecked")
+    private List<Integer> expected(Predicate<Task> filter, TaskSort sort) {
+        Comparator<Comparable<Object>> values = Comparator.nullsLast(Comparator.naturalOrder());
+        Comparator<Task> order = Comparator
+                .comparing((Task task) -> (Comparable<Object>) valueOf(sort.getKey(), task), values)
+                .thenComparingInt(Task::getID_Task);
+        return tasks.stream()
+                .filter(filter)
+                .sorted(sort.isDescending() ? order.reversed() : order)
+                .map(Task::getID_Task)
+                .collect(Collectors.toList());
+    }
+
+    private List<Integer> pageThrough(Specification<Task> filter, TaskSort sort, int limit) {
+        List<Integer> ids = new ArrayList<>();
+        TaskCursor after = null;
+        while (true) {
+            List<Task> page = taskRepository.search(filter, sort, after, limit);
+            page.forEach(task -> ids.add(task.getID_Task()));
+            if (page.size() < limit) {
+                return ids;
+            }
+            // Through the string the X-Next-Cursor header carries
+            after = TaskCursor.decode(TaskCursor.of(sort, page.get(page.size() - 1)).encode(), sort);
+        }
+    }
+
+    @Test
+    public void testPagesThroughTiesAndNullsOfEverySortKey() {
+        for (TaskSort.Key key : TaskSort.Key.values()) {
+            for (boolean descending : new boolean[] {false, true}) {
+                TaskSort sort = new TaskSort(key, descending);
+                List<Integer> all = expected(task -> true, sort);
+                for (int limit : new int[] {1, 2, 5, 12}) {
+                    assertEquals(all, pageThrough(null, sort, limit),
+                            key.getParam() + (descending ? ",desc" : "") + " limit " + limit);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testFiltersAreAppliedOnEveryPage() {
+        TaskSort byDueDate = TaskSort.parse("dueDate,desc");
+
+        assertEquals(
+                expected(task -> task.getID_Sprint() == 1 && task.getState().equals("TODO"), byDueDate),
+                pageThrough(Specification.where(TaskSpecifications.inSprint(1))
+                        .and(TaskSpecifications.inStates(List.of("TODO"))), byDueDate, 2));
+        assertEquals(
+                expected(task -> task.getAssignedTo() == 2, byDueDate),
+                pageThrough(TaskSpecifications.assignedTo(2), byDueDate, 2));
+        // Tasks without a due date match neither end of a range
+        List<Integer> dueOnFirstDay = pageThrough(Specification
+                .where(TaskSpecifications.dueFrom(DAY))
+                .and(TaskSpecifications.dueBefore(DAY.plusDays(1))), byDueDate, 2);
+        assertEquals(expected(task -> DAY.equals(task.getFinishesAt()), byDueDate), dueOnFirstDay);
+        assertFalse(dueOnFirstDay.isEmpty());
+    }
+
+    @Test
+    public void testDescriptionSearchTakesWildcardsLiterally() {
+        TaskSort byId = TaskSort.DEFAULT;
+
+        assertEquals(
+                expected(task -> task.getDescription().startsWith("Cover"), byId),
+                pageThrough(TaskSpecifications.descriptionContains("100% OF"), byId, 2));
+        assertEquals(List.of(), pageThrough(TaskSpecifications.descriptionContains("1_0"), byId, 2));
+        assertEquals(List.of(), pageThrough(TaskSpecifications.descriptionContains("%tests%"), byId, 2));
+    }
+}
@@ -0,0 +1,196 @@
+package com.springboot.MyTodoList.test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springboot.MyTodoList.model.Task;
+import com.springboot.MyTodoList.repository.TaskRepository;
+import com.springboot.MyTodoList.service.TaskPatch;
+import com.springboot.MyTodoList.service.TaskService;
+import com.springboot.MyTodoList.service.TaskService.BatchItemResult;
+import com.springboot.MyTodoList.service.TaskService.BatchItemResult.Status;
+import com.springboot.MyTodoList.service.graph.SprintSchedules;
+import com.springboot.MyTodoList.service.graph.TaskDependencyIndex;
+import com.springboot.MyTodoList.service.kpi.KpiSnapshotCache;
+
+/**
+ * Tests for the batch create, update and delete of tasks.
+ */
+@ExtendWith(MockitoExtension.class)
+public class TaskServiceTest {
+
+    @Mock
+    private TaskRepository taskRepository;
+
+    @Mock
+    private KpiSnapshotCache kpiSnapshotCache;
+
+    @Mock
+    private TaskDependencyIndex taskDependencyIndex;
+
+    @Mock
+    private SprintSchedules sprintSchedules;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private TaskService taskService;
+
+    @BeforeEach
+    public void setUp() {
+        taskService = new TaskService();
+        ReflectionTestUtils.setField(taskService, "taskRepository", taskRepository);
+        ReflectionTestUtils.setField(taskService, "kpiSnapshotCache", kpiSnapshotCache);
+        ReflectionTestUtils.setField(taskService, "taskDependencyIndex", taskDependencyIndex);
+        ReflectionTestUtils.setField(taskService, "sprintSchedules", sprintSchedules);
+    }
+
+    private static Task task(int id, String state, long version) {
+        Task task = new Task();
+        task.setID_Task(id);
+        task.setState(state);
+        task.setVersion(version);
+        return task;
+    }
+
+    private static List<Status> statuses(List<BatchItemResult> results) {
+        return results.stream().map(BatchItemResult::getStatus).collect(Collectors.toList());
+    }
+
+    private List<JsonNode> patches(String... json) throws Exception {
+        List<JsonNode> patches = new ArrayList<>();
+        for (String patch : json) {
+            patches.add(patch != null ? objectMapper.readTree(patch) : null);
+        }
+        return patches;
+    }
+
+    @Test
+    public void testAddTasksLetsTheSequenceAssignIds() {
+        List<Task> saved = new ArrayList<>();
+        when(taskRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Task> tasks = invocation.getArgument(0);
+            int id = 100;
+            for (Task task : tasks) {
+                // Ids and versions sent by the client must not reach the insert
+                assertEquals(0, task.getID_Task());
+                assertNull(task.getVersion());
+                task.setID_Task(id++);
+                saved.add(task);
+            }
+            return tasks;
+        });
+
+        List<BatchItemResult> results = taskService.addTasks(
+            Arrays.asList(task(7, "TODO", 3), null, task(7, "DONE", 5)));
+
+        assertEquals(List.of(Status.CREATED, Status.INVALID, Status.CREATED), statuses(results));
+        assertEquals(100, results.get(0).getId());
+        assertNull(results.get(1).getId());
+        assertEquals(101, results.get(2).getId());
+        assertEquals(2, saved.size());
+        verify(kpiSnapshotCache, times(2)).apply(any(), any());
+        verify(sprintSchedules).taskChanged(saved.get(0));
+        verify(sprintSchedules).taskChanged(saved.get(1));
+    }
+
+    @Test
+    public void testAddTaskIgnoresTheClientsId() {
+        Task task = task(7, "TODO", 3);
+        when(taskRepository.save(task)).thenReturn(task);
+
+        taskService.addTask(task);
+
+        assertEquals(0, task.getID_Task());
+        assertNull(task.getVersion());
+    }
+
+    @Test
+    public void testPatchThatChangesNothingIsNotWritten() {
+        // Pressing a task's button for the state it's already in
+        Task task = task(7, "IN_PROGRESS", 3);
+
+        taskService.patchTask(task, TaskPatch.ofState("IN_PROGRESS", null), null);
+
+        assertEquals(3L, task.getVersion());
+        verify(taskRepository, never()).updateAttributes(anyInt(), anyLong(), any(), any());
+    }
+
+    @Test
+    public void testUpdateTasksReportsEachItem() throws Exception {
+        Task updated = task(1, "TODO", 1);
+        Task stale = task(2, "TODO", 3);
+        Task invalid = task(3, "TODO", 0);
+        when(taskRepository.lockAll(anyList())).thenReturn(List.of(updated, stale, invalid));
+
+        List<BatchItemResult> results = taskService.updateTasks(patches(
+            "{\"id_Task\": 1, \"version\": 1, \"state\": \"DONE\"}",
+            "{\"id_Task\": 2, \"version\": 2, \"state\": \"DONE\"}",
+            "{\"state\": \"DONE\"}",
+            "{\"id_Task\": 3, \"owner\": 1}",
+            "{\"id_Task\": 4, \"state\": \"DONE\"}",
+            null));
+
+        assertEquals(
+            List.of(Status.UPDATED, Status.CONFLICT, Status.INVALID, Status.INVALID,
+                Status.NOT_FOUND, Status.INVALID),
+            statuses(results));
+        assertEquals("DONE", updated.getState());
+        assertEquals("TODO", stale.getState());
+        assertEquals("TODO", invalid.getState());
+        // Only the task that changed reaches the KPI counters and the schedules
+        verify(kpiSnapshotCache, times(1)).apply(any(), any());
+        verify(sprintSchedules).taskChanged(updated);
+        verify(sprintSchedules, never()).taskChanged(stale);
+        verify(sprintSchedules, never()).taskChanged(invalid);
+        verify(taskDependencyIndex).setDone(1, true);
+        verify(taskDependencyIndex, never()).setDone(2, false);
+    }
+
+    @Test
+    public void testUpdateTasksLocksTheTasksItChecks() throws Exception {
+        // Another client saved task 5 after this one read version 3
+        when(taskRepository.lockAll(List.of(2, 5))).thenReturn(List.of(task(2, "TODO", 1), task(5, "TODO", 4)));
+
+        List<BatchItemResult> results = taskService.updateTasks(patches(
+            "{\"id_Task\": 5, \"version\": 3, \"state\": \"DONE\"}",
+            "{\"id_Task\": 2, \"version\": 1, \"state\": \"DONE\"}"));
+
+        // Locked in id order, so the versions compared are the ones the flush finds
+        verify(taskRepository).lockAll(List.of(2, 5));
+        verify(taskRepository, never()).findAllById(anyList());
+        assertEquals(List.of(Status.CONFLICT, Status.UPDATED), statuses(results));
+        assertEquals(5, results.get(0).getId());
+    }
+
+    @Test
+    public void testDeleteTasksSkipsMissingIds() {
+        when(taskRepository.findAllById(anyList())).thenReturn(List.of(task(1, "TODO", 0)));
+
+        List<BatchItemResult> results = taskService.deleteTasks(Arrays.asList(1, 9, null));
+
+        assertEquals(List.of(Status.DELETED, Status.NOT_FOUND, Status.INVALID), statuses(results));
+        verify(taskRepository).deleteAllByIdInBatch(List.of(1));
+        verify(sprintSchedules).taskDeleted(1);
+        verify(sprintSchedules, never()).taskDeleted(9);
+    }
+}
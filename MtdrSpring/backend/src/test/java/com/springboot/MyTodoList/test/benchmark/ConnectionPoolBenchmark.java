@@ -0,0 +1,107 @@
+package com.springboot.MyTodoList.test.benchmark;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import oracle.jdbc.pool.OracleDataSource;
+import oracle.ucp.UniversalConnectionPoolException;
+import oracle.ucp.admin.UniversalConnectionPoolManagerImpl;
+import oracle.ucp.jdbc.PoolDataSource;
+import oracle.ucp.jdbc.PoolDataSourceFactory;
+
+/**
+ * Load test of what a request pays for its connection: opening a physical
+ * connection every time (the raw OracleDataSource the application used before)
+ * against borrowing one from the UCP pool, with 16 concurrent clients each
+ * running one short query.
+ *
+ * Needs a database, given in the same environment variables the application
+ * reads in its container (db_url, db_user, dbpassword). Run with:
+ *   ./mvnw test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.springboot.MyTodoList.test.benchmark.ConnectionPoolBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(16)
+@Fork(1)
+public class ConnectionPoolBenchmark {
+  private static final String POOL_NAME = "benchmarkPool";
+
+  private OracleDataSource raw;
+  private PoolDataSource pooled;
+
+  @Setup
+  public void setUp() throws SQLException {
+    raw = new OracleDataSource();
+    raw.setURL(System.getenv("db_url"));
+    raw.setUser(System.getenv("db_user"));
+    raw.setPassword(System.getenv("dbpassword"));
+
+    pooled = PoolDataSourceFactory.getPoolDataSource();
+    pooled.setConnectionFactoryClassName(OracleDataSource.class.getName());
+    pooled.setConnectionPoolName(POOL_NAME);
+    pooled.setURL(raw.getURL());
+    pooled.setUser(raw.getUser());
+    pooled.setPassword(System.getenv("dbpassword"));
+    // The settings in application.properties
+    pooled.setInitialPoolSize(15);
+    pooled.setMinPoolSize(10);
+    pooled.setMaxPoolSize(30);
+    pooled.setMaxStatements(50);
+  }
+
+  @TearDown
+  public void tearDown() throws UniversalConnectionPoolException {
+    UniversalConnectionPoolManagerImpl.getUniversalConnectionPoolManager()
+        .destroyConnectionPool(POOL_NAME);
+  }
+
+  private static int query(DataSource dataSource) throws SQLException {
+    try (Connection connection = dataSource.getConnection();
+        Statement statement = connection.createStatement();
+        ResultSet rs = statement.executeQuery("select 1 from dual")) {
+      rs.next();
+      return rs.getInt(1);
+    }
+  }
+
+  @Benchmark
+  public int newConnectionPerRequest() throws SQLException {
+    return query(raw);
+  }
+
+  @Benchmark
+  public int pooledConnection() throws SQLException {
+    return query(pooled);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(
+            new OptionsBuilder().include(ConnectionPoolBenchmark.class.getSimpleName()).build())
+        .run();
+  }
+}
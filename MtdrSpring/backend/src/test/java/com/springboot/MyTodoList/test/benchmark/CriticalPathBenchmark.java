@@ -0,0 +1,116 @@
+package com.springboot.MyTodoList.test.benchmark;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.springboot.MyTodoList.service.graph.CriticalPath;
+
+/**
+ * Building a critical path schedule from scratch, against updating it after
+ * one task's estimate or one dependency changes.
+ *
+ * The DAGs are layered, like real plans: tasks are split in layers of about a
+ * hundred, and each task depends on a few tasks of the layers just before it.
+ *
+ * Run with:
+ *   ./mvnw test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.springboot.MyTodoList.test.benchmark.CriticalPathBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class CriticalPathBenchmark {
+  private static final int LAYER = 100;
+
+  @Param({"10000", "100000", "1000000"})
+  public int tasks;
+
+  @Param({"3"})
+  public int parentsPerTask;
+
+  private int[] ids;
+  private long[] hours;
+  private long[] deadlines;
+  private int[] parents;
+  private int[] children;
+  private CriticalPath schedule;
+  private SplittableRandom random;
+
+  @Setup
+  public void setUp() {
+    random = new SplittableRandom(42L);
+    ids = new int[tasks];
+    hours = new long[tasks];
+    deadlines = new long[tasks];
+    Arrays.fill(deadlines, CriticalPath.NO_DEADLINE);
+    for (int i = 0; i < tasks; i++) {
+      ids[i] = i + 1;
+      hours[i] = 1 + random.nextInt(16);
+    }
+    int edges = 0;
+    parents = new int[(tasks - LAYER) * parentsPerTask];
+    children = new int[parents.length];
+    for (int i = LAYER; i < tasks; i++) {
+      for (int p = 0; p < parentsPerTask; p++) {
+        // A task of one of the three layers before this one
+        int layerStart = Math.max(0, (i / LAYER - 1 - random.nextInt(3)) * LAYER);
+        parents[edges] = ids[layerStart + random.nextInt(LAYER)];
+        children[edges++] = ids[i];
+      }
+    }
+    schedule = CriticalPath.of(ids, hours, deadlines, parents, children);
+  }
+
+  @Benchmark
+  public void rebuild(Blackhole bh) {
+    CriticalPath built = CriticalPath.of(ids, hours, deadlines, parents, children);
+    bh.consume(built.getEnd());
+  }
+
+  @Benchmark
+  public void changeEstimate(Blackhole bh) {
+    int task = random.nextInt(tasks);
+    schedule.setTask(ids[task], 1 + random.nextInt(16), CriticalPath.NO_DEADLINE);
+    bh.consume(schedule.getEnd());
+  }
+
+  @Benchmark
+  public void changeDependency(Blackhole bh) {
+    int edge = random.nextInt(parents.length);
+    if (schedule.removeDependency(parents[edge], children[edge])) {
+      schedule.addDependency(parents[edge], children[edge]);
+    }
+    bh.consume(schedule.getEnd());
+  }
+
+  @Benchmark
+  public void criticalPath(Blackhole bh) {
+    bh.consume(schedule.getCriticalPath());
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(
+            new OptionsBuilder().include(CriticalPathBenchmark.class.getSimpleName()).build())
+        .run();
+  }
+}
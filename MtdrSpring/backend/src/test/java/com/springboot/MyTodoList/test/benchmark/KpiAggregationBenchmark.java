@@ -0,0 +1,89 @@
+package com.springboot.MyTodoList.test.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.springboot.MyTodoList.model.Sprint;
+import com.springboot.MyTodoList.model.Task;
+import com.springboot.MyTodoList.model.User;
+import com.springboot.MyTodoList.service.kpi.KpiAggregator;
+
+/**
+ * Compares the single-pass KpiAggregator with the previous per-view calculations.
+ *
+ * Run with:
+ *   ./mvnw test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.springboot.MyTodoList.test.benchmark.KpiAggregationBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class KpiAggregationBenchmark {
+  @Param({"10000", "100000", "1000000"})
+  public int tasks;
+
+  @Param({"20"})
+  public int sprints;
+
+  @Param({"50"})
+  public int users;
+
+  private List<Task> taskList;
+  private List<Sprint> sprintList;
+  private List<User> userList;
+
+  @Setup
+  public void setUp() {
+    sprintList = SyntheticData.sprints(sprints);
+    userList = SyntheticData.users(users);
+    taskList = SyntheticData.tasks(tasks, sprints, users, 42L);
+  }
+
+  @Benchmark
+  public void legacy(Blackhole bh) {
+    bh.consume(LegacyKpiAggregation.teamPerformance(taskList, sprintList));
+    bh.consume(LegacyKpiAggregation.individualPerformance(taskList, userList, sprintList));
+    bh.consume(LegacyKpiAggregation.estimationAccuracy(taskList, sprintList));
+  }
+
+  @Benchmark
+  public void singlePass(Blackhole bh) {
+    KpiAggregator aggregator = new KpiAggregator(sprintList, userList).addAll(taskList);
+    aggregator.forEachSprint(
+        (sprint, completed, real, estimated) -> {
+          bh.consume(completed);
+          bh.consume(real);
+          bh.consume(estimated);
+        });
+    aggregator.forEachUser(
+        (sprint, user, completed, real) -> {
+          bh.consume(completed);
+          bh.consume(real);
+        });
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(
+            new OptionsBuilder().include(KpiAggregationBenchmark.class.getSimpleName()).build())
+        .run();
+  }
+}
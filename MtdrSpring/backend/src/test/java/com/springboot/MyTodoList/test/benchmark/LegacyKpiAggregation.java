@@ -0,0 +1,175 @@
+package com.springboot.MyTodoList.test.benchmark;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import com.springboot.MyTodoList.model.Sprint;
+import com.springboot.MyTodoList.model.Task;
+import com.springboot.MyTodoList.model.User;
+
+/**
+ * The per-view KPI calculations KpiService used before KpiAggregator.
+ * Kept as a baseline for benchmarks and as a reference for output equivalence.
+ * Warnings for unknown sprints and users were dropped, everything else is verbatim.
+ */
+public final class LegacyKpiAggregation {
+  private LegacyKpiAggregation() {}
+
+  private static String getSprintName(int sprintId, List<Sprint> sprints) {
+    if (sprintId == -1) return "Backlog / Unassigned";
+    return sprints.stream()
+        .filter(s -> s.getID_Sprint() == sprintId)
+        .map(Sprint::getName)
+        .findFirst()
+        .orElse("Sprint " + sprintId);
+  }
+
+  private static String getUserName(int userId, List<User> users) {
+    return users.stream()
+        .filter(u -> u.getID_User() == userId)
+        .map(User::getName)
+        .findFirst()
+        .orElse("Unknown User");
+  }
+
+  public static String teamPerformance(List<Task> tasks, List<Sprint> sprints) {
+    Map<String, TeamPerfData> stats = new HashMap<>();
+    sprints.forEach(s -> stats.put(s.getName(), new TeamPerfData(s.getName())));
+    stats.put("Backlog / Unassigned", new TeamPerfData("Backlog / Unassigned"));
+
+    tasks.stream()
+        .filter(t -> "DONE".equalsIgnoreCase(t.getState()))
+        .forEach(
+            task -> {
+              TeamPerfData data = stats.get(getSprintName(task.getID_Sprint(), sprints));
+              if (data != null) {
+                data.completedTasks++;
+                data.totalRealHours += (task.getHoursReal() != null ? task.getHoursReal() : 0.0);
+              }
+            });
+
+    return stats.values().stream()
+        .filter(d -> d.completedTasks > 0 || d.totalRealHours > 0)
+        .sorted(Comparator.comparing(d -> d.sprintName))
+        .map(
+            d ->
+                String.format(
+                    "- %s: %d tasks completed, %.1f total real hours.",
+                    d.sprintName, d.completedTasks, d.totalRealHours))
+        .collect(Collectors.joining("\n"));
+  }
+
+  public static String individualPerformance(
+      List<Task> tasks, List<User> users, List<Sprint> sprints) {
+    Map<String, Map<String, IndividualPerfData>> performance = new HashMap<>();
+    sprints.forEach(
+        sprint -> {
+          performance.put(sprint.getName(), new HashMap<>());
+          users.forEach(
+              user ->
+                  performance.get(sprint.getName()).put(user.getName(), new IndividualPerfData()));
+        });
+    performance.put("Backlog / Unassigned", new HashMap<>());
+    users.forEach(
+        user ->
+            performance.get("Backlog / Unassigned").put(user.getName(), new IndividualPerfData()));
+
+    tasks.stream()
+        .filter(t -> "DONE".equalsIgnoreCase(t.getState()))
+        .forEach(
+            task -> {
+              String sprintName = getSprintName(task.getID_Sprint(), sprints);
+              String userName = getUserName(task.getAssignedTo(), users);
+              Map<String, IndividualPerfData> sprintData = performance.get(sprintName);
+              if (sprintData != null) {
+                IndividualPerfData userData = sprintData.get(userName);
+                if (userData != null) {
+                  userData.completedTasks++;
+                  userData.realHours += (task.getHoursReal() != null ? task.getHoursReal() : 0.0);
+                }
+              }
+            });
+
+    StringBuilder sb = new StringBuilder();
+    performance.entrySet().stream()
+        .sorted(Map.Entry.comparingByKey())
+        .forEach(
+            sprintEntry -> {
+              String userLines =
+                  sprintEntry.getValue().entrySet().stream()
+                      .filter(
+                          userEntry ->
+                              userEntry.getValue().completedTasks > 0
+                                  || userEntry.getValue().realHours > 0)
+                      .sorted(Map.Entry.comparingByKey())
+                      .map(
+                          userEntry ->
+                              String.format(
+                                  "  - %s: %d tasks, %.1fh",
+                                  userEntry.getKey(),
+                                  userEntry.getValue().completedTasks,
+                                  userEntry.getValue().realHours))
+                      .collect(Collectors.joining("\n"));
+              if (!userLines.isEmpty()) {
+                if (sb.length() > 0) sb.append("\n\n");
+                sb.append(sprintEntry.getKey()).append(":\n").append(userLines);
+              }
+            });
+    return sb.toString();
+  }
+
+  public static String estimationAccuracy(List<Task> tasks, List<Sprint> sprints) {
+    Map<String, EstimationData> stats = new HashMap<>();
+    sprints.forEach(s -> stats.put(s.getName(), new EstimationData(s.getName())));
+    stats.put("Backlog / Unassigned", new EstimationData("Backlog / Unassigned"));
+
+    tasks.stream()
+        .filter(t -> "DONE".equalsIgnoreCase(t.getState()))
+        .forEach(
+            task -> {
+              EstimationData data = stats.get(getSprintName(task.getID_Sprint(), sprints));
+              if (data != null) {
+                data.totalEstimated +=
+                    (task.getHoursEstimated() != null ? task.getHoursEstimated() : 0.0);
+                data.totalReal += (task.getHoursReal() != null ? task.getHoursReal() : 0.0);
+              }
+            });
+
+    return stats.values().stream()
+        .filter(d -> d.totalEstimated > 0 || d.totalReal > 0)
+        .sorted(Comparator.comparing(d -> d.sprintName))
+        .map(
+            d ->
+                String.format(
+                    "- %s: Est. %.1fh, Real %.1fh", d.sprintName, d.totalEstimated, d.totalReal))
+        .collect(Collectors.joining("\n"));
+  }
+
+  private static class TeamPerfData {
+    String sprintName;
+    int completedTasks = 0;
+    double totalRealHours = 0.0;
+
+    TeamPerfData(String name) {
+      this.sprintName = name;
+    }
+  }
+
+  private static class IndividualPerfData {
+    int completedTasks = 0;
+    double realHours = 0.0;
+  }
+
+  private static class EstimationData {
+    String sprintName;
+    double totalEstimated = 0.0;
+    double totalReal = 0.0;
+
+    EstimationData(String name) {
+      this.sprintName = name;
+    }
+  }
+}
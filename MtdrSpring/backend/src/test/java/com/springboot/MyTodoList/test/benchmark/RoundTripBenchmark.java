@@ -0,0 +1,134 @@
+package com.springboot.MyTodoList.test.benchmark;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import oracle.jdbc.OracleConnection;
+import oracle.jdbc.pool.OracleDataSource;
+
+/**
+ * Database round-trips and parses per request with ojdbc's defaults (row
+ * prefetch 10, no statement cache) against the perf profile (prefetch 50, a
+ * 100 statement cache). A request reads what the KPI view does: every user,
+ * sprint and task.
+ *
+ * Besides the time per request, JMH reports the session's SQL*Net round-trips
+ * and parse calls ("roundTrips", "parses") and the "requests" they were
+ * counted over, read from V$MYSTAT (the user needs SELECT on V_$MYSTAT and
+ * V_$STATNAME).
+ *
+ * Needs a database, given in the same environment variables the application
+ * reads in its container (db_url, db_user, dbpassword). Run with:
+ *   ./mvnw test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.springboot.MyTodoList.test.benchmark.RoundTripBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class RoundTripBenchmark {
+  private static final String[] REQUEST = {
+    "SELECT * FROM TODOUSER.USERS",
+    "SELECT * FROM TODOUSER.SPRINTS",
+    "SELECT * FROM TODOUSER.TASKS"
+  };
+
+  private static final String STATS =
+      "SELECT n.NAME, s.VALUE FROM V$MYSTAT s JOIN V$STATNAME n ON n.STATISTIC# = s.STATISTIC#"
+          + " WHERE n.NAME IN ('SQL*Net roundtrips to/from client', 'parse count (total)')";
+
+  @Param({"default", "perf"})
+  public String profile;
+
+  private Connection connection;
+
+  /**
+   * Round-trips and parses of the measured requests, without those of reading
+   * the statistics themselves.
+   */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class Counters {
+    public long roundTrips;
+    public long parses;
+    public long requests;
+  }
+
+  @Setup(Level.Trial)
+  public void setUp() throws SQLException {
+    OracleDataSource ds = new OracleDataSource();
+    ds.setURL(System.getenv("db_url"));
+    ds.setUser(System.getenv("db_user"));
+    ds.setPassword(System.getenv("dbpassword"));
+    connection = ds.getConnection();
+    if (profile.equals("perf")) {
+      OracleConnection oracle = connection.unwrap(OracleConnection.class);
+      oracle.setDefaultRowPrefetch(50);
+      oracle.setImplicitCachingEnabled(true);
+      oracle.setStatementCacheSize(100);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws SQLException {
+    connection.close();
+  }
+
+  private long[] stats() throws SQLException {
+    long[] values = new long[2];
+    try (PreparedStatement statement = connection.prepareStatement(STATS);
+        ResultSet rs = statement.executeQuery()) {
+      while (rs.next()) {
+        values[rs.getString(1).startsWith("SQL*Net") ? 0 : 1] = rs.getLong(2);
+      }
+    }
+    return values;
+  }
+
+  @Benchmark
+  public void request(Counters counters, Blackhole bh) throws SQLException {
+    long[] before = stats();
+    for (String sql : REQUEST) {
+      try (PreparedStatement statement = connection.prepareStatement(sql);
+          ResultSet rs = statement.executeQuery()) {
+        while (rs.next()) {
+          bh.consume(rs.getObject(1));
+        }
+      }
+    }
+    long[] after = stats();
+    // Reading the statistics takes one round-trip and one parse of its own
+    counters.roundTrips += after[0] - before[0] - 1;
+    counters.parses += after[1] - before[1] - 1;
+    counters.requests++;
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(RoundTripBenchmark.class.getSimpleName()).build())
+        .run();
+  }
+}
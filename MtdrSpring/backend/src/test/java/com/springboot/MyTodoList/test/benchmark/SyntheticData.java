@@ -0,0 +1,64 @@
+package com.springboot.MyTodoList.test.benchmark;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import com.springboot.MyTodoList.model.Sprint;
+import com.springboot.MyTodoList.model.Task;
+import com.springboot.MyTodoList.model.User;
+
+/**
+ * Deterministic generators for benchmark and test data sets.
+ */
+public final class SyntheticData {
+  private static final String[] STATES = {"TODO", "IN_PROGRESS", "BLOCKED", "DONE"};
+
+  private SyntheticData() {}
+
+  public static List<Sprint> sprints(int count) {
+    List<Sprint> sprints = new ArrayList<>(count);
+    OffsetDateTime start = OffsetDateTime.parse("2025-01-06T09:00:00+00:00");
+    for (int i = 1; i <= count; i++) {
+      sprints.add(
+          new Sprint(
+              i,
+              String.format("Sprint %03d", i),
+              start.plusWeeks(2L * (i - 1)),
+              start.plusWeeks(2L * i),
+              1));
+    }
+    return sprints;
+  }
+
+  public static List<User> users(int count) {
+    List<User> users = new ArrayList<>(count);
+    for (int i = 1; i <= count; i++) {
+      users.add(new User(i, 100_000L + i, "User " + i, "Developer"));
+    }
+    return users;
+  }
+
+  /**
+   * Tasks spread over the given sprints (plus the backlog, ID -1) and users.
+   * Roughly a quarter of them are DONE.
+   */
+  public static List<Task> tasks(int count, int sprints, int users, long seed) {
+    SplittableRandom random = new SplittableRandom(seed);
+    List<Task> tasks = new ArrayList<>(count);
+    for (int i = 1; i <= count; i++) {
+      int sprint = random.nextInt(sprints + 1);
+      Task task = new Task();
+      task.setID_Task(i);
+      task.setDescription("Task " + i);
+      task.setState(STATES[random.nextInt(STATES.length)]);
+      task.setHoursEstimated(1 + random.nextInt(4));
+      task.setHoursReal(random.nextInt(6));
+      task.setID_Sprint(sprint == 0 ? -1 : sprint);
+      task.setAssignedTo(1 + random.nextInt(users));
+      tasks.add(task);
+    }
+    return tasks;
+  }
+}
@@ -0,0 +1,159 @@
+package com.springboot.MyTodoList.test.bot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.springboot.MyTodoList.bot.ChatPartitionedExecutor;
+
+public class ChatPartitionedExecutorTest {
+
+    private ChatPartitionedExecutor executor;
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void testKeepsOrderWithinChat() throws Exception {
+        executor = new ChatPartitionedExecutor(4, 1000, 1000);
+        Map<Long, List<Integer>> seen = new ConcurrentHashMap<>();
+        CountDownLatch done = new CountDownLatch(5 * 100);
+
+        for (int i = 0; i < 100; i++) {
+            for (long chat = 1; chat <= 5; chat++) {
+                int n = i;
+                long chatId = chat;
+                executor.submit(chatId, () -> {
+                    seen.computeIfAbsent(chatId, k -> new ArrayList<>()).add(n);
+                    done.countDown();
+                });
+            }
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        for (long chat = 1; chat <= 5; chat++) {
+            List<Integer> numbers = seen.get(chat);
+            assertEquals(100, numbers.size());
+            for (int i = 0; i < 100; i++) {
+                assertEquals(i, numbers.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void testSlowChatDoesNotBlockOthers() throws Exception {
+        executor = new ChatPartitionedExecutor(2, 10, 10);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch otherChat = new CountDownLatch(1);
+
+        executor.submit(1L, () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        executor.submit(2L, otherChat::countDown);
+
+        assertTrue(otherChat.await(5, TimeUnit.SECONDS));
+        release.countDown();
+    }
+
+    @Test
+    public void testBackpressureAndPerChatLimit() throws Exception {
+        executor = new ChatPartitionedExecutor(1, 3, 2);
+        CountDownLatch release = new CountDownLatch(1);
+        Runnable blocked = () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        assertTrue(executor.submit(1L, blocked));
+        assertTrue(executor.submit(1L, () -> {}));
+        assertFalse(executor.submit(1L, () -> {}));
+        assertTrue(executor.submit(2L, () -> {}));
+        assertEquals(3, executor.pending());
+
+        // Full: the next submit waits until something finishes
+        AtomicBoolean submitted = new AtomicBoolean(false);
+        Thread producer = new Thread(() -> {
+            try {
+                executor.submit(3L, () -> {});
+                submitted.set(true);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        producer.start();
+        producer.join(200);
+        assertFalse(submitted.get());
+
+        release.countDown();
+        producer.join(5000);
+        assertTrue(submitted.get());
+    }
+
+    @Test
+    public void testConcurrentSubmitsStayWithinChatLimit() throws Exception {
+        List<Long> fullChats = new CopyOnWriteArrayList<>();
+        executor = new ChatPartitionedExecutor(1, 100, 5, fullChats::add);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.submit(1L, () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        AtomicInteger accepted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> producers = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Thread producer = new Thread(() -> {
+                try {
+                    start.await();
+                    if (executor.submit(1L, () -> {})) {
+                        accepted.incrementAndGet();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            producer.start();
+            producers.add(producer);
+        }
+        start.countDown();
+        for (Thread producer : producers) {
+            producer.join(5000);
+        }
+
+        assertEquals(4, accepted.get());
+        assertEquals(5, executor.pending());
+        // The chat is told once, not for every dropped update
+        assertEquals(List.of(1L), fullChats);
+
+        release.countDown();
+        for (int i = 0; i < 100 && executor.pending() > 0; i++) {
+            Thread.sleep(20);
+        }
+        assertEquals(0, executor.pending());
+    }
+}
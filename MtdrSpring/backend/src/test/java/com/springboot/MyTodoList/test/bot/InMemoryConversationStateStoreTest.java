@@ -0,0 +1,65 @@
+package com.springboot.MyTodoList.test.bot;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.springboot.MyTodoList.bot.state.InMemoryConversationStateStore;
+
+public class InMemoryConversationStateStoreTest {
+
+    private AtomicLong clock;
+    private InMemoryConversationStateStore store;
+
+    @BeforeEach
+    public void setUp() {
+        clock = new AtomicLong();
+        store = new InMemoryConversationStateStore(Duration.ofMinutes(30), clock::get);
+    }
+
+    @Test
+    public void testKeepsStatePerChatAndNamespace() {
+        store.put("command", 1L, "/tasknew");
+        store.put("command", 2L, "task");
+        store.put("task_done_hours", 1L, 42);
+
+        assertEquals("/tasknew", store.get("command", 1L, String.class).get());
+        assertEquals("task", store.get("command", 2L, String.class).get());
+        assertEquals(42, store.get("task_done_hours", 1L, Integer.class).get());
+
+        store.remove("command", 1L);
+        assertFalse(store.get("command", 1L, String.class).isPresent());
+        assertEquals(42, store.get("task_done_hours", 1L, Integer.class).get());
+    }
+
+    @Test
+    public void testStateExpiresAfterTtl() {
+        store.put("command", 1L, "/tasknew");
+        clock.addAndGet(Duration.ofMinutes(29).toNanos());
+        assertEquals("/tasknew", store.get("command", 1L, String.class).get());
+
+        // Writing again restarts the countdown
+        store.put("command", 1L, "/tasknew");
+        clock.addAndGet(Duration.ofMinutes(29).toNanos());
+        assertEquals("/tasknew", store.get("command", 1L, String.class).get());
+
+        clock.addAndGet(Duration.ofMinutes(2).toNanos());
+        assertFalse(store.get("command", 1L, String.class).isPresent());
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    public void testAbandonedStateIsSweptOnWrite() {
+        for (long chat = 0; chat < 100; chat++) {
+            store.put("command", chat, "/tasknew");
+        }
+        clock.addAndGet(Duration.ofMinutes(31).toNanos());
+
+        store.put("command", 1000L, "/kpi");
+        assertEquals(1, store.size());
+    }
+}
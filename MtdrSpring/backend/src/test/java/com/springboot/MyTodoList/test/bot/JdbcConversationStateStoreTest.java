@@ -0,0 +1,132 @@
+package com.springboot.MyTodoList.test.bot;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.springboot.MyTodoList.bot.state.JdbcConversationStateStore;
+import com.springboot.MyTodoList.model.Task;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+public class JdbcConversationStateStoreTest {
+
+    private static final Duration TTL = Duration.ofMinutes(30);
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Captor
+    private ArgumentCaptor<String> payload;
+
+    @Captor
+    private ArgumentCaptor<Timestamp> time;
+
+    private SimpleMeterRegistry meterRegistry;
+    private JdbcConversationStateStore store;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        store = new JdbcConversationStateStore(
+                jdbcTemplate, new ObjectMapper().registerModule(new JavaTimeModule()), TTL, meterRegistry);
+    }
+
+    @Test
+    public void testStoresStateAsJsonUntilTtl() {
+        Task task = new Task();
+        task.setDescription("Write the report");
+        task.setState("TODO");
+        task.setCreatedAt(OffsetDateTime.of(2024, 5, 1, 10, 0, 0, 0, ZoneOffset.UTC));
+
+        Instant before = Instant.now();
+        store.put("new_task", 1L, task);
+        Instant after = Instant.now();
+
+        verify(jdbcTemplate).update(startsWith("MERGE INTO BOT_CONVERSATION_STATE"),
+                eq(1L), eq("new_task"), payload.capture(), time.capture(), any(), any());
+        Instant expiresAt = time.getValue().toInstant();
+        assertFalse(expiresAt.isBefore(before.plus(TTL)));
+        assertFalse(expiresAt.isAfter(after.plus(TTL)));
+
+        // Read back through the fields, Task's accessors don't all match them
+        when(jdbcTemplate.queryForList(startsWith("SELECT PAYLOAD"), eq(String.class),
+                eq(1L), eq("new_task"), any(Timestamp.class)))
+                .thenReturn(List.of(payload.getValue()));
+        Task stored = store.get("new_task", 1L, Task.class).get();
+        assertEquals("Write the report", stored.getDescription());
+        assertEquals("TODO", stored.getState());
+        assertEquals(task.getCreatedAt().toInstant(), stored.getCreatedAt().toInstant());
+    }
+
+    @Test
+    public void testReadsOnlyRowsNotExpired() {
+        when(jdbcTemplate.queryForList(startsWith("SELECT PAYLOAD"), eq(String.class),
+                eq(1L), eq("command"), any(Timestamp.class)))
+                .thenReturn(List.of());
+
+        Instant before = Instant.now();
+        assertFalse(store.get("command", 1L, String.class).isPresent());
+        Instant after = Instant.now();
+
+        verify(jdbcTemplate).queryForList(payload.capture(), eq(String.class),
+                eq(1L), eq("command"), time.capture());
+        assertTrue(payload.getValue().endsWith("EXPIRES_AT > ?"), payload.getValue());
+        Instant cutoff = time.getValue().toInstant();
+        assertFalse(cutoff.isBefore(before));
+        assertFalse(cutoff.isAfter(after));
+    }
+
+    @Test
+    public void testDiscardsUnreadableState() {
+        when(jdbcTemplate.queryForList(startsWith("SELECT PAYLOAD"), eq(String.class),
+                eq(1L), eq("task_done_hours"), any(Timestamp.class)))
+                .thenReturn(List.of("{not json"));
+
+        assertFalse(store.get("task_done_hours", 1L, Integer.class).isPresent());
+        verify(jdbcTemplate).update(
+                "DELETE FROM BOT_CONVERSATION_STATE WHERE CHAT_ID = ? AND NAMESPACE = ?",
+                1L, "task_done_hours");
+    }
+
+    @Test
+    public void testSweepsExpiredRowsAtMostOncePerMinute() {
+        when(jdbcTemplate.update(startsWith("DELETE FROM BOT_CONVERSATION_STATE WHERE EXPIRES_AT"),
+                any(Timestamp.class)))
+                .thenReturn(3);
+        when(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM BOT_CONVERSATION_STATE", Long.class))
+                .thenReturn(7L);
+
+        store.put("command", 1L, "/tasknew");
+        store.put("command", 2L, "/tasknew");
+
+        verify(jdbcTemplate, times(1)).update(
+                startsWith("DELETE FROM BOT_CONVERSATION_STATE WHERE EXPIRES_AT"), any(Timestamp.class));
+        assertEquals(3, meterRegistry.get("bot.state.evictions").tag("store", "jdbc").counter().count());
+        assertEquals(7, meterRegistry.get("bot.state.size").tag("store", "jdbc").gauge().value());
+    }
+}
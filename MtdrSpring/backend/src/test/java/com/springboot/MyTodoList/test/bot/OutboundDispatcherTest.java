@@ -0,0 +1,146 @@
+package com.springboot.MyTodoList.test.bot;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.meta.api.methods.ActionType;
+import org.telegram.telegrambots.meta.api.methods.botapimethods.BotApiMethod;
+import org.telegram.telegrambots.meta.api.methods.send.SendChatAction;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.objects.message.Message;
+
+import com.springboot.MyTodoList.bot.OutboundDispatcher;
+import com.springboot.MyTodoList.bot.TokenBucket;
+import com.springboot.MyTodoList.test.util.FakeTelegramClient;
+
+public class OutboundDispatcherTest {
+
+    private final FakeTelegramClient telegram = new FakeTelegramClient();
+    private OutboundDispatcher dispatcher;
+
+    @AfterEach
+    public void tearDown() {
+        dispatcher.shutdown();
+    }
+
+    private static SendMessage message(long chatId, String text) {
+        return SendMessage.builder().chatId(chatId).text(text).build();
+    }
+
+    private static SendChatAction typing(long chatId) {
+        return SendChatAction.builder().chatId(chatId).action(ActionType.TYPING.toString()).build();
+    }
+
+    private List<String> sentTexts() {
+        return telegram.getCalls().stream()
+            .filter(call -> call instanceof SendMessage)
+            .map(call -> ((SendMessage) call).getText())
+            .collect(Collectors.toList());
+    }
+
+    @Test
+    public void testSendsOneCallPerChatAtATimeInOrder() throws Exception {
+        dispatcher = new OutboundDispatcher(telegram.client(), 100, 100, 6000, 100);
+        telegram.hold();
+
+        dispatcher.submit(1L, message(1, "first"));
+        dispatcher.submit(1L, message(1, "second"));
+        CompletableFuture<Message> last = dispatcher.submit(1L, message(1, "third"));
+        dispatcher.submit(2L, message(2, "other chat"));
+
+        assertTrue(telegram.awaitCalls(2, 1000));
+        Thread.sleep(100);
+        assertEquals(List.of("first", "other chat"), sentTexts());
+
+        telegram.release();
+        last.get(1, TimeUnit.SECONDS);
+        assertEquals(List.of("first", "other chat", "second", "third"), sentTexts());
+    }
+
+    @Test
+    public void testDropsTypingActionOvertakenByMessage() throws Exception {
+        dispatcher = new OutboundDispatcher(telegram.client(), 100, 100, 6000, 100);
+        telegram.hold();
+
+        dispatcher.submit(1L, message(1, "working on it"));
+        assertTrue(telegram.awaitCalls(1, 1000));
+        CompletableFuture<Boolean> action = dispatcher.submit(1L, typing(1));
+        CompletableFuture<Message> reply = dispatcher.submit(1L, message(1, "done"));
+
+        telegram.release();
+        reply.get(1, TimeUnit.SECONDS);
+        assertFalse(action.get(1, TimeUnit.SECONDS));
+        assertEquals(2, telegram.getCalls().size());
+        assertEquals(0, dispatcher.pending());
+    }
+
+    @Test
+    public void testRetriesAfterBeingRateLimited() throws Exception {
+        dispatcher = new OutboundDispatcher(telegram.client(), 100, 100, 6000, 100);
+        telegram.rateLimitNext(1, 1);
+
+        long start = System.nanoTime();
+        Message sent = dispatcher.submit(1L, message(1, "hello")).get(5, TimeUnit.SECONDS);
+
+        assertEquals(1, sent.getMessageId());
+        assertEquals(2, telegram.getCalls().size());
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(900));
+    }
+
+    @Test
+    public void testLimitsCallsPerChat() throws Exception {
+        // Bursts of 3, then 1 per second
+        dispatcher = new OutboundDispatcher(telegram.client(), 100, 1, 60, 100);
+
+        CompletableFuture<Message> last = null;
+        for (int i = 0; i < 5; i++) {
+            last = dispatcher.submit(1L, message(1, "message " + i));
+        }
+        dispatcher.submit(2L, message(2, "not held back"));
+
+        assertTrue(telegram.awaitCalls(4, 1000));
+        Thread.sleep(300);
+        assertEquals(4, telegram.getCalls().size());
+        last.get(5, TimeUnit.SECONDS);
+        assertEquals(6, telegram.getCalls().size());
+    }
+
+    @Test
+    public void testRejectsCallsWhenFull() {
+        dispatcher = new OutboundDispatcher(telegram.client(), 100, 100, 6000, 2);
+        telegram.hold();
+
+        dispatcher.submit(1L, message(1, "a"));
+        dispatcher.submit(1L, message(1, "b"));
+        CompletableFuture<Message> rejected = dispatcher.submit(1L, message(1, "c"));
+
+        assertTrue(rejected.isCompletedExceptionally());
+        telegram.release();
+    }
+
+    @Test
+    public void testTokenBucketRefillsOverTime() {
+        AtomicLong clock = new AtomicLong();
+        TokenBucket bucket = new TokenBucket(2, 1, clock::get);
+
+        assertTrue(bucket.tryTake());
+        assertTrue(bucket.tryTake());
+        assertFalse(bucket.tryTake());
+        assertEquals(TimeUnit.SECONDS.toNanos(1), bucket.nanosUntilAvailable());
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1500));
+        assertTrue(bucket.tryTake());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(500), bucket.nanosUntilAvailable());
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        assertTrue(bucket.isFull());
+    }
+}
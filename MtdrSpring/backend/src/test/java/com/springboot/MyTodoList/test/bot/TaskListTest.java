@@ -0,0 +1,143 @@
+package com.springboot.MyTodoList.test.bot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import org.mockito.Mock;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.springboot.MyTodoList.bot.command.core.CommandResult;
+import com.springboot.MyTodoList.bot.command.task.TaskListCommand;
+import com.springboot.MyTodoList.model.Task;
+import com.springboot.MyTodoList.service.SprintService;
+import com.springboot.MyTodoList.service.TaskService;
+import com.springboot.MyTodoList.test.bot.util.CommandTester;
+
+@ExtendWith(MockitoExtension.class)
+public class TaskListTest {
+    @Mock
+    private TaskService taskService;
+
+    @Mock
+    private SprintService sprintService;
+
+    private CommandTester tester;
+
+    /**
+     * The user's tasks, ids 1 to 25.
+     */
+    private static final List<Task> TASKS = new ArrayList<>();
+
+    static {
+        for (int id = 1; id <= 25; id++) {
+            Task task = new Task();
+            task.setID_Task(id);
+            task.setDescription("Task " + id);
+            task.setState("TODO");
+            TASKS.add(task);
+        }
+    }
+
+    @BeforeEach
+    public void setUp() {
+        // Same contract as the repository: ids after or before the cursor, in id order
+        lenient().when(taskService.findAssignedAfter(eq(1), anyBoolean(), anyInt(), anyInt()))
+                .thenAnswer(invocation -> {
+                    int after = invocation.getArgument(2);
+                    int limit = invocation.getArgument(3);
+                    return TASKS.stream()
+                            .filter(t -> t.getID_Task() > after)
+                            .limit(limit)
+                            .collect(Collectors.toList());
+                });
+        lenient().when(taskService.findAssignedBefore(eq(1), anyBoolean(), anyInt(), anyInt()))
+                .thenAnswer(invocation -> {
+                    int before = invocation.getArgument(2);
+                    int limit = invocation.getArgument(3);
+                    List<Task> earlier = TASKS.stream()
+                            .filter(t -> t.getID_Task() < before)
+                            .collect(Collectors.toList());
+                    return earlier.subList(Math.max(0, earlier.size() - limit), earlier.size());
+                });
+
+        tester = CommandTester.create()
+                .withCommand("/tasklist",
+                        mockClient -> new TaskListCommand(mockClient, taskService, sprintService))
+                .withAuthentication();
+    }
+
+    @Test
+    public void testFirstPageOnlyGoesForward() {
+        tester.sendMessage("/tasklist")
+                .assertResult(CommandResult.finish())
+                .assertContains("*Task 1*")
+                .assertContains("*Task 10*")
+                .assertNotContains("*Task 11*")
+                .assertButtons("/tasklist_next_10");
+        verify(taskService).findAssignedAfter(1, false, 0, 11);
+    }
+
+    @Test
+    public void testNextPageEditsTheList() {
+        tester.pressButton("/tasklist_next_10")
+                .assertResult(CommandResult.finish())
+                .assertEdited()
+                .assertContains("*Task 11*")
+                .assertContains("*Task 20*")
+                .assertNotContains("*Task 10*")
+                .assertNotContains("*Task 21*")
+                .assertButtons("/tasklist_prev_11", "/tasklist_next_20")
+                .assertAnswered("Page updated");
+    }
+
+    @Test
+    public void testLastPageOnlyGoesBack() {
+        tester.pressButton("/tasklist_next_20")
+                .assertContains("*Task 21*")
+                .assertContains("*Task 25*")
+                .assertButtons("/tasklist_prev_21");
+    }
+
+    @Test
+    public void testPreviousPage() {
+        tester.pressButton("/tasklist_prev_21")
+                .assertContains("*Task 11*")
+                .assertContains("*Task 20*")
+                .assertNotContains("*Task 21*")
+                .assertButtons("/tasklist_prev_11", "/tasklist_next_20");
+
+        tester.pressButton("/tasklist_prev_11")
+                .assertContains("*Task 1*")
+                .assertNotContains("*Task 11*")
+                .assertButtons("/tasklist_next_10");
+    }
+
+    @Test
+    public void testAllKeepsShowingFinishedTasks() {
+        tester.sendMessage("/tasklist all")
+                .assertButtons("/tasklist_next_10_all");
+        verify(taskService).findAssignedAfter(1, true, 0, 11);
+
+        tester.pressButton("/tasklist_next_10_all")
+                .assertButtons("/tasklist_prev_11_all", "/tasklist_next_20_all");
+        verify(taskService).findAssignedAfter(1, true, 10, 11);
+    }
+
+    @Test
+    public void testMalformedButtonIsRefused() {
+        tester.pressButton("/tasklist_next_abc")
+                .assertResult(CommandResult.finish())
+                .assertAnswered("Sorry, I can't do that.");
+        verify(taskService, never()).findAssignedAfter(anyInt(), anyBoolean(), anyInt(), anyInt());
+    }
+}
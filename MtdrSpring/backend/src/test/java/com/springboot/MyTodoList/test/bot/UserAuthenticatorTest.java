@@ -0,0 +1,161 @@
+package com.springboot.MyTodoList.test.bot;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.springboot.MyTodoList.bot.UserAuthenticator;
+import com.springboot.MyTodoList.model.User;
+import com.springboot.MyTodoList.repository.UserRepository;
+import com.springboot.MyTodoList.service.UserChangedEvent;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+public class UserAuthenticatorTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private AtomicLong clock;
+    private SimpleMeterRegistry registry;
+    private UserAuthenticator authenticator;
+
+    @BeforeEach
+    public void setUp() {
+        clock = new AtomicLong();
+        registry = new SimpleMeterRegistry();
+        authenticator = new UserAuthenticator(
+            userRepository, registry, Duration.ofMinutes(10), Duration.ofMinutes(1), clock::get);
+    }
+
+    private double lookups(String result) {
+        return registry.get("bot.auth.cache.lookups").tag("result", result).counter().count();
+    }
+
+    @Test
+    public void testKnownUsersAreCached() {
+        User user = new User(1, 42L, "Ana", "Developer");
+        when(userRepository.findByIdTelegram(42L)).thenReturn(Optional.of(user));
+
+        assertEquals(user, authenticator.authenticate(42L).get());
+        assertEquals(user, authenticator.authenticate(42L).get());
+
+        verify(userRepository, times(1)).findByIdTelegram(42L);
+        assertEquals(1, lookups("hit"));
+        assertEquals(1, lookups("miss"));
+    }
+
+    @Test
+    public void testSlowLookupOnlyHoldsUpTheSameSender() throws Exception {
+        User user = new User(1, 42L, "Ana", "Developer");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(userRepository.findByIdTelegram(42L)).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.of(user);
+        });
+        when(userRepository.findByIdTelegram(7L)).thenReturn(Optional.empty());
+
+        CompletableFuture<Optional<User>> first =
+            CompletableFuture.supplyAsync(() -> authenticator.authenticate(42L));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Optional<User>> second =
+            CompletableFuture.supplyAsync(() -> authenticator.authenticate(42L));
+
+        // Another sender is answered while the first query is still running
+        assertFalse(authenticator.authenticate(7L).isPresent());
+        assertFalse(first.isDone());
+
+        release.countDown();
+        assertEquals(user, first.get(5, TimeUnit.SECONDS).get());
+        assertEquals(user, second.get(5, TimeUnit.SECONDS).get());
+        verify(userRepository, times(1)).findByIdTelegram(42L);
+    }
+
+    @Test
+    public void testUnknownSendersAreRetriedSooner() {
+        User user = new User(1, 42L, "Ana", "Developer");
+        when(userRepository.findByIdTelegram(42L)).thenReturn(Optional.empty(), Optional.of(user));
+
+        assertFalse(authenticator.authenticate(42L).isPresent());
+        clock.addAndGet(Duration.ofSeconds(30).toNanos());
+        assertFalse(authenticator.authenticate(42L).isPresent());
+
+        // Registered meanwhile: found once the negative entry expires
+        clock.addAndGet(Duration.ofSeconds(31).toNanos());
+        assertTrue(authenticator.authenticate(42L).isPresent());
+        assertEquals(
+            1, registry.get("bot.auth.cache.evictions").tag("cause", "expired").counter().count());
+    }
+
+    @Test
+    public void testInvalidationGivesAccessImmediately() {
+        User user = new User(1, 42L, "Ana", "Developer");
+        when(userRepository.findByIdTelegram(42L)).thenReturn(Optional.empty(), Optional.of(user));
+
+        assertFalse(authenticator.authenticate(42L).isPresent());
+        authenticator.invalidate(42L);
+
+        assertTrue(authenticator.authenticate(42L).isPresent());
+        assertEquals(
+            1, registry.get("bot.auth.cache.evictions").tag("cause", "invalidated").counter().count());
+    }
+
+    @Test
+    public void testInvalidationDuringLookupIsNotCached() throws Exception {
+        User user = new User(1, 42L, "Ana", "Developer");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(userRepository.findByIdTelegram(42L))
+            .thenAnswer(invocation -> {
+                started.countDown();
+                release.await(5, TimeUnit.SECONDS);
+                // Read before the user was registered
+                return Optional.empty();
+            })
+            .thenReturn(Optional.of(user));
+
+        CompletableFuture<Optional<User>> first =
+            CompletableFuture.supplyAsync(() -> authenticator.authenticate(42L));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        authenticator.onUserChanged(new UserChangedEvent(1, 42L));
+        release.countDown();
+
+        assertFalse(first.get(5, TimeUnit.SECONDS).isPresent());
+        // The stale answer wasn't kept for the negative ttl
+        assertTrue(authenticator.authenticate(42L).isPresent());
+        verify(userRepository, times(2)).findByIdTelegram(42L);
+    }
+
+    @Test
+    public void testUserChangeInvalidatesOldAndNewTelegramIds() {
+        when(userRepository.findByIdTelegram(42L)).thenReturn(Optional.empty());
+        when(userRepository.findByIdTelegram(43L)).thenReturn(Optional.empty());
+        authenticator.authenticate(42L);
+        authenticator.authenticate(43L);
+
+        authenticator.onUserChanged(new UserChangedEvent(1, 42L, 43L, null));
+        authenticator.authenticate(42L);
+        authenticator.authenticate(43L);
+
+        verify(userRepository, times(2)).findByIdTelegram(42L);
+        verify(userRepository, times(2)).findByIdTelegram(43L);
+    }
+}
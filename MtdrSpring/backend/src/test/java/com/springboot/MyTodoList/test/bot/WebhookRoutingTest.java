@@ -0,0 +1,142 @@
+package com.springboot.MyTodoList.test.bot;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springboot.MyTodoList.bot.TelegramBot;
+import com.springboot.MyTodoList.bot.webhook.ChatRouter;
+import com.springboot.MyTodoList.bot.webhook.UpdateDeduplicator;
+import com.sun.net.httpserver.HttpServer;
+
+public class WebhookRoutingTest {
+
+    private static final String UPDATE =
+        "{\"update_id\":1001,\"message\":{\"message_id\":5,\"date\":1700000000,"
+            + "\"chat\":{\"id\":-100123,\"type\":\"group\"},"
+            + "\"from\":{\"id\":77,\"is_bot\":false,\"first_name\":\"Ana\"},"
+            + "\"text\":\"/tasklist\"}}";
+
+    private HttpServer peer;
+    private int peerStatus = 200;
+    private final List<String> received = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        // Stands in for the other replica
+        peer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        peer.createContext("/telegram/webhook", exchange -> {
+            received.add(exchange.getRequestHeaders().getFirst(ChatRouter.FORWARDED_HEADER)
+                + " " + exchange.getRequestHeaders().getFirst(ChatRouter.SECRET_HEADER)
+                + " " + new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            exchange.sendResponseHeaders(peerStatus, -1);
+            exchange.close();
+        });
+        peer.start();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        peer.stop(0);
+    }
+
+    private String peerUrl() {
+        return "http://127.0.0.1:" + peer.getAddress().getPort() + "/telegram/webhook?replica={index}";
+    }
+
+    @Test
+    public void testEveryChatHasExactlyOneOwner() {
+        ChatRouter[] replicas = new ChatRouter[3];
+        for (int i = 0; i < 3; i++) {
+            replicas[i] = new ChatRouter(3, i, peerUrl());
+        }
+
+        int[] owned = new int[3];
+        for (long chat = -1000; chat < 1000; chat++) {
+            int owners = 0;
+            for (int i = 0; i < 3; i++) {
+                if (replicas[i].isLocal(chat)) {
+                    owners++;
+                    owned[i]++;
+                }
+            }
+            assertEquals(1, owners);
+            assertEquals(replicas[0].ownerOf(chat), replicas[2].ownerOf(chat));
+        }
+        for (int count : owned) {
+            assertTrue(count > 500, "chats are spread across replicas");
+        }
+    }
+
+    @Test
+    public void testForwardsUpdateToOwner() throws Exception {
+        ChatRouter router = new ChatRouter(2, 0, peerUrl());
+        long chat = findChatOwnedBy(router, 1);
+
+        router.forward(chat, UPDATE, "s3cret");
+
+        assertEquals(List.of("0 s3cret " + UPDATE), received);
+    }
+
+    @Test
+    public void testFailsWhenOwnerRejectsUpdate() {
+        ChatRouter router = new ChatRouter(2, 0, peerUrl());
+        peerStatus = 503;
+
+        long chat = findChatOwnedBy(router, 1);
+        assertThrows(IOException.class, () -> router.forward(chat, UPDATE, "s3cret"));
+    }
+
+    @Test
+    public void testParsesWebhookUpdate() throws Exception {
+        Update update = new ObjectMapper().readValue(UPDATE, Update.class);
+
+        assertEquals(1001, update.getUpdateId());
+        assertEquals(-100123L, TelegramBot.chatIdOf(update).get());
+    }
+
+    @Test
+    public void testInlineMessageCallbackHasNoChat() throws Exception {
+        Update update = new ObjectMapper().readValue(
+            "{\"update_id\":1002,\"callback_query\":{\"id\":\"9\","
+                + "\"from\":{\"id\":77,\"is_bot\":false,\"first_name\":\"Ana\"},"
+                + "\"inline_message_id\":\"AAA\",\"chat_instance\":\"1\",\"data\":\"DO 3\"}}",
+            Update.class);
+
+        assertFalse(TelegramBot.chatIdOf(update).isPresent());
+    }
+
+    @Test
+    public void testRepeatedUpdatesAreDropped() {
+        UpdateDeduplicator deduplicator = new UpdateDeduplicator(3);
+
+        assertTrue(deduplicator.firstSeen(1));
+        assertTrue(deduplicator.firstSeen(2));
+        assertFalse(deduplicator.firstSeen(1));
+        assertTrue(deduplicator.firstSeen(3));
+        assertTrue(deduplicator.firstSeen(4));
+        // Only the last 3 are remembered
+        assertTrue(deduplicator.firstSeen(1));
+        assertFalse(deduplicator.firstSeen(4));
+    }
+
+    private static long findChatOwnedBy(ChatRouter router, int owner) {
+        for (long chat = 1; ; chat++) {
+            if (router.ownerOf(chat) == owner) {
+                return chat;
+            }
+        }
+    }
+}
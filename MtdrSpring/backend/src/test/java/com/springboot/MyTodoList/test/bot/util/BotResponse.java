@@ -1,21 +1,70 @@
 package com.springboot.MyTodoList.test.bot.util;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import org.telegram.telegrambots.meta.api.methods.AnswerCallbackQuery;
 import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageText;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardButton;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardRow;
 
 import com.springboot.MyTodoList.bot.command.core.CommandResult;
 
 public class BotResponse {
   private final List<SendMessage> response;
+  private final List<EditMessageText> edits;
+  private final List<AnswerCallbackQuery> answers;
   private final CommandResult result;
 
   public BotResponse(List<SendMessage> response, CommandResult result) {
+    this(response, List.of(), List.of(), result);
+  }
+
+  public BotResponse(
+      List<SendMessage> response,
+      List<EditMessageText> edits,
+      List<AnswerCallbackQuery> answers,
+      CommandResult result) {
     this.response = response;
+    this.edits = edits;
+    this.answers = answers;
     this.result = result;
   }
 
+  // Sent and edited messages alike
+  private List<String> texts() {
+    List<String> texts = new ArrayList<>();
+    response.forEach(message -> texts.add(message.getText()));
+    edits.forEach(edit -> texts.add(edit.getText()));
+    return texts;
+  }
+
+  private List<String> buttons() {
+    List<InlineKeyboardMarkup> keyboards = new ArrayList<>();
+    for (SendMessage message : response) {
+      if (message.getReplyMarkup() instanceof InlineKeyboardMarkup) {
+        keyboards.add((InlineKeyboardMarkup) message.getReplyMarkup());
+      }
+    }
+    for (EditMessageText edit : edits) {
+      if (edit.getReplyMarkup() != null) {
+        keyboards.add(edit.getReplyMarkup());
+      }
+    }
+    List<String> data = new ArrayList<>();
+    for (InlineKeyboardMarkup keyboard : keyboards) {
+      for (InlineKeyboardRow row : keyboard.getKeyboard()) {
+        for (InlineKeyboardButton button : row) {
+          data.add(button.getCallbackData());
+        }
+      }
+    }
+    return data;
+  }
+
   public BotResponse assertResult(CommandResult target) {
     // TODO: handle commandstate EXECUTE
     if (target.getState() == result.getState()) {
@@ -37,14 +86,54 @@ public class BotResponse {
      * @throws AssertionError if the text is not found
      */
     public BotResponse assertContains(String expectedText) {
-        for (SendMessage message : response) {
-            if (message.getText().contains(expectedText)) {
+        for (String text : texts()) {
+            if (text.contains(expectedText)) {
                 return this;
             }
         }
         throw new AssertionError(
             "Expected response to contain: " + expectedText +
-            "\nBot response:\n" + response.stream().map(msg -> msg.getText()).collect(Collectors.joining("\n")));
+            "\nBot response:\n" + String.join("\n", texts()));
+    }
+
+  public BotResponse assertNotContains(String unexpectedText) {
+    for (String text : texts()) {
+      if (text.contains(unexpectedText)) {
+        throw new AssertionError(
+            "Expected response not to contain: " + unexpectedText + "\nBot response:\n" + text);
+      }
     }
+    return this;
+  }
+
+  /**
+   * Check that the inline buttons of the response carry exactly the given
+   * callback data, in order.
+   */
+  public BotResponse assertButtons(String... callbackData) {
+    if (!buttons().equals(List.of(callbackData))) {
+      throw new AssertionError(
+          "Expected buttons " + List.of(callbackData) + ", but got: " + buttons());
+    }
+    return this;
+  }
+
+  public BotResponse assertEdited() {
+    if (edits.isEmpty()) {
+      throw new AssertionError("Expected the message to be edited");
+    }
+    return this;
+  }
+
+  public BotResponse assertAnswered(String expectedText) {
+    for (AnswerCallbackQuery answer : answers) {
+      if (expectedText.equals(answer.getText())) {
+        return this;
+      }
+    }
+    throw new AssertionError(
+        "Expected the callback query to be answered with: " + expectedText + "\nAnswers: "
+            + answers.stream().map(AnswerCallbackQuery::getText).collect(Collectors.joining(", ")));
+  }
 }
 
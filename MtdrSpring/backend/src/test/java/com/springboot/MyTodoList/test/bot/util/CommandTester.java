@@ -6,7 +6,9 @@ import java.util.Optional;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.telegram.telegrambots.meta.api.methods.AnswerCallbackQuery;
 import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageText;
 import org.telegram.telegrambots.meta.api.objects.Update;
 import org.telegram.telegrambots.meta.api.objects.message.Message;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
@@ -29,6 +31,8 @@ public class CommandTester {
 
   private Optional<User> appUser = Optional.empty();
   private final List<SendMessage> response = new ArrayList<>();
+  private final List<EditMessageText> edits = new ArrayList<>();
+  private final List<AnswerCallbackQuery> answers = new ArrayList<>();
   private com.springboot.MyTodoList.model.User authUser;
 
   private final Logger logger = LoggerFactory.getLogger(CommandTester.class);
@@ -49,6 +53,17 @@ public class CommandTester {
           Message mockMessage = mock(Message.class);
           return mockMessage;
         });
+      // Only commands with buttons edit messages or answer callback queries
+      lenient().when(mockClient.execute(any(EditMessageText.class)))
+        .thenAnswer(invocation -> {
+          edits.add(invocation.getArgument(0));
+          return true;
+        });
+      lenient().when(mockClient.execute(any(AnswerCallbackQuery.class)))
+        .thenAnswer(invocation -> {
+          answers.add(invocation.getArgument(0));
+          return true;
+        });
     } catch (TelegramApiException e) {
       logger.error("Unreachable code executed: TelegramApiException in mockito mock");
     }
@@ -82,5 +97,21 @@ public class CommandTester {
     CommandResult result = command.execute(context);
     return new BotResponse(response, result);
   }
+
+  /**
+   * Presses an inline button with the given callback data.
+   */
+  public BotResponse pressButton(String data) {
+    response.clear();
+    edits.clear();
+    answers.clear();
+    String[] args = data.split("_");
+
+    Update update = MockFactory.mockCallbackUpdate(MockFactory.USER, data);
+    CommandContext context = new CommandContext(args, update, registry, MockFactory.BOT_NAME, appUser);
+
+    CommandResult result = command.execute(context);
+    return new BotResponse(response, edits, answers, result);
+  }
 }
 
@@ -1,5 +1,6 @@
 package com.springboot.MyTodoList.test.bot.util;
 
+import org.telegram.telegrambots.meta.api.objects.CallbackQuery;
 import org.telegram.telegrambots.meta.api.objects.Update;
 import org.telegram.telegrambots.meta.api.objects.User;
 import org.telegram.telegrambots.meta.api.objects.message.Message;
@@ -27,4 +28,22 @@ public final class MockFactory {
 
     return update;
   }
+
+  public static Update mockCallbackUpdate(User user, String data) {
+    Update update = mock(Update.class);
+    CallbackQuery query = mock(CallbackQuery.class);
+    Message message = mock(Message.class);
+    // Not every command reads all of these
+    lenient().when(update.hasMessage()).thenReturn(false);
+    lenient().when(update.hasCallbackQuery()).thenReturn(true);
+    lenient().when(update.getCallbackQuery()).thenReturn(query);
+    lenient().when(query.getId()).thenReturn("query-1");
+    lenient().when(query.getData()).thenReturn(data);
+    lenient().when(query.getFrom()).thenReturn(user);
+    lenient().when(query.getMessage()).thenReturn(message);
+    lenient().when(message.getChatId()).thenReturn(user.getId());
+    lenient().when(message.getMessageId()).thenReturn(100);
+
+    return update;
+  }
 }
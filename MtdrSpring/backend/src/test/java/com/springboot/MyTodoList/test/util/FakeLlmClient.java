@@ -0,0 +1,101 @@
+package com.springboot.MyTodoList.test.util;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+import com.springboot.MyTodoList.service.llm.LlmClient;
+
+/**
+ * In-memory LlmClient for tests. Answers every prompt with a fixed response
+ * (streamed word by word) or a fixed failure, and records the prompts it got.
+ *
+ * Call hold() to keep answers pending until release(), e.g. to test callers
+ * that share in-flight requests.
+ */
+public class FakeLlmClient implements LlmClient {
+  private final List<String> prompts = new ArrayList<>();
+  private final List<Runnable> held = new ArrayList<>();
+  private boolean configured = true;
+  private boolean holding = false;
+  private String response = "Fake summary.";
+  private IOException failure;
+
+  public synchronized FakeLlmClient respondWith(String response) {
+    this.response = response;
+    this.failure = null;
+    return this;
+  }
+
+  public synchronized FakeLlmClient failWith(IOException failure) {
+    this.failure = failure;
+    return this;
+  }
+
+  public synchronized FakeLlmClient unconfigured() {
+    this.configured = false;
+    return this;
+  }
+
+  public synchronized FakeLlmClient hold() {
+    this.holding = true;
+    return this;
+  }
+
+  /**
+   * Answers every held call.
+   */
+  public void release() {
+    List<Runnable> answers;
+    synchronized (this) {
+      holding = false;
+      answers = new ArrayList<>(held);
+      held.clear();
+    }
+    answers.forEach(Runnable::run);
+  }
+
+  public synchronized List<String> getPrompts() {
+    return new ArrayList<>(prompts);
+  }
+
+  @Override
+  public synchronized boolean isConfigured() {
+    return configured;
+  }
+
+  @Override
+  public CompletableFuture<String> generate(String prompt) {
+    return stream(prompt, text -> {});
+  }
+
+  @Override
+  public CompletableFuture<String> stream(String prompt, Consumer<String> onText) {
+    CompletableFuture<String> result = new CompletableFuture<>();
+    Runnable answer;
+    synchronized (this) {
+      prompts.add(prompt);
+      String text = response;
+      IOException error = failure;
+      answer =
+          () -> {
+            if (error != null) {
+              result.completeExceptionally(error);
+              return;
+            }
+            for (String word : text.split("(?<= )")) {
+              onText.accept(word);
+            }
+            result.complete(text);
+          };
+      if (holding) {
+        held.add(answer);
+        return result;
+      }
+    }
+    answer.run();
+    return result;
+  }
+}
@@ -0,0 +1,125 @@
+package com.springboot.MyTodoList.test.util;
+
+import java.io.Serializable;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.telegram.telegrambots.meta.api.methods.botapimethods.BotApiMethod;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.objects.ApiResponse;
+import org.telegram.telegrambots.meta.api.objects.ResponseParameters;
+import org.telegram.telegrambots.meta.api.objects.message.Message;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+import org.telegram.telegrambots.meta.generics.TelegramClient;
+
+/**
+ * A TelegramClient that records the calls made through executeAsync instead of
+ * sending them. Messages get increasing ids, other methods answer true.
+ *
+ * Answers can be held back, to see what's sent while calls are in flight, and
+ * calls can be answered with 429 to test rate limiting.
+ */
+public class FakeTelegramClient implements InvocationHandler {
+
+    private final List<BotApiMethod<?>> calls = new ArrayList<>();
+    private final List<Runnable> held = new ArrayList<>();
+    private final AtomicInteger messageIds = new AtomicInteger();
+    private boolean holding = false;
+    private int rateLimited = 0;
+    private int retryAfter = 1;
+
+    private final TelegramClient client = (TelegramClient) Proxy.newProxyInstance(
+        TelegramClient.class.getClassLoader(), new Class<?>[] {TelegramClient.class}, this);
+
+    public TelegramClient client() {
+        return client;
+    }
+
+    /**
+     * Keep calls in flight until release is called.
+     */
+    public synchronized FakeTelegramClient hold() {
+        holding = true;
+        return this;
+    }
+
+    public void release() {
+        List<Runnable> answers;
+        synchronized (this) {
+            holding = false;
+            answers = new ArrayList<>(held);
+            held.clear();
+        }
+        answers.forEach(Runnable::run);
+    }
+
+    /**
+     * Answer the next calls with 429 Too Many Requests.
+     */
+    public synchronized FakeTelegramClient rateLimitNext(int times, int retryAfterSeconds) {
+        rateLimited = times;
+        retryAfter = retryAfterSeconds;
+        return this;
+    }
+
+    public synchronized List<BotApiMethod<?>> getCalls() {
+        return new ArrayList<>(calls);
+    }
+
+    /**
+     * Waits until at least count calls were made, or the timeout passes.
+     */
+    public synchronized boolean awaitCalls(int count, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (calls.size() < count) {
+            long left = deadline - System.currentTimeMillis();
+            if (left <= 0) {
+                return false;
+            }
+            wait(left);
+        }
+        return true;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+        if (method.getName().equals("executeAsync") && args[0] instanceof BotApiMethod) {
+            return executeAsync((BotApiMethod<?>) args[0]);
+        }
+        throw new UnsupportedOperationException("FakeTelegramClient doesn't support " + method);
+    }
+
+    private synchronized CompletableFuture<Serializable> executeAsync(BotApiMethod<?> call) {
+        calls.add(call);
+        notifyAll();
+        CompletableFuture<Serializable> result = new CompletableFuture<>();
+        Runnable answer;
+        if (rateLimited > 0) {
+            rateLimited--;
+            ApiResponse<Object> response = ApiResponse.builder()
+                .ok(false)
+                .errorCode(429)
+                .errorDescription("Too Many Requests")
+                .parameters(new ResponseParameters(null, retryAfter))
+                .build();
+            answer = () -> result.completeExceptionally(new TelegramApiRequestException("", response));
+        } else if (call instanceof SendMessage) {
+            Message message = new Message();
+            message.setMessageId(messageIds.incrementAndGet());
+            answer = () -> result.complete(message);
+        } else {
+            answer = () -> result.complete(Boolean.TRUE);
+        }
+        if (holding) {
+            held.add(answer);
+        } else {
+            answer.run();
+        }
+        return result;
+    }
+}
@@ -48,3 +48,56 @@ CREATE TABLE TODOUSER.Messages (
 
 ALTER TABLE TODOUSER.TODOITEM ADD DELIVERY_TS TIMESTAMP(6) WITH TIME ZONE;
 
+
+-- Multi-step bot conversations, used with bot.state.store=jdbc
+CREATE TABLE TODOUSER.BOT_CONVERSATION_STATE (
+    CHAT_ID NUMBER NOT NULL,
+    NAMESPACE VARCHAR2(64) NOT NULL,
+    PAYLOAD CLOB,
+    EXPIRES_AT TIMESTAMP NOT NULL,
+    PRIMARY KEY (CHAT_ID, NAMESPACE)
+);
+
+CREATE INDEX TODOUSER.BOT_CONVERSATION_STATE_EXP_IDX
+    ON TODOUSER.BOT_CONVERSATION_STATE (EXPIRES_AT);
+
+-- The bot looks users up by Telegram ID on every new sender. ID_Telegram is
+-- compared as a number, so index it as one.
+CREATE INDEX TODOUSER.USERS_TELEGRAM_IDX ON TODOUSER.Users (TO_NUMBER(ID_Telegram));
+
+-- Keyset pagination of a user's tasks (/tasklist) reads this index in ID_Task order
+CREATE INDEX TODOUSER.TASKS_ASSIGNEE_IDX ON TODOUSER.Tasks (Assigned_To, ID_Task);
+
+-- Task search (GET /task) pages by the sort key and ID_Task, so each filter it
+-- is commonly used with gets an index ending in ID_Task.
+CREATE INDEX TODOUSER.TASKS_SPRINT_IDX ON TODOUSER.Tasks (ID_Sprint, ID_Task);
+CREATE INDEX TODOUSER.TASKS_STATE_IDX ON TODOUSER.Tasks (State, ID_Task);
+-- Finished tasks are matched as UPPER(State) = 'DONE' (Task.DONE_JPQL), so
+-- index them as that too.
+CREATE INDEX TODOUSER.TASKS_DONE_IDX ON TODOUSER.Tasks (UPPER(State), ID_Task);
+-- Recommended where the table has the columns the application maps
+-- (FINISHES_AT, CREATED_AT, UPDATED_AT), for sort=dueDate and due-date ranges:
+-- CREATE INDEX TODOUSER.TASKS_DUE_IDX ON TODOUSER.Tasks (FINISHES_AT, ID_Task);
+
+-- Task ids are taken from this sequence 50 at a time (allocationSize on Task),
+-- so INCREMENT BY must stay 50. On an existing database, start it above
+-- MAX(ID_Task), and drop the identity from ID_TASK if it has one:
+--   ALTER TABLE TODOUSER.Tasks MODIFY ID_Task DROP IDENTITY;
+CREATE SEQUENCE TODOUSER.TASKS_SEQ START WITH 1 INCREMENT BY 50;
+
+-- Optimistic locking of tasks: every update bumps VERSION, and updates made
+-- against an older version are rejected.
+ALTER TABLE TODOUSER.Tasks ADD VERSION NUMBER DEFAULT 0 NOT NULL;
+
+-- Notification outbox: a message is pending until the dispatcher sends it to
+-- the recipient's Telegram chat and sets DELIVERED_AT. ATTEMPTS and
+-- NEXT_ATTEMPT_AT lease claimed messages to one replica and space out retries.
+ALTER TABLE TODOUSER.Messages ADD (
+    DELIVERED_AT TIMESTAMP WITH TIME ZONE,
+    ATTEMPTS NUMBER DEFAULT 0 NOT NULL,
+    NEXT_ATTEMPT_AT TIMESTAMP WITH TIME ZONE
+);
+-- Messages posted before the outbox existed aren't sent
+UPDATE TODOUSER.Messages SET DELIVERED_AT = Posted_At WHERE DELIVERED_AT IS NULL;
+-- Every row has an ID_Message, so pending rows (null DELIVERED_AT) are indexed too
+CREATE INDEX TODOUSER.MESSAGES_PENDING_IDX ON TODOUSER.Messages (DELIVERED_AT, ID_Message);